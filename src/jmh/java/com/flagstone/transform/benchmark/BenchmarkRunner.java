@@ -0,0 +1,95 @@
+/*
+ * BenchmarkRunner.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner runs the benchmarks with the allocation profiler enabled
+ * so the results show the memory allocated for each operation as well as
+ * the time taken.
+ *
+ * <pre>
+ * mvn -Pbenchmark verify
+ * mvn -Pbenchmark verify -Dbenchmark.include=TagBenchmark
+ * mvn -Pbenchmark verify -Dbenchmark.corpus=/path/to/files
+ * </pre>
+ *
+ * <p>
+ * The arguments are regular expressions selecting the benchmarks to run.
+ * If there are none all the benchmarks are run.
+ * </p>
+ */
+public final class BenchmarkRunner {
+
+    /** The number of warm up iterations. */
+    private static final int WARMUP = 5;
+    /** The number of measured iterations. */
+    private static final int ITERATIONS = 5;
+    /** The number of forked JVMs. */
+    private static final int FORKS = 1;
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args regular expressions selecting the benchmarks to run.
+     * @throws RunnerException if the benchmarks could not be run.
+     */
+    public static void main(final String[] args) throws RunnerException {
+        final ChainedOptionsBuilder options = new OptionsBuilder()
+                .addProfiler(GCProfiler.class)
+                .warmupIterations(WARMUP)
+                .measurementIterations(ITERATIONS)
+                .forks(FORKS)
+                .jvmArgsAppend("-D" + Samples.CORPUS_PROPERTY + "="
+                        + System.getProperty(Samples.CORPUS_PROPERTY,
+                                Samples.DEFAULT_CORPUS));
+
+        if (args.length == 0) {
+            options.include(BenchmarkRunner.class.getPackage().getName());
+        } else {
+            for (final String pattern : args) {
+                options.include(pattern);
+            }
+        }
+        new Runner(options.build()).run();
+    }
+
+    /** Private constructor. */
+    private BenchmarkRunner() {
+        // Private
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * CoderBenchmark.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.flagstone.transform.coder.SWFDecoder;
+import com.flagstone.transform.coder.SWFEncoder;
+
+/**
+ * CoderBenchmark measures the primitive operations used by all the objects
+ * when they are decoded and encoded: reading and writing bit fields, 16-bit
+ * and 32-bit integers and strings.
+ *
+ * <p>
+ * Each invocation processes a fixed block of random data so the score is
+ * the time for a single value.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CoderBenchmark {
+
+    /** The number of values read or written in each invocation. */
+    private static final int COUNT = 4096;
+    /** The number of bytes in the block of data. */
+    private static final int SIZE = COUNT * 4;
+    /** The string written and read. */
+    private static final String TEXT = "The quick brown fox";
+
+    /** The number of bits in each bit field. */
+    @Param({"5", "17" })
+    public int bits;
+
+    /** The data decoded. */
+    private byte[] data;
+    /** The values encoded. */
+    private int[] values;
+    /** The stream the encoder writes to. */
+    private ByteArrayOutputStream stream;
+
+    /** Create the random data. */
+    @Setup
+    public void setup() {
+        final Random random = new Random(1);
+        data = new byte[SIZE];
+        random.nextBytes(data);
+        values = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            values[i] = random.nextInt(1 << bits);
+        }
+        stream = new ByteArrayOutputStream(SIZE);
+    }
+
+    /**
+     * Read signed bit fields.
+     *
+     * @return the sum of the values, so the reads are not eliminated.
+     * @throws IOException if the data cannot be read.
+     */
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int readBits() throws IOException {
+        final SWFDecoder coder = new SWFDecoder(ByteBuffer.wrap(data));
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += coder.readBits(bits, true);
+        }
+        return sum;
+    }
+
+    /**
+     * Read 16-bit integers.
+     *
+     * @return the sum of the values, so the reads are not eliminated.
+     * @throws IOException if the data cannot be read.
+     */
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int readUnsignedShort() throws IOException {
+        final SWFDecoder coder = new SWFDecoder(ByteBuffer.wrap(data));
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += coder.readUnsignedShort();
+        }
+        return sum;
+    }
+
+    /**
+     * Read 32-bit integers.
+     *
+     * @return the sum of the values, so the reads are not eliminated.
+     * @throws IOException if the data cannot be read.
+     */
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int readInt() throws IOException {
+        final SWFDecoder coder = new SWFDecoder(ByteBuffer.wrap(data));
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += coder.readInt();
+        }
+        return sum;
+    }
+
+    /**
+     * Write bit fields.
+     *
+     * @return the number of bytes written.
+     * @throws IOException if the data cannot be written.
+     */
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int writeBits() throws IOException {
+        stream.reset();
+        final SWFEncoder coder = new SWFEncoder(stream);
+        for (int i = 0; i < COUNT; i++) {
+            coder.writeBits(values[i], bits);
+        }
+        coder.alignToByte();
+        coder.flush();
+        return stream.size();
+    }
+
+    /**
+     * Write 16-bit integers.
+     *
+     * @return the number of bytes written.
+     * @throws IOException if the data cannot be written.
+     */
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int writeShort() throws IOException {
+        stream.reset();
+        final SWFEncoder coder = new SWFEncoder(stream);
+        for (int i = 0; i < COUNT; i++) {
+            coder.writeShort(values[i]);
+        }
+        coder.flush();
+        return stream.size();
+    }
+
+    /**
+     * Write 32-bit integers.
+     *
+     * @return the number of bytes written.
+     * @throws IOException if the data cannot be written.
+     */
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int writeInt() throws IOException {
+        stream.reset();
+        final SWFEncoder coder = new SWFEncoder(stream);
+        for (int i = 0; i < COUNT; i++) {
+            coder.writeInt(values[i]);
+        }
+        coder.flush();
+        return stream.size();
+    }
+
+    /**
+     * Write and read back a null-terminated string.
+     *
+     * @return the string that was read.
+     * @throws IOException if the data cannot be written or read.
+     */
+    @Benchmark
+    public String writeAndReadString() throws IOException {
+        stream.reset();
+        final SWFEncoder encoder = new SWFEncoder(stream);
+        encoder.writeString(TEXT);
+        encoder.flush();
+        return new SWFDecoder(ByteBuffer.wrap(stream.toByteArray()))
+                .readString();
+    }
+}
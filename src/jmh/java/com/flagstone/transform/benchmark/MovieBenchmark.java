@@ -0,0 +1,155 @@
+/*
+ * MovieBenchmark.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.flagstone.transform.Movie;
+
+/**
+ * MovieBenchmark measures decoding and encoding entire movies, either the
+ * files in the corpus or a synthetic movie, with and without compression.
+ * The files are held in memory so the time for reading and writing files is
+ * not included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MovieBenchmark {
+
+    /** The source of the movies: the corpus or a synthetic movie. */
+    @Param({"corpus", "synthetic" })
+    public String source;
+
+    /** Whether the movies are compressed. */
+    @Param({"false", "true" })
+    public boolean compressed;
+
+    /** The decoded movies. */
+    private List<Movie> movies;
+    /** The encoded movies. */
+    private List<byte[]> files;
+    /** The stream the movies are encoded to. */
+    private ByteArrayOutputStream stream;
+
+    /**
+     * Load or generate the movies and encode them.
+     *
+     * @throws DataFormatException if a file does not contain Flash data.
+     * @throws IOException if a file cannot be read.
+     */
+    @Setup
+    public void setup() throws DataFormatException, IOException {
+        if ("synthetic".equals(source)) {
+            movies = new ArrayList<Movie>();
+            movies.add(Samples.synthetic());
+        } else {
+            movies = Samples.corpusMovies();
+        }
+        files = new ArrayList<byte[]>(movies.size());
+        for (final Movie movie : movies) {
+            files.add(Samples.encode(movie, compressed));
+        }
+        stream = new ByteArrayOutputStream();
+    }
+
+    /**
+     * Decode the movies.
+     *
+     * @param hole receives each movie so the decoding is not eliminated.
+     * @throws DataFormatException if a file does not contain Flash data.
+     * @throws IOException if a movie cannot be decoded.
+     */
+    @Benchmark
+    public void decode(final Blackhole hole)
+            throws DataFormatException, IOException {
+        Movie movie;
+        for (final byte[] data : files) {
+            movie = new Movie();
+            movie.decodeFromBuffer(ByteBuffer.wrap(data));
+            hole.consume(movie);
+        }
+    }
+
+    /**
+     * Encode the movies.
+     *
+     * @param hole receives the length of each movie.
+     * @throws DataFormatException if a movie cannot be compressed.
+     * @throws IOException if a movie cannot be encoded.
+     */
+    @Benchmark
+    public void encode(final Blackhole hole)
+            throws DataFormatException, IOException {
+        for (final Movie movie : movies) {
+            stream.reset();
+            movie.encodeToStream(stream);
+            hole.consume(stream.size());
+        }
+    }
+
+    /**
+     * Decode each movie then encode it again.
+     *
+     * @param hole receives the length of each movie.
+     * @throws DataFormatException if a file does not contain Flash data.
+     * @throws IOException if a movie cannot be decoded or encoded.
+     */
+    @Benchmark
+    public void roundTrip(final Blackhole hole)
+            throws DataFormatException, IOException {
+        Movie movie;
+        for (final byte[] data : files) {
+            movie = new Movie();
+            movie.decodeFromBuffer(ByteBuffer.wrap(data));
+            stream.reset();
+            movie.encodeToStream(stream);
+            hole.consume(stream.size());
+        }
+    }
+}
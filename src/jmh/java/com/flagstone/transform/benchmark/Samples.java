@@ -0,0 +1,271 @@
+/*
+ * Samples.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+
+import com.flagstone.transform.Background;
+import com.flagstone.transform.Movie;
+import com.flagstone.transform.MovieHeader;
+import com.flagstone.transform.MovieTag;
+import com.flagstone.transform.Place2;
+import com.flagstone.transform.Place3;
+import com.flagstone.transform.ShowFrame;
+import com.flagstone.transform.datatype.Bounds;
+import com.flagstone.transform.datatype.Color;
+import com.flagstone.transform.datatype.CoordTransform;
+import com.flagstone.transform.fillstyle.SolidFill;
+import com.flagstone.transform.font.DefineFont2;
+import com.flagstone.transform.font.DefineFont3;
+import com.flagstone.transform.linestyle.LineStyle1;
+import com.flagstone.transform.shape.DefineShape3;
+import com.flagstone.transform.tools.BatchProcessor;
+import com.flagstone.transform.util.shape.Canvas;
+
+/**
+ * Samples provides the movies and tags used by the benchmarks.
+ *
+ * <p>
+ * The corpus of real files is read from the directory given by the system
+ * property benchmark.corpus, which defaults to the reference files used by
+ * the tests. Synthetic movies are generated so the benchmarks also cover
+ * files that are larger than those in the reference set.
+ * </p>
+ */
+final class Samples {
+
+    /** The system property naming the directory of files to use. */
+    static final String CORPUS_PROPERTY = "benchmark.corpus";
+    /** The default directory of files. */
+    static final String DEFAULT_CORPUS = "src/test/resources/swf-reference";
+
+    /** The number of frames in the synthetic movie. */
+    private static final int FRAMES = 500;
+    /** The number of shapes defined in each frame. */
+    private static final int SHAPES_PER_FRAME = 4;
+    /** The size of each shape, in twips. */
+    private static final int SHAPE_SIZE = 2000;
+    /** The width of the outline of each shape, in twips. */
+    private static final int LINE_WIDTH = 20;
+    /** The width of the frame, in twips. */
+    private static final int FRAME_WIDTH = 8000;
+    /** The height of the frame, in twips. */
+    private static final int FRAME_HEIGHT = 6000;
+    /** The frame rate of the synthetic movie. */
+    private static final float FRAME_RATE = 24.0f;
+    /** Bit mask for the colour channels used in the synthetic movie. */
+    private static final int CHANNEL_MASK = 255;
+
+    /**
+     * Get the Flash files in the corpus.
+     *
+     * @return the list of files.
+     */
+    static List<File> corpus() {
+        return BatchProcessor.listFiles(new File(System.getProperty(
+                CORPUS_PROPERTY, DEFAULT_CORPUS)));
+    }
+
+    /**
+     * Decode each of the files in the corpus.
+     *
+     * @return the list of movies.
+     * @throws DataFormatException if a file does not contain Flash data.
+     * @throws IOException if a file cannot be read.
+     */
+    static List<Movie> corpusMovies() throws DataFormatException,
+            IOException {
+        final List<Movie> movies = new ArrayList<Movie>();
+        Movie movie;
+        for (final File file : corpus()) {
+            movie = new Movie();
+            movie.decodeFromFile(file);
+            movies.add(movie);
+        }
+        return movies;
+    }
+
+    /**
+     * Generate a movie where each frame defines and places a set of shapes.
+     *
+     * @return the synthetic movie.
+     */
+    static Movie synthetic() {
+        final MovieHeader header = new MovieHeader();
+        header.setFrameSize(new Bounds(0, 0, FRAME_WIDTH, FRAME_HEIGHT));
+        header.setFrameRate(FRAME_RATE);
+
+        final Movie movie = new Movie();
+        movie.add(header);
+        movie.add(new Background(new Color(CHANNEL_MASK, CHANNEL_MASK,
+                CHANNEL_MASK)));
+
+        final Canvas path = new Canvas();
+        int uid = 1;
+        int layer = 1;
+
+        for (int frame = 0; frame < FRAMES; frame++) {
+            for (int i = 0; i < SHAPES_PER_FRAME; i++, uid++, layer++) {
+                path.clear();
+                path.setLineStyle(new LineStyle1(LINE_WIDTH,
+                        new Color(0, 0, 0)));
+                path.setFillStyle(new SolidFill(new Color(uid & CHANNEL_MASK,
+                        frame & CHANNEL_MASK, i, CHANNEL_MASK)));
+                path.move(0, 0);
+                path.rline(SHAPE_SIZE, 0);
+                path.rline(0, SHAPE_SIZE);
+                path.rline(-SHAPE_SIZE, 0);
+                path.close();
+                final DefineShape3 shape = path.defineTransparentShape(uid);
+                movie.add(shape);
+                movie.add(Place2.show(uid, layer, (i * SHAPE_SIZE)
+                        % FRAME_WIDTH, frame % FRAME_HEIGHT));
+            }
+            movie.add(ShowFrame.getInstance());
+        }
+        return movie;
+    }
+
+    /**
+     * Encode a movie.
+     *
+     * @param movie the movie.
+     * @param compressed whether the movie is compressed.
+     * @return the encoded movie.
+     * @throws DataFormatException if the movie cannot be compressed.
+     * @throws IOException if the movie cannot be encoded.
+     */
+    static byte[] encode(final Movie movie, final boolean compressed)
+            throws DataFormatException, IOException {
+        ((MovieHeader) movie.getObjects().get(0)).setCompressed(compressed);
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        movie.encodeToStream(stream);
+        return stream.toByteArray();
+    }
+
+    /**
+     * Find a tag with the given class name in the corpus. DefineFont3 and
+     * Place3 are not found in the reference files so they are generated
+     * from the first DefineFont2 and Place2 objects.
+     *
+     * @param name the simple name of the class.
+     * @return the first tag with that class.
+     * @throws DataFormatException if a file does not contain Flash data.
+     * @throws IOException if a file cannot be read.
+     */
+    static MovieTag tag(final String name) throws DataFormatException,
+            IOException {
+        MovieTag found = find(name);
+        if (found == null && "DefineFont3".equals(name)) {
+            found = toFont3((DefineFont2) find("DefineFont2"));
+        } else if (found == null && "Place3".equals(name)) {
+            found = toPlace3((Place2) find("Place2"));
+        }
+        if (found == null) {
+            throw new IllegalArgumentException("No " + name + " in corpus");
+        }
+        return found;
+    }
+
+    /**
+     * Find a tag with the given class name in the corpus.
+     *
+     * @param name the simple name of the class.
+     * @return the first tag with that class or null if none was found.
+     * @throws DataFormatException if a file does not contain Flash data.
+     * @throws IOException if a file cannot be read.
+     */
+    private static MovieTag find(final String name)
+            throws DataFormatException, IOException {
+        for (final Movie movie : corpusMovies()) {
+            for (final MovieTag tag : movie.getObjects()) {
+                if (tag.getClass().getSimpleName().equals(name)) {
+                    return tag;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Create a DefineFont3 with the same glyphs as a DefineFont2.
+     *
+     * @param font the DefineFont2 object or null.
+     * @return the DefineFont3 object or null.
+     */
+    private static DefineFont3 toFont3(final DefineFont2 font) {
+        DefineFont3 result = null;
+        if (font != null) {
+            result = new DefineFont3(font.getIdentifier(), font.getName());
+            for (int i = 0; i < font.getShapes().size(); i++) {
+                result.addGlyph(font.getCodes().get(i),
+                        font.getShapes().get(i));
+            }
+            for (final Integer advance : font.getAdvances()) {
+                result.addAdvance(advance);
+            }
+            for (final Bounds bounds : font.getBounds()) {
+                result.add(bounds);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create a Place3 with the same fields as a Place2.
+     *
+     * @param place the Place2 object or null.
+     * @return the Place3 object or null.
+     */
+    private static Place3 toPlace3(final Place2 place) {
+        Place3 result = null;
+        if (place != null) {
+            final CoordTransform transform = place.getTransform();
+            result = new Place3().setType(place.getType())
+                    .setLayer(place.getLayer())
+                    .setIdentifier(place.getIdentifier())
+                    .setTransform(transform)
+                    .setColorTransform(place.getColorTransform());
+        }
+        return result;
+    }
+
+    /** Private constructor. */
+    private Samples() {
+        // Private
+    }
+}
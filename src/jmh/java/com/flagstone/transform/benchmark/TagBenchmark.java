@@ -0,0 +1,136 @@
+/*
+ * TagBenchmark.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.flagstone.transform.Movie;
+import com.flagstone.transform.MovieTag;
+import com.flagstone.transform.coder.Context;
+import com.flagstone.transform.coder.DecoderRegistry;
+import com.flagstone.transform.coder.SWFDecoder;
+import com.flagstone.transform.coder.SWFEncoder;
+import com.flagstone.transform.coder.SWFFactory;
+
+/**
+ * TagBenchmark measures decoding and encoding a single object for each of
+ * the types of tag that dominate the time taken to process typical files.
+ * The objects are taken from the corpus of files, see Samples.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TagBenchmark {
+
+    /** The simple name of the class of object. */
+    @Param({"DefineShape", "DefineShape2", "DefineShape3", "DefineFont2",
+        "DefineFont3", "Place2", "Place3", "DoAction", "DefineText" })
+    public String type;
+
+    /** The object encoded. */
+    private MovieTag tag;
+    /** The encoded object. */
+    private byte[] data;
+    /** The factory used to decode the object. */
+    private SWFFactory<MovieTag> factory;
+    /** The Context used to decode and encode the object. */
+    private Context context;
+    /** The list the decoded object is added to. */
+    private List<MovieTag> list;
+    /** The stream the encoder writes to. */
+    private ByteArrayOutputStream stream;
+
+    /**
+     * Find the object and encode it.
+     *
+     * @throws DataFormatException if a file does not contain Flash data.
+     * @throws IOException if the object cannot be encoded.
+     */
+    @Setup
+    public void setup() throws DataFormatException, IOException {
+        final DecoderRegistry registry = DecoderRegistry.getDefault();
+        factory = registry.getMovieDecoder();
+        context = new Context();
+        context.setRegistry(registry);
+        context.put(Context.VERSION, Movie.VERSION);
+        list = new ArrayList<MovieTag>(1);
+        tag = Samples.tag(type);
+        stream = new ByteArrayOutputStream();
+        encode();
+        data = stream.toByteArray();
+    }
+
+    /**
+     * Decode the object.
+     *
+     * @return the decoded object.
+     * @throws IOException if the object cannot be decoded.
+     */
+    @Benchmark
+    public MovieTag decode() throws IOException {
+        list.clear();
+        factory.getObject(list, new SWFDecoder(ByteBuffer.wrap(data)),
+                context);
+        return list.get(0);
+    }
+
+    /**
+     * Encode the object.
+     *
+     * @return the number of bytes written.
+     * @throws IOException if the object cannot be encoded.
+     */
+    @Benchmark
+    public int encode() throws IOException {
+        stream.reset();
+        final SWFEncoder coder = new SWFEncoder(stream);
+        tag.prepareToEncode(context);
+        tag.encode(coder, context);
+        coder.flush();
+        return stream.size();
+    }
+}
@@ -58,7 +58,7 @@ import com.flagstone.transform.datatype.Color;
  *
  * @see Color
  */
-public final class Background implements MovieTag {
+public final class Background implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "Background: { color=%s}";
@@ -66,6 +66,9 @@ public final class Background implements MovieTag {
     /** The colour that will be displayed on the screen background. */
     private Color color;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a Background object using values encoded in the
      * Flash binary format.
@@ -88,7 +91,7 @@ public final class Background implements MovieTag {
             length = coder.readInt();
         }
         coder.mark();
-        color = new Color(coder, context);
+        color = context.intern(new Color(coder, context));
         coder.check(length);
         coder.unmark();
     }
@@ -131,12 +134,33 @@ public final class Background implements MovieTag {
      *            the colour for the background. Must not be null.
      */
     public void setColor(final Color aColor) {
+        encoded = null;
         if (aColor == null) {
             throw new IllegalArgumentException();
         }
         color = aColor;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.SET_BACKGROUND_COLOR;
+    }
+
     /** {@inheritDoc} */
     public Background copy() {
         return new Background(this);
@@ -150,12 +174,19 @@ public final class Background implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         return 2 + Color.RGB;
     }
 
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         coder.writeShort((MovieTypes.SET_BACKGROUND_COLOR
                 << Coder.LENGTH_FIELD_SIZE) | Color.RGB);
         color.encode(coder, context);
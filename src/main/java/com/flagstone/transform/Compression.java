@@ -0,0 +1,270 @@
+/*
+ * Compression.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import com.flagstone.transform.coder.Copyable;
+import com.flagstone.transform.exception.IllegalArgumentRangeException;
+
+/**
+ * Compression contains the settings used to compress a movie when it is
+ * encoded: the level and strategy used by the Deflater, the size of the
+ * buffer used to write the compressed data and the size of the blocks that
+ * are compressed in parallel.
+ *
+ * <p>
+ * When the block size is greater than zero and the Movie has an executor then
+ * the data is divided into blocks which are compressed separately by the
+ * executor. Each block is compressed using the end of the previous block as
+ * a preset dictionary and the compressed blocks are written in order so the
+ * result is a single zlib stream that can be read by any Flash Player. This
+ * requires the Deflater to support flushing the output, which is available
+ * from Java 7 onwards. On earlier versions the data is compressed in the
+ * current thread.
+ * </p>
+ *
+ * <p>
+ * The default settings are the same as those used by DeflaterOutputStream.
+ * </p>
+ */
+public final class Compression implements Copyable<Compression> {
+
+    /** The default size of the buffer used to write compressed data. */
+    public static final int DEFAULT_BUFFER_SIZE = 512;
+    /** A block size suitable for compressing movies in parallel. */
+    public static final int DEFAULT_BLOCK_SIZE = 131072;
+
+    /** The level of compression, from 0 to 9, or -1 for the default. */
+    private int level;
+    /** The strategy used by the Deflater. */
+    private int strategy;
+    /** The size of the buffer used to write the compressed data. */
+    private int bufferSize;
+    /** The size of the blocks compressed in parallel or zero. */
+    private int blockSize;
+
+    /**
+     * Creates a Compression object with the default level and strategy and
+     * with compression performed in the current thread.
+     */
+    public Compression() {
+        level = Deflater.DEFAULT_COMPRESSION;
+        strategy = Deflater.DEFAULT_STRATEGY;
+        bufferSize = DEFAULT_BUFFER_SIZE;
+    }
+
+    /**
+     * Creates a Compression object with the specified level of compression.
+     *
+     * @param value
+     *            the level of compression, in the range 0 (none) to 9 (best),
+     *            or -1 for the default used by the Deflater.
+     */
+    public Compression(final int value) {
+        this();
+        setLevel(value);
+    }
+
+    /**
+     * Creates and initialises a Compression object using the values copied
+     * from another Compression object.
+     *
+     * @param object
+     *            a Compression object from which the values will be
+     *            copied.
+     */
+    public Compression(final Compression object) {
+        level = object.level;
+        strategy = object.strategy;
+        bufferSize = object.bufferSize;
+        blockSize = object.blockSize;
+    }
+
+    /**
+     * Get the level of compression.
+     *
+     * @return the compression level in the range 0 to 9 or -1 if the default
+     * level is used.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Sets the level of compression.
+     *
+     * @param value
+     *            the level of compression, in the range 0 (none) to 9 (best),
+     *            or -1 for the default used by the Deflater.
+     * @return this object.
+     */
+    public Compression setLevel(final int value) {
+        if ((value < Deflater.DEFAULT_COMPRESSION)
+                || (value > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentRangeException(
+                    Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION,
+                    value);
+        }
+        level = value;
+        return this;
+    }
+
+    /**
+     * Get the strategy used by the Deflater.
+     *
+     * @return the compression strategy, either Deflater.DEFAULT_STRATEGY,
+     * Deflater.FILTERED or Deflater.HUFFMAN_ONLY.
+     */
+    public int getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Sets the strategy used by the Deflater.
+     *
+     * @param value
+     *            the compression strategy, either Deflater.DEFAULT_STRATEGY,
+     *            Deflater.FILTERED or Deflater.HUFFMAN_ONLY.
+     * @return this object.
+     */
+    public Compression setStrategy(final int value) {
+        if ((value < Deflater.DEFAULT_STRATEGY)
+                || (value > Deflater.HUFFMAN_ONLY)) {
+            throw new IllegalArgumentRangeException(
+                    Deflater.DEFAULT_STRATEGY, Deflater.HUFFMAN_ONLY, value);
+        }
+        strategy = value;
+        return this;
+    }
+
+    /**
+     * Get the size of the buffer used to write the compressed data.
+     *
+     * @return the buffer size in bytes.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Sets the size of the buffer used to write the compressed data.
+     *
+     * @param size
+     *            the buffer size in bytes. Must be greater than zero.
+     * @return this object.
+     */
+    public Compression setBufferSize(final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentRangeException(1, Integer.MAX_VALUE,
+                    size);
+        }
+        bufferSize = size;
+        return this;
+    }
+
+    /**
+     * Get the size of the blocks that are compressed in parallel.
+     *
+     * @return the block size in bytes or zero if the movie is compressed in
+     * the current thread.
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Sets the size of the blocks that are compressed in parallel. Blocks
+     * should be several times larger than the 32K window used by the
+     * Deflater, otherwise the ratio of compression will suffer.
+     *
+     * @param size
+     *            the block size in bytes or zero if the movie is compressed in
+     *            the current thread.
+     * @return this object.
+     */
+    public Compression setBlockSize(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentRangeException(0, Integer.MAX_VALUE,
+                    size);
+        }
+        blockSize = size;
+        return this;
+    }
+
+    /** {@inheritDoc} */
+    public Compression copy() {
+        return new Compression(this);
+    }
+
+    /**
+     * Create a stream that compresses the data written to it using zlib.
+     *
+     * @param stream
+     *            the stream the compressed data is written to.
+     * @param executor
+     *            the executor used to compress blocks in parallel. May be null
+     *            in which case the data is compressed in the current thread.
+     * @return the stream that compresses the data. Closing it closes the
+     * underlying stream.
+     * @throws IOException if an error occurs writing the zlib header.
+     */
+    OutputStream deflate(final OutputStream stream,
+            final ExecutorService executor) throws IOException {
+        final OutputStream streamOut;
+        if (blockSize > 0 && executor != null
+                && ParallelDeflaterOutputStream.isSupported()) {
+            streamOut = new ParallelDeflaterOutputStream(stream, this,
+                    executor);
+        } else {
+            final Deflater deflater = new Deflater(level);
+            deflater.setStrategy(strategy);
+            streamOut = new DeflaterOutputStream(stream, deflater,
+                    bufferSize) {
+                /** {@inheritDoc} */
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        deflater.end();
+                    }
+                }
+            };
+        }
+        return streamOut;
+    }
+}
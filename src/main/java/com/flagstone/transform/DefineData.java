@@ -52,7 +52,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  *
  * @see SymbolClass
  */
-public final class DefineData implements DefineTag {
+public final class DefineData implements DefineTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineData: { identifier=%d;"
@@ -66,6 +66,9 @@ public final class DefineData implements DefineTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineData object using values encoded in the
      * Flash binary format.
@@ -121,6 +124,7 @@ public final class DefineData implements DefineTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -145,12 +149,33 @@ public final class DefineData implements DefineTag {
      *            not be null.
      */
     public void setData(final byte[] bytes) {
+        encoded = null;
         if (bytes == null) {
             throw new IllegalArgumentException();
         }
         data = Arrays.copyOf(bytes, bytes.length);
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_BINARY_DATA;
+    }
+
     /** {@inheritDoc} */
     public DefineData copy() {
         return new DefineData(this);
@@ -164,6 +189,9 @@ public final class DefineData implements DefineTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         //CHECKSTYLE:OFF
         length = 6 + data.length;
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
@@ -174,6 +202,10 @@ public final class DefineData implements DefineTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_BINARY_DATA
@@ -47,7 +47,7 @@ import com.flagstone.transform.coder.SWFEncoder;
  * the assigned name.
  * </p>
  */
-public final class DoABC implements MovieTag {
+public final class DoABC implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DoABC: { name=%s; deferred=%d;"
@@ -63,6 +63,9 @@ public final class DoABC implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises an DoABC using values encoded in the Flash
      * binary format.
@@ -133,6 +136,7 @@ public final class DoABC implements MovieTag {
      *            not be null or an empty string.
      */
     public void setName(final String aString) {
+        encoded = null;
         if (aString == null || aString.length() == 0) {
             throw new IllegalArgumentException();
         }
@@ -157,6 +161,7 @@ public final class DoABC implements MovieTag {
      *            immediately (false).
      */
     public void setDeferred(final boolean defer) {
+        encoded = null;
         if (defer) {
             deferred = 1;
         } else {
@@ -180,12 +185,33 @@ public final class DoABC implements MovieTag {
      *            a list of byte-codes. Must not be null.
      */
     public void setData(final byte[] bytes) {
+        encoded = null;
         if (bytes == null) {
             throw new IllegalArgumentException();
         }
         data = Arrays.copyOf(bytes, bytes.length);
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DO_ABC;
+    }
+
     /** {@inheritDoc} */
     public DoABC copy() {
         return new DoABC(this);
@@ -198,6 +224,9 @@ public final class DoABC implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF
         length = 4 + context.strlen(name) + data.length;
 
@@ -209,6 +238,10 @@ public final class DoABC implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DO_ABC
@@ -70,7 +70,7 @@ import com.flagstone.transform.coder.SWFFactory;
  * Actionscript 2.x code. For Actionscript 3.0 use the DoABC class.
  * </p>
  */
-public final class DoAction implements MovieTag {
+public final class DoAction implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DoAction: { actions=%s}";
@@ -80,6 +80,9 @@ public final class DoAction implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DoAction object using values encoded in the
      * Flash binary format.
@@ -168,6 +171,7 @@ public final class DoAction implements MovieTag {
      * @return the list of action objects.
      */
     public List<Action> getActions() {
+        encoded = null;
         return actions;
     }
 
@@ -180,12 +184,33 @@ public final class DoAction implements MovieTag {
      *            the list of action objects. May be empty but cannot be null.
      */
     public void setActions(final List<Action> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
         actions = list;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DO_ACTION;
+    }
+
     /** {@inheritDoc} */
     public DoAction copy() {
         return new DoAction(this);
@@ -199,6 +224,9 @@ public final class DoAction implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 0;
 
         for (final Action action : actions) {
@@ -212,6 +240,10 @@ public final class DoAction implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DO_ACTION
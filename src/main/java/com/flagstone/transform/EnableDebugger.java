@@ -48,7 +48,7 @@ import com.flagstone.transform.coder.SWFEncoder;
  * attribute.
  * </p>
  */
-public final class EnableDebugger implements MovieTag {
+public final class EnableDebugger implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "EnableDebugger: { password=%s}";
@@ -58,6 +58,9 @@ public final class EnableDebugger implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises an EnableDebugger object using values encoded
      * in the Flash binary format.
@@ -120,12 +123,33 @@ public final class EnableDebugger implements MovieTag {
      *            or null.
      */
     public void setPassword(final String aString) {
+        encoded = null;
         if (aString == null || aString.length() == 0) {
             throw new IllegalArgumentException();
         }
         password = aString;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.ENABLE_DEBUGGER;
+    }
+
     /** {@inheritDoc} */
     public EnableDebugger copy() {
         return new EnableDebugger(this);
@@ -139,6 +163,9 @@ public final class EnableDebugger implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 2 + context.strlen(password);
 
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
@@ -148,6 +175,10 @@ public final class EnableDebugger implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.ENABLE_DEBUGGER
                     << Coder.LENGTH_FIELD_SIZE) | Coder.IS_EXTENDED);
@@ -56,7 +56,7 @@ import com.flagstone.transform.coder.SWFEncoder;
  *
  * @see EnableDebugger
  */
-public final class EnableDebugger2 implements MovieTag {
+public final class EnableDebugger2 implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "EnableDebugger2: { password=%s}";
@@ -66,6 +66,9 @@ public final class EnableDebugger2 implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises an EnableDebugger2 object using values encoded
      * in the Flash binary format.
@@ -128,12 +131,33 @@ public final class EnableDebugger2 implements MovieTag {
      *            or null.
      */
     public void setPassword(final String aString) {
+        encoded = null;
         if (aString == null || aString.length() == 0) {
             throw new IllegalArgumentException();
         }
         password = aString;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.ENABLE_DEBUGGER_2;
+    }
+
     /** {@inheritDoc} */
     public EnableDebugger2 copy() {
         return new EnableDebugger2(this);
@@ -147,6 +171,9 @@ public final class EnableDebugger2 implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 2 + context.strlen(password);
 
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
@@ -156,6 +183,10 @@ public final class EnableDebugger2 implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.ENABLE_DEBUGGER_2
                     << Coder.LENGTH_FIELD_SIZE) | Coder.IS_EXTENDED);
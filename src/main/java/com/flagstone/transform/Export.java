@@ -50,7 +50,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * imported.
  * </p>
  */
-public final class Export implements MovieTag {
+public final class Export implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "Export: { objects=%s}";
@@ -60,6 +60,9 @@ public final class Export implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises an Export object using values encoded
      * in the Flash binary format.
@@ -145,6 +148,7 @@ public final class Export implements MovieTag {
      * @return the table of objects mapping identifiers to names.
      */
     public Map<Integer, String> getObjects() {
+        encoded = null;
         return objects;
     }
 
@@ -155,12 +159,33 @@ public final class Export implements MovieTag {
      *            the table of objects being imported. Must not be null.
      */
     public void setObjects(final Map<Integer, String> aTable) {
+        encoded = null;
         if (aTable == null) {
             throw new IllegalArgumentException();
         }
         objects = aTable;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.EXPORT;
+    }
+
     /** {@inheritDoc} */
     public Export copy() {
         return new Export(this);
@@ -174,6 +199,9 @@ public final class Export implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 2;
 
         for (final Integer identifier : objects.keySet()) {
@@ -186,6 +214,10 @@ public final class Export implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.EXPORT
                     << Coder.LENGTH_FIELD_SIZE) | Coder.IS_EXTENDED);
@@ -56,7 +56,7 @@ import com.flagstone.transform.coder.SWFEncoder;
  * the frame specified in the URL.
  * </p>
  */
-public final class FrameLabel implements MovieTag {
+public final class FrameLabel implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "FrameLabel: { label=%s; anchor=%s}";
@@ -69,6 +69,9 @@ public final class FrameLabel implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a FrameLabel object using values encoded
      * in the Flash binary format.
@@ -150,6 +153,7 @@ public final class FrameLabel implements MovieTag {
      *            current frame. Must not be null or an empty string.
      */
     public void setLabel(final String aString) {
+        encoded = null;
         if (aString == null || aString.length() == 0) {
             throw new IllegalArgumentException();
         }
@@ -175,9 +179,30 @@ public final class FrameLabel implements MovieTag {
      *            true if the frame is an anchor frame, false otherwise.
      */
     public void setAnchor(final boolean anchored) {
+        encoded = null;
         anchor = anchored;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.FRAME_LABEL;
+    }
+
     /** {@inheritDoc} */
     public FrameLabel copy() {
         return new FrameLabel(this);
@@ -191,6 +216,9 @@ public final class FrameLabel implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
 
         length = context.strlen(label);
         length += anchor ? 1 : 0;
@@ -202,6 +230,10 @@ public final class FrameLabel implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.FRAME_LABEL
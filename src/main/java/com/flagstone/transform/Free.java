@@ -43,7 +43,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * Free deletes the object with the specified identifier, freeing up resources
  * in the Flash Player.
  */
-public final class Free implements MovieTag {
+public final class Free implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "Free: { identifier=%d}";
@@ -51,6 +51,9 @@ public final class Free implements MovieTag {
     /** The unique identifier of the object that will be deleted. */
     private int identifier;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a Free object using values encoded
      * in the Flash binary format.
@@ -107,6 +110,7 @@ public final class Free implements MovieTag {
      *            range 1..65535.
      */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -114,6 +118,26 @@ public final class Free implements MovieTag {
         identifier = uid;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.FREE;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public Free copy() {
@@ -129,6 +153,9 @@ public final class Free implements MovieTag {
     /** {@inheritDoc} */
     @Override
 	public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF
         return 4;
         // CHECKSTYLE:ON
@@ -138,6 +165,10 @@ public final class Free implements MovieTag {
     @Override
 	public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         coder.writeShort((MovieTypes.FREE
                 << Coder.LENGTH_FIELD_SIZE) | 2);
         coder.writeShort(identifier);
@@ -62,7 +62,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  *
  * @see Export
  */
-public final class Import implements MovieTag {
+public final class Import implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "Import: { url=%s; objects=%s}";
@@ -75,6 +75,9 @@ public final class Import implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises an Import object using values encoded
      * in the Flash binary format.
@@ -177,6 +180,7 @@ public final class Import implements MovieTag {
      * identifiers in this movie.
      */
     public Map<Integer, String> getObjects() {
+        encoded = null;
         return objects;
     }
 
@@ -190,6 +194,7 @@ public final class Import implements MovieTag {
      *            object. Must not be null or an empty string.
      */
     public void setUrl(final String aString) {
+        encoded = null;
         if (aString == null || aString.length() == 0) {
             throw new IllegalArgumentException();
         }
@@ -203,9 +208,30 @@ public final class Import implements MovieTag {
      *            the table of objects being imported. Must not be null.
      */
     public void setObjects(final Map<Integer, String> aTable) {
+        encoded = null;
         objects = aTable;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.IMPORT;
+    }
+
     /** {@inheritDoc} */
     public Import copy() {
         return new Import(this);
@@ -219,6 +245,9 @@ public final class Import implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 2 + context.strlen(url);
 
         for (final Integer identifier : objects.keySet()) {
@@ -232,6 +261,10 @@ public final class Import implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.IMPORT
                     << Coder.LENGTH_FIELD_SIZE) | Coder.IS_EXTENDED);
@@ -68,7 +68,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * @see Export
  * @see Import
  */
-public final class Import2 implements MovieTag {
+public final class Import2 implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "Import2: { url=%s; objects=%s}";
@@ -81,6 +81,9 @@ public final class Import2 implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises an Import2 object using values encoded
      * in the Flash binary format.
@@ -189,6 +192,7 @@ public final class Import2 implements MovieTag {
      *            object. Must not be null or an empty string.
      */
     public void setUrl(final String aString) {
+        encoded = null;
         if (aString == null || aString.length() == 0) {
             throw new IllegalArgumentException();
         }
@@ -202,6 +206,7 @@ public final class Import2 implements MovieTag {
      * identifiers in this movie.
      */
     public Map<Integer, String> getObjects() {
+        encoded = null;
         return objects;
     }
 
@@ -212,9 +217,30 @@ public final class Import2 implements MovieTag {
      *            the table of objects being imported. Must not be null.
      */
     public void setObjects(final Map<Integer, String> aTable) {
+        encoded = null;
         objects = aTable;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.IMPORT_2;
+    }
+
     /** {@inheritDoc} */
     public Import2 copy() {
         return new Import2(this);
@@ -228,6 +254,9 @@ public final class Import2 implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF
         length = 4 + context.strlen(url);
 
@@ -243,6 +272,10 @@ public final class Import2 implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.IMPORT_2
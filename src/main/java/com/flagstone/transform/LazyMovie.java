@@ -0,0 +1,597 @@
+/*
+ * LazyMovie.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+
+import com.flagstone.transform.coder.Context;
+import com.flagstone.transform.coder.DecoderRegistry;
+import com.flagstone.transform.coder.SWFDecoder;
+import com.flagstone.transform.coder.SWFEncoder;
+
+/**
+ * LazyMovie provides access to the tags in a Flash file without decoding
+ * them all when the file is read.
+ *
+ * <p>
+ * When a file is decoded only the movie header is decoded. The headers of
+ * the remaining tags are scanned to build an index that records the type,
+ * offset and length of each tag. A tag is only decoded into an object when
+ * getObject() is called. When the movie is encoded any tags that were not
+ * decoded are written using the original data so only the objects that were
+ * accessed or replaced are encoded again.
+ * </p>
+ *
+ * <p>
+ * The index can be saved in a separate file. When the same file is read
+ * again the saved index is used instead of scanning the tags.
+ * </p>
+ *
+ * <p>
+ * Objects can be replaced but not added or removed. Use toMovie() to decode
+ * all the tags into a Movie when the structure of the file needs to be
+ * changed.
+ * </p>
+ */
+public final class LazyMovie {
+
+    /** Length in bytes of the signature and length fields. */
+    private static final int HEADER_LENGTH = 8;
+    /** Length in bytes of the End tag. */
+    private static final int END_LENGTH = 2;
+    /** Size of the blocks used to copy tags that have not been decoded. */
+    private static final int COPY_BUFFER_SIZE = 65536;
+    /** Number identifying a file containing a saved index. */
+    private static final int INDEX_MAGIC = 0x53574958;
+
+    /** The registry for the different types of decoder. */
+    private transient DecoderRegistry registry;
+    /** The character encoding used for strings. */
+    private transient CharacterEncoding encoding;
+    /** The settings used to compress the movie. */
+    private transient Compression compression;
+    /** The Context used to decode tags. */
+    private transient Context context;
+    /** The data that follows the file length. */
+    private transient ByteBuffer body;
+    /** The movie header. */
+    private transient MovieHeader header;
+    /** The index of the tags that follow the header. */
+    private transient TagIndex index;
+    /** The tags that have been decoded or replaced. */
+    private transient MovieTag[] objects;
+    /** The position of the first PathsArePostscript tag or -1 if none. */
+    private transient int postscript;
+
+    /**
+     * Creates a new LazyMovie.
+     */
+    public LazyMovie() {
+        registry = DecoderRegistry.getDefault();
+        encoding = CharacterEncoding.UTF8;
+        compression = new Compression();
+    }
+
+    /**
+     * Sets the registry containing the object used to decode the different
+     * types of object found in a movie.
+     *
+     * @param decoderRegistry a central registry to decoders of different types
+     * of object.
+     */
+    public void setRegistry(final DecoderRegistry decoderRegistry) {
+        registry = decoderRegistry;
+    }
+
+    /**
+     * Sets the encoding scheme for strings encoded and decoded from Flash
+     * files.
+     *
+     * @param enc the character encoding used for strings.
+     */
+    public void setEncoding(final CharacterEncoding enc) {
+        encoding = enc;
+    }
+
+    /**
+     * Get the settings used to compress the movie.
+     *
+     * @return the Compression object containing the level, strategy and
+     * buffer size used by the Deflater.
+     */
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Sets the settings used to compress the movie when it is encoded.
+     *
+     * @param settings
+     *            the Compression object containing the level, strategy and
+     *            buffer size used by the Deflater. Must not be null.
+     */
+    public void setCompression(final Compression settings) {
+        if (settings == null) {
+            throw new IllegalArgumentException();
+        }
+        compression = settings;
+    }
+
+    /**
+     * Decodes the header and indexes the tags in the specified file. The file
+     * is mapped into memory and the mapping is used when tags are decoded so
+     * the file should not be changed while the LazyMovie is in use.
+     *
+     * @param file
+     *            the Flash file that will be parsed.
+     * @throws DataFormatException
+     *             - if the file does not contain Flash data.
+     * @throws IOException
+     *             - if an I/O error occurs while reading the file.
+     */
+    public void decodeFromFile(final File file) throws DataFormatException,
+            IOException {
+        final FileInputStream stream = new FileInputStream(file);
+        try {
+            final FileChannel channel = stream.getChannel();
+            decode(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size()), null);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Decodes the header and indexes the tags in the specified file using an
+     * index saved in a separate file. If the index file does not exist, or
+     * was created for a different version of the Flash file, then the tags
+     * are scanned and the index file is written.
+     *
+     * @param file
+     *            the Flash file that will be parsed.
+     * @param indexFile
+     *            the file containing the saved index.
+     * @throws DataFormatException
+     *             - if the file does not contain Flash data.
+     * @throws IOException
+     *             - if an I/O error occurs while reading the file or reading
+     *             or writing the index.
+     */
+    public void decodeFromFile(final File file, final File indexFile)
+            throws DataFormatException, IOException {
+        final FileInputStream stream = new FileInputStream(file);
+        try {
+            final FileChannel channel = stream.getChannel();
+            final ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+            final TagIndex saved = readIndex(indexFile, file);
+            decode(data, saved);
+            if (saved == null) {
+                writeIndex(indexFile, file);
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Decodes the header and indexes the tags in a ByteBuffer, from the
+     * current position to the limit. Compressed movies are inflated into an
+     * array held in memory. The position of the buffer is not changed.
+     *
+     * @param buffer
+     *            a ByteBuffer containing the encoded movie.
+     * @throws DataFormatException
+     *             if the buffer does not contain Flash data.
+     * @throws IOException
+     *             if an error occurs while decoding the data.
+     */
+    public void decodeFromBuffer(final ByteBuffer buffer)
+            throws DataFormatException, IOException {
+        decode(buffer, null);
+    }
+
+    /**
+     * Decode the file header and movie header and either scan the tags or
+     * use a saved index.
+     *
+     * @param buffer the data for the movie.
+     * @param saved an index read from a file or null if the tags should be
+     * scanned.
+     * @throws DataFormatException if the buffer does not contain Flash data.
+     * @throws IOException if an error occurs while decoding the data.
+     */
+    private void decode(final ByteBuffer buffer, final TagIndex saved)
+            throws DataFormatException, IOException {
+
+        final ByteBuffer data = buffer.slice();
+
+        context = new Context();
+        context.setRegistry(registry);
+        context.setEncoding(encoding.getEncoding());
+
+        final int length = Movie.readSignature(data, context);
+        final boolean compressed = context.getInt(Context.COMPRESSED) == 1;
+
+        if (context.getInt(Context.LZMA) == 1) {
+            body = ByteBuffer.wrap(LzmaDecoder.decode(data,
+                    length - HEADER_LENGTH));
+        } else if (compressed) {
+            body = ByteBuffer.wrap(Movie.inflate(data,
+                    length - HEADER_LENGTH));
+        } else {
+            body = data.slice();
+        }
+
+        final SWFDecoder decoder = new SWFDecoder(body);
+        decoder.setEncoding(encoding);
+        header = new MovieHeader(decoder, context);
+        header.setVersion(context.getInt(Context.VERSION));
+        header.setCompressed(compressed);
+        header.setLzma(context.getInt(Context.LZMA) == 1);
+
+        if (saved != null && saved.fits(body.limit())) {
+            index = saved;
+        } else {
+            // The header is byte aligned so mark() returns the start of
+            // the tags.
+            final int start = decoder.mark();
+            decoder.unmark();
+            index = TagIndex.scan(body, start);
+        }
+
+        objects = new MovieTag[index.size()];
+        postscript = -1;
+
+        for (int i = 0; i < index.size() && postscript < 0; i++) {
+            if (index.getType(i) == MovieTypes.PATHS_ARE_POSTSCRIPT) {
+                postscript = i;
+            }
+        }
+    }
+
+    /**
+     * Read a saved index, checking that it was created for the current
+     * version of the Flash file.
+     *
+     * @param indexFile the file containing the index.
+     * @param file the Flash file.
+     * @return the index or null if it could not be read or is out of date.
+     */
+    private TagIndex readIndex(final File indexFile, final File file) {
+        TagIndex result = null;
+
+        if (indexFile.exists()) {
+            try {
+                final DataInputStream input = new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(
+                                indexFile)));
+                try {
+                    if (input.readInt() == INDEX_MAGIC
+                            && input.readLong() == file.length()
+                            && input.readLong() == file.lastModified()) {
+                        result = TagIndex.read(input);
+                    }
+                } finally {
+                    input.close();
+                }
+            } catch (final IOException e) {
+                result = null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Save the index so it can be used the next time the Flash file is read.
+     *
+     * @param indexFile the file where the index will be written.
+     * @param file the Flash file.
+     * @throws IOException if an error occurs while writing the index.
+     */
+    private void writeIndex(final File indexFile, final File file)
+            throws IOException {
+        final DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(indexFile)));
+        try {
+            output.writeInt(INDEX_MAGIC);
+            output.writeLong(file.length());
+            output.writeLong(file.lastModified());
+            index.write(output);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Get the movie header.
+     *
+     * @return the header decoded from the file.
+     */
+    public MovieHeader getHeader() {
+        return header;
+    }
+
+    /**
+     * Get the number of tags that follow the movie header.
+     *
+     * @return the number of tags in the movie.
+     */
+    public int size() {
+        return objects.length;
+    }
+
+    /**
+     * Get the type of a tag without decoding it.
+     *
+     * @param position the position of the tag in the movie, starting at 0
+     * for the first tag after the header.
+     * @return the type of tag, as defined in MovieTypes.
+     */
+    public int getType(final int position) {
+        return index.getType(position);
+    }
+
+    /**
+     * Get the length of a tag, as it was read from the file, without decoding
+     * it.
+     *
+     * @param position the position of the tag in the movie.
+     * @return the length of the encoded tag including the header.
+     */
+    public int getLength(final int position) {
+        return index.getLength(position);
+    }
+
+    /**
+     * Find the next tag with the specified type.
+     *
+     * @param type the type of tag, as defined in MovieTypes.
+     * @param from the position to start searching from.
+     * @return the position of the first tag of the specified type at or after
+     * the position or -1 if there is no tag of that type.
+     */
+    public int indexOf(final int type, final int from) {
+        int result = -1;
+        for (int i = Math.max(from, 0); i < objects.length; i++) {
+            if (index.getType(i) == type) {
+                result = i;
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indicates whether a tag has been decoded or replaced.
+     *
+     * @param position the position of the tag in the movie.
+     * @return true if the tag will be encoded from an object when the movie
+     * is encoded, false if the original data will be written.
+     */
+    public boolean isDecoded(final int position) {
+        return objects[position] != null;
+    }
+
+    /**
+     * Get the object for a tag, decoding it the first time it is accessed.
+     * The same object is returned on subsequent calls so any changes made to
+     * it will be encoded when the movie is encoded. Tags that the registry's
+     * DecodePolicy says should be skipped are returned as MovieObjects.
+     *
+     * @param position the position of the tag in the movie.
+     * @return the decoded object.
+     * @throws IOException if an error occurs while decoding the tag.
+     */
+    public MovieTag getObject(final int position) throws IOException {
+        if (objects[position] == null) {
+            final ByteBuffer data = body.duplicate();
+            data.position(index.getOffset(position));
+            data.limit(index.getOffset(position) + index.getLength(position));
+
+            final Context tagContext = new Context(context);
+            if (postscript >= 0 && postscript < position) {
+                tagContext.put(Context.POSTSCRIPT, 1);
+            }
+            final SWFDecoder decoder = new SWFDecoder(data);
+            decoder.setEncoding(encoding);
+
+            final List<MovieTag> list = new ArrayList<MovieTag>(1);
+            registry.getMovieDecoder().getObject(list, decoder, tagContext);
+            if (list.isEmpty()) {
+                list.add(new MovieObject(new SWFDecoder(data)));
+            }
+            objects[position] = list.get(0);
+        }
+        return objects[position];
+    }
+
+    /**
+     * Replace a tag in the movie.
+     *
+     * @param position the position of the tag in the movie.
+     * @param object the object that replaces the tag. Must not be null.
+     */
+    public void setObject(final int position, final MovieTag object) {
+        if (object == null) {
+            throw new IllegalArgumentException();
+        }
+        objects[position] = object;
+    }
+
+    /**
+     * Decode all the tags and return them in a Movie.
+     *
+     * @return a Movie containing the header and all the tags.
+     * @throws IOException if an error occurs while decoding a tag.
+     */
+    public Movie toMovie() throws IOException {
+        final Movie movie = new Movie();
+        movie.setRegistry(registry);
+        movie.setEncoding(encoding);
+        movie.add(header);
+        for (int i = 0; i < objects.length; i++) {
+            movie.add(getObject(i));
+        }
+        return movie;
+    }
+
+    /**
+     * Encodes the movie and writes the data to the specified file. The file
+     * must not be the one the movie was read from.
+     *
+     * @param file
+     *            the Flash file that the movie will be encoded to.
+     *
+     * @throws IOException
+     *             - if an I/O error occurs while writing the file.
+     * @throws DataFormatException
+     *             if an error occurs when compressing the flash file.
+     */
+    public void encodeToFile(final File file) throws IOException,
+            DataFormatException {
+        encodeToStream(new BufferedOutputStream(new FileOutputStream(file)));
+    }
+
+    /**
+     * Encodes the movie and writes the data to a stream. Tags that have not
+     * been decoded or replaced are written using the original data.
+     *
+     * @param stream
+     *            the output stream that the video will be encoded to.
+     * @throws IOException
+     *             - if an I/O error occurs while encoding the file.
+     * @throws DataFormatException
+     *             if an error occurs when compressing the flash file.
+     */
+    public void encodeToStream(final OutputStream stream)
+            throws DataFormatException, IOException {
+
+        OutputStream streamOut = null;
+
+        try {
+            final Context encodeContext = new Context();
+            encodeContext.setEncoding(encoding.getEncoding());
+            encodeContext.put(Context.VERSION, header.getVersion());
+
+            int length = HEADER_LENGTH + END_LENGTH;
+            int frameCount = 0;
+
+            length += header.prepareToEncode(encodeContext);
+
+            for (int i = 0; i < objects.length; i++) {
+                if (objects[i] == null) {
+                    length += index.getLength(i);
+                    if (index.getType(i) == MovieTypes.SHOW_FRAME) {
+                        frameCount++;
+                    } else if (index.getType(i)
+                            == MovieTypes.PATHS_ARE_POSTSCRIPT) {
+                        encodeContext.put(Context.POSTSCRIPT, 1);
+                    }
+                } else {
+                    length += objects[i].prepareToEncode(encodeContext);
+                    if (objects[i] instanceof ShowFrame) {
+                        frameCount++;
+                    }
+                }
+            }
+
+            header.setFrameCount(frameCount);
+
+            streamOut = Movie.writeSignature(stream, header, length,
+                    compression, null);
+
+            final SWFEncoder coder = new SWFEncoder(streamOut);
+            coder.setEncoding(encoding);
+
+            header.encode(coder, encodeContext);
+
+            final byte[] copy = new byte[COPY_BUFFER_SIZE];
+
+            for (int i = 0; i < objects.length; i++) {
+                if (objects[i] == null) {
+                    coder.flush();
+                    copy(streamOut, index.getOffset(i), index.getLength(i),
+                            copy);
+                } else {
+                    objects[i].encode(coder, encodeContext);
+                }
+            }
+            coder.writeShort(0);
+            coder.flush();
+        } finally {
+            if (streamOut != null) {
+                streamOut.close();
+            }
+        }
+    }
+
+    /**
+     * Write the original data for a tag.
+     *
+     * @param stream the stream the data is written to.
+     * @param offset the offset to the start of the tag.
+     * @param length the length of the tag.
+     * @param buffer an array used to copy data from the body of the movie
+     * when it is not held in an array.
+     * @throws IOException if an error occurs while writing the data.
+     */
+    private void copy(final OutputStream stream, final int offset,
+            final int length, final byte[] buffer) throws IOException {
+        if (body.hasArray()) {
+            stream.write(body.array(), body.arrayOffset() + offset, length);
+        } else {
+            final ByteBuffer data = body.duplicate();
+            data.position(offset);
+            data.limit(offset + length);
+            int count;
+            while (data.hasRemaining()) {
+                count = Math.min(buffer.length, data.remaining());
+                data.get(buffer, 0, count);
+                stream.write(buffer, 0, count);
+            }
+        }
+    }
+}
@@ -51,7 +51,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * should a script fail.
  * </p>
  */
-public final class LimitScript implements MovieTag {
+public final class LimitScript implements MovieTag, Passthrough {
 
     /** Maximum stack depth for recursive functions. */
     private static final int MAX_DEPTH = 65535;
@@ -67,6 +67,9 @@ public final class LimitScript implements MovieTag {
     /** The maximum execution time of a script. */
     private int timeout;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a LimitScript object using values encoded
      * in the Flash binary format.
@@ -135,6 +138,7 @@ public final class LimitScript implements MovieTag {
      *            be in the range 0..65535.
      */
     public void setDepth(final int stackDepth) {
+        encoded = null;
         if ((stackDepth < 0) || (stackDepth > MAX_DEPTH)) {
             throw new IllegalArgumentRangeException(0, MAX_DEPTH, stackDepth);
         }
@@ -162,12 +166,33 @@ public final class LimitScript implements MovieTag {
      *            execute. Must be in the range 0..65535.
      */
     public void setTimeout(final int time) {
+        encoded = null;
         if ((time < 0) || (time > MAX_TIMEOUT)) {
             throw new IllegalArgumentRangeException(0, MAX_TIMEOUT, time);
         }
         timeout = time;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.LIMIT_SCRIPT;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public LimitScript copy() {
@@ -183,6 +208,9 @@ public final class LimitScript implements MovieTag {
     /** {@inheritDoc} */
     @Override
 	public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         return 6;
     }
@@ -191,6 +219,10 @@ public final class LimitScript implements MovieTag {
     @Override
 	public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 2 LINES
         coder.writeShort((MovieTypes.LIMIT_SCRIPT
                 << Coder.LENGTH_FIELD_SIZE) | 4);
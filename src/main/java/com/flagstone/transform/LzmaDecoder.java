@@ -0,0 +1,580 @@
+/*
+ * LzmaDecoder.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+/**
+ * LzmaDecoder decompresses the LZMA compressed body of a ZWS movie.
+ *
+ * <p>
+ * In a ZWS file the file length is followed by the length of the compressed
+ * data, the five bytes of LZMA properties and then the compressed data. The
+ * data is decoded directly into an array presized to the length of the
+ * movie, which also serves as the dictionary so no separate window is
+ * needed. Decoding stops when the array is full or the end marker is found.
+ * </p>
+ */
+final class LzmaDecoder {
+
+    /** Length in bytes of the LZMA properties. */
+    static final int PROPERTIES_LENGTH = 5;
+    /** Number of bytes read to initialise the range decoder. */
+    static final int RANGE_INIT_BYTES = 5;
+    /** Number of states in the state machine. */
+    static final int NUM_STATES = 12;
+    /** Number of states following a literal. */
+    static final int NUM_LIT_STATES = 7;
+    /** Maximum number of bits used for the position state. */
+    static final int POS_STATES_BITS_MAX = 4;
+    /** Number of length values used to select the slot for a distance. */
+    static final int NUM_LEN_TO_POS_STATES = 4;
+    /** The shortest match. */
+    static final int MATCH_MIN_LEN = 2;
+    /** Number of bits used to encode the slot for a distance. */
+    static final int NUM_POS_SLOT_BITS = 6;
+    /** The first slot where the distance has extra bits. */
+    static final int START_POS_MODEL_INDEX = 4;
+    /** The first slot where the lowest bits of a distance are aligned. */
+    static final int END_POS_MODEL_INDEX = 14;
+    /** Number of distances that are encoded using probabilities. */
+    static final int NUM_FULL_DISTANCES = 128;
+    /** Number of aligned bits at the end of a long distance. */
+    static final int NUM_ALIGN_BITS = 4;
+    /** Number of bits encoding a length in the low range. */
+    static final int LEN_LOW_BITS = 3;
+    /** Number of bits encoding a length in the middle range. */
+    static final int LEN_MID_BITS = 3;
+    /** Number of bits encoding a length in the high range. */
+    static final int LEN_HIGH_BITS = 8;
+    /** Number of lengths in the low range. */
+    static final int LEN_LOW_SYMBOLS = 1 << LEN_LOW_BITS;
+    /** Number of lengths in the middle range. */
+    static final int LEN_MID_SYMBOLS = 1 << LEN_MID_BITS;
+    /** Number of probabilities for each literal. */
+    static final int LITERAL_SIZE = 0x300;
+    /** Number of bits in a probability. */
+    static final int NUM_BIT_MODEL_TOTAL_BITS = 11;
+    /** The value representing a probability of 1. */
+    static final int BIT_MODEL_TOTAL = 1 << NUM_BIT_MODEL_TOTAL_BITS;
+    /** The shift used when adapting a probability. */
+    static final int NUM_MOVE_BITS = 5;
+    /** The value representing a probability of 0.5. */
+    static final short PROB_INIT = (short) (BIT_MODEL_TOTAL >>> 1);
+    /** The mask used to find when the range must be normalized. */
+    static final int TOP_MASK = 0xFF000000;
+    /** Largest value for the lc, lp and pb properties combined. */
+    static final int MAX_PROPERTIES = 9 * 5 * 5;
+    /** Divisor used to extract lc from the properties. */
+    static final int LC_RANGE = 9;
+    /** Divisor used to extract lp from the properties. */
+    static final int LP_RANGE = 5;
+    /** Number of bits in a byte. */
+    static final int BYTE_BITS = 8;
+    /** Bit mask applied to bytes when converting to unsigned integers. */
+    static final int BYTE_MASK = 255;
+    /** The value of a symbol once all its bits have been decoded. */
+    static final int SYMBOL_END = 0x100;
+    /** The state following a match when the previous state was a literal. */
+    static final int STATE_MATCH = 7;
+    /** The state following a match when the previous state was a match. */
+    static final int STATE_MATCH_AFTER_MATCH = 10;
+    /** The state following a repeated match after a literal. */
+    static final int STATE_REP = 8;
+    /** The state following a short repeated match after a literal. */
+    static final int STATE_SHORT_REP = 9;
+    /** The state following a repeated match after a match. */
+    static final int STATE_REP_AFTER_MATCH = 11;
+    /** The largest state that is changed to 0 by a literal. */
+    static final int STATE_LIT_RESET = 4;
+    /** The largest state that is reduced by 3 after a literal. */
+    static final int STATE_LIT_SHORT = 10;
+    /** The amount states are reduced after a literal. */
+    static final int STATE_LIT_STEP = 3;
+    /** The amount states are reduced after a literal following a match. */
+    static final int STATE_LIT_MATCH_STEP = 6;
+    /** The distance encoded in the end marker. */
+    static final int END_MARKER = -1;
+
+    /**
+     * Get the state following a literal.
+     *
+     * @param state the current state.
+     * @return the next state.
+     */
+    static int stateAfterLiteral(final int state) {
+        final int next;
+        if (state < STATE_LIT_RESET) {
+            next = 0;
+        } else if (state < STATE_LIT_SHORT) {
+            next = state - STATE_LIT_STEP;
+        } else {
+            next = state - STATE_LIT_MATCH_STEP;
+        }
+        return next;
+    }
+
+    /**
+     * Get the index of the probabilities used to encode the slot for a
+     * distance from the length of a match.
+     *
+     * @param length the length of the match.
+     * @return the index used to select the slot probabilities.
+     */
+    static int lenToPosState(final int length) {
+        return Math.min(length - MATCH_MIN_LEN, NUM_LEN_TO_POS_STATES - 1);
+    }
+
+    /**
+     * Decode the LZMA compressed body of a movie read from a stream.
+     *
+     * @param stream the stream positioned at the length of the compressed
+     * data, immediately following the file length.
+     * @param length the length of the uncompressed data.
+     * @return an array containing the uncompressed data.
+     * @throws DataFormatException if the data is not in LZMA format.
+     * @throws IOException if an error occurs reading the stream.
+     */
+    static byte[] decode(final InputStream stream, final int length)
+            throws DataFormatException, IOException {
+        int size = 0;
+        for (int i = 0; i < Integer.SIZE; i += BYTE_BITS) {
+            size |= stream.read() << i;
+        }
+        if (size < 0) {
+            throw new DataFormatException("Invalid compressed length");
+        }
+        final byte[] data = new byte[PROPERTIES_LENGTH + size];
+        int count = 0;
+        int read = 0;
+        while (count < data.length && read != -1) {
+            read = stream.read(data, count, data.length - count);
+            if (read > 0) {
+                count += read;
+            }
+        }
+        return new LzmaDecoder(ByteBuffer.wrap(data, 0, count))
+                .decode(length);
+    }
+
+    /**
+     * Decode the LZMA compressed body of a movie held in a buffer.
+     *
+     * @param data the buffer positioned at the length of the compressed
+     * data, immediately following the file length.
+     * @param length the length of the uncompressed data.
+     * @return an array containing the uncompressed data.
+     * @throws DataFormatException if the data is not in LZMA format.
+     */
+    static byte[] decode(final ByteBuffer data, final int length)
+            throws DataFormatException {
+        if (data.remaining() < Integer.SIZE / BYTE_BITS) {
+            throw new DataFormatException("Invalid compressed length");
+        }
+        int size = 0;
+        for (int i = 0; i < Integer.SIZE; i += BYTE_BITS) {
+            size |= (data.get() & BYTE_MASK) << i;
+        }
+        final ByteBuffer input = data.slice();
+        if (size >= 0 && size <= input.limit() - PROPERTIES_LENGTH) {
+            input.limit(size + PROPERTIES_LENGTH);
+        }
+        return new LzmaDecoder(input).decode(length);
+    }
+
+    /** The compressed data. */
+    private final transient ByteBuffer input;
+    /** The current range. */
+    private transient int range;
+    /** The current code. */
+    private transient int code;
+
+    /** Probabilities for whether the next symbol is a literal or match. */
+    private final transient short[] isMatch =
+        new short[NUM_STATES << POS_STATES_BITS_MAX];
+    /** Probabilities for whether a match is repeated. */
+    private final transient short[] isRep = new short[NUM_STATES];
+    /** Probabilities for whether a repeated match uses the last distance. */
+    private final transient short[] isRepG0 = new short[NUM_STATES];
+    /** Probabilities for whether a repeated match uses the 2nd distance. */
+    private final transient short[] isRepG1 = new short[NUM_STATES];
+    /** Probabilities for whether a repeated match uses the 3rd distance. */
+    private final transient short[] isRepG2 = new short[NUM_STATES];
+    /** Probabilities for whether a repeated match is one byte long. */
+    private final transient short[] isRep0Long =
+        new short[NUM_STATES << POS_STATES_BITS_MAX];
+    /** Probabilities for the slot of a distance. */
+    private final transient short[] posSlot =
+        new short[NUM_LEN_TO_POS_STATES << NUM_POS_SLOT_BITS];
+    /** Probabilities for the extra bits of short distances. */
+    private final transient short[] posBits =
+        new short[NUM_FULL_DISTANCES - END_POS_MODEL_INDEX];
+    /** Probabilities for the aligned bits of long distances. */
+    private final transient short[] align = new short[1 << NUM_ALIGN_BITS];
+    /** Probabilities for the length of a match. */
+    private final transient short[] matchLength = newLength();
+    /** Probabilities for the length of a repeated match. */
+    private final transient short[] repLength = newLength();
+    /** Probabilities for literals. */
+    private transient short[] literals;
+
+    /**
+     * Creates a decoder for the data in a buffer.
+     *
+     * @param data the LZMA properties followed by the compressed data.
+     */
+    private LzmaDecoder(final ByteBuffer data) {
+        input = data;
+    }
+
+    /**
+     * Create the probabilities used to decode the length of a match. The
+     * two choices are followed by the low and middle trees for each position
+     * state then the tree for the high range.
+     *
+     * @return an array for the length probabilities.
+     */
+    static short[] newLength() {
+        return new short[2 + ((LEN_LOW_SYMBOLS + LEN_MID_SYMBOLS)
+                << POS_STATES_BITS_MAX) + (1 << LEN_HIGH_BITS)];
+    }
+
+    /**
+     * Decode the data.
+     *
+     * @param length the length of the uncompressed data.
+     * @return the uncompressed data. If the end marker was found before
+     * the expected length was decoded then the array is truncated.
+     * @throws DataFormatException if the data is not in LZMA format.
+     */
+    private byte[] decode(final int length) throws DataFormatException {
+        if (length < 0) {
+            throw new DataFormatException("Invalid movie length");
+        }
+        final byte[] out = new byte[length];
+        int pos = 0;
+        try {
+            int properties = input.get() & BYTE_MASK;
+            if (properties >= MAX_PROPERTIES) {
+                throw new DataFormatException("Invalid LZMA properties");
+            }
+            final int lc = properties % LC_RANGE;
+            properties /= LC_RANGE;
+            final int lpMask = (1 << (properties % LP_RANGE)) - 1;
+            final int pbMask = (1 << (properties / LP_RANGE)) - 1;
+            // The dictionary size is not needed since the output is the
+            // dictionary.
+            input.position(input.position() + PROPERTIES_LENGTH - 1);
+
+            literals = new short[LITERAL_SIZE << (lc + Integer.bitCount(
+                    lpMask))];
+            for (final short[] probs : new short[][] {isMatch, isRep,
+                    isRepG0, isRepG1, isRepG2, isRep0Long, posSlot, posBits,
+                    align, matchLength, repLength, literals}) {
+                Arrays.fill(probs, PROB_INIT);
+            }
+            range = -1;
+            for (int i = 0; i < RANGE_INIT_BYTES; i++) {
+                code = (code << BYTE_BITS) | (input.get() & BYTE_MASK);
+            }
+
+            int state = 0;
+            int rep0 = 0;
+            int rep1 = 0;
+            int rep2 = 0;
+            int rep3 = 0;
+            int len;
+            int dist;
+            int posState;
+
+            while (pos < length) {
+                posState = pos & pbMask;
+
+                if (bit(isMatch, (state << POS_STATES_BITS_MAX)
+                        + posState) == 0) {
+                    final int prev = pos > 0 ? out[pos - 1] & BYTE_MASK : 0;
+                    final int offset = LITERAL_SIZE * (((pos & lpMask) << lc)
+                            + (prev >>> (BYTE_BITS - lc)));
+                    if (state < NUM_LIT_STATES) {
+                        out[pos] = (byte) literal(offset);
+                    } else {
+                        out[pos] = (byte) matchedLiteral(offset,
+                                out[pos - rep0 - 1] & BYTE_MASK);
+                    }
+                    pos++;
+                    state = stateAfterLiteral(state);
+                    len = 0;
+                } else if (bit(isRep, state) == 1) {
+                    len = 0;
+                    if (bit(isRepG0, state) == 0) {
+                        if (bit(isRep0Long, (state << POS_STATES_BITS_MAX)
+                                + posState) == 0) {
+                            state = state < NUM_LIT_STATES ? STATE_SHORT_REP
+                                    : STATE_REP_AFTER_MATCH;
+                            len = 1;
+                        }
+                    } else {
+                        if (bit(isRepG1, state) == 0) {
+                            dist = rep1;
+                        } else {
+                            if (bit(isRepG2, state) == 0) {
+                                dist = rep2;
+                            } else {
+                                dist = rep3;
+                                rep3 = rep2;
+                            }
+                            rep2 = rep1;
+                        }
+                        rep1 = rep0;
+                        rep0 = dist;
+                    }
+                    if (len == 0) {
+                        len = length(repLength, posState) + MATCH_MIN_LEN;
+                        state = state < NUM_LIT_STATES ? STATE_REP
+                                : STATE_REP_AFTER_MATCH;
+                    }
+                } else {
+                    rep3 = rep2;
+                    rep2 = rep1;
+                    rep1 = rep0;
+                    len = length(matchLength, posState) + MATCH_MIN_LEN;
+                    state = state < NUM_LIT_STATES ? STATE_MATCH
+                            : STATE_MATCH_AFTER_MATCH;
+                    rep0 = distance(len);
+                    if (rep0 == END_MARKER) {
+                        break;
+                    }
+                }
+
+                if (len > 0) {
+                    if (rep0 < 0 || rep0 >= pos) {
+                        throw new DataFormatException(
+                                "Invalid LZMA distance");
+                    }
+                    len = Math.min(len, length - pos);
+                    for (int from = pos - rep0 - 1; len > 0; len--) {
+                        out[pos++] = out[from++];
+                    }
+                }
+            }
+        } catch (final BufferUnderflowException e) {
+            throw new DataFormatException("Truncated LZMA data");
+        }
+        return pos == length ? out : Arrays.copyOf(out, pos);
+    }
+
+    /**
+     * Decode a distance.
+     *
+     * @param len the length of the match.
+     * @return the distance, less one, or -1 for the end marker.
+     */
+    private int distance(final int len) {
+        final int slot = tree(posSlot, lenToPosState(len)
+                << NUM_POS_SLOT_BITS, NUM_POS_SLOT_BITS);
+        int dist;
+        if (slot < START_POS_MODEL_INDEX) {
+            dist = slot;
+        } else {
+            final int bits = (slot >>> 1) - 1;
+            dist = (2 | (slot & 1)) << bits;
+            if (slot < END_POS_MODEL_INDEX) {
+                dist += reverseTree(posBits, dist - slot - 1, bits);
+            } else {
+                dist += direct(bits - NUM_ALIGN_BITS) << NUM_ALIGN_BITS;
+                dist += reverseTree(align, 0, NUM_ALIGN_BITS);
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Decode the length of a match.
+     *
+     * @param probs the probabilities for the length.
+     * @param posState the position state.
+     * @return the length less the minimum length of a match.
+     */
+    private int length(final short[] probs, final int posState) {
+        final int len;
+        if (bit(probs, 0) == 0) {
+            len = tree(probs, 2 + (posState << LEN_LOW_BITS), LEN_LOW_BITS);
+        } else if (bit(probs, 1) == 0) {
+            len = LEN_LOW_SYMBOLS + tree(probs, 2 + (LEN_LOW_SYMBOLS
+                    << POS_STATES_BITS_MAX) + (posState << LEN_MID_BITS),
+                    LEN_MID_BITS);
+        } else {
+            len = LEN_LOW_SYMBOLS + LEN_MID_SYMBOLS + tree(probs, 2
+                    + ((LEN_LOW_SYMBOLS + LEN_MID_SYMBOLS)
+                            << POS_STATES_BITS_MAX), LEN_HIGH_BITS);
+        }
+        return len;
+    }
+
+    /**
+     * Decode a literal.
+     *
+     * @param offset the offset to the probabilities for the literal.
+     * @return the literal.
+     */
+    private int literal(final int offset) {
+        int symbol = 1;
+        while (symbol < SYMBOL_END) {
+            symbol = (symbol << 1) | bit(literals, offset + symbol);
+        }
+        return symbol;
+    }
+
+    /**
+     * Decode a literal which follows a match, using the byte at the last
+     * distance to predict the bits.
+     *
+     * @param offset the offset to the probabilities for the literal.
+     * @param matchByte the byte at the last distance.
+     * @return the literal.
+     */
+    private int matchedLiteral(final int offset, final int matchByte) {
+        int symbol = 1;
+        int match = matchByte;
+        while (symbol < SYMBOL_END) {
+            final int matchBit = (match >>> (BYTE_BITS - 1)) & 1;
+            match <<= 1;
+            final int value = bit(literals, offset + ((1 + matchBit)
+                    << BYTE_BITS) + symbol);
+            symbol = (symbol << 1) | value;
+            if (matchBit != value) {
+                while (symbol < SYMBOL_END) {
+                    symbol = (symbol << 1) | bit(literals, offset + symbol);
+                }
+            }
+        }
+        return symbol;
+    }
+
+    /**
+     * Decode a value stored, most significant bit first, in a tree of
+     * probabilities.
+     *
+     * @param probs the probabilities.
+     * @param start the offset of the tree in the array.
+     * @param bits the number of bits in the value.
+     * @return the value.
+     */
+    private int tree(final short[] probs, final int start, final int bits) {
+        int symbol = 1;
+        for (int i = 0; i < bits; i++) {
+            symbol = (symbol << 1) | bit(probs, start + symbol);
+        }
+        return symbol - (1 << bits);
+    }
+
+    /**
+     * Decode a value stored, least significant bit first, in a tree of
+     * probabilities.
+     *
+     * @param probs the probabilities.
+     * @param start the offset of the tree in the array.
+     * @param bits the number of bits in the value.
+     * @return the value.
+     */
+    private int reverseTree(final short[] probs, final int start,
+            final int bits) {
+        int index = 1;
+        int symbol = 0;
+        for (int i = 0; i < bits; i++) {
+            final int value = bit(probs, start + index);
+            index = (index << 1) | value;
+            symbol |= value << i;
+        }
+        return symbol;
+    }
+
+    /**
+     * Decode bits with fixed probabilities of 0.5.
+     *
+     * @param bits the number of bits.
+     * @return the value.
+     */
+    private int direct(final int bits) {
+        int result = 0;
+        for (int i = 0; i < bits; i++) {
+            range >>>= 1;
+            final int value = (code - range) >>> (Integer.SIZE - 1);
+            code -= range & (value - 1);
+            result = (result << 1) | (1 - value);
+            normalize();
+        }
+        return result;
+    }
+
+    /**
+     * Decode a bit and update its probability.
+     *
+     * @param probs the array of probabilities.
+     * @param index the index of the probability for the bit.
+     * @return the value of the bit.
+     */
+    private int bit(final short[] probs, final int index) {
+        final int prob = probs[index];
+        final int bound = (range >>> NUM_BIT_MODEL_TOTAL_BITS) * prob;
+        final int value;
+        if ((code ^ Integer.MIN_VALUE) < (bound ^ Integer.MIN_VALUE)) {
+            range = bound;
+            probs[index] = (short) (prob
+                    + ((BIT_MODEL_TOTAL - prob) >>> NUM_MOVE_BITS));
+            value = 0;
+        } else {
+            range -= bound;
+            code -= bound;
+            probs[index] = (short) (prob - (prob >>> NUM_MOVE_BITS));
+            value = 1;
+        }
+        normalize();
+        return value;
+    }
+
+    /**
+     * Read the next byte of compressed data once the range becomes too
+     * small.
+     */
+    private void normalize() {
+        if ((range & TOP_MASK) == 0) {
+            code = (code << BYTE_BITS) | (input.get() & BYTE_MASK);
+            range <<= BYTE_BITS;
+        }
+    }
+}
@@ -0,0 +1,658 @@
+/*
+ * LzmaEncoder.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * LzmaEncoder compresses the body of a movie using LZMA so it can be written
+ * as a ZWS file.
+ *
+ * <p>
+ * The encoder uses hash chains to find matches and a greedy parse with one
+ * step of lazy evaluation, preferring repeated distances where they give a
+ * match that is as long or nearly as long. This is simpler and faster than
+ * the optimal parsing used by the reference encoder while still producing
+ * a standard stream, terminated with an end marker, that can be read by any
+ * LZMA decoder.
+ * </p>
+ */
+final class LzmaEncoder {
+
+    /** The number of literal context bits. */
+    private static final int LC = 3;
+    /** The number of literal position bits. */
+    private static final int LP = 0;
+    /** The number of position bits. */
+    private static final int PB = 2;
+    /** The smallest dictionary written in the properties. */
+    private static final int MIN_DICTIONARY_BITS = 12;
+    /** The largest dictionary written in the properties. */
+    private static final int MAX_DICTIONARY_BITS = 24;
+    /** The longest match. */
+    private static final int MAX_MATCH_LEN = 273;
+    /** Matches at least this long are accepted without further search. */
+    private static final int NICE_LENGTH = 64;
+    /** The maximum number of positions searched for a match. */
+    private static final int CHAIN_DEPTH = 32;
+    /** The number of bits in the hash of the next three bytes. */
+    private static final int HASH_BITS = 16;
+    /** Multiplier used to hash the next three bytes. */
+    private static final int HASH_MULTIPLIER = 0x9E3779B1;
+    /** Number of bytes hashed to find a match. */
+    private static final int HASH_BYTES = 3;
+    /** Matches of the minimum length further than this are not used. */
+    private static final int SHORT_MATCH_DISTANCE = 128;
+    /** Mask for the lower 32 bits of a long. */
+    private static final long LOWEST32 = 0xFFFFFFFFL;
+    /** Value of low below which no carry can occur. */
+    private static final long CARRY_LIMIT = 0xFF000000L;
+    /** Mask for the bits in low that are kept when a byte is shifted out. */
+    private static final long LOW_MASK = 0x00FFFFFFL;
+    /** Shift for the byte that is shifted out of low. */
+    private static final int TO_TOP_BYTE = 24;
+    /** The number of distances kept for repeated matches. */
+    private static final int NUM_REPS = 4;
+    /** Number of bytes written to flush the range encoder. */
+    private static final int FLUSH_BYTES = 5;
+
+    /**
+     * Compress a block of data.
+     *
+     * @param data the array containing the data.
+     * @param length the number of bytes in the array to compress.
+     * @return the LZMA properties followed by the compressed data.
+     */
+    static byte[] encode(final byte[] data, final int length) {
+        return new LzmaEncoder(data, length).encode();
+    }
+
+    /** The data to compress. */
+    private final transient byte[] data;
+    /** The number of bytes to compress. */
+    private final transient int length;
+    /** The maximum distance of a match. */
+    private final transient int dictionarySize;
+    /** The compressed data. */
+    private final transient ByteArrayOutputStream out;
+
+    /** The lower end of the range. */
+    private transient long low;
+    /** The current range. */
+    private transient int range;
+    /** The last byte shifted out of low, held until any carry is known. */
+    private transient int cache;
+    /** The number of bytes waiting to be written, including the cache. */
+    private transient int cacheSize;
+
+    /** The current state. */
+    private transient int state;
+    /** The last four distances, less one. */
+    private final transient int[] reps = new int[NUM_REPS];
+
+    /** The most recent position with a given hash. */
+    private final transient int[] head = new int[1 << HASH_BITS];
+    /** The previous position with the same hash as each position. */
+    private final transient int[] chain;
+    /** The next position to be added to the hash chains. */
+    private transient int inserted;
+
+    /** Probabilities for whether the next symbol is a literal or match. */
+    private final transient short[] isMatch = new short[
+        LzmaDecoder.NUM_STATES << LzmaDecoder.POS_STATES_BITS_MAX];
+    /** Probabilities for whether a match is repeated. */
+    private final transient short[] isRep =
+        new short[LzmaDecoder.NUM_STATES];
+    /** Probabilities for whether a repeated match uses the last distance. */
+    private final transient short[] isRepG0 =
+        new short[LzmaDecoder.NUM_STATES];
+    /** Probabilities for whether a repeated match uses the 2nd distance. */
+    private final transient short[] isRepG1 =
+        new short[LzmaDecoder.NUM_STATES];
+    /** Probabilities for whether a repeated match uses the 3rd distance. */
+    private final transient short[] isRepG2 =
+        new short[LzmaDecoder.NUM_STATES];
+    /** Probabilities for whether a repeated match is one byte long. */
+    private final transient short[] isRep0Long = new short[
+        LzmaDecoder.NUM_STATES << LzmaDecoder.POS_STATES_BITS_MAX];
+    /** Probabilities for the slot of a distance. */
+    private final transient short[] posSlot = new short[
+        LzmaDecoder.NUM_LEN_TO_POS_STATES << LzmaDecoder.NUM_POS_SLOT_BITS];
+    /** Probabilities for the extra bits of short distances. */
+    private final transient short[] posBits = new short[
+        LzmaDecoder.NUM_FULL_DISTANCES - LzmaDecoder.END_POS_MODEL_INDEX];
+    /** Probabilities for the aligned bits of long distances. */
+    private final transient short[] align =
+        new short[1 << LzmaDecoder.NUM_ALIGN_BITS];
+    /** Probabilities for the length of a match. */
+    private final transient short[] matchLength = LzmaDecoder.newLength();
+    /** Probabilities for the length of a repeated match. */
+    private final transient short[] repLength = LzmaDecoder.newLength();
+    /** Probabilities for literals. */
+    private final transient short[] literals =
+        new short[LzmaDecoder.LITERAL_SIZE << (LC + LP)];
+
+    /**
+     * Creates an encoder for a block of data.
+     *
+     * @param bytes the array containing the data.
+     * @param size the number of bytes in the array to compress.
+     */
+    private LzmaEncoder(final byte[] bytes, final int size) {
+        data = bytes;
+        length = size;
+        int bits = MIN_DICTIONARY_BITS;
+        while (bits < MAX_DICTIONARY_BITS && (1 << bits) < size) {
+            bits++;
+        }
+        dictionarySize = 1 << bits;
+        out = new ByteArrayOutputStream(size / 2 + LzmaDecoder
+                .PROPERTIES_LENGTH + FLUSH_BYTES);
+        chain = new int[size];
+        Arrays.fill(head, -1);
+        for (final short[] probs : new short[][] {isMatch, isRep, isRepG0,
+                isRepG1, isRepG2, isRep0Long, posSlot, posBits, align,
+                matchLength, repLength, literals}) {
+            Arrays.fill(probs, LzmaDecoder.PROB_INIT);
+        }
+    }
+
+    /**
+     * Compress the data.
+     *
+     * @return the LZMA properties followed by the compressed data.
+     */
+    private byte[] encode() {
+        out.write((PB * LzmaDecoder.LP_RANGE + LP) * LzmaDecoder.LC_RANGE
+                + LC);
+        for (int i = 0; i < Integer.SIZE; i += LzmaDecoder.BYTE_BITS) {
+            out.write(dictionarySize >>> i);
+        }
+
+        range = -1;
+        cacheSize = 1;
+
+        final int pbMask = (1 << PB) - 1;
+        int pos = 0;
+        int posState;
+        int available;
+        int repLen;
+        int repIndex;
+        int len;
+        int mainLen;
+        int mainDist;
+
+        while (pos < length) {
+            posState = pos & pbMask;
+            available = Math.min(MAX_MATCH_LEN, length - pos);
+
+            repLen = 0;
+            repIndex = 0;
+            for (int i = 0; i < reps.length; i++) {
+                if (reps[i] < pos) {
+                    len = matchLength(pos - reps[i] - 1, pos, available);
+                    if (len > repLen) {
+                        repLen = len;
+                        repIndex = i;
+                    }
+                }
+            }
+
+            mainDist = findMatch(pos, available);
+            mainLen = mainDist < 0 ? 0 : matchLength(pos - mainDist - 1,
+                    pos, available);
+            if (mainLen == LzmaDecoder.MATCH_MIN_LEN
+                    && mainDist >= SHORT_MATCH_DISTANCE) {
+                mainLen = 0;
+            }
+
+            if (repLen >= LzmaDecoder.MATCH_MIN_LEN && repLen + 1 >= mainLen) {
+                encodeRep(repIndex, repLen, posState);
+                pos += repLen;
+            } else if (mainLen >= LzmaDecoder.MATCH_MIN_LEN
+                    && !betterMatchFollows(pos, mainLen)) {
+                encodeMatch(mainDist, mainLen, posState);
+                pos += mainLen;
+            } else if (mainLen < LzmaDecoder.MATCH_MIN_LEN && reps[0] < pos
+                    && data[pos] == data[pos - reps[0] - 1]) {
+                encodeShortRep(posState);
+                pos++;
+            } else {
+                encodeLiteral(pos, posState);
+                pos++;
+            }
+        }
+
+        encodeEndMarker(pos & pbMask);
+        for (int i = 0; i < FLUSH_BYTES; i++) {
+            shiftLow();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Is there a longer match at the next position. If so the current byte
+     * is encoded as a literal.
+     *
+     * @param pos the current position.
+     * @param len the length of the match at the current position.
+     * @return true if the match at the next position is longer.
+     */
+    private boolean betterMatchFollows(final int pos, final int len) {
+        boolean better = false;
+        if (len < NICE_LENGTH && pos + 1 < length) {
+            final int available = Math.min(MAX_MATCH_LEN, length - pos - 1);
+            final int dist = findMatch(pos + 1, available);
+            better = dist >= 0 && matchLength(pos - dist, pos + 1,
+                    available) > len;
+        }
+        return better;
+    }
+
+    /**
+     * Count the number of bytes that match.
+     *
+     * @param from the start of the earlier data.
+     * @param pos the current position.
+     * @param limit the maximum length of the match.
+     * @return the number of matching bytes.
+     */
+    private int matchLength(final int from, final int pos, final int limit) {
+        int len = 0;
+        while (len < limit && data[from + len] == data[pos + len]) {
+            len++;
+        }
+        return len;
+    }
+
+    /**
+     * Hash the three bytes at a position.
+     *
+     * @param pos the position.
+     * @return the hash.
+     */
+    private int hash(final int pos) {
+        final int value = (data[pos] & LzmaDecoder.BYTE_MASK)
+                | ((data[pos + 1] & LzmaDecoder.BYTE_MASK)
+                        << LzmaDecoder.BYTE_BITS)
+                | ((data[pos + 2] & LzmaDecoder.BYTE_MASK)
+                        << (2 * LzmaDecoder.BYTE_BITS));
+        return (value * HASH_MULTIPLIER) >>> (Integer.SIZE - HASH_BITS);
+    }
+
+    /**
+     * Find the longest match for the data at a position. All the preceding
+     * positions are added to the hash chains first.
+     *
+     * @param pos the position.
+     * @param limit the maximum length of the match.
+     * @return the distance of the longest match, less one, or -1 if no
+     * match was found.
+     */
+    private int findMatch(final int pos, final int limit) {
+        for (; inserted < pos; inserted++) {
+            if (inserted + HASH_BYTES <= length) {
+                final int key = hash(inserted);
+                chain[inserted] = head[key];
+                head[key] = inserted;
+            }
+        }
+
+        int best = 0;
+        int bestDist = -1;
+
+        if (pos + HASH_BYTES <= length) {
+            int candidate = head[hash(pos)];
+            int dist;
+            int len;
+            for (int depth = CHAIN_DEPTH; candidate >= 0 && depth > 0;
+                    depth--) {
+                dist = pos - candidate - 1;
+                if (dist >= dictionarySize) {
+                    break;
+                }
+                if (data[candidate + best] == data[pos + best]) {
+                    len = matchLength(candidate, pos, limit);
+                    if (len > best) {
+                        best = len;
+                        bestDist = dist;
+                        if (len >= NICE_LENGTH || len == limit) {
+                            break;
+                        }
+                    }
+                }
+                candidate = chain[candidate];
+            }
+        }
+        return bestDist;
+    }
+
+    /**
+     * Encode a literal.
+     *
+     * @param pos the position of the literal.
+     * @param posState the position state.
+     */
+    private void encodeLiteral(final int pos, final int posState) {
+        encodeBit(isMatch, (state << LzmaDecoder.POS_STATES_BITS_MAX)
+                + posState, 0);
+        final int prev = pos > 0 ? data[pos - 1] & LzmaDecoder.BYTE_MASK : 0;
+        final int offset = LzmaDecoder.LITERAL_SIZE
+                * (prev >>> (LzmaDecoder.BYTE_BITS - LC));
+        final int symbol = data[pos] & LzmaDecoder.BYTE_MASK;
+        int context = 1;
+        int value;
+
+        if (state < LzmaDecoder.NUM_LIT_STATES) {
+            for (int i = LzmaDecoder.BYTE_BITS - 1; i >= 0; i--) {
+                value = (symbol >>> i) & 1;
+                encodeBit(literals, offset + context, value);
+                context = (context << 1) | value;
+            }
+        } else {
+            final int matchByte = data[pos - reps[0] - 1]
+                    & LzmaDecoder.BYTE_MASK;
+            boolean same = true;
+            int index;
+            int matchBit;
+            for (int i = LzmaDecoder.BYTE_BITS - 1; i >= 0; i--) {
+                value = (symbol >>> i) & 1;
+                index = context;
+                if (same) {
+                    matchBit = (matchByte >>> i) & 1;
+                    index += (1 + matchBit) << LzmaDecoder.BYTE_BITS;
+                    same = matchBit == value;
+                }
+                encodeBit(literals, offset + index, value);
+                context = (context << 1) | value;
+            }
+        }
+        state = LzmaDecoder.stateAfterLiteral(state);
+    }
+
+    /**
+     * Encode a match.
+     *
+     * @param dist the distance of the match, less one.
+     * @param len the length of the match.
+     * @param posState the position state.
+     */
+    private void encodeMatch(final int dist, final int len,
+            final int posState) {
+        encodeBit(isMatch, (state << LzmaDecoder.POS_STATES_BITS_MAX)
+                + posState, 1);
+        encodeBit(isRep, state, 0);
+        encodeLength(matchLength, len - LzmaDecoder.MATCH_MIN_LEN, posState);
+        encodeDistance(dist, len);
+        System.arraycopy(reps, 0, reps, 1, reps.length - 1);
+        reps[0] = dist;
+        state = state < LzmaDecoder.NUM_LIT_STATES ? LzmaDecoder.STATE_MATCH
+                : LzmaDecoder.STATE_MATCH_AFTER_MATCH;
+    }
+
+    /**
+     * Encode a match that repeats one of the last four distances.
+     *
+     * @param index the index of the distance in the list of repeats.
+     * @param len the length of the match.
+     * @param posState the position state.
+     */
+    private void encodeRep(final int index, final int len,
+            final int posState) {
+        encodeBit(isMatch, (state << LzmaDecoder.POS_STATES_BITS_MAX)
+                + posState, 1);
+        encodeBit(isRep, state, 1);
+        if (index == 0) {
+            encodeBit(isRepG0, state, 0);
+            encodeBit(isRep0Long, (state << LzmaDecoder.POS_STATES_BITS_MAX)
+                    + posState, 1);
+        } else {
+            encodeBit(isRepG0, state, 1);
+            if (index == 1) {
+                encodeBit(isRepG1, state, 0);
+            } else {
+                encodeBit(isRepG1, state, 1);
+                encodeBit(isRepG2, state, index - 2);
+            }
+            final int dist = reps[index];
+            System.arraycopy(reps, 0, reps, 1, index);
+            reps[0] = dist;
+        }
+        encodeLength(repLength, len - LzmaDecoder.MATCH_MIN_LEN, posState);
+        state = state < LzmaDecoder.NUM_LIT_STATES ? LzmaDecoder.STATE_REP
+                : LzmaDecoder.STATE_REP_AFTER_MATCH;
+    }
+
+    /**
+     * Encode a single byte repeated from the last distance.
+     *
+     * @param posState the position state.
+     */
+    private void encodeShortRep(final int posState) {
+        encodeBit(isMatch, (state << LzmaDecoder.POS_STATES_BITS_MAX)
+                + posState, 1);
+        encodeBit(isRep, state, 1);
+        encodeBit(isRepG0, state, 0);
+        encodeBit(isRep0Long, (state << LzmaDecoder.POS_STATES_BITS_MAX)
+                + posState, 0);
+        state = state < LzmaDecoder.NUM_LIT_STATES
+                ? LzmaDecoder.STATE_SHORT_REP
+                : LzmaDecoder.STATE_REP_AFTER_MATCH;
+    }
+
+    /**
+     * Encode the marker that signals the end of the data.
+     *
+     * @param posState the position state.
+     */
+    private void encodeEndMarker(final int posState) {
+        encodeBit(isMatch, (state << LzmaDecoder.POS_STATES_BITS_MAX)
+                + posState, 1);
+        encodeBit(isRep, state, 0);
+        encodeLength(matchLength, 0, posState);
+        encodeDistance(LzmaDecoder.END_MARKER, LzmaDecoder.MATCH_MIN_LEN);
+    }
+
+    /**
+     * Encode the length of a match.
+     *
+     * @param probs the probabilities for the length.
+     * @param len the length less the minimum length of a match.
+     * @param posState the position state.
+     */
+    private void encodeLength(final short[] probs, final int len,
+            final int posState) {
+        if (len < LzmaDecoder.LEN_LOW_SYMBOLS) {
+            encodeBit(probs, 0, 0);
+            encodeTree(probs, 2 + (posState << LzmaDecoder.LEN_LOW_BITS),
+                    LzmaDecoder.LEN_LOW_BITS, len);
+        } else if (len < LzmaDecoder.LEN_LOW_SYMBOLS
+                + LzmaDecoder.LEN_MID_SYMBOLS) {
+            encodeBit(probs, 0, 1);
+            encodeBit(probs, 1, 0);
+            encodeTree(probs, 2 + (LzmaDecoder.LEN_LOW_SYMBOLS
+                    << LzmaDecoder.POS_STATES_BITS_MAX)
+                    + (posState << LzmaDecoder.LEN_MID_BITS),
+                    LzmaDecoder.LEN_MID_BITS,
+                    len - LzmaDecoder.LEN_LOW_SYMBOLS);
+        } else {
+            encodeBit(probs, 0, 1);
+            encodeBit(probs, 1, 1);
+            encodeTree(probs, 2 + ((LzmaDecoder.LEN_LOW_SYMBOLS
+                    + LzmaDecoder.LEN_MID_SYMBOLS)
+                    << LzmaDecoder.POS_STATES_BITS_MAX),
+                    LzmaDecoder.LEN_HIGH_BITS, len
+                    - LzmaDecoder.LEN_LOW_SYMBOLS
+                    - LzmaDecoder.LEN_MID_SYMBOLS);
+        }
+    }
+
+    /**
+     * Encode the distance of a match.
+     *
+     * @param dist the distance less one, or -1 for the end marker.
+     * @param len the length of the match.
+     */
+    private void encodeDistance(final int dist, final int len) {
+        final int slot;
+        if (dist >= 0 && dist < LzmaDecoder.START_POS_MODEL_INDEX) {
+            slot = dist;
+        } else {
+            final int bits = Integer.SIZE - 1
+                    - Integer.numberOfLeadingZeros(dist);
+            slot = (bits << 1) | ((dist >>> (bits - 1)) & 1);
+        }
+        encodeTree(posSlot, LzmaDecoder.lenToPosState(len)
+                << LzmaDecoder.NUM_POS_SLOT_BITS,
+                LzmaDecoder.NUM_POS_SLOT_BITS, slot);
+
+        if (slot >= LzmaDecoder.START_POS_MODEL_INDEX) {
+            final int bits = (slot >>> 1) - 1;
+            final int base = (2 | (slot & 1)) << bits;
+            final int reduced = dist - base;
+            if (slot < LzmaDecoder.END_POS_MODEL_INDEX) {
+                encodeReverseTree(posBits, base - slot - 1, bits, reduced);
+            } else {
+                encodeDirect(reduced >>> LzmaDecoder.NUM_ALIGN_BITS,
+                        bits - LzmaDecoder.NUM_ALIGN_BITS);
+                encodeReverseTree(align, 0, LzmaDecoder.NUM_ALIGN_BITS,
+                        reduced & ((1 << LzmaDecoder.NUM_ALIGN_BITS) - 1));
+            }
+        }
+    }
+
+    /**
+     * Encode a value, most significant bit first, using a tree of
+     * probabilities.
+     *
+     * @param probs the probabilities.
+     * @param start the offset of the tree in the array.
+     * @param bits the number of bits in the value.
+     * @param value the value.
+     */
+    private void encodeTree(final short[] probs, final int start,
+            final int bits, final int value) {
+        int index = 1;
+        int bit;
+        for (int i = bits - 1; i >= 0; i--) {
+            bit = (value >>> i) & 1;
+            encodeBit(probs, start + index, bit);
+            index = (index << 1) | bit;
+        }
+    }
+
+    /**
+     * Encode a value, least significant bit first, using a tree of
+     * probabilities.
+     *
+     * @param probs the probabilities.
+     * @param start the offset of the tree in the array.
+     * @param bits the number of bits in the value.
+     * @param value the value.
+     */
+    private void encodeReverseTree(final short[] probs, final int start,
+            final int bits, final int value) {
+        int index = 1;
+        int bit;
+        for (int i = 0; i < bits; i++) {
+            bit = (value >>> i) & 1;
+            encodeBit(probs, start + index, bit);
+            index = (index << 1) | bit;
+        }
+    }
+
+    /**
+     * Encode bits with fixed probabilities of 0.5.
+     *
+     * @param value the value.
+     * @param bits the number of bits.
+     */
+    private void encodeDirect(final int value, final int bits) {
+        for (int i = bits - 1; i >= 0; i--) {
+            range >>>= 1;
+            if (((value >>> i) & 1) == 1) {
+                low += range & LOWEST32;
+            }
+            if ((range & LzmaDecoder.TOP_MASK) == 0) {
+                range <<= LzmaDecoder.BYTE_BITS;
+                shiftLow();
+            }
+        }
+    }
+
+    /**
+     * Encode a bit and update its probability.
+     *
+     * @param probs the array of probabilities.
+     * @param index the index of the probability for the bit.
+     * @param bit the value of the bit.
+     */
+    private void encodeBit(final short[] probs, final int index,
+            final int bit) {
+        final int prob = probs[index];
+        final int bound = (range >>> LzmaDecoder.NUM_BIT_MODEL_TOTAL_BITS)
+                * prob;
+        if (bit == 0) {
+            range = bound;
+            probs[index] = (short) (prob + ((LzmaDecoder.BIT_MODEL_TOTAL
+                    - prob) >>> LzmaDecoder.NUM_MOVE_BITS));
+        } else {
+            low += bound & LOWEST32;
+            range -= bound;
+            probs[index] = (short) (prob
+                    - (prob >>> LzmaDecoder.NUM_MOVE_BITS));
+        }
+        if ((range & LzmaDecoder.TOP_MASK) == 0) {
+            range <<= LzmaDecoder.BYTE_BITS;
+            shiftLow();
+        }
+    }
+
+    /**
+     * Shift the top byte out of low. The byte is held back until it is
+     * known that no carry will be propagated into it.
+     */
+    private void shiftLow() {
+        if (low < CARRY_LIMIT || low > LOWEST32) {
+            final int carry = (int) (low >>> Integer.SIZE);
+            int temp = cache;
+            do {
+                out.write(temp + carry);
+                temp = LzmaDecoder.BYTE_MASK;
+            } while (--cacheSize != 0);
+            cache = (int) (low >>> TO_TOP_BYTE) & LzmaDecoder.BYTE_MASK;
+        }
+        cacheSize++;
+        low = (low & LOW_MASK) << LzmaDecoder.BYTE_BITS;
+    }
+}
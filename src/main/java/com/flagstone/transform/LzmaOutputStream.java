@@ -0,0 +1,77 @@
+/*
+ * LzmaOutputStream.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * LzmaOutputStream collects the body of a movie then, when it is closed,
+ * compresses it with LZMA and writes the length of the compressed data, the
+ * LZMA properties and the compressed data to the underlying stream as
+ * required for a ZWS file.
+ */
+final class LzmaOutputStream extends ByteArrayOutputStream {
+
+    /** The stream the compressed data is written to. */
+    private final transient OutputStream target;
+    /** Whether the stream was closed. */
+    private transient boolean closed;
+
+    /**
+     * Create an LzmaOutputStream.
+     *
+     * @param stream the stream the compressed data is written to.
+     * @param length the expected length of the body, used to size the
+     * buffer.
+     */
+    LzmaOutputStream(final OutputStream stream, final int length) {
+        super(Math.max(length, 0));
+        target = stream;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            final byte[] data = LzmaEncoder.encode(buf, count);
+            final int size = data.length - LzmaDecoder.PROPERTIES_LENGTH;
+            for (int i = 0; i < Integer.SIZE; i += LzmaDecoder.BYTE_BITS) {
+                target.write(size >>> i);
+            }
+            target.write(data);
+            target.close();
+        }
+    }
+}
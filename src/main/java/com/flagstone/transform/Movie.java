@@ -31,26 +31,35 @@
 
 package com.flagstone.transform;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.zip.DataFormatException;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
+import java.util.zip.Inflater;
 
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.Copyable;
 import com.flagstone.transform.coder.DecoderRegistry;
+import com.flagstone.transform.coder.Interner;
 import com.flagstone.transform.coder.SWFDecoder;
 import com.flagstone.transform.coder.SWFEncoder;
 import com.flagstone.transform.coder.SWFFactory;
@@ -89,10 +98,20 @@ public final class Movie implements Copyable<Movie> {
     private static final int SIGNATURE_LENGTH = 3;
     /** Length in bytes of the signature and length fields. */
     private static final int HEADER_LENGTH = 8;
+    /** Bit mask applied to bytes when converting to unsigned integers. */
+    private static final int BYTE_MASK = 255;
+    /** Size of the blocks copied from a buffer when inflating a movie. */
+    private static final int INFLATE_BUFFER_SIZE = 65536;
+    /** Size in bytes of the segments encoded or decoded in parallel. */
+    private static final int SEGMENT_SIZE = 65536;
+    /** Length in bytes of the frame count field in the movie header. */
+    private static final int FRAME_COUNT_LENGTH = 2;
     /** Signature identifying Flash (SWF) files. */
     public static final byte[] FWS = new byte[] {0x46, 0x57, 0x53 };
     /** Signature identifying Compressed Flash (SWF) files. */
     public static final byte[] CWS = new byte[] {0x43, 0x57, 0x53 };
+    /** Signature identifying LZMA Compressed Flash (SWF) files. */
+    public static final byte[] ZWS = new byte[] {0x5A, 0x57, 0x53 };
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "Movie: { objects=%s}";
@@ -102,6 +121,16 @@ public final class Movie implements Copyable<Movie> {
     private transient CharacterEncoding encoding;
     /** The list of objects that make up the movie. */
     private List<MovieTag> objects;
+    /** The executor used to encode the movie in parallel. */
+    private transient ExecutorService executor;
+    /** The settings used to compress the movie. */
+    private transient Compression compression;
+    /** Receives the statistics for each tag decoded or encoded. */
+    private transient MovieListener listener;
+    /** Whether equal immutable objects are shared when decoded. */
+    private transient boolean interning;
+    /** Whether the movie is encoded in a single pass over the objects. */
+    private transient boolean singlePass;
 
     /**
      * Creates a new Movie.
@@ -110,6 +139,7 @@ public final class Movie implements Copyable<Movie> {
         registry = DecoderRegistry.getDefault();
         encoding = CharacterEncoding.UTF8;
         objects = new ArrayList<MovieTag>();
+        compression = new Compression();
     }
 
     /**
@@ -122,6 +152,11 @@ public final class Movie implements Copyable<Movie> {
             registry = movie.registry.copy();
         }
         encoding = movie.encoding;
+        executor = movie.executor;
+        compression = movie.compression.copy();
+        listener = movie.listener;
+        interning = movie.interning;
+        singlePass = movie.singlePass;
 
         objects = new ArrayList<MovieTag>(movie.objects.size());
 
@@ -151,6 +186,163 @@ public final class Movie implements Copyable<Movie> {
         encoding = enc;
     }
 
+    /**
+     * Get the executor used to encode and decode the objects in the movie in
+     * parallel.
+     *
+     * @return the ExecutorService used to encode and decode the movie or null
+     * if the movie is encoded and decoded in the current thread.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor used to encode and decode the objects in the movie in
+     * parallel.
+     *
+     * <p>
+     * When a movie is encoded the lengths of all the objects are calculated
+     * in the current thread. The list of objects is then divided into
+     * consecutive segments which are encoded separately by the executor and
+     * written to the output stream in order.
+     * </p>
+     *
+     * <p>
+     * When a movie is decoded the headers of the objects are scanned first
+     * to find where each one starts. The data is then divided into segments
+     * which are decoded separately by the executor and the objects are added
+     * to the movie in order. Movies read from a stream are read into memory
+     * before being decoded.
+     * </p>
+     *
+     * <p>
+     * The executor is not shut down once the movie is encoded or decoded so
+     * it can be shared between movies.
+     * </p>
+     *
+     * @param service the ExecutorService used to encode and decode the movie.
+     * May be null in which case the movie is encoded and decoded in the
+     * current thread.
+     */
+    public void setExecutor(final ExecutorService service) {
+        executor = service;
+    }
+
+    /**
+     * Get the object that receives the statistics for each tag as the movie
+     * is decoded or encoded.
+     *
+     * @return the MovieListener or null if no statistics are collected.
+     */
+    public MovieListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Sets the object that receives the number of bytes and the time taken
+     * for each tag as the movie is decoded, prepared for encoding and
+     * encoded. If an executor is used then the listener is called from
+     * several threads.
+     *
+     * @param movieListener the MovieListener. May be null in which case no
+     * statistics are collected, which is the default.
+     */
+    public void setListener(final MovieListener movieListener) {
+        listener = movieListener;
+    }
+
+    /**
+     * Indicates whether equal immutable objects are shared when the movie is
+     * decoded.
+     *
+     * @return true if objects are shared, false if every object decoded is a
+     * separate instance.
+     */
+    public boolean isInterning() {
+        return interning;
+    }
+
+    /**
+     * Sets whether equal immutable objects, Color, Bounds, CoordTransform
+     * and ColorTransform, are shared when the movie is decoded. Each decode
+     * uses a separate Interner with the default capacity so only the
+     * objects in a single movie are shared. This reduces the memory used by
+     * large movies which repeat the same colours, bounding boxes and
+     * transforms many times.
+     *
+     * <p>
+     * The objects are immutable so sharing them is safe however they should
+     * not be compared using ==.
+     * </p>
+     *
+     * @param share true if equal objects are shared, false if every object
+     * decoded is a separate instance, the default.
+     */
+    public void setInterning(final boolean share) {
+        interning = share;
+    }
+
+    /**
+     * Indicates whether the movie is encoded in a single pass over the list
+     * of objects.
+     *
+     * @return true if the movie is encoded in one pass, false if the lengths
+     * of all the objects are calculated before any of them are encoded.
+     */
+    public boolean isSinglePass() {
+        return singlePass;
+    }
+
+    /**
+     * Sets whether the movie is encoded in a single pass over the list of
+     * objects. Each object is encoded in turn into a buffer held in memory
+     * and the frame count and file length are written into the header once
+     * the last object has been encoded. Tags decoded using the RETAIN
+     * DecodePolicy, and not changed since, are copied into the buffer without
+     * being prepared. This avoids a separate pass over the objects to
+     * calculate the length of the movie, at the cost of holding the encoded
+     * movie in memory.
+     *
+     * <p>
+     * The objects are encoded in the current thread. If an executor has been
+     * set it is only used to compress the movie.
+     * </p>
+     *
+     * @param onePass true if the movie is encoded in a single pass, false if
+     * the length of the movie is calculated before it is encoded, the
+     * default.
+     */
+    public void setSinglePass(final boolean onePass) {
+        singlePass = onePass;
+    }
+
+    /**
+     * Get the settings used to compress the movie.
+     *
+     * @return the Compression object containing the level, strategy and
+     * buffer size used by the Deflater.
+     */
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Sets the settings used to compress the movie. If the block size is
+     * greater than zero and an executor has been set then the movie is
+     * divided into blocks which are compressed in parallel.
+     *
+     * @param settings
+     *            the Compression object containing the level, strategy and
+     *            buffer size used by the Deflater. Must not be null.
+     */
+    public void setCompression(final Compression settings) {
+        if (settings == null) {
+            throw new IllegalArgumentException();
+        }
+        compression = settings;
+    }
+
     /**
      * Get the list of objects contained in the Movie.
      *
@@ -212,7 +404,206 @@ public final class Movie implements Copyable<Movie> {
      */
     public void decodeFromFile(final File file) throws DataFormatException,
             IOException {
-        decodeFromStream(new FileInputStream(file));
+        final FileInputStream stream = new FileInputStream(file);
+        try {
+            decodeFromChannel(stream.getChannel());
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Decodes a Flash file read from a FileChannel. The contents of the
+     * channel, from the current position to the end, are mapped into memory
+     * and decoded in place. The channel is not closed.
+     *
+     * @param channel
+     *            the FileChannel from which the movie will be decoded.
+     * @throws DataFormatException
+     *             if the file does not contain Flash data.
+     * @throws IOException
+     *             if an I/O error occurs while reading the file.
+     */
+    public void decodeFromChannel(final FileChannel channel)
+            throws DataFormatException, IOException {
+        final long start = channel.position();
+        decodeFromBuffer(channel.map(FileChannel.MapMode.READ_ONLY,
+                start, channel.size() - start));
+    }
+
+    /**
+     * Decodes the binary Flash data contained in a ByteBuffer, from the
+     * current position to the limit. Uncompressed movies are decoded directly
+     * from the buffer. Compressed movies are inflated, in a single pass, into
+     * an array sized using the length recorded in the file header. The
+     * position of the buffer is not changed.
+     *
+     * @param buffer
+     *            a ByteBuffer, either on the heap, direct or memory-mapped,
+     *            containing the encoded movie.
+     * @throws DataFormatException
+     *             if the buffer does not contain Flash data.
+     * @throws IOException
+     *             if an error occurs while decoding the data.
+     */
+    public void decodeFromBuffer(final ByteBuffer buffer)
+            throws DataFormatException, IOException {
+
+        final ByteBuffer data = buffer.slice();
+
+        final Context context = new Context();
+        context.setRegistry(registry);
+        if (interning) {
+            context.setInterner(new Interner());
+        }
+        context.setEncoding(encoding.getEncoding());
+
+        final int length = readSignature(data, context);
+
+        final ByteBuffer body;
+
+        if (context.getInt(Context.LZMA) == 1) {
+            body = ByteBuffer.wrap(LzmaDecoder.decode(data,
+                    length - HEADER_LENGTH));
+        } else if (context.getInt(Context.COMPRESSED) == 1) {
+            body = ByteBuffer.wrap(inflate(data, length - HEADER_LENGTH));
+        } else {
+            body = data;
+        }
+
+        if (executor == null) {
+            decode(new SWFDecoder(body), context);
+        } else {
+            decodeInParallel(body, context);
+        }
+    }
+
+    /**
+     * Inflate the zlib compressed body of a movie. The array for the
+     * uncompressed data is sized using the length in the file header but
+     * it is extended if the compressed stream contains more data. Some
+     * encoders omit the end of the zlib stream so the data is accepted once
+     * the input is exhausted provided the expected number of bytes were
+     * inflated.
+     *
+     * @param data the buffer positioned at the start of the compressed data.
+     * @param length the expected length of the uncompressed data.
+     * @return an array containing the uncompressed data.
+     * @throws DataFormatException if the data is not in zlib format.
+     * @throws IOException if the buffer ends before the compressed stream.
+     */
+    static byte[] inflate(final ByteBuffer data, final int length)
+            throws DataFormatException, IOException {
+        if (length < 0) {
+            throw new DataFormatException("Invalid movie length");
+        }
+
+        byte[] bytes = new byte[length];
+        final Inflater inflater = new Inflater();
+        int count = 0;
+
+        try {
+            byte[] input;
+            int available;
+
+            if (data.hasArray()) {
+                input = data.array();
+                inflater.setInput(input, data.arrayOffset() + data.position(),
+                        data.remaining());
+                data.position(data.limit());
+            } else {
+                input = new byte[Math.min(INFLATE_BUFFER_SIZE,
+                        data.remaining())];
+            }
+
+            while (!inflater.finished()) {
+                if (inflater.needsDictionary()) {
+                    throw new DataFormatException("Missing dictionary");
+                }
+                if (inflater.needsInput()) {
+                    available = Math.min(input.length, data.remaining());
+                    if (available == 0 && count >= length) {
+                        break;
+                    } else if (available == 0) {
+                        throw new EOFException();
+                    }
+                    data.get(input, 0, available);
+                    inflater.setInput(input, 0, available);
+                }
+                if (count == bytes.length) {
+                    bytes = grow(bytes);
+                }
+                count += inflater.inflate(bytes, count, bytes.length - count);
+            }
+        } finally {
+            inflater.end();
+        }
+        return count == bytes.length ? bytes : Arrays.copyOf(bytes, count);
+    }
+
+    /**
+     * Inflate the zlib compressed body of a movie read from a stream. The
+     * Inflater is driven directly, without an InflaterInputStream, so the
+     * data is inflated straight into the array that is returned. The array
+     * is sized using the length in the file header but it is extended if the
+     * compressed stream contains more data. Some encoders omit the end of
+     * the zlib stream so the data is accepted once the stream ends provided
+     * the expected number of bytes were inflated.
+     *
+     * @param stream the stream positioned at the start of the compressed
+     * data.
+     * @param length the expected length of the uncompressed data.
+     * @return an array containing the uncompressed data.
+     * @throws DataFormatException if the data is not in zlib format.
+     * @throws IOException if an error occurs reading the stream or the
+     * stream ends before the compressed data.
+     */
+    static byte[] inflate(final InputStream stream, final int length)
+            throws DataFormatException, IOException {
+        if (length < 0) {
+            throw new DataFormatException("Invalid movie length");
+        }
+
+        byte[] bytes = new byte[length];
+        final byte[] input = new byte[INFLATE_BUFFER_SIZE];
+        final Inflater inflater = new Inflater();
+        int count = 0;
+
+        try {
+            while (!inflater.finished()) {
+                if (inflater.needsDictionary()) {
+                    throw new DataFormatException("Missing dictionary");
+                }
+                if (inflater.needsInput()) {
+                    final int available = stream.read(input);
+                    if (available == -1 && count >= length) {
+                        break;
+                    } else if (available == -1) {
+                        throw new EOFException();
+                    }
+                    inflater.setInput(input, 0, available);
+                }
+                if (count == bytes.length) {
+                    bytes = grow(bytes);
+                }
+                count += inflater.inflate(bytes, count, bytes.length - count);
+            }
+        } finally {
+            inflater.end();
+        }
+        return count == bytes.length ? bytes : Arrays.copyOf(bytes, count);
+    }
+
+    /**
+     * Extend the array used to hold the data inflated from a movie when the
+     * length in the file header is too small.
+     *
+     * @param bytes the array containing the data inflated so far.
+     * @return a larger copy of the array.
+     */
+    private static byte[] grow(final byte[] bytes) {
+        return Arrays.copyOf(bytes, bytes.length
+                + Math.max(bytes.length >>> 1, INFLATE_BUFFER_SIZE));
     }
 
     /**
@@ -255,72 +646,186 @@ public final class Movie implements Copyable<Movie> {
     public void decodeFromStream(final InputStream stream)
             throws DataFormatException, IOException {
 
-        InputStream streamIn = null;
-
         try {
             final Context context = new Context();
             context.setRegistry(registry);
+            if (interning) {
+                context.setInterner(new Interner());
+            }
             context.setEncoding(encoding.getEncoding());
 
-            final byte[] signature = new byte[SIGNATURE_LENGTH];
-            if (stream.read(signature) != signature.length) {
-                throw new DataFormatException("Could not read file signature");
+            final int length = readSignature(stream, context);
+
+            /*
+             * Compressed movies are expanded into an array sized using the
+             * file length so the objects are decoded in place rather than
+             * being copied through the buffers of the decompressor and the
+             * decoder.
+             */
+            ByteBuffer body = null;
+
+            if (context.getInt(Context.LZMA) == 1) {
+                body = ByteBuffer.wrap(LzmaDecoder.decode(stream,
+                        length - HEADER_LENGTH));
+            } else if (context.getInt(Context.COMPRESSED) == 1) {
+                body = ByteBuffer.wrap(inflate(stream,
+                        length - HEADER_LENGTH));
             }
 
-            if (Arrays.equals(CWS, signature)) {
-                streamIn = new InflaterInputStream(stream);
-                context.put(Context.COMPRESSED, 1);
-            } else if (Arrays.equals(FWS, signature)) {
-                streamIn = stream;
-                context.put(Context.COMPRESSED, 0);
+            if (body != null && executor != null) {
+                decodeInParallel(body, context);
+            } else if (body != null) {
+                decode(new SWFDecoder(body), context);
+            } else if (executor != null) {
+                decodeInParallel(ByteBuffer.wrap(read(stream,
+                        length - HEADER_LENGTH)), context);
+            } else if (length < SWFDecoder.BUFFER_SIZE) {
+                decode(new SWFDecoder(stream, length - HEADER_LENGTH),
+                        context);
             } else {
-                throw new DataFormatException();
+                decode(new SWFDecoder(stream), context);
             }
+        } finally {
+            stream.close();
+        }
+    }
 
-            context.put(Context.VERSION, stream.read());
+    /**
+     * Decode the header and the list of objects in a movie.
+     *
+     * @param decoder the decoder positioned at the start of the header fields
+     * that follow the file length.
+     * @param context the Context initialised with the version and compression
+     * read from the file signature.
+     * @throws IOException if an error occurs while decoding the data.
+     */
+    private void decode(final SWFDecoder decoder, final Context context)
+            throws IOException {
 
-            int length = stream.read();
-            length |= stream.read() << Coder.ALIGN_BYTE1;
-            length |= stream.read() << Coder.ALIGN_BYTE2;
-            length |= stream.read() << Coder.ALIGN_BYTE3;
+        decoder.setEncoding(encoding);
 
-            /*
-             * If the file is shorter than the default buffer size then set the
-             * buffer size to be the file size - this gets around a bug in Java
-             * where the end of ZLIB streams are not detected correctly.
-             */
-            SWFDecoder decoder;
+        objects.clear();
 
-            if (length < SWFDecoder.BUFFER_SIZE) {
-                decoder = new SWFDecoder(streamIn, length - HEADER_LENGTH);
-            } else {
-                decoder = new SWFDecoder(streamIn);
-            }
+        final SWFFactory<MovieTag> factory = registry.getMovieDecoder();
 
-            decoder.setEncoding(encoding);
+        final MovieHeader header = new MovieHeader(decoder, context);
+        objects.add(header);
 
-            objects.clear();
+        while (decoder.scanUnsignedShort() >>> Coder.LENGTH_FIELD_SIZE
+                != MovieTypes.END) {
+            decodeObject(factory, objects, decoder, context, listener);
+        }
 
-            final SWFFactory<MovieTag> factory = registry.getMovieDecoder();
+        decoder.readUnsignedShort();
 
-            final MovieHeader header = new MovieHeader(decoder, context);
-            objects.add(header);
+        header.setVersion(context.getInt(Context.VERSION));
+        header.setCompressed(context.getInt(Context.COMPRESSED) == 1);
+        header.setLzma(context.getInt(Context.LZMA) == 1);
+    }
 
-            while (decoder.scanUnsignedShort() >>> Coder.LENGTH_FIELD_SIZE
-                    != MovieTypes.END) {
-                factory.getObject(objects, decoder, context);
+    /**
+     * Read the body of a movie from a stream.
+     *
+     * @param stream the stream positioned at the end of the file header.
+     * @param length the expected length of the body.
+     * @return an array containing the body of the movie. If the stream ends
+     * early then the array is truncated.
+     * @throws IOException if an error occurs while reading the stream.
+     */
+    private byte[] read(final InputStream stream, final int length)
+            throws IOException {
+        final byte[] bytes = new byte[Math.max(length, 0)];
+        int count = 0;
+        int read = 0;
+
+        while (count < bytes.length && read != -1) {
+            read = stream.read(bytes, count, bytes.length - count);
+            if (read > 0) {
+                count += read;
             }
+        }
+        return count == bytes.length ? bytes : Arrays.copyOf(bytes, count);
+    }
+
+    /**
+     * Decode the header and the list of objects in a movie using the
+     * executor. The movie header is decoded in the current thread and the
+     * headers for the remaining objects are scanned to find where each one
+     * starts. Consecutive runs of objects are then decoded by the executor
+     * and added to the movie in order.
+     *
+     * <p>
+     * Each run is decoded with a copy of the Context. The only information
+     * that is passed from one object to the next when a movie is decoded is
+     * the version, read from the file header, and whether a
+     * PathsArePostscript object was found. The scan records where the
+     * latter occurs so runs that follow it are decoded with the POSTSCRIPT
+     * variable set.
+     * </p>
+     *
+     * @param body the data that follows the file length.
+     * @param context the Context initialised with the version and compression
+     * read from the file signature.
+     * @throws IOException if an error occurs while decoding the data.
+     */
+    private void decodeInParallel(final ByteBuffer body,
+            final Context context) throws IOException {
+
+        final SWFDecoder decoder = new SWFDecoder(body);
+        decoder.setEncoding(encoding);
+
+        objects.clear();
 
-            decoder.readUnsignedShort();
+        final MovieHeader header = new MovieHeader(decoder, context);
+        objects.add(header);
 
-            header.setVersion(context.get(Context.VERSION));
-            header.setCompressed(context.get(Context.COMPRESSED) == 1);
+        // The header is byte aligned so mark() returns the start of the tags.
+        final int first = decoder.mark();
+        decoder.unmark();
 
+        final TagIndex index = TagIndex.scan(body, first);
+        final ByteBuffer data = body.slice();
+        final int count = index.size();
+        final List<Future<List<MovieTag>>> segments =
+            new ArrayList<Future<List<MovieTag>>>();
+
+        int start = 0;
+        boolean postscript = false;
+        Context segmentContext = context;
+
+        try {
+            for (int i = 0; i < count; i++) {
+                if (index.getType(i) == MovieTypes.PATHS_ARE_POSTSCRIPT) {
+                    postscript = true;
+                }
+                final int end = index.getOffset(i) + index.getLength(i);
+
+                if (i == count - 1
+                        || end - index.getOffset(start) >= SEGMENT_SIZE) {
+                    segments.add(executor.submit(new SegmentDecoder(data,
+                            index.getOffset(start), end, i + 1 - start,
+                            new Context(segmentContext), encoding,
+                            listener)));
+                    if (postscript) {
+                        segmentContext = new Context(context);
+                        segmentContext.put(Context.POSTSCRIPT, 1);
+                    }
+                    start = i + 1;
+                }
+            }
+
+            for (final Future<List<MovieTag>> segment : segments) {
+                objects.addAll(waitFor(segment));
+            }
         } finally {
-            if (streamIn != null) {
-                streamIn.close();
+            for (final Future<List<MovieTag>> segment : segments) {
+                segment.cancel(true);
             }
         }
+
+        header.setVersion(context.getInt(Context.VERSION));
+        header.setCompressed(context.getInt(Context.COMPRESSED) == 1);
+        header.setLzma(context.getInt(Context.LZMA) == 1);
     }
 
     /**
@@ -355,6 +860,16 @@ public final class Movie implements Copyable<Movie> {
     public void encodeToStream(final OutputStream stream)
             throws DataFormatException, IOException {
 
+        if (singlePass) {
+            encodeInOnePass(stream);
+            return;
+        }
+
+        if (executor != null) {
+            encodeInParallel(stream);
+            return;
+        }
+
         OutputStream streamOut = null;
 
         try {
@@ -370,7 +885,7 @@ public final class Movie implements Copyable<Movie> {
             int frameCount = 0;
 
             for (final MovieTag tag : objects) {
-                length += tag.prepareToEncode(context);
+                length += prepare(tag, context, listener);
 
                 if (tag instanceof ShowFrame) {
                     frameCount++;
@@ -379,36 +894,542 @@ public final class Movie implements Copyable<Movie> {
 
             header.setFrameCount(frameCount);
 
-            if (header.isCompressed()) {
-                stream.write(CWS);
-            } else {
-                stream.write(FWS);
-            }
+            streamOut = writeSignature(stream, header, length,
+                    compression, executor);
 
-            stream.write(header.getVersion());
-            stream.write(length);
-            stream.write(length >>> Coder.ALIGN_BYTE1);
-            stream.write(length >>> Coder.ALIGN_BYTE2);
-            stream.write(length >>> Coder.ALIGN_BYTE3);
+            final SWFEncoder coder = new SWFEncoder(streamOut);
+            coder.setEncoding(encoding);
 
-            if (header.isCompressed()) {
-                streamOut = new DeflaterOutputStream(stream);
-            } else {
-                streamOut = stream;
+            for (final MovieTag tag : objects) {
+                encode(tag, coder, context, listener);
+            }
+            coder.writeShort(0);
+            coder.flush();
+        } finally {
+            if (streamOut != null) {
+                streamOut.close();
             }
+        }
+    }
 
-            final SWFEncoder coder = new SWFEncoder(streamOut);
+    /**
+     * Encodes the movie, preparing and encoding each object in turn into a
+     * buffer so the list of objects is only traversed once. Unchanged tags
+     * that hold the data they were decoded from are copied without being
+     * prepared. The frame count in the header and the length of the file are
+     * filled in after all the objects have been encoded.
+     *
+     * @param stream
+     *            the output stream that the video will be encoded to.
+     * @throws IOException
+     *             - if an I/O error occurs while encoding the file.
+     * @throws DataFormatException
+     *             if an error occurs when compressing the flash file.
+     */
+    private void encodeInOnePass(final OutputStream stream)
+            throws DataFormatException, IOException {
+
+        OutputStream streamOut = null;
+
+        try {
+            final MovieHeader header = (MovieHeader) objects.get(0);
+
+            final Context context = new Context();
+            context.setEncoding(encoding.getEncoding());
+            context.put(Context.VERSION, header.getVersion());
+
+            final PatchableBuffer body = new PatchableBuffer();
+            final SWFEncoder coder = new SWFEncoder(body);
             coder.setEncoding(encoding);
 
+            int frameCount = 0;
+            int frameCountField = 0;
+
             for (final MovieTag tag : objects) {
-                tag.encode(coder, context);
+                if (!isRetained(tag, context)) {
+                    prepare(tag, context, listener);
+                }
+                encode(tag, coder, context, listener);
+
+                if (tag == header) {
+                    // The frame count is the last field in the header.
+                    frameCountField = coder.bytesWritten()
+                            - FRAME_COUNT_LENGTH;
+                } else if (tag instanceof ShowFrame) {
+                    frameCount++;
+                }
             }
             coder.writeShort(0);
             coder.flush();
+
+            header.setFrameCount(frameCount);
+            body.writeShort(frameCountField, frameCount);
+
+            streamOut = writeSignature(stream, header,
+                    HEADER_LENGTH + body.size(), compression, executor);
+            body.writeTo(streamOut);
         } finally {
             if (streamOut != null) {
                 streamOut.close();
             }
         }
     }
+
+    /**
+     * Can the encoded data held by a tag be written out without the tag
+     * being prepared.
+     *
+     * @param tag the object to encode.
+     * @param context the Context used to encode the movie.
+     * @return true if the tag was decoded using the RETAIN DecodePolicy, has
+     * not been changed and the movie is encoded with the same version and
+     * character encoding.
+     */
+    private static boolean isRetained(final MovieTag tag,
+            final Context context) {
+        boolean retained = false;
+        if (tag instanceof Passthrough) {
+            final Retained encoded = ((Passthrough) tag).getEncoded();
+            retained = encoded != null && encoded.matches(context);
+        }
+        return retained;
+    }
+
+    /**
+     * Read the signature, version and file length that start a movie from a
+     * stream. The header is read in full before it is checked.
+     *
+     * @param stream the stream the movie is read from.
+     * @param context the Context where the version and the type of
+     * compression are recorded.
+     * @return the file length.
+     * @throws DataFormatException if the stream does not contain Flash data.
+     * @throws IOException if an error occurs reading the stream.
+     */
+    static int readSignature(final InputStream stream, final Context context)
+            throws DataFormatException, IOException {
+        final byte[] bytes = new byte[HEADER_LENGTH];
+        int offset = 0;
+        while (offset < bytes.length) {
+            final int count = stream.read(bytes, offset,
+                    bytes.length - offset);
+            if (count == -1) {
+                throw new DataFormatException("Could not read file header");
+            }
+            offset += count;
+        }
+        return readSignature(ByteBuffer.wrap(bytes), context);
+    }
+
+    /**
+     * Read the signature, version and file length that start a movie. The
+     * buffer is left positioned at the start of the movie header.
+     *
+     * @param data the buffer the movie is read from.
+     * @param context the Context where the version and the type of
+     * compression are recorded.
+     * @return the file length.
+     * @throws DataFormatException if the buffer does not contain Flash data.
+     */
+    static int readSignature(final ByteBuffer data, final Context context)
+            throws DataFormatException {
+
+        if (data.remaining() < HEADER_LENGTH) {
+            throw new DataFormatException("Could not read file header");
+        }
+
+        final byte[] signature = new byte[SIGNATURE_LENGTH];
+        data.get(signature);
+
+        if (Arrays.equals(CWS, signature)) {
+            context.put(Context.COMPRESSED, 1);
+        } else if (Arrays.equals(ZWS, signature)) {
+            context.put(Context.COMPRESSED, 1);
+            context.put(Context.LZMA, 1);
+        } else if (Arrays.equals(FWS, signature)) {
+            context.put(Context.COMPRESSED, 0);
+        } else {
+            throw new DataFormatException();
+        }
+
+        context.put(Context.VERSION, data.get() & BYTE_MASK);
+
+        int length = data.get() & BYTE_MASK;
+        length |= (data.get() & BYTE_MASK) << Coder.ALIGN_BYTE1;
+        length |= (data.get() & BYTE_MASK) << Coder.ALIGN_BYTE2;
+        length |= (data.get() & BYTE_MASK) << Coder.ALIGN_BYTE3;
+        return length;
+    }
+
+    /**
+     * Write the signature, version and file length then return the stream
+     * that the body of the movie is written to, compressing it if required.
+     *
+     * @param stream the stream the movie is written to.
+     * @param header the header for the movie.
+     * @param length the length of the uncompressed movie, including the
+     * signature, version and file length.
+     * @param compression the settings used to compress the movie.
+     * @param executor the executor used to compress the movie in parallel.
+     * May be null in which case the movie is compressed in the current
+     * thread.
+     * @return the stream to write the body of the movie to.
+     * @throws IOException if an error occurs writing to the stream.
+     */
+    static OutputStream writeSignature(final OutputStream stream,
+            final MovieHeader header, final int length,
+            final Compression compression, final ExecutorService executor)
+            throws IOException {
+
+        if (header.isLzma()) {
+            stream.write(ZWS);
+        } else if (header.isCompressed()) {
+            stream.write(CWS);
+        } else {
+            stream.write(FWS);
+        }
+
+        stream.write(header.getVersion());
+        stream.write(length);
+        stream.write(length >>> Coder.ALIGN_BYTE1);
+        stream.write(length >>> Coder.ALIGN_BYTE2);
+        stream.write(length >>> Coder.ALIGN_BYTE3);
+
+        final OutputStream streamOut;
+
+        if (header.isLzma()) {
+            streamOut = new LzmaOutputStream(stream, length - HEADER_LENGTH);
+        } else if (header.isCompressed()) {
+            streamOut = compression.deflate(stream, executor);
+        } else {
+            streamOut = stream;
+        }
+        return streamOut;
+    }
+
+    /**
+     * Encodes the movie using the executor. The lengths of the objects are
+     * calculated in the current thread then consecutive runs of objects are
+     * encoded by the executor into separate blocks of data which are written
+     * to the stream in order.
+     *
+     * @param stream
+     *            the output stream that the video will be encoded to.
+     * @throws IOException
+     *             - if an I/O error occurs while encoding the file.
+     * @throws DataFormatException
+     *             if an error occurs when compressing the flash file.
+     */
+    private void encodeInParallel(final OutputStream stream)
+            throws DataFormatException, IOException {
+
+        OutputStream streamOut = null;
+        final List<Future<byte[]>> segments = new ArrayList<Future<byte[]>>();
+
+        try {
+            final MovieHeader header = (MovieHeader) objects.get(0);
+
+            final Context context = new Context();
+            context.setEncoding(encoding.getEncoding());
+            context.put(Context.VERSION, header.getVersion());
+
+            // length of signature, version, length and end
+            // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
+            int length = 10;
+            int frameCount = 0;
+
+            final int count = objects.size();
+            final int[] sizes = new int[count];
+
+            for (int i = 0; i < count; i++) {
+                final MovieTag tag = objects.get(i);
+                sizes[i] = prepare(tag, context, listener);
+                length += sizes[i];
+
+                if (tag instanceof ShowFrame) {
+                    frameCount++;
+                }
+            }
+
+            header.setFrameCount(frameCount);
+
+            int start = 0;
+            int size = 0;
+
+            for (int i = 0; i < count; i++) {
+                size += sizes[i];
+                if (size >= SEGMENT_SIZE || i == count - 1) {
+                    segments.add(executor.submit(new SegmentEncoder(
+                            objects.subList(start, i + 1), size, context,
+                            encoding, listener)));
+                    start = i + 1;
+                    size = 0;
+                }
+            }
+
+            streamOut = writeSignature(stream, header, length,
+                    compression, executor);
+
+            for (final Future<byte[]> segment : segments) {
+                streamOut.write(waitFor(segment));
+            }
+            streamOut.write(0);
+            streamOut.write(0);
+        } finally {
+            for (final Future<byte[]> segment : segments) {
+                segment.cancel(true);
+            }
+            if (streamOut != null) {
+                streamOut.close();
+            }
+        }
+    }
+
+    /**
+     * Decode the next object and add it to a list. If a listener is set then
+     * the type of tag, the number of bytes and the time taken are reported.
+     *
+     * @param factory the factory used to decode the object.
+     * @param list the list the object is added to.
+     * @param decoder the decoder positioned at the start of the tag.
+     * @param context the Context used to decode the object.
+     * @param movieListener receives the statistics for the tag. May be null.
+     * @throws IOException if an error occurs while decoding the data.
+     */
+    static void decodeObject(final SWFFactory<MovieTag> factory,
+            final List<MovieTag> list, final SWFDecoder decoder,
+            final Context context, final MovieListener movieListener)
+            throws IOException {
+        if (movieListener == null) {
+            factory.getObject(list, decoder, context);
+        } else {
+            final int type = decoder.scanUnsignedShort()
+                    >>> Coder.LENGTH_FIELD_SIZE;
+            decoder.mark();
+            final long start = System.nanoTime();
+            factory.getObject(list, decoder, context);
+            final long time = System.nanoTime() - start;
+            movieListener.decoded(type, decoder.bytesRead(), time);
+            decoder.unmark();
+        }
+    }
+
+    /**
+     * Prepare an object for encoding. If a listener is set then the type of
+     * tag, the length and the time taken are reported.
+     *
+     * @param tag the object to prepare.
+     * @param context the Context used to prepare the object.
+     * @param movieListener receives the statistics for the tag. May be null.
+     * @return the number of bytes the object will occupy when encoded.
+     */
+    static int prepare(final MovieTag tag, final Context context,
+            final MovieListener movieListener) {
+        final int length;
+        if (movieListener == null) {
+            length = tag.prepareToEncode(context);
+        } else {
+            final long start = System.nanoTime();
+            length = tag.prepareToEncode(context);
+            final long time = System.nanoTime() - start;
+            final int type = tag.getTagType();
+            if (type != MovieTypes.NONE) {
+                movieListener.prepared(type, length, time);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Encode an object. If a listener is set then the type of tag, the
+     * number of bytes and the time taken are reported.
+     *
+     * @param tag the object to encode.
+     * @param coder the encoder the object is written to.
+     * @param context the Context used to encode the object.
+     * @param movieListener receives the statistics for the tag. May be null.
+     * @throws IOException if an error occurs while encoding the object.
+     */
+    static void encode(final MovieTag tag, final SWFEncoder coder,
+            final Context context, final MovieListener movieListener)
+            throws IOException {
+        if (movieListener == null) {
+            tag.encode(coder, context);
+        } else {
+            final int first = coder.bytesWritten();
+            final long start = System.nanoTime();
+            tag.encode(coder, context);
+            final long time = System.nanoTime() - start;
+            final int type = tag.getTagType();
+            if (type != MovieTypes.NONE) {
+                movieListener.encoded(type, coder.bytesWritten() - first,
+                        time);
+            }
+        }
+    }
+
+    /**
+     * Wait for a segment of the movie to be encoded or decoded.
+     *
+     * @param <T> the type of the result.
+     * @param segment the Future for the segment.
+     * @return the encoded data or decoded objects.
+     * @throws IOException if the segment could not be encoded or decoded or
+     * the thread was interrupted while waiting.
+     */
+    static <T> T waitFor(final Future<T> segment) throws IOException {
+        try {
+            return segment.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * SegmentEncoder encodes a consecutive run of objects, which have already
+     * been prepared, into a block of data.
+     */
+    private static final class SegmentEncoder implements Callable<byte[]> {
+        /** The objects to encode. */
+        private final transient List<MovieTag> tags;
+        /** The number of bytes the encoded objects will occupy. */
+        private final transient int length;
+        /** The Context used when encoding the objects. */
+        private final transient Context context;
+        /** The character encoding used for strings. */
+        private final transient CharacterEncoding encoding;
+        /** Receives the statistics for each tag or null. */
+        private final transient MovieListener listener;
+
+        /**
+         * Create a SegmentEncoder.
+         *
+         * @param list the objects to be encoded.
+         * @param size the number of bytes the objects will occupy.
+         * @param ctx the Context, after all the objects in the movie have
+         * been prepared for encoding. A copy is made for the segment.
+         * @param enc the character encoding used for strings.
+         * @param movieListener receives the statistics for each tag. May be
+         * null.
+         */
+        SegmentEncoder(final List<MovieTag> list, final int size,
+                final Context ctx, final CharacterEncoding enc,
+                final MovieListener movieListener) {
+            tags = list;
+            length = size;
+            context = new Context(ctx);
+            encoding = enc;
+            listener = movieListener;
+        }
+
+        /** {@inheritDoc} */
+        public byte[] call() throws IOException {
+            final ByteArrayOutputStream out =
+                    new ByteArrayOutputStream(length);
+            final SWFEncoder coder = new SWFEncoder(out);
+            coder.setEncoding(encoding);
+
+            for (final MovieTag tag : tags) {
+                encode(tag, coder, context, listener);
+            }
+            coder.flush();
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * SegmentDecoder decodes a consecutive run of objects from a block of
+     * data.
+     */
+    private static final class SegmentDecoder
+            implements Callable<List<MovieTag>> {
+        /** The data for the run of objects. */
+        private final transient ByteBuffer data;
+        /** The number of objects to decode. */
+        private final transient int count;
+        /** The Context used when decoding the objects. */
+        private final transient Context context;
+        /** The character encoding used for strings. */
+        private final transient CharacterEncoding encoding;
+        /** Receives the statistics for each tag or null. */
+        private final transient MovieListener listener;
+
+        /**
+         * Create a SegmentDecoder.
+         *
+         * @param buffer the data containing the objects.
+         * @param start the offset of the first object.
+         * @param end the offset of the byte after the last object.
+         * @param number the number of objects.
+         * @param ctx the Context used to decode the objects.
+         * @param enc the character encoding used for strings.
+         * @param movieListener receives the statistics for each tag. May be
+         * null.
+         */
+        SegmentDecoder(final ByteBuffer buffer, final int start,
+                final int end, final int number, final Context ctx,
+                final CharacterEncoding enc,
+                final MovieListener movieListener) {
+            final ByteBuffer slice = buffer.duplicate();
+            slice.limit(end);
+            slice.position(start);
+            data = slice.slice();
+            count = number;
+            context = ctx;
+            encoding = enc;
+            listener = movieListener;
+        }
+
+        /** {@inheritDoc} */
+        public List<MovieTag> call() throws IOException {
+            final SWFDecoder coder = new SWFDecoder(data);
+            coder.setEncoding(encoding);
+
+            final SWFFactory<MovieTag> factory =
+                context.getRegistry().getMovieDecoder();
+            final List<MovieTag> list = new ArrayList<MovieTag>(count);
+
+            for (int i = 0; i < count; i++) {
+                decodeObject(factory, list, coder, context, listener);
+            }
+            return list;
+        }
+    }
+
+    /**
+     * PatchableBuffer is a growable, in-memory stream that allows fields to
+     * be written after the data that follows them.
+     */
+    private static final class PatchableBuffer extends ByteArrayOutputStream {
+        /** Initial size of the buffer. */
+        private static final int INITIAL_SIZE = 65536;
+
+        /** Creates an empty buffer. */
+        PatchableBuffer() {
+            super(INITIAL_SIZE);
+        }
+
+        /**
+         * Overwrite a 16-bit integer, in little-endian order, at the
+         * specified offset.
+         *
+         * @param offset the offset from the start of the buffer.
+         * @param value the value to write.
+         */
+        void writeShort(final int offset, final int value) {
+            buf[offset] = (byte) value;
+            buf[offset + 1] = (byte) (value >>> Coder.ALIGN_BYTE1);
+        }
+    }
 }
@@ -46,7 +46,7 @@ import com.flagstone.transform.coder.SWFEncoder;
  * For Flash Version 8 and above it must be the first object after the
  * MovieHeader.
  */
-public final class MovieAttributes implements MovieTag {
+public final class MovieAttributes implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "MovieAttributes: {"
@@ -54,6 +54,9 @@ public final class MovieAttributes implements MovieTag {
     /** The set of encoded attributes. */
     private transient int attributes;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates a new MovieAttributes object.
      */
@@ -129,6 +132,7 @@ public final class MovieAttributes implements MovieTag {
      * @param useBlit use graphics hardware accelerations.
      */
     public void setUseDirectBlit(final boolean useBlit) {
+        encoded = null;
         if (useBlit) {
             attributes |= Coder.BIT6;
         } else {
@@ -154,6 +158,7 @@ public final class MovieAttributes implements MovieTag {
      * @param useGPU use graphics processor for compositing.
      */
     public void setUseGPU(final boolean useGPU) {
+        encoded = null;
         if (useGPU) {
             attributes |= Coder.BIT5;
         } else {
@@ -177,6 +182,7 @@ public final class MovieAttributes implements MovieTag {
      * @param useNetwork use the network even if the movie is loaded locally.
      */
     public void setUseNetwork(final boolean useNetwork) {
+        encoded = null;
         if (useNetwork) {
             attributes |= Coder.BIT0;
         } else {
@@ -184,6 +190,26 @@ public final class MovieAttributes implements MovieTag {
         }
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.FILE_ATTRIBUTES;
+    }
+
     /** {@inheritDoc} */
     public MovieAttributes copy() {
         return new MovieAttributes(this);
@@ -198,6 +224,9 @@ public final class MovieAttributes implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         return 6;
     }
@@ -205,6 +234,10 @@ public final class MovieAttributes implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 2 LINES
         coder.writeShort((MovieTypes.FILE_ATTRIBUTES
                 << Coder.LENGTH_FIELD_SIZE) | 4);
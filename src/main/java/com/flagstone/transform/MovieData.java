@@ -47,7 +47,7 @@ import com.flagstone.transform.coder.SWFEncoder;
  * tags that will not change when generating Flash files from a template.
  * </p>
  */
-public final class MovieData implements MovieTag {
+public final class MovieData implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "MovieData: { data=byte<%d> ...}";
@@ -55,6 +55,9 @@ public final class MovieData implements MovieTag {
     /** The encoded MovieTag objects. */
     private final transient byte[] data;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Create a MovieData object containing a block of encoded MovieTag objects.
      *
@@ -88,6 +91,26 @@ public final class MovieData implements MovieTag {
         return Arrays.copyOf(data, data.length);
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.NONE;
+    }
+
     /** {@inheritDoc} */
     public MovieData copy() {
         return new MovieData(this);
@@ -100,12 +123,19 @@ public final class MovieData implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         return data.length;
     }
 
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         coder.writeBytes(data);
     }
 }
@@ -32,6 +32,8 @@
 package com.flagstone.transform;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.List;
 
 import com.flagstone.transform.button.ButtonColorTransform;
@@ -41,6 +43,8 @@ import com.flagstone.transform.button.DefineButton2;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.CoderException;
 import com.flagstone.transform.coder.Context;
+import com.flagstone.transform.coder.DecodePolicy;
+import com.flagstone.transform.coder.DecoderRegistry;
 import com.flagstone.transform.coder.SWFDecoder;
 import com.flagstone.transform.coder.SWFFactory;
 import com.flagstone.transform.font.DefineFont;
@@ -83,7 +87,9 @@ import com.flagstone.transform.video.VideoFrame;
 
 /**
  * MovieDecoder is used to decode the different types of data structure encoded
- * in a movie.
+ * in a movie. The DecodePolicy for each type of tag, recorded in the
+ * DecoderRegistry, determines whether the tag is decoded, added to the list
+ * as a MovieObject or skipped.
  */
 @SuppressWarnings({"PMD.ExcessiveImports",
      "PMD.CyclomaticComplexity",
@@ -95,9 +101,78 @@ public final class MovieDecoder implements SWFFactory<MovieTag> {
 	public void getObject(final List<MovieTag> list, final SWFDecoder coder,
             final Context context) throws IOException {
 
+        final int type = coder.scanUnsignedShort() >> Coder.LENGTH_FIELD_SIZE;
+        final DecoderRegistry registry = context.getRegistry();
+
+        if (registry != null
+                && registry.getPolicy(type) == DecodePolicy.RETAIN) {
+            final byte[] data = readTag(coder);
+            final int index = list.size();
+            decode(type, list, coder.newDecoder(data), context);
+            if (list.get(index) instanceof Passthrough) {
+                ((Passthrough) list.get(index)).setEncoded(
+                        new Retained(data, context));
+            }
+        } else if (registry != null
+                && registry.getPolicy(type) != DecodePolicy.DECODE) {
+            if (type == MovieTypes.PATHS_ARE_POSTSCRIPT) {
+                context.put(Context.POSTSCRIPT, 1);
+            }
+            if (registry.getPolicy(type) == DecodePolicy.RAW) {
+                list.add(new MovieObject(coder));
+            } else {
+                int length = coder.readUnsignedShort() & Coder.LENGTH_FIELD;
+                if (length == Coder.IS_EXTENDED) {
+                    length = coder.readInt();
+                }
+                coder.skip(length);
+            }
+        } else {
+            decode(type, list, coder, context);
+        }
+    }
+
+    /**
+     * Read an encoded tag, including the header.
+     *
+     * @param coder the decoder containing the encoded tag.
+     * @return the encoded tag.
+     * @throws IOException if an error occurs reading the data.
+     */
+    private byte[] readTag(final SWFDecoder coder) throws IOException {
+        final int header = coder.readUnsignedShort();
+        int length = header & Coder.LENGTH_FIELD;
+        int start = Coder.SHORT_HEADER;
+        if (length == Coder.IS_EXTENDED) {
+            length = coder.readInt();
+            start = Coder.LONG_HEADER;
+        }
+        final byte[] data = new byte[start + length];
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort((short) header);
+        if (start == Coder.LONG_HEADER) {
+            buffer.putInt(length);
+        }
+        return coder.readBytes(data, start, length);
+    }
+
+    /**
+     * Decode a tag and add the object that represents it to a list.
+     *
+     * @param type the type of tag.
+     * @param list the list to which the object is added.
+     * @param coder the decoder containing the encoded tag.
+     * @param context the Context used to pass information between objects.
+     * @throws IOException if an error occurs reading the data.
+     */
+    private void decode(final int type, final List<MovieTag> list,
+            final SWFDecoder coder, final Context context)
+            throws IOException {
+
         MovieTag obj;
 
-        switch (coder.scanUnsignedShort() >> Coder.LENGTH_FIELD_SIZE) {
+        switch (type) {
         case MovieTypes.SHOW_FRAME:
             obj = ShowFrame.getInstance(coder, context);
             break;
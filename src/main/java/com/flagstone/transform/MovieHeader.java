@@ -48,7 +48,7 @@ public final class MovieHeader implements MovieTag {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "Header: { version=%d; compressed=%b;"
-    		+ " frameSize=%s; frameRate=%f; frameCount=%d}";
+    		+ " lzma=%b; frameSize=%s; frameRate=%f; frameCount=%d}";
 
     /** The Flash version number. */
     private int version;
@@ -60,6 +60,8 @@ public final class MovieHeader implements MovieTag {
     private int frameCount;
     /** Flag indicating whether the movie is compressed. */
     private boolean compressed;
+    /** Flag indicating whether the movie is compressed using LZMA. */
+    private boolean lzma;
 
     /**
      * Creates and initialises a MovieAttributes object using values encoded
@@ -78,8 +80,9 @@ public final class MovieHeader implements MovieTag {
      */
     public MovieHeader(final SWFDecoder coder, final Context context)
             throws IOException {
-        version = context.get(Context.VERSION);
-        compressed = context.get(Context.COMPRESSED) == 1;
+        version = context.getInt(Context.VERSION);
+        compressed = context.getInt(Context.COMPRESSED) == 1;
+        lzma = context.getInt(Context.LZMA) == 1;
         frameSize = new Bounds(coder);
         frameRate = coder.readUnsignedShort();
         frameCount = coder.readUnsignedShort();
@@ -105,6 +108,7 @@ public final class MovieHeader implements MovieTag {
     public MovieHeader(final MovieHeader object) {
         version = object.version;
         compressed = object.compressed;
+        lzma = object.lzma;
         frameSize = object.frameSize;
         frameRate = object.frameRate;
         frameCount = object.frameCount;
@@ -222,15 +226,49 @@ public final class MovieHeader implements MovieTag {
     }
 
     /**
-     * Set whether the movie should be compressed when encoded.
+     * Set whether the movie should be compressed when encoded. Turning
+     * compression off also turns off LZMA compression.
      *
      * @param compress true if the movie will be compressed, false if no
      * compression will be applied.
      */
     public void setCompressed(final boolean compress) {
         compressed = compress;
+        if (!compress) {
+            lzma = false;
+        }
+    }
+
+    /**
+     * Is the movie compressed using LZMA (a ZWS file) rather than zlib.
+     *
+     * @return true if the movie contains LZMA compressed data or false if it
+     * is uncompressed or compressed using zlib.
+     */
+    public boolean isLzma() {
+        return lzma;
+    }
+
+    /**
+     * Set whether the movie should be compressed using LZMA when encoded.
+     * LZMA compression is supported from Flash 13 onwards. Turning LZMA on
+     * also turns on compression.
+     *
+     * @param useLzma true if the movie will be compressed using LZMA, false
+     * if it will be compressed using zlib or not at all.
+     */
+    public void setLzma(final boolean useLzma) {
+        lzma = useLzma;
+        if (useLzma) {
+            compressed = true;
+        }
     }
 
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.NONE;
+    }
+
     /** {@inheritDoc} */
     public MovieHeader copy() {
         return new MovieHeader(this);
@@ -239,7 +277,7 @@ public final class MovieHeader implements MovieTag {
     /** {@inheritDoc} */
     @Override
     public String toString() {
-        return String.format(FORMAT, version, compressed, frameSize,
+        return String.format(FORMAT, version, compressed, lzma, frameSize,
                 getFrameRate(), frameCount);
     }
 
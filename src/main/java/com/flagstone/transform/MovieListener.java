@@ -0,0 +1,76 @@
+/*
+ * MovieListener.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform;
+
+/**
+ * MovieListener receives the number of bytes and the time taken for each tag
+ * as a Movie is decoded or encoded. Tags are identified by the types defined
+ * in MovieTypes. The MovieHeader is not reported since it is not a tag.
+ *
+ * <p>
+ * When a Movie is decoded or encoded using an executor the methods are
+ * called from several threads at once so implementations must be
+ * thread-safe. The methods are called while the movie is being processed so
+ * they should return quickly.
+ * </p>
+ *
+ * @see Movie#setListener(MovieListener)
+ */
+public interface MovieListener {
+    /**
+     * Called after a tag has been decoded, or skipped if the DecodePolicy
+     * for the type of tag is IGNORE.
+     *
+     * @param type the type of tag.
+     * @param length the number of bytes decoded, including the tag header.
+     * @param time the time taken in nanoseconds.
+     */
+    void decoded(int type, int length, long time);
+
+    /**
+     * Called after a tag has been prepared for encoding.
+     *
+     * @param type the type of tag.
+     * @param length the length of the encoded tag, including the header.
+     * @param time the time taken in nanoseconds.
+     */
+    void prepared(int type, int length, long time);
+
+    /**
+     * Called after a tag has been encoded.
+     *
+     * @param type the type of tag.
+     * @param length the number of bytes encoded, including the tag header.
+     * @param time the time taken in nanoseconds.
+     */
+    void encoded(int type, int length, long time);
+}
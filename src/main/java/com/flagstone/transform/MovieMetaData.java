@@ -44,7 +44,7 @@ import com.flagstone.transform.coder.SWFEncoder;
  * with Adobe's Extensible Metadata Platform, see
  * http://www.adobe.com/products/xmp.
  */
-public final class MovieMetaData implements MovieTag {
+public final class MovieMetaData implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "MetaData: { metadata=%s}";
@@ -54,6 +54,9 @@ public final class MovieMetaData implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a MoveMetaData object using values encoded
      * in the Flash binary format.
@@ -115,12 +118,33 @@ public final class MovieMetaData implements MovieTag {
      * @param aString a string containing the meta-data.
      */
     public void setMetaData(final String aString) {
+        encoded = null;
         if (aString == null) {
             throw new IllegalArgumentException();
         }
         metaData = aString;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.METADATA;
+    }
+
     /** {@inheritDoc} */
     public MovieMetaData copy() {
         return new MovieMetaData(this);
@@ -133,6 +157,9 @@ public final class MovieMetaData implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = context.strlen(metaData);
 
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
@@ -142,6 +169,10 @@ public final class MovieMetaData implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.METADATA
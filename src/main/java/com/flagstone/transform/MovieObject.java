@@ -119,6 +119,11 @@ public final class MovieObject implements MovieTag {
         return type;
     }
 
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return type;
+    }
+
     /**
      * Get a copy of the encoded data for the movie tag object.
      * @return a copy of the encoded data.
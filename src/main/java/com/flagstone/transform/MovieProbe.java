@@ -0,0 +1,280 @@
+/*
+ * MovieProbe.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+
+import com.flagstone.transform.datatype.Bounds;
+
+/**
+ * MovieProbe reads the information that describes a movie - the fields in
+ * the file header and movie header, the MovieAttributes and the meta-data -
+ * without decoding the rest of the file.
+ *
+ * <p>
+ * Only the tags up to the first ShowFrame are scanned and the scan stops as
+ * soon as the attributes and meta-data have been found, or the attributes
+ * show that the movie has no meta-data. Tags that are passed over are
+ * skipped rather than decoded and compressed movies are only inflated as far
+ * as the last tag scanned, so the cost of probing a file does not depend on
+ * its size. LZMA compressed movies are the exception: they are decompressed
+ * in full since the decoder does not support reading only part of the data.
+ * </p>
+ *
+ * <p>
+ * A MovieProbe is immutable.
+ * </p>
+ *
+ * <pre>
+ * MovieProbe probe = MovieProbe.probe(file);
+ * int version = probe.getVersion();
+ * </pre>
+ */
+public final class MovieProbe {
+
+    /** Format string used in toString() method. */
+    private static final String FORMAT = "MovieProbe: { version=%d;"
+            + " compressed=%b; lzma=%b; frameSize=%s; frameRate=%f;"
+            + " frameCount=%d; attributes=%s; metaData=%s}";
+
+    /**
+     * Read the information that describes a movie from a file.
+     *
+     * @param file
+     *            the Flash file that will be probed.
+     * @return a MovieProbe containing the information for the movie.
+     * @throws DataFormatException
+     *             - if the file does not contain Flash data.
+     * @throws IOException
+     *             - if an I/O error occurs while reading the file.
+     */
+    public static MovieProbe probe(final File file)
+            throws DataFormatException, IOException {
+        return probe(new MovieReader(file));
+    }
+
+    /**
+     * Read the information that describes a movie from a stream. The stream
+     * is closed once the information has been read.
+     *
+     * @param stream
+     *            the InputStream from which the movie will be read.
+     * @return a MovieProbe containing the information for the movie.
+     * @throws DataFormatException
+     *             - if the stream does not contain Flash data.
+     * @throws IOException
+     *             - if an I/O error occurs while reading the stream.
+     */
+    public static MovieProbe probe(final InputStream stream)
+            throws DataFormatException, IOException {
+        return probe(new MovieReader(stream));
+    }
+
+    /**
+     * Scan the leading tags of a movie for the attributes and meta-data.
+     *
+     * @param reader the MovieReader positioned after the movie header.
+     * @return a MovieProbe containing the information for the movie.
+     * @throws IOException if an error occurs while reading the movie.
+     */
+    private static MovieProbe probe(final MovieReader reader)
+            throws IOException {
+        MovieAttributes attributes = null;
+        String metaData = null;
+
+        try {
+            boolean scanning = true;
+            int type;
+            MovieTag tag;
+
+            while (scanning && reader.hasNext()) {
+                type = reader.nextType();
+                if (type == MovieTypes.FILE_ATTRIBUTES && attributes == null) {
+                    tag = reader.next();
+                    if (tag instanceof MovieAttributes) {
+                        attributes = (MovieAttributes) tag;
+                        scanning = metaData == null
+                                && attributes.hasMetaData();
+                    }
+                } else if (type == MovieTypes.METADATA && metaData == null) {
+                    tag = reader.next();
+                    if (tag instanceof MovieMetaData) {
+                        metaData = ((MovieMetaData) tag).getMetaData();
+                        scanning = attributes == null;
+                    }
+                } else if (type == MovieTypes.SHOW_FRAME) {
+                    scanning = false;
+                } else {
+                    reader.skip();
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return new MovieProbe(reader.getHeader(), attributes, metaData);
+    }
+
+    /** The Flash version number. */
+    private final transient int version;
+    /** Whether the movie is compressed. */
+    private final transient boolean compressed;
+    /** Whether the movie is compressed using LZMA. */
+    private final transient boolean lzma;
+    /** The Flash Player screen coordinates. */
+    private final transient Bounds frameSize;
+    /** The frame rate of the movie. */
+    private final transient float frameRate;
+    /** The number of frames in the movie. */
+    private final transient int frameCount;
+    /** The movie attributes or null if the movie does not contain them. */
+    private final transient MovieAttributes attributes;
+    /** The meta-data or null if the movie does not contain any. */
+    private final transient String metaData;
+
+    /**
+     * Creates a MovieProbe.
+     *
+     * @param header the movie header.
+     * @param movieAttributes the attributes or null.
+     * @param movieMetaData the meta-data or null.
+     */
+    private MovieProbe(final MovieHeader header,
+            final MovieAttributes movieAttributes,
+            final String movieMetaData) {
+        version = header.getVersion();
+        compressed = header.isCompressed();
+        lzma = header.isLzma();
+        frameSize = header.getFrameSize();
+        frameRate = header.getFrameRate();
+        frameCount = header.getFrameCount();
+        attributes = movieAttributes;
+        metaData = movieMetaData;
+    }
+
+    /**
+     * Get the number representing the version of Flash that the movie
+     * represents.
+     *
+     * @return an integer greater than 0 and less than or equal to the
+     *         current version of Flash.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Is the movie compressed.
+     *
+     * @return true if the movie contains zlib or LZMA compressed data or
+     * false if it is not compressed.
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Is the movie compressed using LZMA.
+     *
+     * @return true if the movie is a ZWS file.
+     */
+    public boolean isLzma() {
+        return lzma;
+    }
+
+    /**
+     * Get the bounding rectangle that defines the size of the player screen.
+     *
+     * @return the bounding box that defines the screen.
+     */
+    public Bounds getFrameSize() {
+        return frameSize;
+    }
+
+    /**
+     * Get the number of frames played per second that the movie will be
+     * displayed at.
+     *
+     * @return the movie frame rate.
+     */
+    public float getFrameRate() {
+        return frameRate;
+    }
+
+    /**
+     * Get the number of frames in the movie, as recorded in the movie
+     * header.
+     *
+     * @return the number of frames.
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Does the movie contain a MovieAttributes object.
+     *
+     * @return true if the attributes were found, false if not.
+     */
+    public boolean hasAttributes() {
+        return attributes != null;
+    }
+
+    /**
+     * Get the attributes of the movie.
+     *
+     * @return a copy of the MovieAttributes object or null if the movie does
+     * not contain one.
+     */
+    public MovieAttributes getAttributes() {
+        return attributes == null ? null : attributes.copy();
+    }
+
+    /**
+     * Get the meta-data for the movie.
+     *
+     * @return the XML string containing the meta-data or null if the movie
+     * does not contain any.
+     */
+    public String getMetaData() {
+        return metaData;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format(FORMAT, version, compressed, lzma, frameSize,
+                frameRate, frameCount, attributes, metaData);
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * MovieReader.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.DataFormatException;
+import java.util.zip.InflaterInputStream;
+
+import com.flagstone.transform.coder.Coder;
+import com.flagstone.transform.coder.Context;
+import com.flagstone.transform.coder.DecodePolicy;
+import com.flagstone.transform.coder.DecoderRegistry;
+import com.flagstone.transform.coder.SWFDecoder;
+
+/**
+ * MovieReader decodes the tags in a Flash file one at a time.
+ *
+ * <p>
+ * Unlike Movie, which decodes all the tags into a list, MovieReader only
+ * decodes a tag when next() is called and keeps no reference to it. Files of
+ * any size can be processed using a fixed amount of memory, in addition to
+ * that needed for the tag being decoded, so long as the tags are discarded
+ * once they have been processed.
+ * </p>
+ *
+ * <pre>
+ * MovieReader reader = new MovieReader(file);
+ * try {
+ *     while (reader.hasNext()) {
+ *         MovieTag tag = reader.next();
+ *         ...
+ *     }
+ * } finally {
+ *     reader.close();
+ * }
+ * </pre>
+ */
+public final class MovieReader implements Closeable {
+
+    /** Length in bytes of the signature and length fields. */
+    private static final int HEADER_LENGTH = 8;
+
+    /** The stream the movie is read from. */
+    private final transient InputStream stream;
+    /** The decoder used to read the tags. */
+    private final transient SWFDecoder decoder;
+    /** The Context used to decode the tags. */
+    private final transient Context context;
+    /** The movie header. */
+    private final transient MovieHeader header;
+    /** List used to receive each tag from the factory. */
+    private final transient List<MovieTag> list;
+    /** Whether the End tag has been read. */
+    private transient boolean finished;
+
+    /**
+     * Creates a MovieReader for a file and decodes the movie header.
+     *
+     * @param file
+     *            the Flash file that will be read.
+     * @throws DataFormatException
+     *             - if the file does not contain Flash data.
+     * @throws IOException
+     *             - if an I/O error occurs while reading the file.
+     */
+    public MovieReader(final File file) throws DataFormatException,
+            IOException {
+        this(new FileInputStream(file));
+    }
+
+    /**
+     * Creates a MovieReader for a stream and decodes the movie header. The
+     * stream is closed when the MovieReader is closed.
+     *
+     * @param streamIn
+     *            the InputStream from which the movie will be read.
+     * @throws DataFormatException
+     *             - if the stream does not contain Flash data.
+     * @throws IOException
+     *             - if an I/O error occurs while reading the stream.
+     */
+    public MovieReader(final InputStream streamIn) throws DataFormatException,
+            IOException {
+
+        context = new Context();
+        context.setRegistry(DecoderRegistry.getDefault());
+        context.setEncoding(CharacterEncoding.UTF8.getEncoding());
+        list = new ArrayList<MovieTag>(1);
+
+        try {
+            final int length = Movie.readSignature(streamIn, context);
+
+            if (context.getInt(Context.LZMA) == 1) {
+                // LZMA compressed movies are decoded into memory since
+                // there is no streaming decoder.
+                stream = new ByteArrayInputStream(LzmaDecoder.decode(
+                        streamIn, length - HEADER_LENGTH));
+                streamIn.close();
+            } else if (context.getInt(Context.COMPRESSED) == 1) {
+                stream = new InflaterInputStream(streamIn);
+            } else {
+                stream = streamIn;
+            }
+
+            /*
+             * If the file is shorter than the default buffer size then set
+             * the buffer size to be the file size - this gets around a bug in
+             * Java where the end of ZLIB streams are not detected correctly.
+             */
+            if (length < SWFDecoder.BUFFER_SIZE) {
+                decoder = new SWFDecoder(stream, length - HEADER_LENGTH);
+            } else {
+                decoder = new SWFDecoder(stream);
+            }
+
+            header = new MovieHeader(decoder, context);
+            header.setVersion(context.getInt(Context.VERSION));
+            header.setCompressed(context.getInt(Context.COMPRESSED) == 1);
+            header.setLzma(context.getInt(Context.LZMA) == 1);
+        } catch (final DataFormatException e) {
+            streamIn.close();
+            throw e;
+        } catch (final IOException e) {
+            streamIn.close();
+            throw e;
+        } catch (final RuntimeException e) {
+            streamIn.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Sets the registry containing the object used to decode the different
+     * types of object found in a movie.
+     *
+     * @param decoderRegistry a central registry to decoders of different types
+     * of object.
+     */
+    public void setRegistry(final DecoderRegistry decoderRegistry) {
+        context.setRegistry(decoderRegistry);
+    }
+
+    /**
+     * Sets the encoding scheme for strings decoded from the movie.
+     *
+     * @param enc the character encoding used for strings.
+     */
+    public void setEncoding(final CharacterEncoding enc) {
+        context.setEncoding(enc.getEncoding());
+        decoder.setEncoding(enc);
+    }
+
+    /**
+     * Get the movie header.
+     *
+     * @return the header decoded when the MovieReader was created.
+     */
+    public MovieHeader getHeader() {
+        return header;
+    }
+
+    /**
+     * Indicates whether there are more tags to be read. Tags that the
+     * registry's DecodePolicy says should be skipped are passed over.
+     *
+     * @return true if there are more tags, false if the End tag that marks
+     * the end of the movie has been read.
+     * @throws IOException if an error occurs while reading the stream.
+     */
+    public boolean hasNext() throws IOException {
+        int type;
+        while (!finished) {
+            type = decoder.scanUnsignedShort() >>> Coder.LENGTH_FIELD_SIZE;
+            if (type == MovieTypes.END) {
+                decoder.readUnsignedShort();
+                finished = true;
+            } else if (context.getRegistry().getPolicy(type)
+                    == DecodePolicy.SKIP) {
+                skipTag();
+            } else {
+                break;
+            }
+        }
+        return !finished;
+    }
+
+    /**
+     * Get the type of the next tag without decoding it.
+     *
+     * @return the type of the next tag, as defined in MovieTypes.
+     * @throws IOException if an error occurs while reading the stream.
+     * @throws NoSuchElementException if there are no more tags.
+     */
+    public int nextType() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return decoder.scanUnsignedShort() >>> Coder.LENGTH_FIELD_SIZE;
+    }
+
+    /**
+     * Decode the next tag.
+     *
+     * @return the object decoded from the next tag.
+     * @throws IOException if an error occurs while reading or decoding the
+     * tag.
+     * @throws NoSuchElementException if there are no more tags.
+     */
+    public MovieTag next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        list.clear();
+        context.getRegistry().getMovieDecoder().getObject(list, decoder,
+                context);
+        return list.remove(0);
+    }
+
+    /**
+     * Skip the next tag without decoding it.
+     *
+     * @return the type of tag that was skipped, as defined in MovieTypes.
+     * @throws IOException if an error occurs while reading the stream.
+     * @throws NoSuchElementException if there are no more tags.
+     */
+    public int skip() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return skipTag();
+    }
+
+    /**
+     * Skip the next tag without decoding it.
+     *
+     * @return the type of tag that was skipped, as defined in MovieTypes.
+     * @throws IOException if an error occurs while reading the stream.
+     */
+    private int skipTag() throws IOException {
+        final int type = decoder.readUnsignedShort();
+        int length = type & Coder.LENGTH_FIELD;
+        if (length == Coder.IS_EXTENDED) {
+            length = decoder.readInt();
+        }
+        decoder.skip(length);
+
+        if (type >>> Coder.LENGTH_FIELD_SIZE
+                == MovieTypes.PATHS_ARE_POSTSCRIPT) {
+            context.put(Context.POSTSCRIPT, 1);
+        }
+        return type >>> Coder.LENGTH_FIELD_SIZE;
+    }
+
+    /**
+     * Close the underlying stream.
+     *
+     * @throws IOException if an error occurs closing the stream.
+     */
+    public void close() throws IOException {
+        stream.close();
+    }
+}
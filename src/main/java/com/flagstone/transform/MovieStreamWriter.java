@@ -0,0 +1,510 @@
+/*
+ * MovieStreamWriter.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.zip.Adler32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import com.flagstone.transform.coder.Context;
+import com.flagstone.transform.coder.SWFEncoder;
+
+/**
+ * MovieStreamWriter encodes a movie one tag at a time, writing each tag to a
+ * file as it is added so the tags do not need to be held in memory.
+ *
+ * <p>
+ * The file length and the frame count in the movie header are not known
+ * until the last tag has been written so placeholders are written when the
+ * MovieStreamWriter is created and the values are filled in when it is
+ * closed.
+ * </p>
+ *
+ * <p>
+ * For compressed movies the movie header is written to the zlib stream as a
+ * block of uncompressed data so the frame count can still be updated. The
+ * tags that follow are compressed as they are written, using the level,
+ * strategy and buffer size from a Compression object, and the zlib checksum
+ * is calculated when the MovieStreamWriter is closed. The tags are always
+ * compressed in the current thread so the block size is ignored.
+ * </p>
+ *
+ * <p>
+ * LZMA compressed (ZWS) movies are not supported since the length of the
+ * compressed data must be written before it.
+ * </p>
+ *
+ * <pre>
+ * MovieStreamWriter writer = new MovieStreamWriter(file, header);
+ * try {
+ *     writer.write(tag);
+ *     ...
+ * } finally {
+ *     writer.close();
+ * }
+ * </pre>
+ */
+public final class MovieStreamWriter implements Closeable {
+
+    /** Length in bytes of the signature and length fields. */
+    private static final int HEADER_LENGTH = 8;
+    /** Offset from the start of the file to the file length. */
+    private static final int LENGTH_OFFSET = 4;
+    /** Length in bytes of the file length. */
+    private static final int LENGTH_FIELD = 4;
+    /** Length in bytes of the frame count field in the movie header. */
+    private static final int FRAME_COUNT_LENGTH = 2;
+    /** Length in bytes of the header of a zlib stream. */
+    private static final int ZLIB_HEADER_LENGTH = 2;
+    /**
+     * The headers written by zlib for each level of compression, from 0 to
+     * 9. The default level is the same as 6.
+     */
+    private static final byte[][] ZLIB_HEADERS = new byte[][] {
+        {0x78, 0x01}, {0x78, 0x01}, {0x78, 0x5E}, {0x78, 0x5E},
+        {0x78, 0x5E}, {0x78, 0x5E}, {0x78, (byte) 0x9C},
+        {0x78, (byte) 0xDA}, {0x78, (byte) 0xDA}, {0x78, (byte) 0xDA}
+    };
+    /** The level of compression used by default by the Deflater. */
+    private static final int DEFAULT_LEVEL = 6;
+    /** Length in bytes of the header of an uncompressed deflate block. */
+    private static final int STORED_HEADER_LENGTH = 5;
+    /** Length in bytes of the zlib checksum. */
+    private static final int CHECKSUM_LENGTH = 4;
+
+    /** The channel the movie is written to. */
+    private final transient FileChannel channel;
+    /** The file that the channel was opened for, or null. */
+    private final transient RandomAccessFile file;
+    /** The position in the channel of the start of the movie. */
+    private final transient long start;
+    /** The movie header. */
+    private final transient MovieHeader header;
+    /** The encoded movie header. */
+    private final transient byte[] headerData;
+    /** The offset from the start of the movie to the movie header. */
+    private final transient int headerOffset;
+    /** Checksum for the data that follows the movie header. */
+    private final transient Adler32 checksum;
+    /** The compressor or null if the movie is not compressed. */
+    private final transient Deflater deflater;
+    /** The compressed stream or null if the movie is not compressed. */
+    private final transient DeflaterOutputStream compressed;
+    /** The Context used when encoding the tags. */
+    private final transient Context context;
+    /** The encoder used to write the tags. */
+    private final transient SWFEncoder coder;
+    /** The number of ShowFrame tags written. */
+    private transient int frameCount;
+    /** Whether the writer has been closed. */
+    private transient boolean closed;
+
+    /**
+     * Creates a MovieStreamWriter that writes a movie to a file. The file is
+     * created if it does not exist and truncated if it does.
+     *
+     * @param path the file the movie will be written to.
+     * @param movieHeader the header for the movie. The frame count is updated
+     * when the writer is closed.
+     * @throws IOException if the file cannot be opened or an error occurs
+     * while writing the header.
+     * @throws IllegalArgumentException if the header specifies LZMA
+     * compression.
+     */
+    public MovieStreamWriter(final File path, final MovieHeader movieHeader)
+            throws IOException {
+        this(path, movieHeader, new Compression());
+    }
+
+    /**
+     * Creates a MovieStreamWriter that writes a movie to a file, compressing
+     * it with the specified settings if the header is for a compressed
+     * movie. The file is created if it does not exist and truncated if it
+     * does.
+     *
+     * @param path the file the movie will be written to.
+     * @param movieHeader the header for the movie. The frame count is updated
+     * when the writer is closed.
+     * @param settings the level, strategy and buffer size used to compress
+     * the movie.
+     * @throws IOException if the file cannot be opened or an error occurs
+     * while writing the header.
+     * @throws IllegalArgumentException if the header specifies LZMA
+     * compression.
+     */
+    public MovieStreamWriter(final File path, final MovieHeader movieHeader,
+            final Compression settings) throws IOException {
+        this(open(path, movieHeader), movieHeader, settings);
+    }
+
+    /**
+     * Creates a MovieStreamWriter that writes a movie to a FileChannel,
+     * starting at the current position. The channel is not closed when the
+     * writer is closed.
+     *
+     * @param fileChannel the channel the movie will be written to.
+     * @param movieHeader the header for the movie. The frame count is updated
+     * when the writer is closed.
+     * @throws IOException if an error occurs while writing the header.
+     * @throws IllegalArgumentException if the header specifies LZMA
+     * compression.
+     */
+    public MovieStreamWriter(final FileChannel fileChannel,
+            final MovieHeader movieHeader) throws IOException {
+        this(fileChannel, movieHeader, new Compression());
+    }
+
+    /**
+     * Creates a MovieStreamWriter that writes a movie to a FileChannel,
+     * starting at the current position, compressing it with the specified
+     * settings if the header is for a compressed movie. The channel is not
+     * closed when the writer is closed.
+     *
+     * @param fileChannel the channel the movie will be written to.
+     * @param movieHeader the header for the movie. The frame count is updated
+     * when the writer is closed.
+     * @param settings the level, strategy and buffer size used to compress
+     * the movie.
+     * @throws IOException if an error occurs while writing the header.
+     * @throws IllegalArgumentException if the header specifies LZMA
+     * compression.
+     */
+    public MovieStreamWriter(final FileChannel fileChannel,
+            final MovieHeader movieHeader, final Compression settings)
+            throws IOException {
+        this(fileChannel, null, movieHeader, settings);
+    }
+
+    /**
+     * Creates a MovieStreamWriter that writes to a file that it will close.
+     *
+     * @param randomFile the file the movie will be written to.
+     * @param movieHeader the header for the movie.
+     * @param settings the settings used to compress the movie.
+     * @throws IOException if an error occurs while writing the header.
+     */
+    private MovieStreamWriter(final RandomAccessFile randomFile,
+            final MovieHeader movieHeader, final Compression settings)
+            throws IOException {
+        this(truncate(randomFile), randomFile, movieHeader, settings);
+    }
+
+    /**
+     * Creates a MovieStreamWriter. If an error occurs then the file is
+     * closed, if one was opened, before the exception is thrown.
+     *
+     * @param fileChannel the channel the movie will be written to.
+     * @param randomFile the file to close when the writer is closed or null.
+     * @param movieHeader the header for the movie.
+     * @param settings the settings used to compress the movie.
+     * @throws IOException if an error occurs while writing the header.
+     */
+    private MovieStreamWriter(final FileChannel fileChannel,
+            final RandomAccessFile randomFile, final MovieHeader movieHeader,
+            final Compression settings) throws IOException {
+        file = randomFile;
+        try {
+            checkHeader(movieHeader);
+            channel = fileChannel;
+            header = movieHeader;
+            start = channel.position();
+
+            context = new Context();
+            context.put(Context.VERSION, header.getVersion());
+
+            header.setFrameCount(0);
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final SWFEncoder encoder = new SWFEncoder(bytes);
+            header.prepareToEncode(context);
+            header.encode(encoder, context);
+            encoder.flush();
+            headerData = bytes.toByteArray();
+
+            final ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH
+                    + ZLIB_HEADER_LENGTH + STORED_HEADER_LENGTH
+                    + headerData.length).order(ByteOrder.LITTLE_ENDIAN);
+
+            if (header.isCompressed()) {
+                buffer.put(Movie.CWS);
+            } else {
+                buffer.put(Movie.FWS);
+            }
+            buffer.put((byte) header.getVersion());
+            buffer.putInt(0);
+
+            if (header.isCompressed()) {
+                // The movie header is written as a final=0, type=0 (stored)
+                // deflate block so the frame count can be updated later.
+                buffer.put(zlibHeader(settings.getLevel()));
+                buffer.put((byte) 0);
+                buffer.putShort((short) headerData.length);
+                buffer.putShort((short) ~headerData.length);
+            }
+            headerOffset = buffer.position();
+            buffer.put(headerData);
+            buffer.flip();
+            write(buffer, start);
+            channel.position(start + buffer.limit());
+
+            final OutputStream stream = Channels.newOutputStream(channel);
+
+            if (header.isCompressed()) {
+                checksum = new Adler32();
+                deflater = new Deflater(settings.getLevel(), true);
+                deflater.setStrategy(settings.getStrategy());
+                compressed = new DeflaterOutputStream(stream, deflater,
+                        settings.getBufferSize());
+                coder = new SWFEncoder(new CheckedOutputStream(compressed,
+                        checksum));
+            } else {
+                checksum = null;
+                deflater = null;
+                compressed = null;
+                coder = new SWFEncoder(stream);
+            }
+        } catch (final IOException e) {
+            close(randomFile);
+            throw e;
+        } catch (final RuntimeException e) {
+            close(randomFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Check that the movie can be written by a MovieStreamWriter.
+     *
+     * @param movieHeader the header for the movie.
+     * @throws IllegalArgumentException if the header specifies LZMA
+     * compression.
+     */
+    private static void checkHeader(final MovieHeader movieHeader) {
+        if (movieHeader.isLzma()) {
+            throw new IllegalArgumentException(
+                    "LZMA compressed movies cannot be streamed.");
+        }
+    }
+
+    /**
+     * Close a file, if one was opened, after an error occurred. Any exception
+     * thrown while closing the file is ignored so the original error is
+     * reported.
+     *
+     * @param randomFile the file to close or null.
+     */
+    private static void close(final RandomAccessFile randomFile) {
+        if (randomFile != null) {
+            try {
+                randomFile.close();
+            } catch (final IOException e) {
+                // The error that caused the file to be closed is reported.
+            }
+        }
+    }
+
+    /**
+     * Create the header for a zlib stream that records the level of
+     * compression used.
+     *
+     * @param level the level of compression, from 0 to 9, or -1 for the
+     * default.
+     * @return the two bytes that start the zlib stream.
+     */
+    private static byte[] zlibHeader(final int level) {
+        final byte[] bytes;
+        if (level == Deflater.DEFAULT_COMPRESSION) {
+            bytes = ZLIB_HEADERS[DEFAULT_LEVEL];
+        } else {
+            bytes = ZLIB_HEADERS[level];
+        }
+        return bytes;
+    }
+
+    /**
+     * Check the header then open the file the movie will be written to.
+     *
+     * @param path the file the movie will be written to.
+     * @param movieHeader the header for the movie.
+     * @return the opened file.
+     * @throws IOException if the file cannot be opened.
+     */
+    private static RandomAccessFile open(final File path,
+            final MovieHeader movieHeader) throws IOException {
+        checkHeader(movieHeader);
+        return new RandomAccessFile(path, "rw");
+    }
+
+    /**
+     * Truncate a file and return the channel used to write to it.
+     *
+     * @param randomFile the file.
+     * @return the channel for the file.
+     * @throws IOException if the file could not be truncated.
+     */
+    private static FileChannel truncate(final RandomAccessFile randomFile)
+            throws IOException {
+        try {
+            randomFile.setLength(0);
+        } catch (final IOException e) {
+            randomFile.close();
+            throw e;
+        }
+        return randomFile.getChannel();
+    }
+
+    /**
+     * Sets the encoding scheme for strings encoded in the movie.
+     *
+     * @param enc the character encoding used for strings.
+     */
+    public void setEncoding(final CharacterEncoding enc) {
+        context.setEncoding(enc.getEncoding());
+        coder.setEncoding(enc);
+    }
+
+    /**
+     * Encode a tag and write it to the file.
+     *
+     * @param tag the tag to add to the movie.
+     * @throws IOException if an error occurs while encoding or writing the
+     * tag.
+     */
+    public void write(final MovieTag tag) throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+        tag.prepareToEncode(context);
+        tag.encode(coder, context);
+
+        if (tag instanceof ShowFrame) {
+            frameCount++;
+        }
+    }
+
+    /**
+     * Get the number of frames written so far.
+     *
+     * @return the number of ShowFrame tags written.
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Write the End tag, update the file length and frame count and close
+     * the file if it was opened by the writer.
+     *
+     * @throws IOException if an error occurs while writing to the file.
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            coder.writeShort(0);
+            coder.flush();
+
+            final int bodyLength = coder.bytesWritten();
+            final int length = HEADER_LENGTH + headerData.length + bodyLength;
+
+            header.setFrameCount(frameCount);
+            headerData[headerData.length - FRAME_COUNT_LENGTH] =
+                (byte) frameCount;
+            headerData[headerData.length - 1] =
+                (byte) (frameCount >>> Byte.SIZE);
+
+            if (compressed != null) {
+                compressed.finish();
+                compressed.flush();
+
+                final Adler32 headerChecksum = new Adler32();
+                headerChecksum.update(headerData);
+                final ByteBuffer trailer =
+                    ByteBuffer.allocate(CHECKSUM_LENGTH);
+                trailer.putInt((int) ParallelDeflaterOutputStream.combine(
+                        headerChecksum.getValue(), checksum.getValue(),
+                        bodyLength));
+                trailer.flip();
+                write(trailer, channel.position());
+                channel.position(channel.position() + CHECKSUM_LENGTH);
+            }
+
+            final ByteBuffer lengthField = ByteBuffer.allocate(LENGTH_FIELD)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            lengthField.putInt(length);
+            lengthField.flip();
+            write(lengthField, start + LENGTH_OFFSET);
+
+            final ByteBuffer frames = ByteBuffer.wrap(headerData,
+                    headerData.length - FRAME_COUNT_LENGTH,
+                    FRAME_COUNT_LENGTH);
+            write(frames, start + headerOffset + headerData.length
+                    - FRAME_COUNT_LENGTH);
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            if (file != null) {
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * Write data at a given position in the channel without changing the
+     * position of the channel.
+     *
+     * @param buffer the data to write.
+     * @param position the position to write the data.
+     * @throws IOException if an error occurs while writing the data.
+     */
+    private void write(final ByteBuffer buffer, final long position)
+            throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+}
@@ -38,4 +38,11 @@ import com.flagstone.transform.coder.SWFEncodeable;
  * added to a Movie.
  */
 public interface MovieTag extends SWFEncodeable, Copyable<MovieTag> {
+    /**
+     * Get the type that identifies the tag when it is encoded.
+     *
+     * @return the type of tag, defined in MovieTypes, or MovieTypes.NONE if
+     * the object is not encoded as a tag.
+     */
+    int getTagType();
 }
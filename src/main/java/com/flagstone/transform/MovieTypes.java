@@ -174,6 +174,12 @@ public final class MovieTypes {
     /** Identifies DefineFont4 objects when they are encoded. */
     public static final int DEFINE_FONT_4 = 91;
 
+    /**
+     * Returned by MovieTag.getTagType() for objects, such as the MovieHeader,
+     * that are not encoded as tags.
+     */
+    public static final int NONE = -1;
+
     /**
      * Private constructor.
      */
@@ -0,0 +1,442 @@
+/*
+ * ParallelDeflaterOutputStream.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+/**
+ * ParallelDeflaterOutputStream compresses data using zlib, dividing it into
+ * blocks that are compressed by an executor.
+ *
+ * <p>
+ * Each block is compressed with the last 32K of the previous block as a
+ * preset dictionary and all but the last block are ended with a sync flush
+ * so they finish on a byte boundary. The compressed blocks can then be
+ * concatenated to give a single stream, following the approach used by pigz.
+ * The Adler-32 checksum for the stream is combined from the checksums of the
+ * individual blocks.
+ * </p>
+ */
+final class ParallelDeflaterOutputStream extends FilterOutputStream {
+
+    /** The size of the window used by the Deflater. */
+    private static final int WINDOW_SIZE = 32768;
+    /** The maximum number of blocks waiting to be written. */
+    private static final int MAX_PENDING = 16;
+    /** The value of Deflater.SYNC_FLUSH, available from Java 7. */
+    private static final int SYNC_FLUSH = 2;
+    /** The compression method and window size in the zlib header. */
+    private static final int ZLIB_METHOD = 0x78;
+    /** The divisor used to set the check bits in the zlib header. */
+    private static final int ZLIB_CHECK = 31;
+    /** Shift for the compression level in the zlib header. */
+    private static final int TO_LEVEL = 6;
+    /** The highest level recorded as fastest in the zlib header. */
+    private static final int FASTEST = 1;
+    /** The highest level recorded as fast in the zlib header. */
+    private static final int FAST = 5;
+    /** The level used by the Deflater by default. */
+    private static final int DEFAULT = 6;
+    /** Value in the zlib header for the fastest compression. */
+    private static final int FLEVEL_FASTEST = 0;
+    /** Value in the zlib header for fast compression. */
+    private static final int FLEVEL_FAST = 1;
+    /** Value in the zlib header for the default compression. */
+    private static final int FLEVEL_DEFAULT = 2;
+    /** Value in the zlib header for maximum compression. */
+    private static final int FLEVEL_MAXIMUM = 3;
+    /** Shift for the most significant byte of the checksum. */
+    private static final int ALIGN_CHECKSUM = 24;
+    /** Mask for the lower 16 bits of an Adler-32 checksum. */
+    private static final int LOWEST16 = 0xFFFF;
+    /** Shift for the upper 16 bits of an Adler-32 checksum. */
+    private static final int TO_UPPER_HALF = 16;
+    /** The modulus used to calculate the Adler-32 checksum. */
+    private static final int ADLER_BASE = 65521;
+
+    /** Deflater.deflate(byte[], int, int, int) or null if not available. */
+    private static final Method DEFLATE = findDeflate();
+
+    /**
+     * Find the method used to compress data with a sync flush.
+     *
+     * @return the method or null if the Deflater does not support flushing.
+     */
+    private static Method findDeflate() {
+        Method method;
+        try {
+            method = Deflater.class.getMethod("deflate", byte[].class,
+                    int.class, int.class, int.class);
+        } catch (final NoSuchMethodException e) {
+            method = null;
+        }
+        return method;
+    }
+
+    /**
+     * Can blocks be compressed in parallel.
+     *
+     * @return true if the Deflater supports flushing the compressed data.
+     */
+    static boolean isSupported() {
+        return DEFLATE != null;
+    }
+
+    /** The executor used to compress the blocks. */
+    private final transient ExecutorService executor;
+    /** The level of compression. */
+    private final transient int level;
+    /** The strategy used by the Deflater. */
+    private final transient int strategy;
+    /** The size of the buffer used to write the compressed data. */
+    private final transient int bufferSize;
+    /** The size of each block. */
+    private final transient int blockSize;
+    /** The blocks submitted to the executor, in order. */
+    private final transient LinkedList<Future<Block>> pending;
+
+    /** The block currently being filled. */
+    private transient byte[] block;
+    /** The number of bytes in the current block. */
+    private transient int count;
+    /** The previous block, used as the dictionary for the current one. */
+    private transient byte[] previous;
+    /** The Adler-32 checksum of the blocks written so far. */
+    private transient long checksum;
+    /** Whether the stream has been closed. */
+    private transient boolean closed;
+
+    /**
+     * Creates a ParallelDeflaterOutputStream and writes the zlib header to
+     * the underlying stream.
+     *
+     * @param stream the stream the compressed data is written to.
+     * @param compression the settings used to compress the data.
+     * @param service the executor used to compress the blocks.
+     * @throws IOException if an error occurs writing the zlib header.
+     */
+    ParallelDeflaterOutputStream(final OutputStream stream,
+            final Compression compression, final ExecutorService service)
+            throws IOException {
+        super(stream);
+        executor = service;
+        level = compression.getLevel();
+        strategy = compression.getStrategy();
+        bufferSize = compression.getBufferSize();
+        blockSize = compression.getBlockSize();
+        pending = new LinkedList<Future<Block>>();
+        block = new byte[blockSize];
+        checksum = 1;
+
+        final int speed;
+        if (level == Deflater.DEFAULT_COMPRESSION || level == DEFAULT) {
+            speed = FLEVEL_DEFAULT;
+        } else if (level <= FASTEST) {
+            speed = FLEVEL_FASTEST;
+        } else if (level <= FAST) {
+            speed = FLEVEL_FAST;
+        } else {
+            speed = FLEVEL_MAXIMUM;
+        }
+        int header = (ZLIB_METHOD << Byte.SIZE) | (speed << TO_LEVEL);
+        header += ZLIB_CHECK - (header % ZLIB_CHECK);
+        out.write(header >>> Byte.SIZE);
+        out.write(header);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final int value) throws IOException {
+        block[count++] = (byte) value;
+        if (count == blockSize) {
+            submit(false);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length)
+            throws IOException {
+        int index = offset;
+        int remaining = length;
+        int size;
+        while (remaining > 0) {
+            size = Math.min(remaining, blockSize - count);
+            System.arraycopy(bytes, index, block, count, size);
+            count += size;
+            index += size;
+            remaining -= size;
+            if (count == blockSize) {
+                submit(false);
+            }
+        }
+    }
+
+    /**
+     * Flushing the stream only flushes the blocks that have already been
+     * compressed. Ending a block early would reduce the compression.
+     *
+     * @throws IOException if an error occurs writing to the underlying
+     * stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!pending.isEmpty() && pending.getFirst().isDone()) {
+            writeBlock(pending.removeFirst());
+        }
+        out.flush();
+    }
+
+    /**
+     * Compress the remaining data, write the Adler-32 checksum and close the
+     * underlying stream.
+     *
+     * @throws IOException if an error occurs compressing the data or writing
+     * to the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                submit(true);
+                while (!pending.isEmpty()) {
+                    writeBlock(pending.removeFirst());
+                }
+                for (int shift = ALIGN_CHECKSUM; shift >= 0;
+                        shift -= Byte.SIZE) {
+                    out.write((int) (checksum >>> shift));
+                }
+                out.flush();
+            } finally {
+                for (final Future<Block> future : pending) {
+                    future.cancel(true);
+                }
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Submit the current block to the executor and start a new one. If too
+     * many blocks are waiting to be written then the oldest are written
+     * first.
+     *
+     * @param last true if this is the last block in the stream.
+     * @throws IOException if an error occurs compressing a block or writing
+     * it to the underlying stream.
+     */
+    private void submit(final boolean last) throws IOException {
+        pending.add(executor.submit(new BlockDeflater(block, count,
+                previous, last)));
+        previous = block;
+        block = last ? null : new byte[blockSize];
+        count = 0;
+        while (pending.size() > MAX_PENDING) {
+            writeBlock(pending.removeFirst());
+        }
+    }
+
+    /**
+     * Wait for a block to be compressed then write it to the underlying
+     * stream.
+     *
+     * @param future the Future for the compressed block.
+     * @throws IOException if an error occurs compressing the block or
+     * writing it to the underlying stream.
+     */
+    private void writeBlock(final Future<Block> future) throws IOException {
+        final Block result = Movie.waitFor(future);
+        out.write(result.data);
+        checksum = combine(checksum, result.checksum, result.length);
+    }
+
+    /**
+     * Combine the Adler-32 checksums of two blocks of data to give the
+     * checksum of the data in the first block followed by the second.
+     *
+     * @param first the checksum of the first block.
+     * @param second the checksum of the second block.
+     * @param length the length of the second block.
+     * @return the checksum of the combined data.
+     */
+    static long combine(final long first, final long second,
+            final long length) {
+        final long rem = length % ADLER_BASE;
+        long sum1 = first & LOWEST16;
+        long sum2 = (rem * sum1) % ADLER_BASE;
+        sum1 += (second & LOWEST16) + ADLER_BASE - 1;
+        sum2 += ((first >>> TO_UPPER_HALF) & LOWEST16)
+                + ((second >>> TO_UPPER_HALF) & LOWEST16) + ADLER_BASE - rem;
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum2 >= ((long) ADLER_BASE << 1)) {
+            sum2 -= ((long) ADLER_BASE << 1);
+        }
+        if (sum2 >= ADLER_BASE) {
+            sum2 -= ADLER_BASE;
+        }
+        return sum1 | (sum2 << TO_UPPER_HALF);
+    }
+
+    /**
+     * Block contains a block of compressed data along with the length and
+     * checksum of the uncompressed data.
+     */
+    private static final class Block {
+        /** The compressed data. */
+        private final transient byte[] data;
+        /** The Adler-32 checksum of the uncompressed data. */
+        private final transient long checksum;
+        /** The length of the uncompressed data. */
+        private final transient int length;
+
+        /**
+         * Creates a Block.
+         *
+         * @param bytes the compressed data.
+         * @param check the checksum of the uncompressed data.
+         * @param size the length of the uncompressed data.
+         */
+        Block(final byte[] bytes, final long check, final int size) {
+            data = bytes;
+            checksum = check;
+            length = size;
+        }
+    }
+
+    /**
+     * BlockDeflater compresses a single block of data.
+     */
+    private final class BlockDeflater implements Callable<Block> {
+        /** The data to compress. */
+        private final transient byte[] input;
+        /** The number of bytes to compress. */
+        private final transient int length;
+        /** The previous block, used as the preset dictionary, or null. */
+        private final transient byte[] dictionary;
+        /** Whether this is the last block in the stream. */
+        private final transient boolean last;
+
+        /**
+         * Creates a BlockDeflater.
+         *
+         * @param data the block of data.
+         * @param size the number of bytes in the block to compress.
+         * @param dict the previous block or null if this is the first.
+         * @param isLast true if this is the last block in the stream.
+         */
+        BlockDeflater(final byte[] data, final int size, final byte[] dict,
+                final boolean isLast) {
+            input = data;
+            length = size;
+            dictionary = dict;
+            last = isLast;
+        }
+
+        /** {@inheritDoc} */
+        public Block call() throws IOException {
+            final Deflater deflater = new Deflater(level, true);
+            final ByteArrayOutputStream stream = new ByteArrayOutputStream(
+                    length / 2 + bufferSize);
+            final byte[] buffer = new byte[bufferSize];
+            int size;
+            try {
+                // Apply the strategy before the dictionary is loaded,
+                // otherwise changing the parameters flushes the dictionary.
+                deflater.setStrategy(strategy);
+                size = deflater.deflate(buffer);
+                stream.write(buffer, 0, size);
+                if (dictionary != null) {
+                    final int window = Math.min(WINDOW_SIZE,
+                            dictionary.length);
+                    deflater.setDictionary(dictionary,
+                            dictionary.length - window, window);
+                }
+                deflater.setInput(input, 0, length);
+                if (last) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        size = deflater.deflate(buffer);
+                        stream.write(buffer, 0, size);
+                    }
+                } else {
+                    do {
+                        size = flush(deflater, buffer);
+                        stream.write(buffer, 0, size);
+                    } while (size == buffer.length);
+                }
+            } finally {
+                deflater.end();
+            }
+            final Adler32 adler = new Adler32();
+            adler.update(input, 0, length);
+            return new Block(stream.toByteArray(), adler.getValue(), length);
+        }
+
+        /**
+         * Compress data with a sync flush so the output ends on a byte
+         * boundary.
+         *
+         * @param deflater the Deflater compressing the data.
+         * @param buffer the buffer for the compressed data.
+         * @return the number of bytes of compressed data.
+         * @throws IOException if the method could not be called.
+         */
+        private int flush(final Deflater deflater, final byte[] buffer)
+                throws IOException {
+            try {
+                return (Integer) DEFLATE.invoke(deflater, buffer, 0,
+                        buffer.length, SYNC_FLUSH);
+            } catch (final IllegalAccessException e) {
+                throw new IOException(e);
+            } catch (final InvocationTargetException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+}
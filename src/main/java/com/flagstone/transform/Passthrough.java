@@ -0,0 +1,74 @@
+/*
+ * Passthrough.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.flagstone.transform;
+
+/**
+ * Passthrough is implemented by MovieTags that can keep the encoded data they
+ * were decoded from so they can be written out again, byte for byte, without
+ * being encoded.
+ *
+ * <p>
+ * The encoded data is kept when a tag is decoded using the RETAIN
+ * DecodePolicy. Calling any method that changes the tag, or a method that
+ * returns a list or object which could be used to change it, discards the
+ * encoded data so the tag is encoded normally from then on. Since the data is
+ * copied verbatim it is only used when the movie is encoded with the same
+ * version and character encoding used to decode it. Otherwise the tag is
+ * encoded normally but the data is kept.
+ * </p>
+ */
+public interface Passthrough {
+    /**
+     * Set the encoded data, including the tag header, that will be written
+     * when the tag is encoded, so long as the tag is not modified.
+     *
+     * @param data the encoded tag along with the version and character
+     * encoding used to decode it.
+     */
+    void setEncoded(Retained data);
+
+    /**
+     * Get the encoded data, including the tag header, that will be written
+     * when the tag is encoded.
+     *
+     * @return the encoded tag, or null if the tag has been modified.
+     */
+    Retained getEncoded();
+
+    /**
+     * Has the tag been changed, or created, since it was decoded.
+     *
+     * @return true if the tag will be encoded, false if the data it was
+     * decoded from will be written out unchanged when the movie is encoded
+     * with the same version and character encoding.
+     */
+    boolean isModified();
+}
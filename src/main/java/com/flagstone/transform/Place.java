@@ -65,7 +65,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * @see Remove
  * @see Remove2
  */
-public final class Place implements MovieTag {
+public final class Place implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "Place: { layer=%d; identifier=%d;"
@@ -83,6 +83,9 @@ public final class Place implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a Place object using values encoded
      * in the Flash binary format.
@@ -107,9 +110,9 @@ public final class Place implements MovieTag {
         coder.mark();
         identifier = coder.readUnsignedShort();
         layer = coder.readUnsignedShort();
-        transform = new CoordTransform(coder);
+        transform = context.intern(new CoordTransform(coder));
         if (coder.bytesRead() < length) {
-            colorTransform = new ColorTransform(coder, context);
+            colorTransform = context.intern(new ColorTransform(coder, context));
         }
         coder.check(length);
         coder.unmark();
@@ -197,6 +200,7 @@ public final class Place implements MovieTag {
      * @return this object.
      */
     public Place setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -224,6 +228,7 @@ public final class Place implements MovieTag {
      * @return this object.
      */
     public Place setLayer(final int aNumber) {
+        encoded = null;
         if ((aNumber < 1) || (aNumber > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, aNumber);
@@ -253,6 +258,7 @@ public final class Place implements MovieTag {
      * @return this object.
      */
     public Place setTransform(final CoordTransform matrix) {
+        encoded = null;
         if (matrix == null) {
             throw new IllegalArgumentException();
         }
@@ -281,6 +287,7 @@ public final class Place implements MovieTag {
      * @return this object.
      */
     public Place setLocation(final int xCoord, final int yCoord) {
+        encoded = null;
         transform = CoordTransform.translate(xCoord, yCoord);
         return this;
     }
@@ -295,10 +302,31 @@ public final class Place implements MovieTag {
      * @return this object.
      */
     public Place setColorTransform(final ColorTransform cxform) {
+        encoded = null;
         colorTransform = cxform;
         return this;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.PLACE;
+    }
+
     /** {@inheritDoc} */
     public Place copy() {
         return new Place(this);
@@ -313,6 +341,9 @@ public final class Place implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF
         length = 4;
         length += transform.prepareToEncode(context);
@@ -328,6 +359,10 @@ public final class Place implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.PLACE
                     << Coder.LENGTH_FIELD_SIZE) | Coder.IS_EXTENDED);
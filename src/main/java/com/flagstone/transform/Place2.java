@@ -134,7 +134,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * @see com.flagstone.transform.util.movie.Layer
  */
 @SuppressWarnings({"PMD.TooManyMethods", "PMD.CyclomaticComplexity" })
-public final class Place2 implements MovieTag {
+public final class Place2 implements MovieTag, Passthrough {
 
     /**
      * Place a new object on the display list.
@@ -235,6 +235,9 @@ public final class Place2 implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a Place2 object using values encoded
      * in the Flash binary format.
@@ -290,11 +293,11 @@ public final class Place2 implements MovieTag {
         }
 
         if (hasTransform) {
-            transform = new CoordTransform(coder);
+            transform = context.intern(new CoordTransform(coder));
         }
 
         if (hasColorTransform) {
-            colorTransform = new ColorTransform(coder, context);
+            colorTransform = context.intern(new ColorTransform(coder, context));
         }
 
         if (hasRatio) {
@@ -314,7 +317,7 @@ public final class Place2 implements MovieTag {
 
             coder.readUnsignedShort();
 
-            if (context.get(Context.VERSION) > STANDARD_EVENTS) {
+            if (context.getInt(Context.VERSION) > STANDARD_EVENTS) {
                 coder.readInt();
 
                 while ((event = coder.readInt()) != 0) {
@@ -396,6 +399,7 @@ public final class Place2 implements MovieTag {
      * @return the set of event handlers for the movie clip.
      */
     public List<EventHandler> getEvents() {
+        encoded = null;
         return events;
     }
 
@@ -411,6 +415,7 @@ public final class Place2 implements MovieTag {
      *            a list of ClipEvent objects.
      */
     public void setEvents(final List<EventHandler> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -513,6 +518,7 @@ public final class Place2 implements MovieTag {
      * @return this object.
      */
     public Place2 setType(final PlaceType aType) {
+        encoded = null;
         type = aType;
         return this;
     }
@@ -527,6 +533,7 @@ public final class Place2 implements MovieTag {
      * @return this object.
      */
     public Place2 setLayer(final int aLayer) {
+        encoded = null;
         if ((aLayer < 1) || (aLayer > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, aLayer);
@@ -545,6 +552,7 @@ public final class Place2 implements MovieTag {
      * @return this object.
      */
     public Place2 setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -565,6 +573,7 @@ public final class Place2 implements MovieTag {
      * @return this object.
      */
     public Place2 setTransform(final CoordTransform matrix) {
+        encoded = null;
         transform = matrix;
         return this;
     }
@@ -579,6 +588,7 @@ public final class Place2 implements MovieTag {
      * @return this object.
      */
     public Place2 setLocation(final int xCoord, final int yCoord) {
+        encoded = null;
         transform = CoordTransform.translate(xCoord, yCoord);
         return this;
     }
@@ -595,6 +605,7 @@ public final class Place2 implements MovieTag {
      * @return this object.
      */
     public Place2 setColorTransform(final ColorTransform cxform) {
+        encoded = null;
         colorTransform = cxform;
         return this;
     }
@@ -610,6 +621,7 @@ public final class Place2 implements MovieTag {
      * @return this object.
      */
     public Place2 setRatio(final Integer aNumber) {
+        encoded = null;
         if ((aNumber != null) && ((aNumber < 0)
                 || (aNumber > Coder.USHORT_MAX))) {
             throw new IllegalArgumentRangeException(
@@ -629,6 +641,7 @@ public final class Place2 implements MovieTag {
      * @return this object.
      */
     public Place2 setDepth(final Integer aNumber) {
+        encoded = null;
         if ((aNumber != null) && ((aNumber < 1)
                 || (aNumber > Coder.USHORT_MAX))) {
              throw new IllegalArgumentRangeException(
@@ -649,10 +662,31 @@ public final class Place2 implements MovieTag {
      * @return this object.
      */
     public Place2 setName(final String aString) {
+        encoded = null;
         name = aString;
         return this;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.PLACE_2;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public Place2 copy() {
@@ -671,6 +705,9 @@ public final class Place2 implements MovieTag {
     @Override
 	@SuppressWarnings("PMD.NPathComplexity")
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF
         context.put(Context.TRANSPARENT, 1);
 
@@ -690,7 +727,7 @@ public final class Place2 implements MovieTag {
         if (!events.isEmpty()) {
             int eventSize;
 
-            if (context.get(Context.VERSION) > STANDARD_EVENTS) {
+            if (context.getInt(Context.VERSION) > STANDARD_EVENTS) {
                 eventSize = 4;
             } else {
                 eventSize = 2;
@@ -718,6 +755,10 @@ public final class Place2 implements MovieTag {
 	@SuppressWarnings("PMD.NPathComplexity")
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.PLACE_2
                     << Coder.LENGTH_FIELD_SIZE) | Coder.IS_EXTENDED);
@@ -782,7 +823,7 @@ public final class Place2 implements MovieTag {
 
             coder.writeShort(0);
 
-            if (context.get(Context.VERSION) > STANDARD_EVENTS) {
+            if (context.getInt(Context.VERSION) > STANDARD_EVENTS) {
                 coder.writeInt(eventMask);
                 for (final EventHandler handler : events) {
                     handler.encode(coder, context);
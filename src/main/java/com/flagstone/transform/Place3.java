@@ -56,7 +56,7 @@ import com.flagstone.transform.filter.Filter;
  */
 @SuppressWarnings({"PMD.TooManyFields", "PMD.TooManyMethods",
        "PMD.CyclomaticComplexity" })
-public final class Place3 implements MovieTag {
+public final class Place3 implements MovieTag, Passthrough {
 
     /**
      * Place a new object on the display list.
@@ -170,6 +170,9 @@ public final class Place3 implements MovieTag {
     /** Indicates whether the encoded object contains an image. */
     private transient boolean hasImage;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a Place3 object using values encoded
      * in the Flash binary format.
@@ -242,11 +245,11 @@ public final class Place3 implements MovieTag {
         }
 
         if (hasTransform) {
-            transform = new CoordTransform(coder);
+            transform = context.intern(new CoordTransform(coder));
         }
 
         if (hasColorTransform) {
-            colorTransform = new ColorTransform(coder, context);
+            colorTransform = context.intern(new ColorTransform(coder, context));
         }
 
         if (hasRatio) {
@@ -363,6 +366,7 @@ public final class Place3 implements MovieTag {
      * @return this object.
      */
     public Place3 setType(final PlaceType aType) {
+        encoded = null;
         type = aType;
         return this;
     }
@@ -387,6 +391,7 @@ public final class Place3 implements MovieTag {
      * @return this object.
      */
     public Place3 setLayer(final int aLayer) {
+        encoded = null;
         if ((aLayer < 1) || (aLayer > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(1,
                     Coder.USHORT_MAX, aLayer);
@@ -416,6 +421,7 @@ public final class Place3 implements MovieTag {
      * @return this object.
      */
     public Place3 setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -447,6 +453,7 @@ public final class Place3 implements MovieTag {
      * @return this object.
      */
     public Place3 setTransform(final CoordTransform matrix) {
+        encoded = null;
         transform = matrix;
         return this;
     }
@@ -474,6 +481,7 @@ public final class Place3 implements MovieTag {
      * @return this object.
      */
     public Place3 setColorTransform(final ColorTransform cxform) {
+        encoded = null;
         colorTransform = cxform;
         return this;
     }
@@ -501,6 +509,7 @@ public final class Place3 implements MovieTag {
      * @return this object.
      */
     public Place3 setRatio(final Integer aNumber) {
+        encoded = null;
         if ((aNumber != null) && ((aNumber < 0)
                 || (aNumber > Coder.USHORT_MAX))) {
             throw new IllegalArgumentRangeException(
@@ -530,6 +539,7 @@ public final class Place3 implements MovieTag {
      * @return this object.
      */
     public Place3 setDepth(final Integer aNumber) {
+        encoded = null;
         if ((aNumber != null) && ((aNumber < 1)
                 || (aNumber > Coder.USHORT_MAX))) {
              throw new IllegalArgumentRangeException(
@@ -560,6 +570,7 @@ public final class Place3 implements MovieTag {
      * @return this object.
      */
     public Place3 setName(final String aString) {
+        encoded = null;
         name = aString;
         return this;
     }
@@ -583,6 +594,7 @@ public final class Place3 implements MovieTag {
      * @return this object.
      */
     public Place3 setBitmapCache(final Integer cache) {
+        encoded = null;
         bitmapCache = cache;
         return this;
     }
@@ -605,6 +617,7 @@ public final class Place3 implements MovieTag {
      * @return this object.
      */
     public Place3 setClassName(final String aName) {
+        encoded = null;
         className = aName;
         return this;
     }
@@ -615,6 +628,7 @@ public final class Place3 implements MovieTag {
      * @return the list of bitmap filters.
      */
     public List<Filter> getFilters() {
+        encoded = null;
         return filters;
     }
 
@@ -624,6 +638,7 @@ public final class Place3 implements MovieTag {
      * @param list the list of bitmap filters.
      */
     public void setFilters(final List<Filter> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -646,6 +661,7 @@ public final class Place3 implements MovieTag {
      * @return this object.
      */
     public Place3 setBlend(final Blend mode) {
+        encoded = null;
         blend = mode.getValue();
         return this;
     }
@@ -674,6 +690,7 @@ public final class Place3 implements MovieTag {
      * @return the set of event handlers for the movie clip.
      */
     public List<EventHandler> getEvents() {
+        encoded = null;
         return events;
     }
 
@@ -689,6 +706,7 @@ public final class Place3 implements MovieTag {
      *            a list of ClipEvent objects.
      */
     public void setEvents(final List<EventHandler> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -711,6 +729,26 @@ public final class Place3 implements MovieTag {
         return this;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.PLACE_3;
+    }
+
     /** {@inheritDoc} */
     public Place3 copy() {
         return new Place3(this);
@@ -727,6 +765,9 @@ public final class Place3 implements MovieTag {
     /** {@inheritDoc} */
     @SuppressWarnings("PMD.NPathComplexity")
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF
         context.put(Context.TRANSPARENT, 1);
 
@@ -780,6 +821,10 @@ public final class Place3 implements MovieTag {
     @SuppressWarnings({"PMD.NPathComplexity", "PMD.ExcessiveMethodLength" })
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.PLACE_3
                     << Coder.LENGTH_FIELD_SIZE) | Coder.IS_EXTENDED);
@@ -64,7 +64,7 @@ import com.flagstone.transform.coder.SWFEncoder;
  * movies.
  * </p>
  */
-public final class Protect implements MovieTag {
+public final class Protect implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "Protect: { password=%s}";
@@ -75,6 +75,9 @@ public final class Protect implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a Protect object using values encoded
      * in the Flash binary format.
@@ -154,12 +157,33 @@ public final class Protect implements MovieTag {
      *            the string defining the password. Must not be null.
      */
     public void setPassword(final String aString) {
+        encoded = null;
         if (aString == null) {
             throw new IllegalArgumentException();
         }
         password = aString;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.PROTECT;
+    }
+
     /** {@inheritDoc} */
     public Protect copy() {
         return new Protect(this);
@@ -173,6 +197,9 @@ public final class Protect implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 0;
 
         if (password != null) {
@@ -185,6 +212,10 @@ public final class Protect implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.PROTECT
                     << Coder.LENGTH_FIELD_SIZE) | Coder.IS_EXTENDED);
@@ -60,7 +60,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * @see Place
  * @see Place2
  */
-public final class Remove implements MovieTag {
+public final class Remove implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "Remove: { identifier=%d; layer=%d}";
@@ -70,6 +70,9 @@ public final class Remove implements MovieTag {
     /** The layer where the object is displayed. */
     private int layer;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a Remove object using values encoded
      * in the Flash binary format.
@@ -135,6 +138,7 @@ public final class Remove implements MovieTag {
      *            list. Must be in the range 1.65535.
      */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -159,6 +163,7 @@ public final class Remove implements MovieTag {
      *            displayed. Must be in the range 1.65535.
      */
     public void setLayer(final int aLayer) {
+        encoded = null;
         if ((aLayer < 1) || (aLayer > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, aLayer);
@@ -166,6 +171,26 @@ public final class Remove implements MovieTag {
         layer = aLayer;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.REMOVE;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public Remove copy() {
@@ -181,6 +206,9 @@ public final class Remove implements MovieTag {
     /** {@inheritDoc} */
     @Override
 	public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         return 6;
     }
@@ -189,6 +217,10 @@ public final class Remove implements MovieTag {
     @Override
 	public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         coder.writeShort((MovieTypes.REMOVE << Coder.LENGTH_FIELD_SIZE) | 4);
         coder.writeShort(identifier);
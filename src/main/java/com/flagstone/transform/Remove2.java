@@ -45,7 +45,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  *
  * @see Remove
  */
-public final class Remove2 implements MovieTag {
+public final class Remove2 implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "Remove2: { layer=%d}";
@@ -53,6 +53,9 @@ public final class Remove2 implements MovieTag {
     /** The layer where the object is displayed. */
     private int layer;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a Remove2 object using values encoded
      * in the Flash binary format.
@@ -113,6 +116,7 @@ public final class Remove2 implements MovieTag {
      *            the range 1.65535.
      */
     public void setLayer(final int aLayer) {
+        encoded = null;
         if ((aLayer < 1) || (aLayer > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, aLayer);
@@ -120,6 +124,26 @@ public final class Remove2 implements MovieTag {
         layer = aLayer;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.REMOVE_2;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public Remove2 copy() {
@@ -135,6 +159,9 @@ public final class Remove2 implements MovieTag {
     /** {@inheritDoc} */
     @Override
 	public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF
         return 4;
         // CHECKSTYLE:ON
@@ -144,6 +171,10 @@ public final class Remove2 implements MovieTag {
     @Override
 	public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         coder.writeShort((MovieTypes.REMOVE_2
                 << Coder.LENGTH_FIELD_SIZE) | 2);
         coder.writeShort(layer);
@@ -0,0 +1,93 @@
+/*
+ * Retained.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform;
+
+import com.flagstone.transform.coder.Context;
+
+/**
+ * Retained holds the encoded data a tag was decoded from along with the
+ * version of Flash and the character encoding used to decode it. The data
+ * is only written out in place of the tag when the movie is encoded with the
+ * same version and character encoding, otherwise the tag is encoded again.
+ */
+public final class Retained {
+    /** The encoded tag, including the header. */
+    private final transient byte[] data;
+    /** The version of Flash the tag was decoded from. */
+    private final transient int version;
+    /** The character encoding used to decode strings. */
+    private final transient String encoding;
+
+    /**
+     * Creates a Retained object for a tag that was just decoded.
+     *
+     * @param bytes the encoded tag, including the header. The array is not
+     * copied.
+     * @param context the Context used to decode the tag.
+     */
+    public Retained(final byte[] bytes, final Context context) {
+        data = bytes;
+        version = context.getInt(Context.VERSION);
+        encoding = context.getEncoding();
+    }
+
+    /**
+     * Get the encoded tag.
+     *
+     * @return the encoded tag, including the header. The array is not
+     * copied.
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Get the length of the encoded tag.
+     *
+     * @return the number of bytes in the encoded tag, including the header.
+     */
+    public int getLength() {
+        return data.length;
+    }
+
+    /**
+     * Can the data be written out in place of the tag.
+     *
+     * @param context the Context used to encode the movie.
+     * @return true if the movie is being encoded with the same version and
+     * character encoding used when the tag was decoded.
+     */
+    public boolean matches(final Context context) {
+        return version == context.getInt(Context.VERSION)
+                && encoding.equals(context.getEncoding());
+    }
+}
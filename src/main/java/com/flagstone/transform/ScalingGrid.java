@@ -47,7 +47,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * the (two) squares to the left and right are scaled vertically and the (four)
  * corner squares are not scaled at all.
  */
-public final class ScalingGrid implements DefineTag {
+public final class ScalingGrid implements DefineTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "ScalingGrid: { identifier=%d;"
@@ -61,6 +61,9 @@ public final class ScalingGrid implements DefineTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a ScalingGrid object using values encoded
      * in the Flash binary format.
@@ -126,6 +129,7 @@ public final class ScalingGrid implements DefineTag {
      * @param uid the unique identifier of the object.
      */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -146,12 +150,33 @@ public final class ScalingGrid implements DefineTag {
      * @param rect the box defining the centre of the grid.
      */
     public void setBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
         bounds = rect;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_SCALING_GRID;
+    }
+
     /** {@inheritDoc} */
     public ScalingGrid copy() {
         return new ScalingGrid(this);
@@ -165,6 +190,9 @@ public final class ScalingGrid implements DefineTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 2 + bounds.prepareToEncode(context);
         return 2 + length;
     }
@@ -172,6 +200,10 @@ public final class ScalingGrid implements DefineTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         coder.writeShort((MovieTypes.DEFINE_SCALING_GRID
                 << Coder.LENGTH_FIELD_SIZE) | length);
@@ -45,7 +45,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * ScenesAndLabels is used to list the scenes (main timeline only) and labelled
  * frames for movies and movie clips.
  */
-public final class ScenesAndLabels implements MovieTag {
+public final class ScenesAndLabels implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "ScenesAndLabels: { scenes=%s;"
@@ -59,6 +59,9 @@ public final class ScenesAndLabels implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a ScenesAndLabels object using values encoded
      * in the Flash binary format.
@@ -135,6 +138,7 @@ public final class ScenesAndLabels implements MovieTag {
      * @return this object.
      */
     public ScenesAndLabels addScene(final int offset, final String name) {
+        encoded = null;
         if ((offset < 0) || (offset > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     0, Coder.USHORT_MAX, offset);
@@ -151,6 +155,7 @@ public final class ScenesAndLabels implements MovieTag {
      * @return a map associating frame numbers to scene names.
      */
     public Map<Integer, String> getScenes() {
+        encoded = null;
         return scenes;
     }
 
@@ -159,6 +164,7 @@ public final class ScenesAndLabels implements MovieTag {
      * @param map a table associating frame numbers to scene names.
      */
     public void setScenes(final Map<Integer, String> map) {
+        encoded = null;
         if (map == null) {
             throw new IllegalArgumentException();
         }
@@ -173,6 +179,7 @@ public final class ScenesAndLabels implements MovieTag {
      * @return this object.
      */
     public ScenesAndLabels addLabel(final int offset, final String name) {
+        encoded = null;
         if ((offset < 0) || (offset > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     0, Coder.USHORT_MAX, offset);
@@ -189,6 +196,7 @@ public final class ScenesAndLabels implements MovieTag {
      * @return a map associating frame numbers to frame labels.
      */
     public Map<Integer, String> getLabels() {
+        encoded = null;
         return labels;
     }
 
@@ -197,12 +205,33 @@ public final class ScenesAndLabels implements MovieTag {
      * @param map a table associating frame numbers to frame labels.
      */
     public void setLabels(final Map<Integer, String> map) {
+        encoded = null;
         if (map == null) {
             throw new IllegalArgumentException();
         }
         labels = map;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.SCENES_AND_LABELS;
+    }
+
     /** {@inheritDoc} */
     public ScenesAndLabels copy() {
         return new ScenesAndLabels(this);
@@ -216,6 +245,9 @@ public final class ScenesAndLabels implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
 
         length = Coder.sizeVariableU32(scenes.size());
 
@@ -238,6 +270,10 @@ public final class ScenesAndLabels implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.SCENES_AND_LABELS
@@ -41,7 +41,7 @@ import com.flagstone.transform.coder.SWFEncoder;
 /**
  * SerialNumber is used to add a user-defined serial number into a Flash file.
  */
-public final class SerialNumber implements MovieTag {
+public final class SerialNumber implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "SerialNumber: { number=%s}";
@@ -51,6 +51,9 @@ public final class SerialNumber implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a SerialNumber object using values encoded
      * in the Flash binary format.
@@ -113,12 +116,33 @@ public final class SerialNumber implements MovieTag {
      *            null.
      */
     public void setNumber(final String aString) {
+        encoded = null;
         if (aString == null) {
             throw new IllegalArgumentException();
         }
         number = aString;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.SERIAL_NUMBER;
+    }
+
     /** {@inheritDoc} */
     public SerialNumber copy() {
         return new SerialNumber(this);
@@ -132,6 +156,9 @@ public final class SerialNumber implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = context.strlen(number);
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
                 : Coder.SHORT_HEADER) + length;
@@ -140,6 +167,10 @@ public final class SerialNumber implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.SERIAL_NUMBER
                     << Coder.LENGTH_FIELD_SIZE) | Coder.IS_EXTENDED);
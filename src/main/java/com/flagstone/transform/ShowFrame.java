@@ -98,6 +98,11 @@ public final class ShowFrame implements MovieTag {
     private ShowFrame() {
     }
 
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.SHOW_FRAME;
+    }
+
     /** {@inheritDoc} */
     public ShowFrame copy() {
         return this;
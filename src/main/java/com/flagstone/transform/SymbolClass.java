@@ -45,7 +45,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * SymbolClass is used to export one or more Actionscript 3 classes so they
  * can be used in another Flash file.
  */
-public final class SymbolClass implements MovieTag {
+public final class SymbolClass implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "SymbolClass: { objects=%s}";
@@ -55,6 +55,9 @@ public final class SymbolClass implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a SymbolClass object using values encoded
      * in the Flash binary format.
@@ -133,6 +136,7 @@ public final class SymbolClass implements MovieTag {
      * @return the table of identifiers and class names.
      */
     public Map<Integer, String> getObjects() {
+        encoded = null;
         return objects;
     }
 
@@ -141,12 +145,33 @@ public final class SymbolClass implements MovieTag {
      * @param aTable the table of identifiers and class names.
      */
     public void setObjects(final Map<Integer, String> aTable) {
+        encoded = null;
         if (aTable == null) {
             throw new IllegalArgumentException();
         }
         objects = aTable;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.SYMBOL;
+    }
+
     /** {@inheritDoc} */
     public SymbolClass copy() {
         return new SymbolClass(this);
@@ -160,6 +185,9 @@ public final class SymbolClass implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
 
         length = 2;
 
@@ -174,6 +202,10 @@ public final class SymbolClass implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.SYMBOL
@@ -50,7 +50,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * statements to be referenced.
  * </p>
  */
-public final class TabOrder implements MovieTag {
+public final class TabOrder implements MovieTag, Passthrough {
 
     /** The highest index when defining an objects tab order. */
     public static final int MAX_TAB = 65535;
@@ -62,6 +62,9 @@ public final class TabOrder implements MovieTag {
     /** The order in which the object will received keyboard focus. */
     private int index;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a TabOrder object using values encoded
      * in the Flash binary format.
@@ -127,6 +130,7 @@ public final class TabOrder implements MovieTag {
      *            the layer number. Must be in the range 1..65535.
      */
     public void setLayer(final int level) {
+        encoded = null;
         if ((level < 1) || (level > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, level);
@@ -149,12 +153,33 @@ public final class TabOrder implements MovieTag {
      *            the index in the tabbing order. Must be in the range 0..65535.
      */
     public void setIndex(final int idx) {
+        encoded = null;
         if ((idx < 0) || (idx > MAX_TAB)) {
             throw new IllegalArgumentRangeException(0, MAX_TAB, idx);
         }
         index = idx;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.TAB_ORDER;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public TabOrder copy() {
@@ -170,6 +195,9 @@ public final class TabOrder implements MovieTag {
     /** {@inheritDoc} */
     @Override
 	public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         return 6;
     }
@@ -178,6 +206,10 @@ public final class TabOrder implements MovieTag {
     @Override
 	public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         coder.writeShort((MovieTypes.TAB_ORDER << Coder.LENGTH_FIELD_SIZE) | 4);
         coder.writeShort(layer);
@@ -0,0 +1,244 @@
+/*
+ * TagIndex.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.flagstone.transform.coder.Coder;
+import com.flagstone.transform.coder.CoderException;
+
+/**
+ * TagIndex records the type, offset and length of each tag in the body of a
+ * movie. It is built by scanning the tag headers without decoding the tags
+ * so the data for any tag can be found directly. The End tag that marks the
+ * end of the movie is not included.
+ */
+final class TagIndex {
+    /** Length in bytes of the type and length field of a tag. */
+    private static final int TYPE_LENGTH = 2;
+    /** Length in bytes of the length field of a tag with a long header. */
+    private static final int LENGTH_FIELD = 4;
+    /** The initial number of entries in the index. */
+    private static final int INITIAL_SIZE = 64;
+
+    /** The types of the tags. */
+    private transient int[] types;
+    /** The offsets to the start of the tag headers. */
+    private transient int[] offsets;
+    /** The lengths of the tags, including the headers. */
+    private transient int[] lengths;
+    /** The number of tags in the index. */
+    private transient int count;
+
+    /**
+     * Create an empty index with space for the specified number of tags.
+     *
+     * @param size the expected number of tags.
+     */
+    TagIndex(final int size) {
+        types = new int[Math.max(size, 1)];
+        offsets = new int[types.length];
+        lengths = new int[types.length];
+    }
+
+    /**
+     * Build an index by scanning the tag headers from the specified offset
+     * up to the End tag.
+     *
+     * @param buffer the body of the movie, which follows the file length.
+     * The position is used as the start of the body and is not changed.
+     * @param start the offset, relative to the position of the buffer, of
+     * the first tag.
+     * @return the index of the tags.
+     * @throws CoderException if a tag extends beyond the end of the data or
+     * the End tag is missing.
+     */
+    static TagIndex scan(final ByteBuffer buffer, final int start)
+            throws CoderException {
+        final ByteBuffer data = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        final int limit = data.limit();
+        final TagIndex index = new TagIndex(INITIAL_SIZE);
+
+        int offset = start;
+        int type;
+        int length;
+
+        while (true) {
+            if (offset + TYPE_LENGTH > limit) {
+                throw new CoderException(offset, "Missing End tag");
+            }
+            type = data.getShort(offset) & Coder.USHORT_MAX;
+            length = type & Coder.LENGTH_FIELD;
+            type >>>= Coder.LENGTH_FIELD_SIZE;
+
+            if (type == MovieTypes.END) {
+                break;
+            }
+
+            if (length == Coder.IS_EXTENDED) {
+                if (offset + TYPE_LENGTH + LENGTH_FIELD > limit) {
+                    throw new CoderException(offset, "Truncated tag");
+                }
+                length = data.getInt(offset + TYPE_LENGTH) + LENGTH_FIELD;
+            }
+            length += TYPE_LENGTH;
+
+            if (length < TYPE_LENGTH || offset + length > limit
+                    || offset + length < 0) {
+                throw new CoderException(offset, "Truncated tag");
+            }
+            index.add(type, offset, length);
+            offset += length;
+        }
+        return index;
+    }
+
+    /**
+     * Read an index previously saved using write().
+     *
+     * @param input the source of the data.
+     * @return the index of the tags.
+     * @throws IOException if an error occurs reading the data.
+     */
+    static TagIndex read(final DataInput input) throws IOException {
+        final int size = input.readInt();
+        if (size < 0) {
+            throw new IOException("Invalid tag index");
+        }
+        final TagIndex index = new TagIndex(size);
+        for (int i = 0; i < size; i++) {
+            index.add(input.readUnsignedShort(), input.readInt(),
+                    input.readInt());
+        }
+        return index;
+    }
+
+    /**
+     * Write the index so it can be read back using read().
+     *
+     * @param output the destination for the data.
+     * @throws IOException if an error occurs writing the data.
+     */
+    void write(final DataOutput output) throws IOException {
+        output.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            output.writeShort(types[i]);
+            output.writeInt(offsets[i]);
+            output.writeInt(lengths[i]);
+        }
+    }
+
+    /**
+     * Add an entry to the index.
+     *
+     * @param type the type of tag.
+     * @param offset the offset to the start of the tag header.
+     * @param length the length of the tag including the header.
+     */
+    void add(final int type, final int offset, final int length) {
+        if (count == types.length) {
+            final int size = count << 1;
+            final int[] array = new int[size];
+            System.arraycopy(types, 0, array, 0, count);
+            types = array;
+            final int[] offs = new int[size];
+            System.arraycopy(offsets, 0, offs, 0, count);
+            offsets = offs;
+            final int[] lens = new int[size];
+            System.arraycopy(lengths, 0, lens, 0, count);
+            lengths = lens;
+        }
+        types[count] = type;
+        offsets[count] = offset;
+        lengths[count] = length;
+        count++;
+    }
+
+    /**
+     * Get the number of tags in the index.
+     *
+     * @return the number of tags.
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Get the type of a tag.
+     *
+     * @param index the position of the tag in the index.
+     * @return the type of the tag.
+     */
+    int getType(final int index) {
+        return types[index];
+    }
+
+    /**
+     * Get the offset to the start of a tag.
+     *
+     * @param index the position of the tag in the index.
+     * @return the offset, from the start of the body, to the tag header.
+     */
+    int getOffset(final int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Get the length of a tag.
+     *
+     * @param index the position of the tag in the index.
+     * @return the length of the tag, including the header.
+     */
+    int getLength(final int index) {
+        return lengths[index];
+    }
+
+    /**
+     * Check that all the tags in the index lie within a block of data.
+     *
+     * @param limit the length of the data.
+     * @return true if the tags lie between 0 and the limit.
+     */
+    boolean fits(final int limit) {
+        boolean result = true;
+        for (int i = 0; i < count && result; i++) {
+            result = offsets[i] >= 0 && lengths[i] >= TYPE_LENGTH
+                    && offsets[i] + lengths[i] <= limit
+                    && offsets[i] + lengths[i] > 0;
+        }
+        return result;
+    }
+}
@@ -37,6 +37,8 @@ import java.io.IOException;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -60,7 +62,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * @see DefineButton
  * @see DefineButton2
  */
-public final class ButtonColorTransform implements MovieTag {
+public final class ButtonColorTransform implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "ButtonColorTransform: {"
@@ -74,6 +76,9 @@ public final class ButtonColorTransform implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a ButtonColorTransform object using values
      * encoded in the Flash binary format.
@@ -97,7 +102,7 @@ public final class ButtonColorTransform implements MovieTag {
         }
         coder.mark();
         identifier = coder.readUnsignedShort();
-        colorTransform = new ColorTransform(coder, context);
+        colorTransform = context.intern(new ColorTransform(coder, context));
         coder.check(length);
         coder.unmark();
     }
@@ -156,6 +161,7 @@ public final class ButtonColorTransform implements MovieTag {
      *            will be applied to. Must be in the range 1..65535.
      */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
              throw new IllegalArgumentRangeException(
                      1, Coder.USHORT_MAX, uid);
@@ -170,12 +176,33 @@ public final class ButtonColorTransform implements MovieTag {
      *            the colour transform object. Must not be null.
      */
     public void setColorTransform(final ColorTransform cxform) {
+        encoded = null;
         if (cxform == null) {
             throw new IllegalArgumentException();
         }
         colorTransform = cxform;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.BUTTON_COLOR_TRANSFORM;
+    }
+
     /** {@inheritDoc} */
     public ButtonColorTransform copy() {
         return new ButtonColorTransform(this);
@@ -188,6 +215,9 @@ public final class ButtonColorTransform implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF
         length = 4 + colorTransform.prepareToEncode(context);
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
@@ -199,6 +229,10 @@ public final class ButtonColorTransform implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.BUTTON_COLOR_TRANSFORM
@@ -129,11 +129,10 @@ public final class ButtonShape implements SWFEncodeable, Copyable<ButtonShape> {
 
         identifier = coder.readUnsignedShort();
         layer = coder.readUnsignedShort();
-        transform = new CoordTransform(coder);
+        transform = context.intern(new CoordTransform(coder));
 
-        if (context.get(Context.TYPE) != null && context.get(Context.TYPE)
-                == MovieTypes.DEFINE_BUTTON_2) {
-            colorTransform = new ColorTransform(coder, context);
+        if (context.getInt(Context.TYPE) == MovieTypes.DEFINE_BUTTON_2) {
+            colorTransform = context.intern(new ColorTransform(coder, context));
         }
 
         if (hasFilters) {
@@ -449,8 +448,7 @@ public final class ButtonShape implements SWFEncodeable, Copyable<ButtonShape> {
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         int length = 5 + transform.prepareToEncode(context);
 
-        if (context.get(Context.TYPE) != null && context.get(Context.TYPE)
-                == MovieTypes.DEFINE_BUTTON_2) {
+        if (context.getInt(Context.TYPE) == MovieTypes.DEFINE_BUTTON_2) {
             length += colorTransform.prepareToEncode(context);
         }
 
@@ -481,8 +479,7 @@ public final class ButtonShape implements SWFEncodeable, Copyable<ButtonShape> {
         coder.writeShort(layer);
         transform.encode(coder, context);
 
-        if (context.get(Context.TYPE) != null && context.get(Context.TYPE)
-                == MovieTypes.DEFINE_BUTTON_2) {
+        if (context.getInt(Context.TYPE) == MovieTypes.DEFINE_BUTTON_2) {
             colorTransform.encode(coder, context);
         }
 
@@ -40,6 +40,8 @@ import com.flagstone.transform.Constants;
 import com.flagstone.transform.Event;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -61,7 +63,7 @@ import com.flagstone.transform.sound.SoundInfo;
  * @see DefineButton
  * @see DefineButton2
  */
-public final class ButtonSound implements MovieTag {
+public final class ButtonSound implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "ButtonSound: { identifier=%d;"
@@ -80,6 +82,9 @@ public final class ButtonSound implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a ButtonSound object using values encoded
      * in the Flash binary format.
@@ -195,6 +200,7 @@ public final class ButtonSound implements MovieTag {
      *            to. Must be in the range 1..65535.
      */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -216,9 +222,30 @@ public final class ButtonSound implements MovieTag {
      *            is played.
      */
     public void setSoundInfo(final Event event, final SoundInfo info) {
+        encoded = null;
         table.put(event, info);
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.BUTTON_SOUND;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public ButtonSound copy() {
@@ -234,6 +261,9 @@ public final class ButtonSound implements MovieTag {
     /** {@inheritDoc} */
     @Override
 	public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 2;
 
         for (Event event : EVENTS) {
@@ -251,6 +281,10 @@ public final class ButtonSound implements MovieTag {
     @Override
 	public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.BUTTON_SOUND
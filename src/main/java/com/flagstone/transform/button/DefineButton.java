@@ -38,6 +38,8 @@ import java.util.List;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.DefineTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.action.Action;
 import com.flagstone.transform.action.ActionData;
 import com.flagstone.transform.coder.Coder;
@@ -60,7 +62,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  *
  * @see ButtonShape
  */
-public final class DefineButton implements DefineTag {
+public final class DefineButton implements DefineTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineButton: { identifier=%d;"
@@ -76,6 +78,9 @@ public final class DefineButton implements DefineTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineButton object using values encoded
      * in the Flash binary format.
@@ -170,6 +175,7 @@ public final class DefineButton implements DefineTag {
     /** {@inheritDoc} */
     @Override
 	public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -213,6 +219,7 @@ public final class DefineButton implements DefineTag {
      * @return the list of shapes used to represent the button.
      */
     public List<ButtonShape> getShapes() {
+        encoded = null;
         return shapes;
     }
 
@@ -223,6 +230,7 @@ public final class DefineButton implements DefineTag {
      * @return the actions executed when the button is clicked.
      */
     public List<Action> getActions() {
+        encoded = null;
         return actions;
     }
 
@@ -233,6 +241,7 @@ public final class DefineButton implements DefineTag {
      *            a list of Button objects. Must not be null.
      */
     public void setShapes(final List<ButtonShape> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -247,12 +256,33 @@ public final class DefineButton implements DefineTag {
      *            a list of action objects. Must not be null.
      */
     public void setActions(final List<Action> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
         actions = list;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_BUTTON;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public DefineButton copy() {
@@ -267,6 +297,9 @@ public final class DefineButton implements DefineTag {
     /** {@inheritDoc} */
     @Override
 	public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 2;
 
         for (final ButtonShape shape : shapes) {
@@ -287,6 +320,10 @@ public final class DefineButton implements DefineTag {
     @Override
 	public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_BUTTON
                     << Coder.LENGTH_FIELD_SIZE) | Coder.IS_EXTENDED);
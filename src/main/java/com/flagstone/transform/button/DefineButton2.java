@@ -39,6 +39,8 @@ import com.flagstone.transform.Constants;
 import com.flagstone.transform.DefineTag;
 import com.flagstone.transform.EventHandler;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -78,7 +80,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * @see ButtonShape
  * @see EventHandler
  */
-public final class DefineButton2 implements DefineTag {
+public final class DefineButton2 implements DefineTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineButton2: { type=%s;"
@@ -98,6 +100,9 @@ public final class DefineButton2 implements DefineTag {
     /** Offset in bytes from the start of the shapes to the event handlers. */
     private transient int offset;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineButton2 object using values encoded
      * in the Flash binary format.
@@ -222,6 +227,7 @@ public final class DefineButton2 implements DefineTag {
     /** {@inheritDoc} */
     @Override
 	public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -280,6 +286,7 @@ public final class DefineButton2 implements DefineTag {
      * @return the list of shapes used to draw the button.
      */
     public List<ButtonShape> getShapes() {
+        encoded = null;
         return shapes;
     }
 
@@ -289,6 +296,7 @@ public final class DefineButton2 implements DefineTag {
      * @return the event handlers for the button.
      */
     public List<EventHandler> getEvents() {
+        encoded = null;
         return events;
     }
 
@@ -299,6 +307,7 @@ public final class DefineButton2 implements DefineTag {
      *            the type of button, either ButtonType.MENU or ButtonType.PUSH.
      */
     public void setType(final ButtonType buttonType) {
+        encoded = null;
         if (buttonType == ButtonType.PUSH) {
             type = 0;
         } else {
@@ -313,6 +322,7 @@ public final class DefineButton2 implements DefineTag {
      *            a list of ButtonShape objects. Must not be null.
      */
     public void setShapes(final List<ButtonShape> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -327,12 +337,33 @@ public final class DefineButton2 implements DefineTag {
      *            a list of ButtonEvent objects. Must not be null.
      */
     public void setEvents(final List<EventHandler> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
         events = list;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_BUTTON_2;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public DefineButton2 copy() {
@@ -348,6 +379,9 @@ public final class DefineButton2 implements DefineTag {
     /** {@inheritDoc} */
     @Override
 	public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF - Fixed length when encoded.
         context.put(Context.TYPE, MovieTypes.DEFINE_BUTTON_2);
         context.put(Context.TRANSPARENT, 1);
@@ -393,6 +427,10 @@ public final class DefineButton2 implements DefineTag {
     @Override
 	public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         context.put(Context.TYPE, MovieTypes.DEFINE_BUTTON_2);
         context.put(Context.TRANSPARENT, 1);
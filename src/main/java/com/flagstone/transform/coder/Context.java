@@ -42,6 +42,14 @@ import com.flagstone.transform.CharacterEncoding;
 /**
  * Contexts are used to pass information between objects when they are being
  * encoded or decoded.
+ *
+ * <p>
+ * Variables with identifiers in the range 0..31, which includes all the
+ * identifiers defined in this class, are stored as primitive values in a
+ * fixed array so getInt() and put() can be called for every object encoded or
+ * decoded without allocating any objects. Variables with other identifiers
+ * are stored in a table which is only created when it is first used.
+ * </p>
  */
 public class Context {
     /** Flash Version. */
@@ -74,20 +82,50 @@ public class Context {
     public static final int COMPRESSED = 17;
     /** Indicates a definition is for menu button. */
     public static final int MENU_BUTTON = 18;
+    /** Indicates the flash file is compressed using LZMA. */
+    public static final int LZMA = 19;
+
+    /** The number of variables stored in the array of values. */
+    private static final int SLOTS = 32;
 
     /** The character encoding used for strings. */
     private String encoding;
     /** The registry containing the objects that perform the decoding. */
     private DecoderRegistry registry;
-    /** A table of variables used to pass information between objects. */
-    private final transient Map<Integer, Integer> variables;
+    /** The table used to share equal objects as they are decoded. */
+    private Interner interner;
+    /** The values of the variables with identifiers in the range 0..31. */
+    private final transient int[] values;
+    /** Bit mask recording which of the variables in values are set. */
+    private transient int assigned;
+    /** A table of variables with identifiers outside the range 0..31. */
+    private transient Map<Integer, Integer> variables;
 
     /**
      * Create a Context object.
      */
     public Context() {
         encoding = CharacterEncoding.UTF8.toString();
-        variables = new LinkedHashMap<Integer, Integer>();
+        values = new int[SLOTS];
+    }
+
+    /**
+     * Create a Context object with the same encoding, registry and variables
+     * as another Context. Changes made to the copy do not affect the original
+     * so separate copies can be used when objects are encoded or decoded in
+     * different threads.
+     *
+     * @param context the Context to copy.
+     */
+    public Context(final Context context) {
+        encoding = context.encoding;
+        registry = context.registry;
+        interner = context.interner;
+        values = context.values.clone();
+        assigned = context.assigned;
+        if (context.variables != null) {
+            variables = new LinkedHashMap<Integer, Integer>(context.variables);
+        }
     }
 
     /**
@@ -152,41 +190,169 @@ public class Context {
         registry = decoderRegistry;
     }
 
+    /**
+     * Get the table used to share equal objects as they are decoded.
+     * @return the Interner or null if objects are not shared.
+     */
+    public final Interner getInterner() {
+        return interner;
+    }
+
+    /**
+     * Set the table used to share equal objects as they are decoded. Copies
+     * of the Context share the same table.
+     * @param table the Interner. May be null in which case every object
+     * decoded is a separate instance.
+     */
+    public final void setInterner(final Interner table) {
+        interner = table;
+    }
+
+    /**
+     * Get the shared instance of an immutable object that has just been
+     * decoded.
+     * @param <T> the type of object.
+     * @param value the object decoded.
+     * @return an equal object from the Interner or value if no Interner is
+     * set or it does not contain an equal object.
+     */
+    public final <T> T intern(final T value) {
+        return interner == null ? value : interner.intern(value);
+    }
+
+    /**
+     * Is a variable set.
+     * @param key the name of the variable.
+     * @return true if the variable is set, false if not.
+     */
+    public final boolean contains(final int key) {
+        final boolean result;
+        if (key >= 0 && key < SLOTS) {
+            result = (assigned & (1 << key)) != 0;
+        } else {
+            result = variables != null && variables.containsKey(key);
+        }
+        return result;
+    }
+
+    /**
+     * Delete the context variable.
+     *
+     * @param key the identifier for the variable.
+     */
+    public final void remove(final int key) {
+        if (key >= 0 && key < SLOTS) {
+            assigned &= ~(1 << key);
+            values[key] = 0;
+        } else if (variables != null) {
+            variables.remove(key);
+        }
+    }
+
+    /**
+     * Get the value of a variable.
+     * @param key the name of the variable.
+     * @return the variable value or null if the variable is not set.
+     */
+    public final Integer get(final int key) {
+        final Integer result;
+        if (key >= 0 && key < SLOTS) {
+            if ((assigned & (1 << key)) == 0) {
+                result = null;
+            } else {
+                result = values[key];
+            }
+        } else if (variables == null) {
+            result = null;
+        } else {
+            result = variables.get(key);
+        }
+        return result;
+    }
+
+    /**
+     * Get the value of a variable without creating an Integer object.
+     * @param key the name of the variable.
+     * @return the variable value or zero if the variable is not set.
+     */
+    public final int getInt(final int key) {
+        final int result;
+        if (key >= 0 && key < SLOTS) {
+            result = values[key];
+        } else if (variables == null || !variables.containsKey(key)) {
+            result = 0;
+        } else {
+            result = variables.get(key);
+        }
+        return result;
+    }
+
+    /**
+     * Set a variable.
+     * @param key the name of the variable.
+     * @param value the variable value.
+     * @return this object.
+     */
+    public final Context put(final int key, final int value) {
+        if (key >= 0 && key < SLOTS) {
+            values[key] = value;
+            assigned |= 1 << key;
+        } else {
+            if (variables == null) {
+                variables = new LinkedHashMap<Integer, Integer>();
+            }
+            variables.put(key, value);
+        }
+        return this;
+    }
+
     /**
      * Is a variable set.
      * @param key the name of the variable.
      * @return true if the variable is set, false if not.
+     * @deprecated use {@link #contains(int)}.
      */
+    @Deprecated
     public final boolean contains(final Integer key) {
-        return variables.containsKey(key);
+        return contains(key.intValue());
     }
 
     /**
      * Delete the context variable.
      *
      * @param key the identifier for the variable.
+     * @deprecated use {@link #remove(int)}.
      */
+    @Deprecated
     public final void remove(final Integer key) {
-        variables.remove(key);
+        remove(key.intValue());
     }
 
     /**
      * Get the value of a variable.
      * @param key the name of the variable.
-     * @return the variable value.
+     * @return the variable value or null if the variable is not set.
+     * @deprecated use {@link #get(int)} or {@link #getInt(int)}.
      */
+    @Deprecated
     public final Integer get(final Integer key) {
-        return variables.get(key);
+        return get(key.intValue());
     }
 
     /**
-     * Set a variable.
+     * Set a variable. Setting a variable to null deletes it.
      * @param key the name of the variable.
-     * @param value the variable value.
+     * @param value the variable value or null.
      * @return this object.
+     * @deprecated use {@link #put(int, int)}.
      */
+    @Deprecated
     public final Context put(final Integer key, final Integer value) {
-        variables.put(key, value);
+        if (value == null) {
+            remove(key.intValue());
+        } else {
+            put(key.intValue(), value.intValue());
+        }
         return this;
     }
 }
@@ -31,8 +31,11 @@
 
 package com.flagstone.transform.coder;
 
+import java.util.Arrays;
+
 import com.flagstone.transform.MovieDecoder;
 import com.flagstone.transform.MovieTag;
+import com.flagstone.transform.MovieTypes;
 import com.flagstone.transform.action.Action;
 import com.flagstone.transform.action.ActionDecoder;
 import com.flagstone.transform.fillstyle.FillStyle;
@@ -47,9 +50,66 @@ import com.flagstone.transform.shape.ShapeRecord;
 /**
  * The DecoderRegistry is used to maintain a table of objects that can be used
  * to decode the different types of object encountered in a Flash file.
+ *
+ * <p>
+ * The registry also records a DecodePolicy for each type of tag in a movie
+ * so that only the tags of interest are decoded. Tags can be decoded into
+ * objects (the default), kept as MovieObjects containing the encoded data or
+ * skipped entirely. Registries with ready-made sets of policies are returned
+ * by getMetaDataProfile(), getTextProfile() and getImageProfile().
+ * </p>
  */
 public final class DecoderRegistry implements Copyable<DecoderRegistry> {
 
+    /** The number of different types of tag that can be encoded. */
+    private static final int TAG_TYPES = 1024;
+
+    /** The tags decoded when only the meta-data for a movie is needed. */
+    private static final int[] META_DATA_TAGS = {
+        MovieTypes.SHOW_FRAME,
+        MovieTypes.SET_BACKGROUND_COLOR,
+        MovieTypes.FILE_ATTRIBUTES,
+        MovieTypes.METADATA,
+        MovieTypes.FRAME_LABEL,
+        MovieTypes.SCENES_AND_LABELS,
+        MovieTypes.SYMBOL,
+        MovieTypes.EXPORT,
+        MovieTypes.IMPORT,
+        MovieTypes.IMPORT_2,
+        MovieTypes.PROTECT,
+        MovieTypes.ENABLE_DEBUGGER,
+        MovieTypes.ENABLE_DEBUGGER_2,
+        MovieTypes.SERIAL_NUMBER
+    };
+
+    /** The tags decoded when only the text in a movie is needed. */
+    private static final int[] TEXT_TAGS = {
+        MovieTypes.SHOW_FRAME,
+        MovieTypes.FRAME_LABEL,
+        MovieTypes.METADATA,
+        MovieTypes.DEFINE_FONT,
+        MovieTypes.DEFINE_FONT_2,
+        MovieTypes.DEFINE_FONT_3,
+        MovieTypes.DEFINE_FONT_4,
+        MovieTypes.FONT_INFO,
+        MovieTypes.FONT_INFO_2,
+        MovieTypes.FONT_NAME,
+        MovieTypes.DEFINE_TEXT,
+        MovieTypes.DEFINE_TEXT_2,
+        MovieTypes.DEFINE_TEXT_FIELD
+    };
+
+    /** The tags decoded when only the images in a movie are needed. */
+    private static final int[] IMAGE_TAGS = {
+        MovieTypes.JPEG_TABLES,
+        MovieTypes.DEFINE_JPEG_IMAGE,
+        MovieTypes.DEFINE_JPEG_IMAGE_2,
+        MovieTypes.DEFINE_JPEG_IMAGE_3,
+        MovieTypes.DEFINE_JPEG_IMAGE_4,
+        MovieTypes.DEFINE_IMAGE,
+        MovieTypes.DEFINE_IMAGE_2
+    };
+
     /** Registry containing a set of default decoders for different objects. */
     private static DecoderRegistry defaultRegistry;
 
@@ -72,6 +132,58 @@ public final class DecoderRegistry implements Copyable<DecoderRegistry> {
         return new DecoderRegistry(defaultRegistry);
     }
 
+    /**
+     * Get a registry that only decodes the tags that describe the movie:
+     * file attributes, meta-data, background colour, frame and scene labels,
+     * exported and imported symbols and frames. All other tags are skipped.
+     *
+     * @return a registry with the default decoders and policies for reading
+     * the meta-data in a movie.
+     */
+    public static DecoderRegistry getMetaDataProfile() {
+        return getProfile(META_DATA_TAGS);
+    }
+
+    /**
+     * Get a registry that only decodes the tags needed to extract the text
+     * from a movie: fonts, font information, static and dynamic text fields,
+     * frame labels and meta-data. All other tags are skipped.
+     *
+     * @return a registry with the default decoders and policies for
+     * extracting text.
+     */
+    public static DecoderRegistry getTextProfile() {
+        return getProfile(TEXT_TAGS);
+    }
+
+    /**
+     * Get a registry that only decodes images: the JPEG encoding tables and
+     * all the JPEG and lossless image definitions. All other tags are
+     * skipped.
+     *
+     * @return a registry with the default decoders and policies for
+     * extracting images.
+     */
+    public static DecoderRegistry getImageProfile() {
+        return getProfile(IMAGE_TAGS);
+    }
+
+    /**
+     * Create a registry that decodes the specified types of tag and skips
+     * all others.
+     *
+     * @param types the types of tag to decode.
+     * @return a registry with the default decoders.
+     */
+    private static DecoderRegistry getProfile(final int[] types) {
+        final DecoderRegistry registry = getDefault();
+        registry.setPolicy(DecodePolicy.SKIP);
+        for (final int type : types) {
+            registry.setPolicy(type, DecodePolicy.DECODE);
+        }
+        return registry;
+    }
+
     /**
      * Set the registry that will be used as the default.
      *
@@ -94,6 +206,8 @@ public final class DecoderRegistry implements Copyable<DecoderRegistry> {
     private transient SWFFactory<Action> actionDecoder;
     /** The decoder for movie objects. */
     private transient SWFFactory<MovieTag> movieDecoder;
+    /** The policies for each type of tag or null if all are decoded. */
+    private transient DecodePolicy[] policies;
 
     /**
      * Creates a DecoderRegistry with no decoders yet registered.
@@ -115,6 +229,9 @@ public final class DecoderRegistry implements Copyable<DecoderRegistry> {
         shapeDecoder = registry.shapeDecoder;
         actionDecoder = registry.actionDecoder;
         movieDecoder = registry.movieDecoder;
+        if (registry.policies != null) {
+            policies = registry.policies.clone();
+        }
     }
 
     /** {@inheritDoc} */
@@ -225,4 +342,55 @@ public final class DecoderRegistry implements Copyable<DecoderRegistry> {
     public void setMovieDecoder(final SWFFactory<MovieTag> factory) {
         movieDecoder = factory;
     }
+
+    /**
+     * Get the policy that determines how a type of tag is decoded.
+     *
+     * @param type the type of tag, as defined in MovieTypes.
+     * @return the policy for the tag. The default is DecodePolicy.DECODE.
+     */
+    public DecodePolicy getPolicy(final int type) {
+        final DecodePolicy policy;
+        if (policies == null || type < 0 || type >= TAG_TYPES) {
+            policy = DecodePolicy.DECODE;
+        } else {
+            policy = policies[type];
+        }
+        return policy;
+    }
+
+    /**
+     * Set the policy that determines how a type of tag is decoded.
+     *
+     * @param type the type of tag, as defined in MovieTypes.
+     * @param policy the policy for the tag. Must not be null.
+     */
+    public void setPolicy(final int type, final DecodePolicy policy) {
+        if (type < 0 || type >= TAG_TYPES) {
+            throw new IllegalArgumentException();
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException();
+        }
+        if (policies == null) {
+            policies = new DecodePolicy[TAG_TYPES];
+            Arrays.fill(policies, DecodePolicy.DECODE);
+        }
+        policies[type] = policy;
+    }
+
+    /**
+     * Set the policy used for all types of tag.
+     *
+     * @param policy the policy for every type of tag. Must not be null.
+     */
+    public void setPolicy(final DecodePolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException();
+        }
+        if (policies == null) {
+            policies = new DecodePolicy[TAG_TYPES];
+        }
+        Arrays.fill(policies, policy);
+    }
 }
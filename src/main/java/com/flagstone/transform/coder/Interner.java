@@ -0,0 +1,119 @@
+/*
+ * Interner.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.coder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Interner is a bounded table used to share equal, immutable objects such as
+ * Color, Bounds, CoordTransform and ColorTransform while a movie is decoded.
+ * Movies typically contain the same colours, bounding boxes and identity
+ * transforms many times so when the first object decoded is returned for
+ * all the equal objects that follow the memory used by a decoded movie is
+ * reduced considerably.
+ *
+ * <p>
+ * When the table is full the least recently used object is discarded so the
+ * memory used by the table is limited while the most frequently repeated
+ * objects are still shared. The table is synchronized so it may be shared
+ * by the threads used to decode a movie in parallel.
+ * </p>
+ */
+public final class Interner {
+    /** The default number of objects stored in the table. */
+    public static final int DEFAULT_CAPACITY = 4096;
+    /** The load factor used for the table. */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** The shared objects. */
+    private final transient Map<Object, Object> table;
+
+    /**
+     * Create an Interner with the default capacity.
+     */
+    public Interner() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an Interner.
+     *
+     * @param capacity the maximum number of objects stored in the table.
+     * Must be greater than zero.
+     */
+    public Interner(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException();
+        }
+        table = new LinkedHashMap<Object, Object>(
+                (int) (capacity / LOAD_FACTOR) + 1, LOAD_FACTOR, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<Object, Object> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Get the shared instance of an object.
+     *
+     * @param <T> the type of object.
+     * @param value an immutable object. May be null.
+     * @return the object in the table that is equal to value, or value
+     * itself if there is no equal object, in which case it is added to the
+     * table.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T intern(final T value) {
+        T shared = null;
+        if (value != null) {
+            shared = (T) table.get(value);
+            if (shared == null) {
+                table.put(value, value);
+                shared = value;
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Get the number of objects in the table.
+     *
+     * @return the number of shared objects.
+     */
+    public synchronized int size() {
+        return table.size();
+    }
+}
@@ -33,8 +33,8 @@ package com.flagstone.transform.coder;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.Stack;
 
 import com.flagstone.transform.CharacterEncoding;
 
@@ -43,6 +43,12 @@ import com.flagstone.transform.CharacterEncoding;
  * SWFDecoder wraps an InputStream with a buffer to reduce the amount of
  * memory required to decode a movie and to improve efficiency by reading
  * data from a file or external source in blocks.
+ *
+ * <p>
+ * A decoder can also be created directly on a ByteBuffer, for example one
+ * mapped from a file using a FileChannel. In this case the data is read in
+ * place and the buffer is never refilled.
+ * </p>
  */
 @SuppressWarnings("PMD.TooManyMethods")
 public final class SWFDecoder {
@@ -59,25 +65,31 @@ public final class SWFDecoder {
     private static final int TO_BYTE2 = 16;
     /** Number of bits to shift when aligning a value to the fourth byte. */
     private static final int TO_BYTE3 = 24;
-    /** Number of bits in an int. */
-    private static final int BITS_PER_INT = 32;
+    /** Number of bits in a long. */
+    private static final int BITS_PER_LONG = 64;
+    /** Number of bytes in a long. */
+    private static final int BYTES_PER_LONG = 8;
     /** Number of bits in a byte. */
     private static final int BITS_PER_BYTE = 8;
     /** Right shift to convert number of bits to number of bytes. */
     private static final int BITS_TO_BYTES = 3;
     /** Left shift to convert number of bytes to number of bits. */
     private static final int BYTES_TO_BITS = 3;
+    /** Initial number of bit fields that can be read by readFields(). */
+    private static final int FIELDS = 4;
 
-    /** The underlying input stream. */
+    /** The underlying input stream, null if decoding from a ByteBuffer. */
     private final transient InputStream stream;
     /** The buffer for data read from the stream. */
-    private final transient byte[] buffer;
+    private final transient ByteBuffer buffer;
     /** A buffer used for reading null terminated strings. */
     private transient byte[] stringBuffer;
+    /** Array reused to return the values read by readFields(). */
+    private transient int[] fields;
     /** The character encoding used for strings. */
     private transient String encoding;
     /** Stack for storing file locations. */
-    private final transient Stack<Integer>locations;
+    private final transient LocationStack locations;
     /** The position of the buffer relative to the start of the stream. */
     private transient int pos;
     /** The position from the start of the buffer. */
@@ -92,6 +104,12 @@ public final class SWFDecoder {
     private transient int expected;
     /** The difference from the expected number. */
     private transient int delta;
+    /** Window of bits pre-loaded from the buffer, first bit in the MSB. */
+    private transient long bits;
+    /** Position, relative to the start of the stream, of the window. */
+    private transient int bitsPos;
+    /** The number of valid bits in the window. */
+    private transient int bitsSize;
 
     /**
      * Create a new SWFDecoder for the underlying InputStream with the
@@ -102,10 +120,11 @@ public final class SWFDecoder {
      */
     public SWFDecoder(final InputStream streamIn, final int length) {
         stream = streamIn;
-        buffer = new byte[length];
+        buffer = ByteBuffer.wrap(new byte[length]);
         stringBuffer = new byte[STR_BUFFER_SIZE];
         encoding = CharacterEncoding.UTF8.getEncoding();
-        locations = new Stack<Integer>();
+        locations = new LocationStack();
+        fields = new int[FIELDS];
     }
 
     /**
@@ -116,38 +135,61 @@ public final class SWFDecoder {
      */
     public SWFDecoder(final InputStream streamIn) {
         stream = streamIn;
-        buffer = new byte[BUFFER_SIZE];
+        buffer = ByteBuffer.wrap(new byte[BUFFER_SIZE]);
         stringBuffer = new byte[BUFFER_SIZE];
         encoding = CharacterEncoding.UTF8.getEncoding();
-        locations = new Stack<Integer>();
+        locations = new LocationStack();
+        fields = new int[FIELDS];
+    }
+
+    /**
+     * Create a new SWFDecoder that reads the data between the current
+     * position and the limit of a ByteBuffer. The data is read in place so
+     * heap, direct and memory-mapped buffers can all be used without copying
+     * the contents. The position of the buffer is not changed.
+     *
+     * @param data the buffer containing the encoded data.
+     */
+    public SWFDecoder(final ByteBuffer data) {
+        stream = null;
+        buffer = data.slice();
+        size = buffer.limit();
+        stringBuffer = new byte[STR_BUFFER_SIZE];
+        encoding = CharacterEncoding.UTF8.getEncoding();
+        locations = new LocationStack();
+        fields = new int[FIELDS];
     }
 
     /**
      * Fill the internal buffer. Any unread bytes are copied to the start of
      * the buffer and the remaining space is filled with data from the
-     * underlying stream.
+     * underlying stream. If the decoder was created from a ByteBuffer then
+     * all the data is already available and the method does nothing.
      *
      * @throws IOException if an error occurs reading from the underlying
      * input stream.
      */
     public void fill() throws IOException {
+        if (stream == null) {
+            return;
+        }
+
+        final byte[] bytes = buffer.array();
         final int diff = size - index;
         pos += index;
 
         if (index < size) {
-            for (int i = 0; i < diff; i++) {
-                buffer[i] = buffer[index++];
-            }
+            System.arraycopy(bytes, index, bytes, 0, diff);
         }
 
         int bytesRead = 0;
-        int bytesToRead = buffer.length - diff;
+        int bytesToRead = bytes.length - diff;
 
         index = diff;
         size = diff;
 
         do {
-            bytesRead = stream.read(buffer, index, bytesToRead);
+            bytesRead = stream.read(bytes, index, bytesToRead);
             if (bytesRead == -1) {
                 bytesToRead = 0;
             } else {
@@ -287,6 +329,59 @@ public final class SWFDecoder {
         }
     }
 
+    /**
+     * Load the window of bits starting at the current byte. The bits are
+     * loaded as a single 64-bit word where there is sufficient data available
+     * and byte by byte at the end of the data.
+     *
+     * @throws IOException if an error occurs reading from the underlying
+     * input stream.
+     */
+    private void loadBits() throws IOException {
+        if (size - index < BYTES_PER_LONG) {
+            fill();
+        }
+        bitsPos = pos + index;
+
+        if (size - index >= BYTES_PER_LONG) {
+            bits = buffer.getLong(index);
+            bitsSize = BITS_PER_LONG;
+        } else {
+            bits = 0;
+            bitsSize = 0;
+            for (int i = index; i < size; i++) {
+                bits |= (long) (buffer.get(i) & BYTE_MASK)
+                        << (BITS_PER_LONG - BITS_PER_BYTE - bitsSize);
+                bitsSize += BITS_PER_BYTE;
+            }
+        }
+    }
+
+    /**
+     * Get the offset, in bits, of the current location from the start of the
+     * window, loading the window if it does not contain the next field.
+     *
+     * @param numberOfBits the number of bits in the next field.
+     * @return the offset of the next field in the window.
+     *
+     * @throws IOException if an error occurs reading from the underlying
+     * input stream.
+     */
+    private int bitsOffset(final int numberOfBits) throws IOException {
+        final int bytes = (pos + index) - bitsPos;
+        int shift = (bytes << BYTES_TO_BITS) + offset;
+
+        if (bytes < 0 || bytes >= BYTES_PER_LONG
+                || shift + numberOfBits > bitsSize) {
+            loadBits();
+            shift = offset;
+            if (shift + numberOfBits > bitsSize) {
+                throw new ArrayIndexOutOfBoundsException();
+            }
+        }
+        return shift;
+    }
+
     /**
      * Read a bit field.
      *
@@ -304,42 +399,131 @@ public final class SWFDecoder {
     public int readBits(final int numberOfBits, final boolean signed)
             throws IOException {
 
-        int pointer = (index << BYTES_TO_BITS) + offset;
-
-        if (((size << BYTES_TO_BITS) - pointer) < numberOfBits) {
-            fill();
-            pointer = (index << BYTES_TO_BITS) + offset;
-        }
-
         int value = 0;
 
         if (numberOfBits > 0) {
-
-            if (pointer + numberOfBits > (size << BYTES_TO_BITS)) {
-                throw new ArrayIndexOutOfBoundsException();
-            }
-
-            for (int i = BITS_PER_INT; (i > 0)
-                    && (index < buffer.length); i -= BITS_PER_BYTE) {
-                value |= (buffer[index++] & BYTE_MASK) << (i - BITS_PER_BYTE);
-            }
-
-            value <<= offset;
+            final int shift = bitsOffset(numberOfBits);
+            final long word = bits << shift;
 
             if (signed) {
-                value >>= BITS_PER_INT - numberOfBits;
+                value = (int) (word >> (BITS_PER_LONG - numberOfBits));
             } else {
-                value >>>= BITS_PER_INT - numberOfBits;
+                value = (int) (word >>> (BITS_PER_LONG - numberOfBits));
             }
 
-            pointer += numberOfBits;
-            index = pointer >>> BITS_TO_BYTES;
+            final int pointer = shift + numberOfBits;
+            index = (bitsPos - pos) + (pointer >>> BITS_TO_BYTES);
             offset = pointer & Coder.LOWEST3;
         }
 
         return value;
     }
 
+    /**
+     * Read a sequence of bit fields which all have the same size.
+     *
+     * @param values
+     *            the array that will contain the values read. The number of
+     *            fields read is the length of the array.
+     *
+     * @param numberOfBits
+     *            the number of bits in each field.
+     *
+     * @param signed
+     *            indicates whether the integer values read are signed.
+     *
+     * @return the array of values.
+     *
+     * @throws IOException if an error occurs reading from the underlying
+     * input stream.
+     */
+    public int[] readBits(final int[] values, final int numberOfBits,
+            final boolean signed) throws IOException {
+        return readBits(values, values.length, numberOfBits, signed);
+    }
+
+    /**
+     * Read a sequence of bit fields which all have the same size into an
+     * array owned by the decoder, so no array is allocated for each object
+     * decoded. The values are overwritten the next time this method is
+     * called.
+     *
+     * @param count
+     *            the number of fields to read.
+     *
+     * @param numberOfBits
+     *            the number of bits in each field.
+     *
+     * @param signed
+     *            indicates whether the integer values read are signed.
+     *
+     * @return an array containing the values read in the first count
+     * elements.
+     *
+     * @throws IOException if an error occurs reading from the underlying
+     * input stream.
+     */
+    public int[] readFields(final int count, final int numberOfBits,
+            final boolean signed) throws IOException {
+        if (fields.length < count) {
+            fields = new int[count];
+        }
+        return readBits(fields, count, numberOfBits, signed);
+    }
+
+    /**
+     * Read a sequence of bit fields which all have the same size.
+     *
+     * @param values
+     *            the array that will contain the values read.
+     *
+     * @param count
+     *            the number of fields to read.
+     *
+     * @param numberOfBits
+     *            the number of bits in each field.
+     *
+     * @param signed
+     *            indicates whether the integer values read are signed.
+     *
+     * @return the array of values.
+     *
+     * @throws IOException if an error occurs reading from the underlying
+     * input stream.
+     */
+    private int[] readBits(final int[] values, final int count,
+            final int numberOfBits, final boolean signed)
+            throws IOException {
+
+        if (numberOfBits == 0) {
+            Arrays.fill(values, 0, count, 0);
+            return values;
+        }
+
+        final int unused = BITS_PER_LONG - numberOfBits;
+        int read = 0;
+        int shift;
+        long word;
+
+        while (read < count) {
+            shift = bitsOffset(numberOfBits);
+
+            do {
+                word = bits << shift;
+                if (signed) {
+                    values[read++] = (int) (word >> unused);
+                } else {
+                    values[read++] = (int) (word >>> unused);
+                }
+                shift += numberOfBits;
+            } while (read < count && shift + numberOfBits <= bitsSize);
+
+            index = (bitsPos - pos) + (shift >>> BITS_TO_BYTES);
+            offset = shift & Coder.LOWEST3;
+        }
+        return values;
+    }
+
     /**
      * Read-ahead a bit field.
      *
@@ -357,36 +541,17 @@ public final class SWFDecoder {
     public int scanBits(final int numberOfBits, final boolean signed)
             throws IOException {
 
-        int pointer = (index << BYTES_TO_BITS) + offset;
-
-        if (((size << BYTES_TO_BITS) - pointer) < numberOfBits) {
-            fill();
-            pointer = (index << BYTES_TO_BITS) + offset;
-        }
-
         int value = 0;
 
         if (numberOfBits > 0) {
-
-            if (pointer + numberOfBits > (size << BYTES_TO_BITS)) {
-                throw new ArrayIndexOutOfBoundsException();
-            }
-
-            for (int i = BITS_PER_INT; (i > 0)
-                    && (index < buffer.length); i -= BITS_PER_BYTE) {
-                value |= (buffer[index++] & BYTE_MASK) << (i - BITS_PER_BYTE);
-            }
-
-            value <<= offset;
+            final int shift = bitsOffset(numberOfBits);
+            final long word = bits << shift;
 
             if (signed) {
-                value >>= BITS_PER_INT - numberOfBits;
+                value = (int) (word >> (BITS_PER_LONG - numberOfBits));
             } else {
-                value >>>= BITS_PER_INT - numberOfBits;
+                value = (int) (word >>> (BITS_PER_LONG - numberOfBits));
             }
-
-            index = pointer >>> BITS_TO_BYTES;
-            offset = pointer & Coder.LOWEST3;
         }
 
         return value;
@@ -407,7 +572,7 @@ public final class SWFDecoder {
         if (index + 1 > size) {
             throw new ArrayIndexOutOfBoundsException();
         }
-        return buffer[index] & BYTE_MASK;
+        return buffer.get(index) & BYTE_MASK;
     }
 
     /**
@@ -425,7 +590,7 @@ public final class SWFDecoder {
         if (index + 1 > size) {
             throw new ArrayIndexOutOfBoundsException();
         }
-        return buffer[index++] & BYTE_MASK;
+        return buffer.get(index++) & BYTE_MASK;
     }
 
     /**
@@ -440,31 +605,70 @@ public final class SWFDecoder {
      * input stream.
      */
     public byte[] readBytes(final byte[] bytes) throws IOException {
-        final int wanted = bytes.length;
-        int dest = 0;
+        return readBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads bytes into part of an array.
+     *
+     * @param bytes
+     *            the array that will contain the bytes read.
+     * @param start
+     *            the offset in the array where the first byte is stored.
+     * @param count
+     *            the number of bytes to read.
+     *
+     * @return the array of bytes.
+     *
+     * @throws IOException if an error occurs reading from the underlying
+     * input stream.
+     */
+    public byte[] readBytes(final byte[] bytes, final int start,
+            final int count) throws IOException {
+        final int wanted = count;
+        int dest = start;
         int read = 0;
 
         int available;
         int remaining;
 
         while (read < wanted) {
+            if (index == size) {
+                fill();
+                if (index == size) {
+                    throw new ArrayIndexOutOfBoundsException();
+                }
+            }
             available = size - index;
             remaining = wanted - read;
             if (available > remaining) {
                 available = remaining;
             }
-            System.arraycopy(buffer, index, bytes, dest, available);
+            buffer.position(index);
+            buffer.get(bytes, dest, available);
             read += available;
             index += available;
             dest += available;
-
-            if (index == size) {
-                fill();
-            }
         }
         return bytes;
     }
 
+    /**
+     * Create a new SWFDecoder that reads the data in an array, for example a
+     * tag read using readBytes(), using the same character encoding for
+     * strings as this decoder.
+     *
+     * @param data
+     *            the array containing the encoded data.
+     *
+     * @return a decoder for the data.
+     */
+    public SWFDecoder newDecoder(final byte[] data) {
+        final SWFDecoder decoder = new SWFDecoder(ByteBuffer.wrap(data));
+        decoder.encoding = encoding;
+        return decoder;
+    }
+
     /**
      * Sets the character encoding scheme used when encoding or decoding
      * strings.
@@ -521,11 +725,14 @@ public final class SWFDecoder {
             if (available == 0) {
                 fill();
                 available = size - index;
+                if (available == 0) {
+                    throw new ArrayIndexOutOfBoundsException();
+                }
             }
             start = index;
             count = 0;
             for (int i = 0; i < available; i++) {
-                if (buffer[index++] == 0) {
+                if (buffer.get(index++) == 0) {
                     finished = true;
                     break;
                 } else {
@@ -536,8 +743,9 @@ public final class SWFDecoder {
             if (stringBuffer.length < length) {
                 stringBuffer = Arrays.copyOf(stringBuffer, length << 2);
             }
-            System.arraycopy(buffer, start, stringBuffer, dest, count);
-            dest += length;
+            buffer.position(start);
+            buffer.get(stringBuffer, dest, count);
+            dest += count;
         }
         return new String(stringBuffer, 0, length, encoding);
     }
@@ -557,8 +765,8 @@ public final class SWFDecoder {
         if (index + 2 > size) {
             throw new ArrayIndexOutOfBoundsException();
         }
-        int value = buffer[index] & BYTE_MASK;
-        value |= (buffer[index + 1] & BYTE_MASK) << TO_BYTE1;
+        int value = buffer.get(index) & BYTE_MASK;
+        value |= (buffer.get(index + 1) & BYTE_MASK) << TO_BYTE1;
         return value;
     }
 
@@ -577,8 +785,8 @@ public final class SWFDecoder {
         if (index + 2 > size) {
             throw new ArrayIndexOutOfBoundsException();
         }
-        int value = buffer[index++] & BYTE_MASK;
-        value |= (buffer[index++] & BYTE_MASK) << TO_BYTE1;
+        int value = buffer.get(index++) & BYTE_MASK;
+        value |= (buffer.get(index++) & BYTE_MASK) << TO_BYTE1;
         return value;
     }
 
@@ -597,8 +805,8 @@ public final class SWFDecoder {
         if (index + 2 > size) {
             throw new ArrayIndexOutOfBoundsException();
         }
-        int value = buffer[index++] & BYTE_MASK;
-        value |= buffer[index++] << TO_BYTE1;
+        int value = buffer.get(index++) & BYTE_MASK;
+        value |= buffer.get(index++) << TO_BYTE1;
         return value;
     }
 
@@ -617,10 +825,10 @@ public final class SWFDecoder {
         if (index + 4 > size) {
             throw new ArrayIndexOutOfBoundsException();
         }
-        int value = buffer[index++] & BYTE_MASK;
-        value |= (buffer[index++] & BYTE_MASK) << TO_BYTE1;
-        value |= (buffer[index++] & BYTE_MASK) << TO_BYTE2;
-        value |= (buffer[index++] & BYTE_MASK) << TO_BYTE3;
+        int value = buffer.get(index++) & BYTE_MASK;
+        value |= (buffer.get(index++) & BYTE_MASK) << TO_BYTE1;
+        value |= (buffer.get(index++) & BYTE_MASK) << TO_BYTE2;
+        value |= (buffer.get(index++) & BYTE_MASK) << TO_BYTE3;
         return value;
     }
 
@@ -638,13 +846,13 @@ public final class SWFDecoder {
             fill();
         }
 
-        int value = buffer[index++] & BYTE_MASK;
+        int value = buffer.get(index++) & BYTE_MASK;
         final int mask = -1;
         int test = Coder.BIT7;
         int step = Coder.VAR_INT_SHIFT;
 
         while ((value & test) != 0) {
-            value = ((buffer[index++] & BYTE_MASK) << step)
+            value = ((buffer.get(index++) & BYTE_MASK) << step)
                 + (value & mask >>> (32 - step));
             test <<= Coder.VAR_INT_SHIFT;
             step += Coder.VAR_INT_SHIFT;
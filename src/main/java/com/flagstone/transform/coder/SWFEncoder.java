@@ -33,7 +33,6 @@ package com.flagstone.transform.coder;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.Stack;
 
 import com.flagstone.transform.CharacterEncoding;
 
@@ -78,7 +77,7 @@ public final class SWFEncoder {
     /** The character encoding used for strings. */
     private transient String encoding;
     /** Stack for storing file locations. */
-    private final transient Stack<Integer>locations;
+    private final transient LocationStack locations;
     /** The position of the buffer relative to the start of the stream. */
     private transient int pos;
 
@@ -93,7 +92,7 @@ public final class SWFEncoder {
         stream = streamOut;
         buffer = new byte[length];
         encoding = CharacterEncoding.UTF8.getEncoding();
-        locations = new Stack<Integer>();
+        locations = new LocationStack();
     }
 
     /**
@@ -106,7 +105,7 @@ public final class SWFEncoder {
         stream = streamOut;
         buffer = new byte[BUFFER_SIZE];
         encoding = CharacterEncoding.UTF8.getEncoding();
-        locations = new Stack<Integer>();
+        locations = new LocationStack();
     }
 
     /**
@@ -152,6 +151,16 @@ public final class SWFEncoder {
         }
     }
 
+    /**
+     * Get the number of bytes written since the encoder was created. If a
+     * bit field is being written the partially filled byte is not included.
+     *
+     * @return the number of bytes written to the encoder.
+     */
+    public int bytesWritten() {
+        return pos + index;
+    }
+
     /**
      * Changes the location to the next byte boundary.
      */
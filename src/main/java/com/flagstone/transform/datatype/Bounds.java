@@ -81,6 +81,8 @@ public final class Bounds implements SWFEncodeable {
      * encoded bounding box values.
      */
     private static final int FIELD_SIZE = 5;
+    /** The number of coordinates encoded for a bounding box. */
+    private static final int COORDINATES = 4;
 
     /**
      * Create a Bounds by applying a padding factor to all sides of the
@@ -126,8 +128,9 @@ public final class Bounds implements SWFEncodeable {
     private final transient int maxY;
 
     /**
-     * Holds the field size for bounding box values when encoding and
-     * decoding objects.
+     * Holds the field size for bounding box values when encoding. Since the
+     * object is immutable the size is only calculated the first time the
+     * object is encoded. Zero indicates it has not been calculated.
      */
     private transient int size;
 
@@ -142,11 +145,12 @@ public final class Bounds implements SWFEncodeable {
      *             if an error occurs while decoding the data.
      */
     public Bounds(final SWFDecoder coder) throws IOException {
-        size = coder.readBits(FIELD_SIZE, false);
-        minX = coder.readBits(size, true);
-        maxX = coder.readBits(size, true);
-        minY = coder.readBits(size, true);
-        maxY = coder.readBits(size, true);
+        final int fieldSize = coder.readBits(FIELD_SIZE, false);
+        final int[] coords = coder.readFields(COORDINATES, fieldSize, true);
+        minX = coords[0];
+        maxX = coords[1];
+        minY = coords[2];
+        maxY = coords[3];
         coder.alignToByte();
     }
 
@@ -264,7 +268,9 @@ public final class Bounds implements SWFEncodeable {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
-        size = Coder.maxSize(minX, minY, maxX, maxY);
+        if (size == 0) {
+            size = Coder.maxSize(minX, minY, maxX, maxY);
+        }
         return (FIELD_SIZE + ROUND_TO_BYTES
                     + (size << 2)) >> BITS_TO_BYTES;
     }
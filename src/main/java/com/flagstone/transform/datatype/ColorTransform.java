@@ -154,18 +154,6 @@ public final class ColorTransform implements SWFEncodeable {
      */
     private final transient boolean hasAdd;
 
-    /**
-     * Used to store the number of bits required to encode or decode the
-     * transform terms.
-     */
-    private transient int size;
-    /**
-     * Used to optimise decoding and encoding so checking the context to see
-     * whether add and multiply terms for the alpha channel should be read
-     * written is only performed once.
-     */
-    private transient boolean hasAlpha;
-
     /**
      * Creates and initialises a ColorTransform object using values encoded
      * in the Flash binary format.
@@ -184,10 +172,10 @@ public final class ColorTransform implements SWFEncodeable {
     public ColorTransform(final SWFDecoder coder, final Context context)
             throws IOException {
 
-        hasAlpha = context.contains(Context.TRANSPARENT);
+        final boolean hasAlpha = context.contains(Context.TRANSPARENT);
         hasAdd = coder.readBits(1, false) != 0;
         hasMultiply = coder.readBits(1, false) != 0;
-        size = coder.readBits(FIELD_SIZE, false);
+        final int size = coder.readBits(FIELD_SIZE, false);
 
         if (hasMultiply) {
             multiplyRed = coder.readBits(size, true);
@@ -445,8 +433,8 @@ public final class ColorTransform implements SWFEncodeable {
 
         int numberOfBits = 2 + FIELD_SIZE + ROUND_TO_BYTES;
 
-        hasAlpha = context.contains(Context.TRANSPARENT);
-        size = 0;
+        final boolean hasAlpha = context.contains(Context.TRANSPARENT);
+        final int size = sizeTerms(hasAlpha);
 
         int numberOfBytes;
 
@@ -456,14 +444,6 @@ public final class ColorTransform implements SWFEncodeable {
             numberOfBytes = Color.RGB;
         }
 
-        if (hasMultiply) {
-            sizeTerms(multiplyRed, multiplyGreen, multiplyBlue, multiplyAlpha);
-        }
-
-        if (hasAdd) {
-            sizeTerms(addRed, addGreen, addBlue, addAlpha);
-        }
-
         if (hasMultiply) {
             numberOfBits += size * numberOfBytes;
         }
@@ -479,39 +459,57 @@ public final class ColorTransform implements SWFEncodeable {
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
 
+        final boolean hasAlpha = context.contains(Context.TRANSPARENT);
+        final int size = sizeTerms(hasAlpha);
+
         coder.writeBits(hasAdd ? 1 : 0, 1);
         coder.writeBits(hasMultiply ? 1 : 0, 1);
         coder.writeBits(size, FIELD_SIZE);
 
         if (hasMultiply) {
             encodeTerms(multiplyRed, multiplyGreen, multiplyBlue,
-                    multiplyAlpha, coder);
+                    multiplyAlpha, size, hasAlpha, coder);
         }
 
         if (hasAdd) {
-            encodeTerms(addRed, addGreen, addBlue, addAlpha, coder);
+            encodeTerms(addRed, addGreen, addBlue, addAlpha, size, hasAlpha,
+                    coder);
         }
 
         coder.alignToByte();
     }
 
     /**
-     * Calculate the number of bits to encode either the add or multiply terms.
+     * Calculate the number of bits to encode the add and multiply terms. The
+     * size is not stored in the object so it may be shared between objects
+     * encoded with and without the alpha channel.
      *
-     * @param red the term for the red channel.
-     * @param green the term for the green channel.
-     * @param blue the term for the blue channel.
-     * @param alpha the term for the alpha channel.
+     * @param hasAlpha whether the terms for the alpha channel are encoded.
+     * @return the number of bits used to encode each term.
      */
-    private void sizeTerms(final int red, final int green, final int blue,
-            final int alpha) {
-        size = Math.max(size, Coder.size(red));
-        size = Math.max(size, Coder.size(green));
-        size = Math.max(size, Coder.size(blue));
+    private int sizeTerms(final boolean hasAlpha) {
+        int size = 0;
 
-        if (hasAlpha) {
-            size = Math.max(size, Coder.size(alpha));
+        if (hasMultiply) {
+            size = Math.max(size, Coder.size(multiplyRed));
+            size = Math.max(size, Coder.size(multiplyGreen));
+            size = Math.max(size, Coder.size(multiplyBlue));
+
+            if (hasAlpha) {
+                size = Math.max(size, Coder.size(multiplyAlpha));
+            }
+        }
+
+        if (hasAdd) {
+            size = Math.max(size, Coder.size(addRed));
+            size = Math.max(size, Coder.size(addGreen));
+            size = Math.max(size, Coder.size(addBlue));
+
+            if (hasAlpha) {
+                size = Math.max(size, Coder.size(addAlpha));
+            }
         }
+        return size;
     }
 
     /**
@@ -521,13 +519,16 @@ public final class ColorTransform implements SWFEncodeable {
      * @param green the term for the green channel.
      * @param blue the term for the blue channel.
      * @param alpha the term for the alpha channel.
+     * @param size the number of bits used to encode each term.
+     * @param hasAlpha whether the term for the alpha channel is encoded.
      * @param coder the Coder used to encode the data.
      *
      * @throws IOException if there is an error writing to the underlying
      * stream.
      */
     private void encodeTerms(final int red, final int green, final int blue,
-            final int alpha, final SWFEncoder coder) throws IOException {
+            final int alpha, final int size, final boolean hasAlpha,
+            final SWFEncoder coder) throws IOException {
         coder.writeBits(red, size);
         coder.writeBits(green, size);
         coder.writeBits(blue, size);
@@ -239,6 +239,13 @@ public final class CoordTransform implements SWFEncodeable {
      * translation terms.
      */
     private transient int transSize;
+    /**
+     * The length of the encoded object in bytes. Since the object is
+     * immutable the length and field sizes are only calculated the first
+     * time the object is encoded. Zero indicates they have not been
+     * calculated.
+     */
+    private transient int length;
 
 
     /**
@@ -437,34 +444,38 @@ public final class CoordTransform implements SWFEncodeable {
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
 
-        int numberOfBits = 2 + FIELD_SIZE + ROUND_TO_BYTES;
+        if (length == 0) {
+            int numberOfBits = 2 + FIELD_SIZE + ROUND_TO_BYTES;
 
-        hasScale = (scaleX != DEFAULT_INT_SCALE)
-                || (scaleY != DEFAULT_INT_SCALE);
-        hasShear = (shearX != 0) || (shearY != 0);
+            hasScale = (scaleX != DEFAULT_INT_SCALE)
+                    || (scaleY != DEFAULT_INT_SCALE);
+            hasShear = (shearX != 0) || (shearY != 0);
 
-        if (hasScale || hasShear || ((translateX != 0) || (translateY != 0))) {
-            transSize = Math.max(Coder.size(translateX),
-                    Coder.size(translateY));
-        } else {
-            transSize = 0;
-        }
+            if (hasScale || hasShear
+                    || ((translateX != 0) || (translateY != 0))) {
+                transSize = Math.max(Coder.size(translateX),
+                        Coder.size(translateY));
+            } else {
+                transSize = 0;
+            }
 
-        numberOfBits += transSize << 1;
+            numberOfBits += transSize << 1;
 
-        if (hasScale) {
-            scaleSize = Math.max(Coder.size(scaleX),
-                    Coder.size(scaleY));
-            numberOfBits += FIELD_SIZE + (scaleSize << 1);
-        }
+            if (hasScale) {
+                scaleSize = Math.max(Coder.size(scaleX),
+                        Coder.size(scaleY));
+                numberOfBits += FIELD_SIZE + (scaleSize << 1);
+            }
 
-        if (hasShear) {
-            shearSize = Math.max(Coder.size(shearX),
-                    Coder.size(shearY));
-            numberOfBits += FIELD_SIZE + (shearSize << 1);
-        }
+            if (hasShear) {
+                shearSize = Math.max(Coder.size(shearX),
+                        Coder.size(shearY));
+                numberOfBits += FIELD_SIZE + (shearSize << 1);
+            }
 
-        return numberOfBits >> BITS_TO_BYTES;
+            length = numberOfBits >> BITS_TO_BYTES;
+        }
+        return length;
     }
 
     /** {@inheritDoc} */
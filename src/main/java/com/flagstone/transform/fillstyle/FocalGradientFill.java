@@ -94,7 +94,7 @@ public final class FocalGradientFill implements FillStyle {
      */
     public FocalGradientFill(final SWFDecoder coder, final Context context)
             throws IOException {
-        transform = new CoordTransform(coder);
+        transform = context.intern(new CoordTransform(coder));
         count = coder.readByte();
         spread = count & SPREAD_MASK;
         interpolation = count & INTER_MASK;
@@ -127,7 +127,7 @@ public final class GradientFill implements FillStyle {
     public GradientFill(final int fillType, final SWFDecoder coder,
             final Context context) throws IOException {
         type = fillType;
-        transform = new CoordTransform(coder);
+        transform = context.intern(new CoordTransform(coder));
         count = coder.readByte();
         spread = count & SPREAD_MASK;
         interpolation = count & INTER_MASK;
@@ -100,8 +100,8 @@ public final class MorphFocalGradientFill implements FillStyle {
      */
     public MorphFocalGradientFill(final SWFDecoder coder, final Context context)
             throws IOException {
-        startTransform = new CoordTransform(coder);
-        endTransform = new CoordTransform(coder);
+        startTransform = context.intern(new CoordTransform(coder));
+        endTransform = context.intern(new CoordTransform(coder));
         count = coder.readByte() & Gradient.MAX_GRADIENTS;
         spread = count & SPREAD_MASK;
         interpolation = count & INTER_MASK;
@@ -70,8 +70,8 @@ public final class MorphSolidFill implements FillStyle {
      */
     public MorphSolidFill(final SWFDecoder coder, final Context context)
             throws IOException {
-        startColor = new Color(coder, context);
-        endColor = new Color(coder, context);
+        startColor = context.intern(new Color(coder, context));
+        endColor = context.intern(new Color(coder, context));
     }
 
     /**
@@ -187,7 +187,7 @@ public final class GlowFilter implements Filter {
      */
     public GlowFilter(final SWFDecoder coder, final Context context)
             throws IOException {
-        color = new Color(coder, context);
+        color = context.intern(new Color(coder, context));
         blurX = coder.readInt();
         blurY = coder.readInt();
         strength = coder.readSignedShort();
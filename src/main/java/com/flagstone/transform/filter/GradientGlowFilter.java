@@ -235,7 +235,7 @@ public final class GradientGlowFilter implements Filter {
         final int[] ratioes = new int[count];
 
         for (int i = 0; i < count; i++) {
-            colors[i] = new Color(coder, context);
+            colors[i] = context.intern(new Color(coder, context));
         }
         for (int i = 0; i < count; i++) {
             ratioes[i] = coder.readByte();
@@ -38,6 +38,8 @@ import java.util.List;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.DefineTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -59,7 +61,7 @@ import com.flagstone.transform.shape.ShapeData;
  * @see FontInfo
  * @see FontInfo2
  */
-public final class DefineFont implements DefineTag {
+public final class DefineFont implements DefineTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineFont: { identifier=%d;"
@@ -76,6 +78,9 @@ public final class DefineFont implements DefineTag {
     private transient int[] table;
 
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineFont object using values encoded
      * in the Flash binary format.
@@ -154,6 +159,7 @@ public final class DefineFont implements DefineTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -183,6 +189,7 @@ public final class DefineFont implements DefineTag {
      * @return the glyphs for this font.
      */
     public List<Shape> getShapes() {
+        encoded = null;
         return shapes;
     }
 
@@ -194,12 +201,33 @@ public final class DefineFont implements DefineTag {
      *            glyph in the font. Must not be null.
      */
     public void setShapes(final List<Shape> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
         shapes = list;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_FONT;
+    }
+
     /** {@inheritDoc} */
     public DefineFont copy() {
         return new DefineFont(this);
@@ -213,6 +241,9 @@ public final class DefineFont implements DefineTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 2;
 
         context.put(Context.FILL_SIZE, 1);
@@ -247,6 +278,10 @@ public final class DefineFont implements DefineTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_FONT
                     << Coder.LENGTH_FIELD_SIZE) | Coder.IS_EXTENDED);
@@ -38,6 +38,8 @@ import java.util.List;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.DefineTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -68,7 +70,7 @@ import com.flagstone.transform.text.Language;
  */
 @SuppressWarnings({"PMD.TooManyFields", "PMD.TooManyMethods",
     "PMD.CyclomaticComplexity" })
-public final class DefineFont2 implements DefineTag {
+public final class DefineFont2 implements DefineTag, Passthrough {
     /** Last version of FLash which does not support Language field. */
     private static final int LANGUAGE_VERSION = 5;
     /** Format string used in toString() method. */
@@ -117,6 +119,9 @@ public final class DefineFont2 implements DefineTag {
     /** Whether character codes are 8-bit (false) or 16-bit (true). */
     private transient boolean wideCodes;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineFont2 object using values encoded
      * in the Flash binary format.
@@ -226,7 +231,7 @@ public final class DefineFont2 implements DefineTag {
             }
 
             for (int i = 0; i < glyphCount; i++) {
-                bounds.add(new Bounds(coder));
+                bounds.add(context.intern(new Bounds(coder)));
             }
 
             final int kerningCount = coder.readUnsignedShort();
@@ -308,6 +313,7 @@ public final class DefineFont2 implements DefineTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -327,6 +333,7 @@ public final class DefineFont2 implements DefineTag {
      * @return this object.
      */
     public DefineFont2 addGlyph(final int code, final Shape obj) {
+        encoded = null;
         if ((code < 0) || (code > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     0, Coder.USHORT_MAX, code);
@@ -351,6 +358,7 @@ public final class DefineFont2 implements DefineTag {
      * @return this object.
      */
     public DefineFont2 addAdvance(final int anAdvance) {
+        encoded = null;
         if ((anAdvance < Coder.SHORT_MIN)
                 || (anAdvance > Coder.SHORT_MAX)) {
             throw new IllegalArgumentRangeException(
@@ -435,6 +443,7 @@ public final class DefineFont2 implements DefineTag {
      *            boundaries.
      */
     public void setSmall(final boolean aBool) {
+        encoded = null;
         small = aBool;
     }
 
@@ -482,6 +491,7 @@ public final class DefineFont2 implements DefineTag {
      * rendered using the font.
      */
     public void setLanguage(final Language lang) {
+        encoded = null;
         language = lang.getValue();
     }
 
@@ -503,6 +513,7 @@ public final class DefineFont2 implements DefineTag {
      * @return a list of Shape objects
      */
     public List<Shape> getShapes() {
+        encoded = null;
         return shapes;
     }
 
@@ -515,6 +526,7 @@ public final class DefineFont2 implements DefineTag {
      *         each glyph in the font.
      */
     public List<Integer> getCodes() {
+        encoded = null;
         return codes;
     }
 
@@ -552,6 +564,7 @@ public final class DefineFont2 implements DefineTag {
      *         glyph in the font.
      */
     public List<Integer> getAdvances() {
+        encoded = null;
         return advances;
     }
 
@@ -562,6 +575,7 @@ public final class DefineFont2 implements DefineTag {
      * @return a list of Bounds objects.
      */
     public List<Bounds> getBounds() {
+        encoded = null;
         return bounds;
     }
 
@@ -573,6 +587,7 @@ public final class DefineFont2 implements DefineTag {
      *         between pairs of glyphs.
      */
     public List<Kerning> getKernings() {
+        encoded = null;
         return kernings;
     }
 
@@ -584,6 +599,7 @@ public final class DefineFont2 implements DefineTag {
      *            or UNICODE.
      */
     public void setEncoding(final CharacterFormat anEncoding) {
+        encoded = null;
         switch(anEncoding) {
         case UCS2:
             encoding = 0;
@@ -607,6 +623,7 @@ public final class DefineFont2 implements DefineTag {
      *            italics
      */
     public void setItalic(final boolean aBool) {
+        encoded = null;
         italic = aBool;
     }
 
@@ -618,6 +635,7 @@ public final class DefineFont2 implements DefineTag {
      *            bold face.
      */
     public void setBold(final boolean aBool) {
+        encoded = null;
         bold = aBool;
     }
 
@@ -629,6 +647,7 @@ public final class DefineFont2 implements DefineTag {
      *            Must not be null.
      */
     public void setName(final String aString) {
+        encoded = null;
         if (aString == null) {
             throw new IllegalArgumentException();
         }
@@ -644,6 +663,7 @@ public final class DefineFont2 implements DefineTag {
      *            Must not be null.
      */
     public void setShapes(final List<Shape> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -658,6 +678,7 @@ public final class DefineFont2 implements DefineTag {
      *            character code. Must not be null.
      */
     public void setCodes(final List<Integer> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -671,6 +692,7 @@ public final class DefineFont2 implements DefineTag {
      *            the ascent for the font in the range -32768..32767.
      */
     public void setAscent(final int aNumber) {
+        encoded = null;
         if ((aNumber < Coder.SHORT_MIN)
                 || (aNumber > Coder.SHORT_MAX)) {
             throw new IllegalArgumentRangeException(
@@ -686,6 +708,7 @@ public final class DefineFont2 implements DefineTag {
      *            the descent for the font in the range -32768..32767.
      */
     public void setDescent(final int aNumber) {
+        encoded = null;
         if ((aNumber < Coder.SHORT_MIN)
                 || (aNumber > Coder.SHORT_MAX)) {
             throw new IllegalArgumentRangeException(
@@ -701,6 +724,7 @@ public final class DefineFont2 implements DefineTag {
      *            the descent for the font in the range -32768..32767.
      */
     public void setLeading(final int aNumber) {
+        encoded = null;
         if ((aNumber < Coder.SHORT_MIN)
                 || (aNumber > Coder.SHORT_MAX)) {
             throw new IllegalArgumentRangeException(
@@ -717,6 +741,7 @@ public final class DefineFont2 implements DefineTag {
      *            Must not be null.
      */
     public void setAdvances(final List<Integer> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -731,6 +756,7 @@ public final class DefineFont2 implements DefineTag {
      *            that enclose each glyph in the font. Must not be null.
      */
     public void setBounds(final List<Bounds> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -745,12 +771,33 @@ public final class DefineFont2 implements DefineTag {
      *            to the spacing between pairs of glyphs. Must not be null.
      */
     public void setKernings(final List<Kerning> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
         kernings = list;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_FONT_2;
+    }
+
     /** {@inheritDoc} */
     public DefineFont2 copy() {
         return new DefineFont2(this);
@@ -767,8 +814,11 @@ public final class DefineFont2 implements DefineTag {
     /** {@inheritDoc} */
     @SuppressWarnings("PMD.NPathComplexity")
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF
-        wideCodes = (context.get(Context.VERSION) > 5)
+        wideCodes = (context.getInt(Context.VERSION) > 5)
                 || encoding != 1;
 
         context.put(Context.FILL_SIZE, 1);
@@ -840,6 +890,10 @@ public final class DefineFont2 implements DefineTag {
     @SuppressWarnings({"PMD.NPathComplexity", "PMD.ExcessiveMethodLength" })
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         int format;
         if (encoding == 1) {
             format = 1;
@@ -881,7 +935,7 @@ public final class DefineFont2 implements DefineTag {
         bits |= bold ? Coder.BIT0 : 0;
         coder.writeByte(bits);
 
-        coder.writeByte(context.get(Context.VERSION)
+        coder.writeByte(context.getInt(Context.VERSION)
                 > LANGUAGE_VERSION ? language : 0);
         coder.writeByte(context.strlen(name));
 
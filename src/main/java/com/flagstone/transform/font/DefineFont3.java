@@ -38,6 +38,8 @@ import java.util.List;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.DefineTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -58,7 +60,7 @@ import com.flagstone.transform.text.Language;
  */
 @SuppressWarnings({"PMD.TooManyFields", "PMD.TooManyMethods",
     "PMD.CyclomaticComplexity" })
-public final class DefineFont3 implements DefineTag {
+public final class DefineFont3 implements DefineTag, Passthrough {
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineFont3: { identifier=%d;"
             + " encoding=%d; small=%b; italic=%b; bold=%b; language=%s;"
@@ -220,7 +222,7 @@ public final class DefineFont3 implements DefineTag {
             }
 
             for (int i = 0; i < glyphCount; i++) {
-                bounds.add(new Bounds(coder));
+                bounds.add(context.intern(new Bounds(coder)));
             }
 
             final int kerningCount = coder.readUnsignedShort();
@@ -235,6 +237,9 @@ public final class DefineFont3 implements DefineTag {
         coder.unmark();
     }
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates a DefineFont2 object specifying only the name of the font.
      *
@@ -305,6 +310,7 @@ public final class DefineFont3 implements DefineTag {
     /** {@inheritDoc} */
     @Override
 	public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -324,6 +330,7 @@ public final class DefineFont3 implements DefineTag {
      * @return this object.
      */
     public DefineFont3 addGlyph(final int code, final Shape obj) {
+        encoded = null;
         if ((code < 0) || (code > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(0,
                     Coder.USHORT_MAX, code);
@@ -348,6 +355,7 @@ public final class DefineFont3 implements DefineTag {
      * @return this object.
      */
     public DefineFont3 addAdvance(final int anAdvance) {
+        encoded = null;
         if ((anAdvance < Coder.SHORT_MIN)
                 || (anAdvance > Coder.SHORT_MAX)) {
             throw new IllegalArgumentRangeException(
@@ -432,6 +440,7 @@ public final class DefineFont3 implements DefineTag {
      *            boundaries.
      */
     public void setSmall(final boolean aBool) {
+        encoded = null;
         small = aBool;
     }
 
@@ -479,6 +488,7 @@ public final class DefineFont3 implements DefineTag {
      * rendered using the font.
      */
     public void setLanguage(final Language lang) {
+        encoded = null;
         language = lang.getValue();
     }
 
@@ -500,6 +510,7 @@ public final class DefineFont3 implements DefineTag {
      * @return a list of Shape objects
      */
     public List<Shape> getShapes() {
+        encoded = null;
         return shapes;
     }
 
@@ -512,6 +523,7 @@ public final class DefineFont3 implements DefineTag {
      *         each glyph in the font.
      */
     public List<Integer> getCodes() {
+        encoded = null;
         return codes;
     }
 
@@ -549,6 +561,7 @@ public final class DefineFont3 implements DefineTag {
      *         glyph in the font.
      */
     public List<Integer> getAdvances() {
+        encoded = null;
         return advances;
     }
 
@@ -559,6 +572,7 @@ public final class DefineFont3 implements DefineTag {
      * @return a list of Bounds objects.
      */
     public List<Bounds> getBounds() {
+        encoded = null;
         return bounds;
     }
 
@@ -570,6 +584,7 @@ public final class DefineFont3 implements DefineTag {
      *         between pairs of glyphs.
      */
     public List<Kerning> getKernings() {
+        encoded = null;
         return kernings;
     }
 
@@ -581,6 +596,7 @@ public final class DefineFont3 implements DefineTag {
      *            or UNICODE.
      */
     public void setEncoding(final CharacterFormat anEncoding) {
+        encoded = null;
         switch(anEncoding) {
         case UCS2:
             encoding = 0;
@@ -604,6 +620,7 @@ public final class DefineFont3 implements DefineTag {
      *            italics
      */
     public void setItalic(final boolean aBool) {
+        encoded = null;
         italic = aBool;
     }
 
@@ -615,6 +632,7 @@ public final class DefineFont3 implements DefineTag {
      *            bold face.
      */
     public void setBold(final boolean aBool) {
+        encoded = null;
         bold = aBool;
     }
 
@@ -626,6 +644,7 @@ public final class DefineFont3 implements DefineTag {
      *            Must not be null.
      */
     public void setName(final String aString) {
+        encoded = null;
         if (aString == null) {
             throw new IllegalArgumentException();
         }
@@ -641,6 +660,7 @@ public final class DefineFont3 implements DefineTag {
      *            Must not be null.
      */
     public void setShapes(final List<Shape> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -655,6 +675,7 @@ public final class DefineFont3 implements DefineTag {
      *            character code. Must not be null.
      */
     public void setCodes(final List<Integer> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -668,6 +689,7 @@ public final class DefineFont3 implements DefineTag {
      *            the ascent for the font in the range -32768..32767.
      */
     public void setAscent(final int aNumber) {
+        encoded = null;
         if ((aNumber < Coder.SHORT_MIN)
                 || (aNumber > Coder.SHORT_MAX)) {
             throw new IllegalArgumentRangeException(
@@ -683,6 +705,7 @@ public final class DefineFont3 implements DefineTag {
      *            the descent for the font in the range -32768..32767.
      */
     public void setDescent(final int aNumber) {
+        encoded = null;
         if ((aNumber < Coder.SHORT_MIN)
                 || (aNumber > Coder.SHORT_MAX)) {
             throw new IllegalArgumentRangeException(
@@ -698,6 +721,7 @@ public final class DefineFont3 implements DefineTag {
      *            the descent for the font in the range -32768..32767.
      */
     public void setLeading(final int aNumber) {
+        encoded = null;
         if ((aNumber < Coder.SHORT_MIN)
                 || (aNumber > Coder.SHORT_MAX)) {
             throw new IllegalArgumentRangeException(
@@ -714,6 +738,7 @@ public final class DefineFont3 implements DefineTag {
      *            Must not be null.
      */
     public void setAdvances(final List<Integer> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -728,6 +753,7 @@ public final class DefineFont3 implements DefineTag {
      *            that enclose each glyph in the font. Must not be null.
      */
     public void setBounds(final List<Bounds> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -742,12 +768,33 @@ public final class DefineFont3 implements DefineTag {
      *            to the spacing between pairs of glyphs. Must not be null.
      */
     public void setKernings(final List<Kerning> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
         kernings = list;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_FONT_3;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public DefineFont3 copy() {
@@ -765,8 +812,11 @@ public final class DefineFont3 implements DefineTag {
     @Override
 	@SuppressWarnings("PMD.NPathComplexity")
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF
-        wideCodes = (context.get(Context.VERSION) > 5)
+        wideCodes = (context.getInt(Context.VERSION) > 5)
                 || encoding != 1;
 
         context.put(Context.FILL_SIZE, 1);
@@ -837,6 +887,10 @@ public final class DefineFont3 implements DefineTag {
 	@SuppressWarnings("PMD.NPathComplexity")
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         int format;
         if (encoding == 1) {
             format = 1;
@@ -37,6 +37,8 @@ import java.util.Arrays;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.DefineTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -47,7 +49,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * DefineFont4 is used to pass OpenType font data directly to the text rendering
  * engine added in Flash Player 10.
  */
-public final class DefineFont4 implements DefineTag {
+public final class DefineFont4 implements DefineTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineFont4: { identifier=%d;"
@@ -67,6 +69,9 @@ public final class DefineFont4 implements DefineTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineFont4 object using values encoded
      * in the Flash binary format.
@@ -139,6 +144,7 @@ public final class DefineFont4 implements DefineTag {
     /** {@inheritDoc} */
     @Override
 	public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -181,6 +187,7 @@ public final class DefineFont4 implements DefineTag {
      *            italics
      */
     public void setItalic(final boolean aBool) {
+        encoded = null;
         italic = aBool;
     }
 
@@ -192,6 +199,7 @@ public final class DefineFont4 implements DefineTag {
      *            bold face.
      */
     public void setBold(final boolean aBool) {
+        encoded = null;
         bold = aBool;
     }
 
@@ -203,6 +211,7 @@ public final class DefineFont4 implements DefineTag {
      *            Must not be null.
      */
     public void setName(final String aString) {
+        encoded = null;
         if (aString == null) {
             throw new IllegalArgumentException();
         }
@@ -222,12 +231,33 @@ public final class DefineFont4 implements DefineTag {
      * @param bytes the binary data containing the definition of the font.
      */
     public void setData(final byte[] bytes) {
+        encoded = null;
         if (bytes == null) {
             throw new IllegalArgumentException();
         }
         data = Arrays.copyOf(bytes, bytes.length);
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_FONT_4;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public DefineFont4 copy() {
@@ -243,6 +273,9 @@ public final class DefineFont4 implements DefineTag {
     /** {@inheritDoc} */
     @Override
 	public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         length = 3 + context.strlen(name) + data.length;
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
@@ -254,6 +287,10 @@ public final class DefineFont4 implements DefineTag {
 	@SuppressWarnings("PMD.NPathComplexity")
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_FONT_4
@@ -38,6 +38,8 @@ import java.util.List;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -47,7 +49,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
 /**
  * FontAlignment provides the alignment information for the glyphs in a font.
  */
-public final class FontAlignment implements MovieTag {
+public final class FontAlignment implements MovieTag, Passthrough {
 
     /**
      * StrokeWidth is used to provide hints about the thickness of the line
@@ -76,6 +78,9 @@ public final class FontAlignment implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a FontAlignment object using values encoded
      * in the Flash binary format.
@@ -151,6 +156,7 @@ public final class FontAlignment implements MovieTag {
      *            glyphs for the font. Must be in the range 1..65535.
      */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -185,6 +191,7 @@ public final class FontAlignment implements MovieTag {
      * @param stroke a StrokeWidth defining how the font is drawn.
      */
     public void setStrokeWidth(final StrokeWidth stroke) {
+        encoded = null;
         switch (stroke) {
         case MEDIUM:
             hints = Coder.BIT6;
@@ -205,6 +212,7 @@ public final class FontAlignment implements MovieTag {
      * quality.
      */
     public List<GlyphAlignment> getZones() {
+        encoded = null;
         return zones;
     }
 
@@ -215,6 +223,7 @@ public final class FontAlignment implements MovieTag {
      * quality.
      */
     public void setZones(final List<GlyphAlignment> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -227,6 +236,7 @@ public final class FontAlignment implements MovieTag {
      * @return this object.
      */
     public FontAlignment addZone(final GlyphAlignment zone) {
+        encoded = null;
         if (zone == null) {
             throw new IllegalArgumentException();
         }
@@ -234,6 +244,26 @@ public final class FontAlignment implements MovieTag {
         return this;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.FONT_ALIGNMENT;
+    }
+
     /** {@inheritDoc} */
     public FontAlignment copy() {
         return new FontAlignment(this);
@@ -246,6 +276,9 @@ public final class FontAlignment implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         length = 3;
 
@@ -260,6 +293,10 @@ public final class FontAlignment implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.FONT_ALIGNMENT
@@ -38,6 +38,8 @@ import java.util.List;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -79,7 +81,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * </p>
  */
 @SuppressWarnings("PMD.CyclomaticComplexity")
-public final class FontInfo implements MovieTag {
+public final class FontInfo implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "FontInfo: { identifier=%d;"
@@ -106,6 +108,9 @@ public final class FontInfo implements MovieTag {
     /** Whether character codes are 8-bit (false) or 16-bit (true). */
     private transient boolean wideCodes = false;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises an FontInfo object using values encoded
      * in the Flash binary format.
@@ -261,6 +266,7 @@ public final class FontInfo implements MovieTag {
      *            true if the font will be aligned on pixel boundaries.
      */
     public void setSmall(final boolean aBool) {
+        encoded = null;
         small = aBool;
     }
 
@@ -288,6 +294,7 @@ public final class FontInfo implements MovieTag {
      * @return the list of character codes defined in the font.
      */
     public List<Integer> getCodes() {
+        encoded = null;
         return codes;
     }
 
@@ -299,6 +306,7 @@ public final class FontInfo implements MovieTag {
      *            glyphs for the font. Must be in the range 1..65535.
      */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -316,6 +324,7 @@ public final class FontInfo implements MovieTag {
      *            Must not be null.
      */
     public void setName(final String aString) {
+        encoded = null;
         if (aString == null) {
             throw new IllegalArgumentException();
         }
@@ -330,6 +339,7 @@ public final class FontInfo implements MovieTag {
      *            or UNICODE.
      */
     public void setEncoding(final CharacterFormat anEncoding) {
+        encoded = null;
         switch(anEncoding) {
         case UCS2:
             encoding = 0;
@@ -353,6 +363,7 @@ public final class FontInfo implements MovieTag {
      *            italics.
      */
     public void setItalic(final boolean aBool) {
+        encoded = null;
         italic = aBool;
     }
 
@@ -364,6 +375,7 @@ public final class FontInfo implements MovieTag {
      *            bold face.
      */
     public void setBold(final boolean aBool) {
+        encoded = null;
         bold = aBool;
     }
 
@@ -376,6 +388,7 @@ public final class FontInfo implements MovieTag {
      *            a code for a glyph. Must be in the range 0..65535.
      */
     public void addCode(final int aCode) {
+        encoded = null;
         if ((aCode < 0) || (aCode > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     0, Coder.USHORT_MAX, aCode);
@@ -393,12 +406,33 @@ public final class FontInfo implements MovieTag {
      *            not be null.
      */
     public void setCodes(final List<Integer> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
         codes = list;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.FONT_INFO;
+    }
+
     /** {@inheritDoc} */
     public FontInfo copy() {
         return new FontInfo(this);
@@ -413,6 +447,9 @@ public final class FontInfo implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF
         length = 4;
         length += context.strlen(name);
@@ -437,6 +474,10 @@ public final class FontInfo implements MovieTag {
     @SuppressWarnings({"PMD.NPathComplexity", "PMD.CyclomaticComplexity" })
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.FONT_INFO
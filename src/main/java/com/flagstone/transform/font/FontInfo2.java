@@ -38,6 +38,8 @@ import java.util.List;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -75,7 +77,7 @@ import com.flagstone.transform.text.Language;
  *
  * @see FontInfo
  */
-public final class FontInfo2 implements MovieTag {
+public final class FontInfo2 implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "FontInfo2: { identifier=%d;"
@@ -102,6 +104,9 @@ public final class FontInfo2 implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a FontInfo2 object using values encoded
      * in the Flash binary format.
@@ -252,6 +257,7 @@ public final class FontInfo2 implements MovieTag {
      *            boundaries.
      */
     public void setSmall(final boolean aBool) {
+        encoded = null;
         small = aBool;
     }
 
@@ -291,6 +297,7 @@ public final class FontInfo2 implements MovieTag {
      * @return the list of character codes defined in the font.
      */
     public List<Integer> getCodes() {
+        encoded = null;
         return codes;
     }
 
@@ -302,6 +309,7 @@ public final class FontInfo2 implements MovieTag {
      *            glyphs for the font. Must be in the range 1..65535.
      */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -319,6 +327,7 @@ public final class FontInfo2 implements MovieTag {
      *            Must not be null.
      */
     public void setName(final String aString) {
+        encoded = null;
         if (aString == null) {
             throw new IllegalArgumentException();
         }
@@ -333,6 +342,7 @@ public final class FontInfo2 implements MovieTag {
      *            or UNICODE.
      */
     public void setEncoding(final CharacterFormat anEncoding) {
+        encoded = null;
         switch(anEncoding) {
         case UCS2:
             encoding = 0;
@@ -356,6 +366,7 @@ public final class FontInfo2 implements MovieTag {
      *            italics.
      */
     public void setItalic(final boolean aBool) {
+        encoded = null;
         italic = aBool;
     }
 
@@ -367,6 +378,7 @@ public final class FontInfo2 implements MovieTag {
      *            bold face.
      */
     public void setBold(final boolean aBool) {
+        encoded = null;
         bold = aBool;
     }
 
@@ -381,6 +393,7 @@ public final class FontInfo2 implements MovieTag {
      * rendered using the font.
      */
     public void setLanguage(final Language lang) {
+        encoded = null;
         language = lang.getValue();
     }
 
@@ -393,6 +406,7 @@ public final class FontInfo2 implements MovieTag {
      *            a code for a glyph. Must be in the range 0..65535
      */
     public void addCode(final int aCode) {
+        encoded = null;
         if ((aCode < 0) || (aCode > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     0, Coder.USHORT_MAX, aCode);
@@ -410,12 +424,33 @@ public final class FontInfo2 implements MovieTag {
      *            Must not be null.
      */
     public void setCodes(final List<Integer> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
         codes = list;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.FONT_INFO_2;
+    }
+
     /** {@inheritDoc} */
     public FontInfo2 copy() {
         return new FontInfo2(this);
@@ -429,6 +464,9 @@ public final class FontInfo2 implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF
         length = 5;
         length += context.strlen(name);
@@ -444,6 +482,10 @@ public final class FontInfo2 implements MovieTag {
     @SuppressWarnings("PMD.NPathComplexity")
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.FONT_INFO_2
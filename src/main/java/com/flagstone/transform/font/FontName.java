@@ -37,6 +37,8 @@ import java.io.IOException;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -46,7 +48,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
 /**
  * FontName is used to hold the name and copyright information for a font.
  */
-public final class FontName implements MovieTag {
+public final class FontName implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineFontName: { identifier=%d;"
@@ -62,6 +64,9 @@ public final class FontName implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineFontName object using values encoded
      * in the Flash binary format.
@@ -127,6 +132,7 @@ public final class FontName implements MovieTag {
      * @param uid the unique identifier of the font definition.
      */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -151,6 +157,7 @@ public final class FontName implements MovieTag {
      *            Must not be null.
      */
     public void setName(final String aString) {
+        encoded = null;
         if (aString == null) {
             throw new IllegalArgumentException();
         }
@@ -170,12 +177,33 @@ public final class FontName implements MovieTag {
      * @param notice a string describing the copyright information.
      */
     public void setCopyright(final String notice) {
+        encoded = null;
         if (notice == null) {
             throw new IllegalArgumentException();
         }
         copyright = notice;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.FONT_NAME;
+    }
+
     /** {@inheritDoc} */
     public FontName copy() {
         return new FontName(this);
@@ -189,6 +217,9 @@ public final class FontName implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 2 + context.strlen(name) + context.strlen(copyright);
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
                 : Coder.SHORT_HEADER) + length;
@@ -197,6 +228,10 @@ public final class FontName implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.FONT_NAME
@@ -36,6 +36,8 @@ import java.util.Arrays;
 
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -95,7 +97,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  *
  * @see DefineImage2
  */
-public final class DefineImage implements ImageTag {
+public final class DefineImage implements ImageTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineImage: { identifier=%d;"
@@ -134,6 +136,9 @@ public final class DefineImage implements ImageTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineImage object using values encoded
      * in the Flash binary format.
@@ -257,6 +262,7 @@ public final class DefineImage implements ImageTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -320,6 +326,7 @@ public final class DefineImage implements ImageTag {
      *            the width of the image. Must be in the range 0..65535.
      */
     public void setWidth(final int aNumber) {
+        encoded = null;
         if ((aNumber < 0) || (aNumber > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     0, Coder.USHORT_MAX, aNumber);
@@ -335,6 +342,7 @@ public final class DefineImage implements ImageTag {
      *            0..65535.
      */
     public void setHeight(final int aNumber) {
+        encoded = null;
         if ((aNumber < 0) || (aNumber > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     0, Coder.USHORT_MAX, aNumber);
@@ -351,6 +359,7 @@ public final class DefineImage implements ImageTag {
      *            the size of each pixel in bits. Must be either 8, 16 or 24.
      */
     public void setPixelSize(final int size) {
+        encoded = null;
         if ((size != IDX_SIZE) && (size != RGB5_SIZE) && (size != RGB8_SIZE)) {
             throw new IllegalArgumentException(
                     "Pixel size must be either 8, 16 or 24.");
@@ -368,6 +377,7 @@ public final class DefineImage implements ImageTag {
      *            image, in the range 1..256.
      */
     public void setTableSize(final int size) {
+        encoded = null;
         if ((size < 1) || (size > TABLE_SIZE)) {
             throw new IllegalArgumentException(
                     "Colour table size must be in the range 1..256.");
@@ -383,12 +393,33 @@ public final class DefineImage implements ImageTag {
      *            Must not be null.
      */
     public void setImage(final byte[] bytes) {
+        encoded = null;
         if (bytes == null) {
             throw new IllegalArgumentException();
         }
         image = Arrays.copyOf(bytes, bytes.length);
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_IMAGE;
+    }
+
     /** {@inheritDoc} */
     public DefineImage copy() {
         return new DefineImage(this);
@@ -403,6 +434,9 @@ public final class DefineImage implements ImageTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         length = 7;
         length += (pixelSize == IDX_SIZE) ? 1 : 0;
@@ -414,6 +448,10 @@ public final class DefineImage implements ImageTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         coder.writeShort((MovieTypes.DEFINE_IMAGE << Coder.LENGTH_FIELD_SIZE)
                 | Coder.IS_EXTENDED);
@@ -36,6 +36,8 @@ import java.util.Arrays;
 
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -73,7 +75,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  *
  * @see DefineImage
  */
-public final class DefineImage2 implements ImageTag {
+public final class DefineImage2 implements ImageTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineImage2: { identifier=%d;"
@@ -108,6 +110,9 @@ public final class DefineImage2 implements ImageTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises an DefineImage2 object using values encoded
      * in the Flash binary format.
@@ -223,6 +228,7 @@ public final class DefineImage2 implements ImageTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -286,6 +292,7 @@ public final class DefineImage2 implements ImageTag {
      *            the width of the image. Must be in the range of 0..65535.
      */
     public void setWidth(final int aNumber) {
+        encoded = null;
         if ((aNumber < 0) || (aNumber > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     0, Coder.USHORT_MAX, aNumber);
@@ -300,6 +307,7 @@ public final class DefineImage2 implements ImageTag {
      *            the height of the image. Must be in the range of 0..65535.
      */
     public void setHeight(final int aNumber) {
+        encoded = null;
         if ((aNumber < 0) || (aNumber > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     0, Coder.USHORT_MAX, aNumber);
@@ -315,6 +323,7 @@ public final class DefineImage2 implements ImageTag {
      *            the size of each pixel in bits: must be either 8 or 32.
      */
     public void setPixelSize(final int size) {
+        encoded = null;
         if ((size != IDX_SIZE) && (size != RGBA_SIZE)) {
             throw new IllegalArgumentException(
                     "Pixel size must be either 8 or 32 bits.");
@@ -332,6 +341,7 @@ public final class DefineImage2 implements ImageTag {
      *            image. Must be in the range 1..256.
      */
     public void setTableSize(final int size) {
+        encoded = null;
         if ((size < 1) || (size > TABLE_SIZE)) {
             throw new IllegalArgumentException(
                     "Colour table size must be in the range 1..256.");
@@ -347,12 +357,33 @@ public final class DefineImage2 implements ImageTag {
      *            Must not be null.
      */
     public void setImage(final byte[] bytes) {
+        encoded = null;
         if (bytes == null) {
             throw new IllegalArgumentException();
         }
         image = Arrays.copyOf(bytes, bytes.length);
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_IMAGE_2;
+    }
+
     /** {@inheritDoc} */
     public DefineImage2 copy() {
         return new DefineImage2(this);
@@ -367,6 +398,9 @@ public final class DefineImage2 implements ImageTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         length = 7;
         length += (pixelSize == IDX_SIZE) ? 1 : 0;
@@ -378,6 +412,10 @@ public final class DefineImage2 implements ImageTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         coder.writeShort((MovieTypes.DEFINE_IMAGE_2 << Coder.LENGTH_FIELD_SIZE)
                 | Coder.IS_EXTENDED);
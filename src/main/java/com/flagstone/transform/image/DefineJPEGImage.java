@@ -35,6 +35,8 @@ import java.util.Arrays;
 
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -63,7 +65,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * @see DefineJPEGImage2
  * @see DefineJPEGImage3
  */
-public final class DefineJPEGImage implements ImageTag {
+public final class DefineJPEGImage implements ImageTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineJPEGImage: { identifier=%d;"
@@ -81,6 +83,9 @@ public final class DefineJPEGImage implements ImageTag {
     /** The height of the image in pixels. */
     private transient int height;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineJPEGImage object using values encoded
      * in the Flash binary format.
@@ -140,6 +145,7 @@ public final class DefineJPEGImage implements ImageTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -185,6 +191,7 @@ public final class DefineJPEGImage implements ImageTag {
      *            or empty.
      */
     public void setImage(final byte[] bytes) {
+        encoded = null;
         if (bytes == null) {
             throw new IllegalArgumentException();
         }
@@ -192,6 +199,26 @@ public final class DefineJPEGImage implements ImageTag {
         decodeInfo();
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_JPEG_IMAGE;
+    }
+
     /** {@inheritDoc} */
     public DefineJPEGImage copy() {
         return new DefineJPEGImage(this);
@@ -205,6 +232,9 @@ public final class DefineJPEGImage implements ImageTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 2 + image.length;
 
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
@@ -214,6 +244,10 @@ public final class DefineJPEGImage implements ImageTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_JPEG_IMAGE
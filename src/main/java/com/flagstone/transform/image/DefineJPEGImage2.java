@@ -36,6 +36,8 @@ import java.util.Arrays;
 
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -49,7 +51,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * @see DefineJPEGImage
  * @see DefineJPEGImage3
  */
-public final class DefineJPEGImage2 implements ImageTag {
+public final class DefineJPEGImage2 implements ImageTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineJPEGImage2: { identifier=%d;"
@@ -67,6 +69,9 @@ public final class DefineJPEGImage2 implements ImageTag {
     /** The height of the image in pixels. */
     private transient int height;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineJPEGImage2 object using values encoded
      * in the Flash binary format.
@@ -127,6 +132,7 @@ public final class DefineJPEGImage2 implements ImageTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -168,6 +174,7 @@ public final class DefineJPEGImage2 implements ImageTag {
      *            a list of bytes containing the image data. Must not be null.
      */
     public void setImage(final byte[] bytes) {
+        encoded = null;
         if (bytes == null) {
             throw new IllegalArgumentException();
         }
@@ -175,6 +182,26 @@ public final class DefineJPEGImage2 implements ImageTag {
         decodeInfo();
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_JPEG_IMAGE_2;
+    }
+
     /** {@inheritDoc} */
     public DefineJPEGImage2 copy() {
         return new DefineJPEGImage2(this);
@@ -188,6 +215,9 @@ public final class DefineJPEGImage2 implements ImageTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 2 + image.length;
 
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
@@ -197,6 +227,10 @@ public final class DefineJPEGImage2 implements ImageTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_JPEG_IMAGE_2
@@ -36,6 +36,8 @@ import java.util.Arrays;
 
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -53,7 +55,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  *
  * @see DefineJPEGImage2
  */
-public final class DefineJPEGImage3 implements ImageTag {
+public final class DefineJPEGImage3 implements ImageTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineJPEGImage3: { identifier=%d;"
@@ -73,6 +75,9 @@ public final class DefineJPEGImage3 implements ImageTag {
     /** The height of the image in pixels. */
    private transient int height;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineJPEGImage3 object using values encoded
      * in the Flash binary format.
@@ -142,6 +147,7 @@ public final class DefineJPEGImage3 implements ImageTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -193,6 +199,7 @@ public final class DefineJPEGImage3 implements ImageTag {
      *            null.
      */
     public void setImage(final byte[] bytes) {
+        encoded = null;
         image = Arrays.copyOf(bytes, bytes.length);
         decodeInfo();
     }
@@ -205,9 +212,30 @@ public final class DefineJPEGImage3 implements ImageTag {
      *            be null.
      */
     public void setAlpha(final byte[] bytes) {
+        encoded = null;
         alpha = Arrays.copyOf(bytes, bytes.length);
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_JPEG_IMAGE_3;
+    }
+
     /** {@inheritDoc} */
     public DefineJPEGImage3 copy() {
         return new DefineJPEGImage3(this);
@@ -221,6 +249,9 @@ public final class DefineJPEGImage3 implements ImageTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         length = 6;
         length += image.length;
@@ -233,6 +264,10 @@ public final class DefineJPEGImage3 implements ImageTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_JPEG_IMAGE_3
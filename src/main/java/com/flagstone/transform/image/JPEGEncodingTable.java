@@ -37,6 +37,8 @@ import java.util.Arrays;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -61,7 +63,7 @@ import com.flagstone.transform.coder.SWFEncoder;
  *
  * @see DefineJPEGImage
  */
-public final class JPEGEncodingTable implements MovieTag {
+public final class JPEGEncodingTable implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "JPEGEncodingTable: {"
@@ -73,6 +75,9 @@ public final class JPEGEncodingTable implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a JPEGEncodingTable object using values encoded
      * in the Flash binary format.
@@ -134,12 +139,33 @@ public final class JPEGEncodingTable implements MovieTag {
      *            Must not be null or zero length.
      */
     public void setTable(final byte[] bytes) {
+        encoded = null;
         if (bytes == null) {
             throw new IllegalArgumentException();
         }
         table = Arrays.copyOf(bytes, bytes.length);
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.JPEG_TABLES;
+    }
+
     /** {@inheritDoc} */
     public JPEGEncodingTable copy() {
         return new JPEGEncodingTable(this);
@@ -153,6 +179,9 @@ public final class JPEGEncodingTable implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = table.length;
 
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
@@ -162,6 +191,10 @@ public final class JPEGEncodingTable implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.JPEG_TABLES
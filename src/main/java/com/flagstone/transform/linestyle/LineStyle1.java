@@ -97,7 +97,7 @@ public final class LineStyle1 implements LineStyle {
     public LineStyle1(final SWFDecoder coder, final Context context)
             throws IOException {
         width = coder.readUnsignedShort();
-        color = new Color(coder, context);
+        color = context.intern(new Color(coder, context));
     }
 
     /**
@@ -149,7 +149,7 @@ public final class LineStyle2 implements LineStyle {
             decoder.getObject(styles, coder, context);
             fillStyle = styles.get(0);
         } else {
-            color = new Color(coder, context);
+            color = context.intern(new Color(coder, context));
         }
     }
 
@@ -503,7 +503,7 @@ public final class LineStyle2 implements LineStyle {
             length += 4;
         }
 
-        int scaling = context.get(Context.SCALING_STROKE);
+        int scaling = context.getInt(Context.SCALING_STROKE);
 
         if (horizontal || vertical) {
             scaling |= Coder.BIT1;
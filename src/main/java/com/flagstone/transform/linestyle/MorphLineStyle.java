@@ -86,8 +86,8 @@ public final class MorphLineStyle implements LineStyle {
             throws IOException {
         startWidth = coder.readUnsignedShort();
         endWidth = coder.readUnsignedShort();
-        startColor = new Color(coder, context);
-        endColor = new Color(coder, context);
+        startColor = context.intern(new Color(coder, context));
+        endColor = context.intern(new Color(coder, context));
     }
 
     /**
@@ -154,8 +154,8 @@ public final class MorphLineStyle2 implements LineStyle {
             decoder.getObject(styles, coder, context);
             fillStyle = styles.get(0);
         } else {
-            startColor = new Color(coder, context);
-            endColor = new Color(coder, context);
+            startColor = context.intern(new Color(coder, context));
+            endColor = context.intern(new Color(coder, context));
         }
     }
 
@@ -39,6 +39,8 @@ import com.flagstone.transform.Constants;
 import com.flagstone.transform.DefineTag;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.ShowFrame;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
@@ -67,7 +69,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * SoundStreamHead2 or SoundStreamBlock. Other objects are not allowed.
  * </p>
  */
-public final class DefineMovieClip implements DefineTag {
+public final class DefineMovieClip implements DefineTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineMovieClip: { identifier=%d;"
@@ -83,6 +85,9 @@ public final class DefineMovieClip implements DefineTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineMovieClip object using values encoded
      * in the Flash binary format.
@@ -156,6 +161,7 @@ public final class DefineMovieClip implements DefineTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -187,6 +193,7 @@ public final class DefineMovieClip implements DefineTag {
      * @return the list of objects for the movie clip.
      */
     public List<MovieTag> getObjects() {
+        encoded = null;
         return objects;
     }
 
@@ -197,12 +204,33 @@ public final class DefineMovieClip implements DefineTag {
      *            the list of movie objects. Must not be null.
      */
     public void setObjects(final List<MovieTag> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
         objects = list;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_MOVIE_CLIP;
+    }
+
     /** {@inheritDoc} */
     public DefineMovieClip copy() {
         return new DefineMovieClip(this);
@@ -215,6 +243,9 @@ public final class DefineMovieClip implements DefineTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
 
         frameCount = 0;
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
@@ -234,6 +265,10 @@ public final class DefineMovieClip implements DefineTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_MOVIE_CLIP
@@ -38,6 +38,8 @@ import java.util.List;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.action.Action;
 import com.flagstone.transform.action.ActionData;
 import com.flagstone.transform.coder.Coder;
@@ -65,7 +67,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * movie clip defined in the movie.
  * </p>
  */
-public final class InitializeMovieClip implements MovieTag {
+public final class InitializeMovieClip implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "Initialize: { identifier=%d;"
@@ -79,6 +81,9 @@ public final class InitializeMovieClip implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises an InitializeMovieClip object using values
      * encoded in the Flash binary format.
@@ -162,6 +167,7 @@ public final class InitializeMovieClip implements MovieTag {
      *            range 1..65535.
      */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -191,6 +197,7 @@ public final class InitializeMovieClip implements MovieTag {
      * @return the actions to initialize the movie clip.
      */
     public List<Action> getActions() {
+        encoded = null;
         return actions;
     }
 
@@ -201,12 +208,33 @@ public final class InitializeMovieClip implements MovieTag {
      *            the list of action objects. Must not be null.
      */
     public void setActions(final List<Action> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
         actions = list;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.INITIALIZE;
+    }
+
     /** {@inheritDoc} */
     public InitializeMovieClip copy() {
         return new InitializeMovieClip(this);
@@ -219,6 +247,9 @@ public final class InitializeMovieClip implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = 2;
 
         for (final Action action : actions) {
@@ -232,6 +263,10 @@ public final class InitializeMovieClip implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.INITIALIZE
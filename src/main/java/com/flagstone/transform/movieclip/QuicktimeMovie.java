@@ -37,6 +37,8 @@ import java.io.IOException;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -45,7 +47,7 @@ import com.flagstone.transform.coder.SWFEncoder;
 /**
  * The QuicktimeMovie defines the path to an Quicktime movie to be played.
  */
-public final class QuicktimeMovie implements MovieTag {
+public final class QuicktimeMovie implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "QuicktimeMovie: { name=%s}";
@@ -56,6 +58,9 @@ public final class QuicktimeMovie implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a QuicktimeMovie object using values encoded
      * in the Flash binary format.
@@ -115,12 +120,33 @@ public final class QuicktimeMovie implements MovieTag {
      *            the file or URL where the file is located. Must not be null.
      */
     public void setPath(final String aString) {
+        encoded = null;
         if (aString == null) {
             throw new IllegalArgumentException();
         }
         path = aString;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.QUICKTIME_MOVIE;
+    }
+
     /** {@inheritDoc} */
     public QuicktimeMovie copy() {
         return new QuicktimeMovie(this);
@@ -133,6 +159,9 @@ public final class QuicktimeMovie implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = context.strlen(path);
 
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
@@ -142,6 +171,10 @@ public final class QuicktimeMovie implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.QUICKTIME_MOVIE
@@ -67,6 +67,8 @@ public final class Curve implements ShapeRecord {
 
     /** Number of bits used to encode the size field. */
     private static final int SIZE_WIDTH = 4;
+    /** The number of coordinates encoded for the control and anchor points. */
+    private static final int COORDINATES = 4;
 
     /** The x-coordinate of the control point. */
     private transient int controlX;
@@ -77,7 +79,11 @@ public final class Curve implements ShapeRecord {
     /** The y-coordinate of the anchor point. */
     private transient int anchorY;
 
-    /** Variable used to record the number of bits for each coordinate. */
+    /**
+     * Variable used to record the number of bits for each coordinate. The
+     * size is only calculated when the curve is first encoded or after the
+     * points change. Zero indicates it has not been calculated.
+     */
     private transient int size;
 
     /**
@@ -91,11 +97,12 @@ public final class Curve implements ShapeRecord {
      *             if an error occurs while decoding the data.
      */
    public Curve(final SWFDecoder coder) throws IOException {
-        size = coder.readBits(SIZE_WIDTH, false) + 2;
-        controlX = coder.readBits(size, true);
-        controlY = coder.readBits(size, true);
-        anchorX = coder.readBits(size, true);
-        anchorY = coder.readBits(size, true);
+        final int fieldSize = coder.readBits(SIZE_WIDTH, false) + 2;
+        final int[] coords = coder.readFields(COORDINATES, fieldSize, true);
+        controlX = coords[0];
+        controlY = coords[1];
+        anchorX = coords[2];
+        anchorY = coords[3];
     }
 
     /**
@@ -194,25 +201,23 @@ public final class Curve implements ShapeRecord {
             throw new IllegalArgumentRangeException(
                     Shape.MIN_COORD, Shape.MAX_COORD, xControl);
         }
-        controlX = xControl;
-
         if ((yControl < Shape.MIN_COORD) || (yControl > Shape.MAX_COORD)) {
             throw new IllegalArgumentRangeException(
                     Shape.MIN_COORD, Shape.MAX_COORD, yControl);
         }
-        controlY = yControl;
-
         if ((xAnchor < Shape.MIN_COORD) || (xAnchor > Shape.MAX_COORD)) {
             throw new IllegalArgumentRangeException(
                     Shape.MIN_COORD, Shape.MAX_COORD, xAnchor);
         }
-        anchorX = xAnchor;
-
         if ((yAnchor < Shape.MIN_COORD) || (yAnchor > Shape.MAX_COORD)) {
             throw new IllegalArgumentRangeException(
                     Shape.MIN_COORD, Shape.MAX_COORD, yAnchor);
         }
+        controlX = xControl;
+        controlY = yControl;
+        anchorX = xAnchor;
         anchorY = yAnchor;
+        size = 0;
     }
 
     /** {@inheritDoc} */
@@ -230,12 +235,14 @@ public final class Curve implements ShapeRecord {
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         int numberOfBits = 6;
 
-        size = Coder.maxSize(controlX, controlY, anchorX, anchorY, 1);
+        if (size == 0) {
+            size = Coder.maxSize(controlX, controlY, anchorX, anchorY, 1);
+        }
 
         numberOfBits += size << 2;
 
         context.put(Context.SHAPE_SIZE,
-                context.get(Context.SHAPE_SIZE) + numberOfBits);
+                context.getInt(Context.SHAPE_SIZE) + numberOfBits);
 
         return numberOfBits;
     }
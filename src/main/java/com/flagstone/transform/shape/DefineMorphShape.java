@@ -37,6 +37,8 @@ import java.util.List;
 
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -87,7 +89,7 @@ import com.flagstone.transform.linestyle.MorphLineStyle;
  * </p>
  */
 @SuppressWarnings("PMD.CyclomaticComplexity")
-public final class DefineMorphShape implements ShapeTag {
+public final class DefineMorphShape implements ShapeTag, Passthrough {
 
     /**
      * Reserved length for style counts indicated that the number of line
@@ -128,6 +130,9 @@ public final class DefineMorphShape implements ShapeTag {
     /** Offset in bytes to the end shape. */
     private transient int offset;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineMorphShape object using values encoded
      * in the Flash binary format.
@@ -158,8 +163,8 @@ public final class DefineMorphShape implements ShapeTag {
 
         identifier = coder.readUnsignedShort();
 
-        bounds = new Bounds(coder);
-        endBounds = new Bounds(coder);
+        bounds = context.intern(new Bounds(coder));
+        endBounds = context.intern(new Bounds(coder));
         fillStyles = new ArrayList<FillStyle>();
         lineStyles = new ArrayList<LineStyle>();
 
@@ -309,6 +314,7 @@ public final class DefineMorphShape implements ShapeTag {
     /** {@inheritDoc} */
     @Override
 	public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -377,6 +383,7 @@ public final class DefineMorphShape implements ShapeTag {
      */
     @Override
 	public List<FillStyle> getFillStyles() {
+        encoded = null;
         return fillStyles;
     }
 
@@ -387,6 +394,7 @@ public final class DefineMorphShape implements ShapeTag {
      */
     @Override
 	public List<LineStyle> getLineStyles() {
+        encoded = null;
         return lineStyles;
     }
 
@@ -397,6 +405,7 @@ public final class DefineMorphShape implements ShapeTag {
      */
     @Override
 	public Shape getShape() {
+        encoded = null;
         return shape;
     }
 
@@ -406,6 +415,7 @@ public final class DefineMorphShape implements ShapeTag {
      * @return the final shape.
      */
     public Shape getEndShape() {
+        encoded = null;
         return endShape;
     }
 
@@ -418,6 +428,7 @@ public final class DefineMorphShape implements ShapeTag {
      */
     @Override
 	public void setBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
@@ -432,6 +443,7 @@ public final class DefineMorphShape implements ShapeTag {
      *            null.
      */
     public void setEndBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
@@ -447,6 +459,7 @@ public final class DefineMorphShape implements ShapeTag {
      */
     @Override
 	public void setFillStyles(final List<FillStyle> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -461,6 +474,7 @@ public final class DefineMorphShape implements ShapeTag {
      */
     @Override
 	public void setLineStyles(final List<LineStyle> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -477,6 +491,7 @@ public final class DefineMorphShape implements ShapeTag {
      */
     @Override
 	public void setShape(final Shape aShape) {
+        encoded = null;
         if (aShape == null) {
             throw new IllegalArgumentException();
         }
@@ -491,12 +506,33 @@ public final class DefineMorphShape implements ShapeTag {
      *            null.
      */
     public void setEndShape(final Shape aShape) {
+        encoded = null;
         if (aShape == null) {
             throw new IllegalArgumentException();
         }
         endShape = aShape;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_MORPH_SHAPE;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public DefineMorphShape copy() {
@@ -514,6 +550,9 @@ public final class DefineMorphShape implements ShapeTag {
     @Override
 	@SuppressWarnings("PMD.NPathComplexity")
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         fillBits = Coder.unsignedSize(fillStyles.size());
         lineBits = Coder.unsignedSize(lineStyles.size());
 
@@ -570,6 +609,10 @@ public final class DefineMorphShape implements ShapeTag {
     @Override
 	public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_MORPH_SHAPE
@@ -37,6 +37,8 @@ import java.util.List;
 
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -88,7 +90,7 @@ import com.flagstone.transform.linestyle.MorphLineStyle2;
  * Straight edges can become curves and vice versa.
  * </p>
  */
-public final class DefineMorphShape2 implements ShapeTag {
+public final class DefineMorphShape2 implements ShapeTag, Passthrough {
 
     /**
      * Reserved length for style counts indicated that the number of line
@@ -135,6 +137,9 @@ public final class DefineMorphShape2 implements ShapeTag {
     /** Offset in bytes to the end shape. */
     private transient int offset;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineMorphShape2 object using values encoded
      * in the Flash binary format.
@@ -164,10 +169,10 @@ public final class DefineMorphShape2 implements ShapeTag {
         context.put(Context.ARRAY_EXTENDED, 1);
         context.put(Context.TYPE, MovieTypes.DEFINE_MORPH_SHAPE);
 
-        bounds = new Bounds(coder);
-        endBounds = new Bounds(coder);
-        edgeBounds = new Bounds(coder);
-        endEdgeBounds = new Bounds(coder);
+        bounds = context.intern(new Bounds(coder));
+        endBounds = context.intern(new Bounds(coder));
+        edgeBounds = context.intern(new Bounds(coder));
+        endEdgeBounds = context.intern(new Bounds(coder));
 
         fillStyles = new ArrayList<FillStyle>();
         lineStyles = new ArrayList<LineStyle>();
@@ -298,6 +303,7 @@ public final class DefineMorphShape2 implements ShapeTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -382,6 +388,7 @@ public final class DefineMorphShape2 implements ShapeTag {
      * @return the list of fill styles used in the shape.
      */
     public List<FillStyle> getFillStyles() {
+        encoded = null;
         return fillStyles;
     }
 
@@ -391,6 +398,7 @@ public final class DefineMorphShape2 implements ShapeTag {
      * @return the list of line styles used in the shape.
      */
     public List<LineStyle> getLineStyles() {
+        encoded = null;
         return lineStyles;
     }
 
@@ -400,6 +408,7 @@ public final class DefineMorphShape2 implements ShapeTag {
      * @return the starting shape.
      */
     public Shape getShape() {
+        encoded = null;
         return shape;
     }
 
@@ -409,6 +418,7 @@ public final class DefineMorphShape2 implements ShapeTag {
      * @return the final shape.
      */
     public Shape getEndShape() {
+        encoded = null;
         return endShape;
     }
 
@@ -420,6 +430,7 @@ public final class DefineMorphShape2 implements ShapeTag {
      *            null.
      */
     public void setBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
@@ -434,6 +445,7 @@ public final class DefineMorphShape2 implements ShapeTag {
      *            null.
      */
     public void setEndBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
@@ -448,6 +460,7 @@ public final class DefineMorphShape2 implements ShapeTag {
      *            null.
      */
     public void setEdgeBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
@@ -462,6 +475,7 @@ public final class DefineMorphShape2 implements ShapeTag {
      *            null.
      */
     public void setEndEdgeBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
@@ -476,6 +490,7 @@ public final class DefineMorphShape2 implements ShapeTag {
      *            MorphGradientFill objects. Must not be null.
      */
     public void setFillStyles(final List<FillStyle> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -489,6 +504,7 @@ public final class DefineMorphShape2 implements ShapeTag {
      *            a list of MorphLineStyle2 objects. Must not be null.
      */
     public void setLineStyles(final List<LineStyle> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -504,6 +520,7 @@ public final class DefineMorphShape2 implements ShapeTag {
      *            null.
      */
     public void setShape(final Shape aShape) {
+        encoded = null;
         if (aShape == null) {
             throw new IllegalArgumentException();
         }
@@ -518,12 +535,33 @@ public final class DefineMorphShape2 implements ShapeTag {
      *            null.
      */
     public void setEndShape(final Shape aShape) {
+        encoded = null;
         if (aShape == null) {
             throw new IllegalArgumentException();
         }
         endShape = aShape;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_MORPH_SHAPE_2;
+    }
+
     /** {@inheritDoc} */
     public DefineMorphShape2 copy() {
         return new DefineMorphShape2(this);
@@ -540,6 +578,9 @@ public final class DefineMorphShape2 implements ShapeTag {
     /** {@inheritDoc} */
     @SuppressWarnings("PMD.NPathComplexity")
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         fillBits = Coder.unsignedSize(fillStyles.size());
         lineBits = Coder.unsignedSize(lineStyles.size());
 
@@ -604,6 +645,10 @@ public final class DefineMorphShape2 implements ShapeTag {
     @SuppressWarnings("PMD.NPathComplexity")
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_MORPH_SHAPE_2
@@ -37,6 +37,8 @@ import java.util.List;
 
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -66,7 +68,7 @@ import com.flagstone.transform.linestyle.LineStyle2;
  * without an outline or left unfilled.
  * </p>
  */
-public final class DefineShape2 implements ShapeTag {
+public final class DefineShape2 implements ShapeTag, Passthrough {
 
     /**
      * Reserved length for style counts indicated that the number of line
@@ -98,6 +100,9 @@ public final class DefineShape2 implements ShapeTag {
     /** The number of bits to encode indices into the line style list. */
     private transient int lineBits;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineShape2 object using values encoded
      * in the Flash binary format.
@@ -121,7 +126,7 @@ public final class DefineShape2 implements ShapeTag {
         }
         coder.mark();
         identifier = coder.readUnsignedShort();
-        bounds = new Bounds(coder);
+        bounds = context.intern(new Bounds(coder));
 
         fillStyles = new ArrayList<FillStyle>();
         lineStyles = new ArrayList<LineStyle>();
@@ -216,6 +221,7 @@ public final class DefineShape2 implements ShapeTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -271,6 +277,7 @@ public final class DefineShape2 implements ShapeTag {
      * @return the list of fill styles used in the shape.
      */
     public List<FillStyle> getFillStyles() {
+        encoded = null;
         return fillStyles;
     }
 
@@ -280,6 +287,7 @@ public final class DefineShape2 implements ShapeTag {
      * @return the list of line styles used in the shape.
      */
     public List<LineStyle> getLineStyles() {
+        encoded = null;
         return lineStyles;
     }
 
@@ -289,6 +297,7 @@ public final class DefineShape2 implements ShapeTag {
      * @return the shape.
      */
     public Shape getShape() {
+        encoded = null;
         return shape;
     }
 
@@ -299,6 +308,7 @@ public final class DefineShape2 implements ShapeTag {
      *            set the bounding rectangle for the shape. Must not be null.
      */
     public void setBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
@@ -312,6 +322,7 @@ public final class DefineShape2 implements ShapeTag {
      *            set the fill styles for the shape. Must not be null.
      */
     public void setFillStyles(final List<FillStyle> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -326,6 +337,7 @@ public final class DefineShape2 implements ShapeTag {
      *            set the line styles for the shape. Must not be null.
      */
     public void setLineStyles(final List<LineStyle> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -339,12 +351,33 @@ public final class DefineShape2 implements ShapeTag {
      *            set the shape to be drawn. Must not be null.
      */
     public void setShape(final Shape aShape) {
+        encoded = null;
         if (aShape == null) {
             throw new IllegalArgumentException();
         }
         shape = aShape;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_SHAPE_2;
+    }
+
     /** {@inheritDoc} */
     public DefineShape2 copy() {
         return new DefineShape2(this);
@@ -359,6 +392,9 @@ public final class DefineShape2 implements ShapeTag {
     /** {@inheritDoc} */
     @SuppressWarnings("PMD.NPathComplexity")
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         fillBits = Coder.unsignedSize(fillStyles.size());
         lineBits = Coder.unsignedSize(lineStyles.size());
 
@@ -402,6 +438,10 @@ public final class DefineShape2 implements ShapeTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_SHAPE_2
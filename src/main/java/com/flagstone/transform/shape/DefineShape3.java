@@ -35,6 +35,8 @@ import java.util.List;
 
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -52,7 +54,7 @@ import com.flagstone.transform.linestyle.LineStyle2;
  * {@link DefineShape2} class by encoding the alpha channel in any Color objects
  * included in the line and fill styles.
  */
-public final class DefineShape3 implements ShapeTag {
+public final class DefineShape3 implements ShapeTag, Passthrough {
 
     /**
      * Reserved length for style counts indicated that the number of line
@@ -84,6 +86,9 @@ public final class DefineShape3 implements ShapeTag {
     /** The number of bits to encode indices into the line style list. */
     private transient int lineBits;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineShape3 object using values encoded
      * in the Flash binary format.
@@ -110,7 +115,7 @@ public final class DefineShape3 implements ShapeTag {
         context.put(Context.TRANSPARENT, 1);
         context.put(Context.TYPE, MovieTypes.DEFINE_SHAPE_3);
 
-        bounds = new Bounds(coder);
+        bounds = context.intern(new Bounds(coder));
 
         int fillStyleCount = coder.readByte();
 
@@ -206,6 +211,7 @@ public final class DefineShape3 implements ShapeTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -261,6 +267,7 @@ public final class DefineShape3 implements ShapeTag {
      * @return the list of fill styles used in the shape.
      */
     public List<FillStyle> getFillStyles() {
+        encoded = null;
         return fillStyles;
     }
 
@@ -270,6 +277,7 @@ public final class DefineShape3 implements ShapeTag {
      * @return the list of line styles used in the shape.
      */
     public List<LineStyle> getLineStyles() {
+        encoded = null;
         return lineStyles;
     }
 
@@ -279,6 +287,7 @@ public final class DefineShape3 implements ShapeTag {
      * @return the shape.
      */
     public Shape getShape() {
+        encoded = null;
         return shape;
     }
 
@@ -289,6 +298,7 @@ public final class DefineShape3 implements ShapeTag {
      *            set the bounding rectangle for the shape. Must not be null.
      */
     public void setBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
@@ -302,6 +312,7 @@ public final class DefineShape3 implements ShapeTag {
      *            set the fill styles for the shape. Must not be null.
      */
     public void setFillStyles(final List<FillStyle> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -316,6 +327,7 @@ public final class DefineShape3 implements ShapeTag {
      *            set the line styles for the shape. Must not be null.
      */
     public void setLineStyles(final List<LineStyle> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -329,12 +341,33 @@ public final class DefineShape3 implements ShapeTag {
      *            set the shape to be drawn. Must not be null.
      */
     public void setShape(final Shape aShape) {
+        encoded = null;
         if (aShape == null) {
             throw new IllegalArgumentException();
         }
         shape = aShape;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_SHAPE_3;
+    }
+
     /** {@inheritDoc} */
     public DefineShape3 copy() {
         return new DefineShape3(this);
@@ -349,6 +382,9 @@ public final class DefineShape3 implements ShapeTag {
     /** {@inheritDoc} */
     @SuppressWarnings("PMD.NPathComplexity")
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         fillBits = Coder.unsignedSize(fillStyles.size());
         lineBits = Coder.unsignedSize(lineStyles.size());
 
@@ -396,6 +432,10 @@ public final class DefineShape3 implements ShapeTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_SHAPE_3
@@ -37,6 +37,8 @@ import java.util.List;
 
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -54,7 +56,7 @@ import com.flagstone.transform.linestyle.LineStyle2;
  * edges of the shape (the outline without taking the stroke thickness into
  * account) as well as hints for improving the way shapes are drawn.
  */
-public final class DefineShape4 implements ShapeTag {
+public final class DefineShape4 implements ShapeTag, Passthrough {
 
     /**
      * Reserved length for style counts indicated that the number of line
@@ -94,6 +96,9 @@ public final class DefineShape4 implements ShapeTag {
     /** The number of bits to encode indices into the line style list. */
     private transient int lineBits;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineShape4 object using values encoded
      * in the Flash binary format.
@@ -120,8 +125,8 @@ public final class DefineShape4 implements ShapeTag {
         context.put(Context.TRANSPARENT, 1);
         context.put(Context.TYPE, MovieTypes.DEFINE_SHAPE_4);
 
-        bounds = new Bounds(coder);
-        edgeBounds = new Bounds(coder);
+        bounds = context.intern(new Bounds(coder));
+        edgeBounds = context.intern(new Bounds(coder));
 
         // scaling hints are implied by the line styles used
         winding = coder.readByte() & Coder.BIT2;
@@ -226,6 +231,7 @@ public final class DefineShape4 implements ShapeTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -249,6 +255,7 @@ public final class DefineShape4 implements ShapeTag {
      *            set the bounding rectangle for the shape. Must not be null.
      */
     public void setBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
@@ -273,6 +280,7 @@ public final class DefineShape4 implements ShapeTag {
      *            set the bounding rectangle for the shape. Must not be null.
      */
     public void setEdgeBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
@@ -318,6 +326,7 @@ public final class DefineShape4 implements ShapeTag {
      * @return the list of fill styles used in the shape.
      */
     public List<FillStyle> getFillStyles() {
+        encoded = null;
         return fillStyles;
     }
 
@@ -327,6 +336,7 @@ public final class DefineShape4 implements ShapeTag {
      * @return the list of line styles used in the shape.
      */
     public List<LineStyle> getLineStyles() {
+        encoded = null;
         return lineStyles;
     }
 
@@ -336,6 +346,7 @@ public final class DefineShape4 implements ShapeTag {
      * @return the shape.
      */
     public Shape getShape() {
+        encoded = null;
         return shape;
     }
 
@@ -346,6 +357,7 @@ public final class DefineShape4 implements ShapeTag {
      *            set the fill styles for the shape. Must not be null.
      */
     public void setFillStyles(final List<FillStyle> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -360,6 +372,7 @@ public final class DefineShape4 implements ShapeTag {
      *            set the line styles for the shape. Must not be null.
      */
     public void setLineStyles(final List<LineStyle> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
@@ -373,6 +386,7 @@ public final class DefineShape4 implements ShapeTag {
      *            set the shape to be drawn. Must not be null.
      */
     public void setShape(final Shape aShape) {
+        encoded = null;
         if (aShape == null) {
             throw new IllegalArgumentException();
         }
@@ -392,6 +406,7 @@ public final class DefineShape4 implements ShapeTag {
      * @param use true if fill winding is used, false otherwise.
      */
     public void setWinding(final boolean use) {
+        encoded = null;
         if (use) {
             winding = Coder.BIT2;
         } else {
@@ -399,6 +414,26 @@ public final class DefineShape4 implements ShapeTag {
         }
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_SHAPE_4;
+    }
+
     /** {@inheritDoc} */
     public DefineShape4 copy() {
         return new DefineShape4(this);
@@ -413,6 +448,9 @@ public final class DefineShape4 implements ShapeTag {
     /** {@inheritDoc} */
     @SuppressWarnings("PMD.NPathComplexity")
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         fillBits = Coder.unsignedSize(fillStyles.size());
         lineBits = Coder.unsignedSize(lineStyles.size());
 
@@ -446,7 +484,7 @@ public final class DefineShape4 implements ShapeTag {
             length += style.prepareToEncode(context);
         }
 
-        scaling = context.get(Context.SCALING_STROKE);
+        scaling = context.getInt(Context.SCALING_STROKE);
 
         context.put(Context.ARRAY_EXTENDED, 1);
         context.put(Context.FILL_SIZE, fillBits);
@@ -467,6 +505,10 @@ public final class DefineShape4 implements ShapeTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         context.put(Context.TRANSPARENT, 1);
 
         if (length > Coder.HEADER_LIMIT) {
@@ -58,7 +58,11 @@ public final class Line implements ShapeRecord {
     private transient boolean vertical;
     /** Is the line horizontal. */
     private transient boolean general;
-    /** Number of bits used to encode the x and y coordinates. */
+    /**
+     * Number of bits used to encode the x and y coordinates. The size is
+     * only calculated when the line is first encoded or after the end point
+     * changes. Zero indicates it has not been calculated.
+     */
     private transient int size;
 
     /**
@@ -74,19 +78,19 @@ public final class Line implements ShapeRecord {
 
     public Line(final SWFDecoder coder) throws IOException {
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
-        size = coder.readBits(4, false) + 2;
+        final int fieldSize = coder.readBits(4, false) + 2;
 
         if (coder.readBits(1, false) == 0) {
             if (coder.readBits(1, false) == 0) {
-                xCoord = coder.readBits(size, true);
+                xCoord = coder.readBits(fieldSize, true);
                 yCoord = 0;
             } else {
                 xCoord = 0;
-                yCoord = coder.readBits(size, true);
+                yCoord = coder.readBits(fieldSize, true);
             }
         } else {
-            xCoord = coder.readBits(size, true);
-            yCoord = coder.readBits(size, true);
+            xCoord = coder.readBits(fieldSize, true);
+            yCoord = coder.readBits(fieldSize, true);
         }
     }
 
@@ -150,13 +154,13 @@ public final class Line implements ShapeRecord {
             throw new IllegalArgumentRangeException(
                     Shape.MIN_COORD, Shape.MAX_COORD, coordX);
         }
-        xCoord = coordX;
-
         if ((coordY < Shape.MIN_COORD) || (coordY > Shape.MAX_COORD)) {
             throw new IllegalArgumentRangeException(
                     Shape.MIN_COORD, Shape.MAX_COORD, coordY);
         }
-       yCoord = coordY;
+        xCoord = coordX;
+        yCoord = coordY;
+        size = 0;
     }
 
     /** {@inheritDoc} */
@@ -171,9 +175,11 @@ public final class Line implements ShapeRecord {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
-        vertical = xCoord == 0;
-        general = (xCoord != 0) && (yCoord != 0);
-        size = Coder.maxSize(xCoord, yCoord, 1);
+        if (size == 0) {
+            vertical = xCoord == 0;
+            general = (xCoord != 0) && (yCoord != 0);
+            size = Coder.maxSize(xCoord, yCoord, 1);
+        }
 
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         int numberOfBits = 7;
@@ -184,7 +190,7 @@ public final class Line implements ShapeRecord {
             numberOfBits += 1 + size;
         }
 
-        context.put(Context.SHAPE_SIZE, context.get(Context.SHAPE_SIZE)
+        context.put(Context.SHAPE_SIZE, context.getInt(Context.SHAPE_SIZE)
                 + numberOfBits);
 
         return numberOfBits;
@@ -0,0 +1,650 @@
+/*
+ * PackedShape.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.shape;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.flagstone.transform.coder.Coder;
+import com.flagstone.transform.coder.Context;
+import com.flagstone.transform.coder.Copyable;
+import com.flagstone.transform.coder.SWFDecoder;
+import com.flagstone.transform.coder.SWFEncodeable;
+import com.flagstone.transform.coder.SWFEncoder;
+import com.flagstone.transform.coder.SWFFactory;
+
+/**
+ * PackedShape is a compact, read-only representation of a Shape. Rather than
+ * creating a Line or Curve object for each edge the coordinates are stored in
+ * an array of integers alongside an array of opcodes identifying the type of
+ * each record. Only the ShapeStyle and ShapeStyle2 records, which change the
+ * styles or move the drawing point and are relatively few in number, are
+ * stored as objects.
+ *
+ * <p>
+ * If all the coordinates fit in 16 bits, which is usually the case, they are
+ * stored in an array of shorts instead. A Line then occupies 5 bytes and a
+ * Curve 9 bytes compared with around 36 bytes for each object and its entry
+ * in a list, which reduces the memory used by shapes with many edges, such
+ * as the glyphs in fonts or detailed artwork, considerably.
+ * </p>
+ *
+ * <p>
+ * PackedShape is encoded exactly as a Shape with the same records.
+ * getObjects() returns a read-only view of the records for code that uses
+ * the ShapeRecord objects. The Line and Curve objects are created each time
+ * a record is read from the list.
+ * </p>
+ */
+public final class PackedShape implements SWFEncodeable,
+        Copyable<PackedShape> {
+
+    /** Format string used in toString() method. */
+    private static final String FORMAT = "PackedShape: { records=%s}";
+
+    /** Opcode for a straight edge. */
+    private static final byte LINE = 0;
+    /** Opcode for a curved edge. */
+    private static final byte CURVE = 1;
+    /** Opcode for a record stored in the table of styles. */
+    private static final byte STYLE = 2;
+
+    /** The number of coordinates stored for a Line. */
+    private static final int LINE_COORDS = 2;
+    /** The number of coordinates stored for a Curve. */
+    private static final int CURVE_COORDS = 4;
+
+    /** The value of the type field identifying an encoded Line. */
+    private static final int LINE_TYPE = Coder.BIT0 | Coder.BIT1;
+    /** The value of the type field identifying an encoded Curve. */
+    private static final int CURVE_TYPE = Coder.BIT1;
+    /** The number of bits in the field identifying the type of edge. */
+    private static final int TYPE_WIDTH = 2;
+    /** The number of bits in the field giving the size of a coordinate. */
+    private static final int SIZE_WIDTH = 4;
+    /** The number of bits in the end of shape marker. */
+    private static final int END_WIDTH = 6;
+    /** The value subtracted from the size of the coordinates when encoded. */
+    private static final int SIZE_OFFSET = 2;
+    /** The number of bits in a Line before the coordinates. */
+    private static final int LINE_HEADER = 7;
+    /** The number of bits in a Curve before the coordinates. */
+    private static final int CURVE_HEADER = 6;
+    /** The sizes byte, end of shape marker and alignment, in bits. */
+    private static final int SHAPE_OVERHEAD = 21;
+    /** Right shift to convert number of bits to number of bytes. */
+    private static final int BITS_TO_BYTES = 3;
+    /** The initial number of records the arrays can hold when decoding. */
+    private static final int INITIAL_SIZE = 16;
+
+    /** The opcode for each record. */
+    private transient byte[] ops;
+    /** The coordinates for the Line and Curve records, or null. */
+    private transient int[] coords;
+    /** The coordinates, if they all fit in 16 bits, or null. */
+    private transient short[] shortCoords;
+    /** The records, other than edges, in the order they occur. */
+    private transient ShapeRecord[] styles;
+    /**
+     * The number of bits used to encode the coordinates of each edge. The
+     * sizes are calculated the first time the shape is encoded.
+     */
+    private transient byte[] sizes;
+    /** The number of opcodes added while the shape is being built. */
+    private transient int opCount;
+    /** The number of coordinates added while the shape is being built. */
+    private transient int coordCount;
+    /** The number of styles added while the shape is being built. */
+    private transient int styleCount;
+
+    /**
+     * Creates and initialises a PackedShape object using values encoded in
+     * the Flash binary format. Edges are decoded directly into the arrays.
+     * The other records are decoded by the shape decoder in the registry.
+     *
+     * @param coder
+     *            an SWFDecoder object that contains the encoded Flash data.
+     *
+     * @param context
+     *            a Context object used to manage the decoders for different
+     *            type of object and to pass information on how objects are
+     *            decoded.
+     *
+     * @throws IOException
+     *             if an error occurs while decoding the data.
+     */
+    public PackedShape(final SWFDecoder coder, final Context context)
+            throws IOException {
+        allocate(INITIAL_SIZE);
+
+        final int sizes = coder.readByte();
+        context.put(Context.FILL_SIZE, (sizes & Coder.NIB1)
+                >> Coder.TO_LOWER_NIB);
+        context.put(Context.LINE_SIZE, sizes & Coder.NIB0);
+
+        final SWFFactory<ShapeRecord> decoder = context.getRegistry()
+            .getShapeDecoder();
+        final List<ShapeRecord> list = new ArrayList<ShapeRecord>(1);
+
+        while (coder.scanBits(END_WIDTH, false) != 0) {
+            final int type = coder.scanBits(TYPE_WIDTH, false);
+            if (type == LINE_TYPE) {
+                coder.readBits(TYPE_WIDTH, false);
+                decodeLine(coder);
+            } else if (type == CURVE_TYPE) {
+                coder.readBits(TYPE_WIDTH, false);
+                decodeCurve(coder);
+            } else {
+                decoder.getObject(list, coder, context);
+                addStyle(list.get(0));
+                list.clear();
+            }
+        }
+        coder.readBits(END_WIDTH, false);
+        coder.alignToByte();
+        trim();
+    }
+
+    /**
+     * Creates a PackedShape containing a list of shape records.
+     *
+     * @param list
+     *            the list of shape records, containing Line, Curve,
+     *            ShapeStyle and ShapeStyle2 objects. The style objects are
+     *            added to the shape rather than copied. Must not be null.
+     */
+    public PackedShape(final List<ShapeRecord> list) {
+        if (list == null) {
+            throw new IllegalArgumentException();
+        }
+        allocate(Math.max(list.size(), 1));
+
+        for (final ShapeRecord record : list) {
+            if (record instanceof Line) {
+                final Line line = (Line) record;
+                addLine(line.getX(), line.getY());
+            } else if (record instanceof Curve) {
+                final Curve curve = (Curve) record;
+                addCurve(curve.getControlX(), curve.getControlY(),
+                        curve.getAnchorX(), curve.getAnchorY());
+            } else if (record == null || record instanceof ShapeData) {
+                throw new IllegalArgumentException();
+            } else {
+                addStyle(record);
+            }
+        }
+        trim();
+    }
+
+    /**
+     * Creates and initialises a PackedShape object using the values copied
+     * from another PackedShape object.
+     *
+     * @param object
+     *            a PackedShape object from which the values will be copied.
+     */
+    public PackedShape(final PackedShape object) {
+        // The arrays are not changed once a PackedShape is created.
+        ops = object.ops;
+        coords = object.coords;
+        shortCoords = object.shortCoords;
+        sizes = object.sizes;
+        styles = new ShapeRecord[object.styles.length];
+        for (int i = 0; i < styles.length; i++) {
+            styles[i] = object.styles[i].copy();
+        }
+        opCount = object.opCount;
+        coordCount = object.coordCount;
+        styleCount = object.styleCount;
+    }
+
+    /**
+     * Get the number of records in the shape.
+     *
+     * @return the number of records.
+     */
+    public int size() {
+        return ops.length;
+    }
+
+    /**
+     * Get a read-only view of the records in the shape. Each time a Line or
+     * Curve is read from the list a new object is created. The ShapeStyle and
+     * ShapeStyle2 objects are the ones stored in the shape.
+     *
+     * @return the list of shape records.
+     */
+    public List<ShapeRecord> getObjects() {
+        return new Records();
+    }
+
+    /**
+     * Get a read-only view of the records in the shape, other than Lines and
+     * Curves, in the order they occur.
+     *
+     * @return the list of ShapeStyle and ShapeStyle2 objects.
+     */
+    public List<ShapeRecord> getStyles() {
+        return Collections.unmodifiableList(Arrays.asList(styles));
+    }
+
+    /** {@inheritDoc} */
+    public PackedShape copy() {
+        return new PackedShape(this);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(FORMAT, getObjects());
+    }
+
+    /** {@inheritDoc} */
+    public int prepareToEncode(final Context context) {
+        context.put(Context.SHAPE_SIZE, 0);
+
+        final byte[] table = fieldSizes();
+        int numberOfBits = SHAPE_OVERHEAD;
+        int bits;
+        int coord = 0;
+        int style = 0;
+
+        for (int i = 0; i < ops.length; i++) {
+            if (ops[i] == LINE) {
+                bits = LINE_HEADER + lineBits(coordinate(coord),
+                        coordinate(coord + 1), table[i]);
+                coord += LINE_COORDS;
+                context.put(Context.SHAPE_SIZE,
+                        context.getInt(Context.SHAPE_SIZE) + bits);
+            } else if (ops[i] == CURVE) {
+                bits = CURVE_HEADER + (table[i] << 2);
+                coord += CURVE_COORDS;
+                context.put(Context.SHAPE_SIZE,
+                        context.getInt(Context.SHAPE_SIZE) + bits);
+            } else {
+                bits = styles[style++].prepareToEncode(context);
+            }
+            numberOfBits += bits;
+        }
+        return numberOfBits >>> BITS_TO_BYTES;
+    }
+
+    /** {@inheritDoc} */
+    public void encode(final SWFEncoder coder, final Context context)
+            throws IOException {
+        int bits = context.getInt(Context.FILL_SIZE) << Coder.TO_UPPER_NIB;
+        bits |= context.getInt(Context.LINE_SIZE);
+        coder.writeByte(bits);
+
+        final byte[] table = fieldSizes();
+        int coord = 0;
+        int style = 0;
+
+        for (int i = 0; i < ops.length; i++) {
+            if (ops[i] == LINE) {
+                encodeLine(coordinate(coord), coordinate(coord + 1),
+                        table[i], coder);
+                coord += LINE_COORDS;
+            } else if (ops[i] == CURVE) {
+                encodeCurve(coord, table[i], coder);
+                coord += CURVE_COORDS;
+            } else {
+                styles[style++].encode(coder, context);
+            }
+        }
+        coder.writeBits(0, END_WIDTH);
+        coder.alignToByte();
+    }
+
+    /**
+     * Decode a Line, following the type field, and add it to the shape.
+     *
+     * @param coder the decoder containing the encoded edge.
+     * @throws IOException if an error occurs while decoding the data.
+     */
+    private void decodeLine(final SWFDecoder coder) throws IOException {
+        final int size = coder.readBits(SIZE_WIDTH, false) + SIZE_OFFSET;
+        final int xCoord;
+        final int yCoord;
+
+        if (coder.readBits(1, false) == 0) {
+            if (coder.readBits(1, false) == 0) {
+                xCoord = coder.readBits(size, true);
+                yCoord = 0;
+            } else {
+                xCoord = 0;
+                yCoord = coder.readBits(size, true);
+            }
+        } else {
+            xCoord = coder.readBits(size, true);
+            yCoord = coder.readBits(size, true);
+        }
+        addLine(xCoord, yCoord);
+    }
+
+    /**
+     * Decode a Curve, following the type field, and add it to the shape.
+     *
+     * @param coder the decoder containing the encoded edge.
+     * @throws IOException if an error occurs while decoding the data.
+     */
+    private void decodeCurve(final SWFDecoder coder) throws IOException {
+        final int size = coder.readBits(SIZE_WIDTH, false) + SIZE_OFFSET;
+        final int controlX = coder.readBits(size, true);
+        final int controlY = coder.readBits(size, true);
+        final int anchorX = coder.readBits(size, true);
+        final int anchorY = coder.readBits(size, true);
+        addCurve(controlX, controlY, anchorX, anchorY);
+    }
+
+    /**
+     * Get the number of bits used to encode the coordinates of each edge,
+     * calculating them if the shape has not been encoded before. The table
+     * contains zero for the records that are not edges.
+     *
+     * @return the field sizes, indexed by record.
+     */
+    private byte[] fieldSizes() {
+        if (sizes == null) {
+            final byte[] table = new byte[ops.length];
+            int coord = 0;
+
+            for (int i = 0; i < ops.length; i++) {
+                if (ops[i] == LINE) {
+                    table[i] = (byte) Coder.maxSize(coordinate(coord),
+                            coordinate(coord + 1), 1);
+                    coord += LINE_COORDS;
+                } else if (ops[i] == CURVE) {
+                    table[i] = (byte) curveSize(coord);
+                    coord += CURVE_COORDS;
+                }
+            }
+            sizes = table;
+        }
+        return sizes;
+    }
+
+    /**
+     * Calculate the number of bits used to encode the coordinates of a Line.
+     * The encoding matches the one used by the Line class.
+     *
+     * @param xCoord the x-coordinate of the end point.
+     * @param yCoord the y-coordinate of the end point.
+     * @param size the number of bits used to encode each coordinate.
+     * @return the number of bits, excluding the header.
+     */
+    private static int lineBits(final int xCoord, final int yCoord,
+            final int size) {
+        final int bits;
+        if (xCoord != 0 && yCoord != 0) {
+            bits = size << 1;
+        } else {
+            bits = 1 + size;
+        }
+        return bits;
+    }
+
+    /**
+     * Calculate the size of the fields used to encode the points of a
+     * Curve.
+     *
+     * @param offset the index of the first coordinate.
+     * @return the number of bits used to encode each coordinate.
+     */
+    private int curveSize(final int offset) {
+        return Coder.maxSize(coordinate(offset), coordinate(offset + 1),
+                coordinate(offset + 2), coordinate(offset + 3), 1);
+    }
+
+    /**
+     * Encode a Line.
+     *
+     * @param xCoord the x-coordinate of the end point.
+     * @param yCoord the y-coordinate of the end point.
+     * @param size the number of bits used to encode each coordinate.
+     * @param coder the encoder the edge is written to.
+     * @throws IOException if an error occurs while encoding the data.
+     */
+    private static void encodeLine(final int xCoord, final int yCoord,
+            final int size, final SWFEncoder coder) throws IOException {
+        final boolean general = xCoord != 0 && yCoord != 0;
+
+        coder.writeBits(LINE_TYPE, TYPE_WIDTH);
+        coder.writeBits(size - SIZE_OFFSET, SIZE_WIDTH);
+        coder.writeBits(general ? 1 : 0, 1);
+
+        if (general) {
+            coder.writeBits(xCoord, size);
+            coder.writeBits(yCoord, size);
+        } else if (xCoord == 0) {
+            coder.writeBits(1, 1);
+            coder.writeBits(yCoord, size);
+        } else {
+            coder.writeBits(0, 1);
+            coder.writeBits(xCoord, size);
+        }
+    }
+
+    /**
+     * Encode a Curve.
+     *
+     * @param offset the index of the first coordinate.
+     * @param size the number of bits used to encode each coordinate.
+     * @param coder the encoder the edge is written to.
+     * @throws IOException if an error occurs while encoding the data.
+     */
+    private void encodeCurve(final int offset, final int size,
+            final SWFEncoder coder) throws IOException {
+        coder.writeBits(CURVE_TYPE, TYPE_WIDTH);
+        coder.writeBits(size - SIZE_OFFSET, SIZE_WIDTH);
+        for (int i = 0; i < CURVE_COORDS; i++) {
+            coder.writeBits(coordinate(offset + i), size);
+        }
+    }
+
+    /**
+     * Create the arrays used while the shape is built.
+     *
+     * @param records the expected number of records.
+     */
+    private void allocate(final int records) {
+        ops = new byte[records];
+        coords = new int[records * LINE_COORDS];
+        styles = new ShapeRecord[1];
+    }
+
+    /**
+     * Add a Line to the shape.
+     *
+     * @param xCoord the x-coordinate of the end point.
+     * @param yCoord the y-coordinate of the end point.
+     */
+    private void addLine(final int xCoord, final int yCoord) {
+        addOp(LINE);
+        ensureCoords(LINE_COORDS);
+        coords[coordCount++] = xCoord;
+        coords[coordCount++] = yCoord;
+    }
+
+    /**
+     * Add a Curve to the shape.
+     *
+     * @param controlX the x-coordinate of the control point.
+     * @param controlY the y-coordinate of the control point.
+     * @param anchorX the x-coordinate of the anchor point.
+     * @param anchorY the y-coordinate of the anchor point.
+     */
+    private void addCurve(final int controlX, final int controlY,
+            final int anchorX, final int anchorY) {
+        addOp(CURVE);
+        ensureCoords(CURVE_COORDS);
+        coords[coordCount++] = controlX;
+        coords[coordCount++] = controlY;
+        coords[coordCount++] = anchorX;
+        coords[coordCount++] = anchorY;
+    }
+
+    /**
+     * Add a record, other than an edge, to the shape.
+     *
+     * @param record the record.
+     */
+    private void addStyle(final ShapeRecord record) {
+        addOp(STYLE);
+        if (styleCount == styles.length) {
+            styles = Arrays.copyOf(styles, styleCount << 1);
+        }
+        styles[styleCount++] = record;
+    }
+
+    /**
+     * Add an opcode, growing the array if necessary.
+     *
+     * @param op the opcode.
+     */
+    private void addOp(final byte op) {
+        if (opCount == ops.length) {
+            ops = Arrays.copyOf(ops, opCount << 1);
+        }
+        ops[opCount++] = op;
+    }
+
+    /**
+     * Make sure there is room in the array for a number of coordinates.
+     *
+     * @param count the number of coordinates that will be added.
+     */
+    private void ensureCoords(final int count) {
+        if (coordCount + count > coords.length) {
+            coords = Arrays.copyOf(coords,
+                    Math.max(coords.length << 1, coordCount + count));
+        }
+    }
+
+    /**
+     * Reduce the arrays to the size of the data they contain once the shape
+     * has been built, replacing the coordinates with an array of shorts if
+     * they all fit in 16 bits.
+     */
+    private void trim() {
+        ops = Arrays.copyOf(ops, opCount);
+        styles = Arrays.copyOf(styles, styleCount);
+
+        boolean fits = true;
+        for (int i = 0; fits && i < coordCount; i++) {
+            fits = coords[i] >= Short.MIN_VALUE && coords[i] <= Short.MAX_VALUE;
+        }
+
+        if (fits) {
+            shortCoords = new short[coordCount];
+            for (int i = 0; i < coordCount; i++) {
+                shortCoords[i] = (short) coords[i];
+            }
+            coords = null;
+        } else {
+            coords = Arrays.copyOf(coords, coordCount);
+        }
+    }
+
+    /**
+     * Get a coordinate.
+     *
+     * @param index the index of the coordinate.
+     * @return the value of the coordinate.
+     */
+    private int coordinate(final int index) {
+        return coords == null ? shortCoords[index] : coords[index];
+    }
+
+    /**
+     * Records is the read-only list view of the records in the shape. The
+     * position of the last record read is kept so iterating through the list
+     * does not need to scan the opcodes from the start each time.
+     */
+    private final class Records extends AbstractList<ShapeRecord> {
+        /** The index of the next record. */
+        private transient int index;
+        /** The offset of the coordinates for the next record. */
+        private transient int coord;
+        /** The index of the style for the next record. */
+        private transient int style;
+
+        /** {@inheritDoc} */
+        @Override
+        public ShapeRecord get(final int location) {
+            if (location < 0 || location >= ops.length) {
+                throw new IndexOutOfBoundsException(String.valueOf(location));
+            }
+            if (location < index) {
+                index = 0;
+                coord = 0;
+                style = 0;
+            }
+            while (index < location) {
+                skip();
+            }
+
+            final ShapeRecord record;
+            if (ops[index] == LINE) {
+                record = new Line(coordinate(coord), coordinate(coord + 1));
+            } else if (ops[index] == CURVE) {
+                record = new Curve(coordinate(coord), coordinate(coord + 1),
+                        coordinate(coord + 2), coordinate(coord + 3));
+            } else {
+                record = styles[style];
+            }
+            skip();
+            return record;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int size() {
+            return ops.length;
+        }
+
+        /** Move to the next record. */
+        private void skip() {
+            if (ops[index] == LINE) {
+                coord += LINE_COORDS;
+            } else if (ops[index] == CURVE) {
+                coord += CURVE_COORDS;
+            } else {
+                style++;
+            }
+            index++;
+        }
+    }
+}
@@ -95,6 +95,11 @@ public final class PathsArePostscript implements MovieTag {
     private PathsArePostscript() {
     }
 
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.PATHS_ARE_POSTSCRIPT;
+    }
+
     /** {@inheritDoc} */
     public PathsArePostscript copy() {
         return this;
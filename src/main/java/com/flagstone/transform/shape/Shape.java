@@ -34,6 +34,7 @@ package com.flagstone.transform.shape;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.flagstone.transform.coder.Coder;
@@ -53,6 +54,13 @@ import com.flagstone.transform.coder.SWFFactory;
  * simplify the design of these classes and provides no added functionality
  * other than acting as a container class.
  * </p>
+ *
+ * <p>
+ * When a Shape is decoded using the default ShapeDecoder the records are
+ * stored in a PackedShape and are only converted to a list of ShapeRecord
+ * objects when getObjects() or add() is called. Shapes that are decoded and
+ * encoded again without being changed use much less memory.
+ * </p>
  */
 public final class Shape implements SWFEncodeable, Copyable<Shape> {
 
@@ -86,6 +94,8 @@ public final class Shape implements SWFEncodeable, Copyable<Shape> {
 
     /** List of ShapeRecords that draws the shape. */
     private List<ShapeRecord> objects;
+    /** The records in packed form until the list of objects is requested. */
+    private transient PackedShape packed;
     /** Indicates whether the ShapeRecords are already encoded. */
     private transient boolean isEncoded;
 
@@ -107,21 +117,25 @@ public final class Shape implements SWFEncodeable, Copyable<Shape> {
     @SuppressWarnings("PMD.AssignmentInOperand")
     public Shape(final SWFDecoder coder, final Context context)
             throws IOException {
-        objects = new ArrayList<ShapeRecord>();
-
-        final int sizes = coder.readByte();
-        context.put(Context.FILL_SIZE, (sizes & Coder.NIB1)
-                >> Coder.TO_LOWER_NIB);
-        context.put(Context.LINE_SIZE, sizes & Coder.NIB0);
-
         final SWFFactory<ShapeRecord> decoder = context.getRegistry()
             .getShapeDecoder();
 
-        while (coder.scanBits(6, false) != 0) {
-            decoder.getObject(objects, coder, context);
+        if (decoder instanceof ShapeDecoder) {
+            packed = new PackedShape(coder, context);
+        } else {
+            objects = new ArrayList<ShapeRecord>();
+
+            final int sizes = coder.readByte();
+            context.put(Context.FILL_SIZE, (sizes & Coder.NIB1)
+                    >> Coder.TO_LOWER_NIB);
+            context.put(Context.LINE_SIZE, sizes & Coder.NIB0);
+
+            while (coder.scanBits(6, false) != 0) {
+                decoder.getObject(objects, coder, context);
+            }
+            coder.readBits(6, false);
+            coder.alignToByte();
         }
-        coder.readBits(6, false);
-        coder.alignToByte();
     }
 
     /**
@@ -150,10 +164,14 @@ public final class Shape implements SWFEncodeable, Copyable<Shape> {
      *            a Shape object from which the values will be copied.
      */
     public Shape(final Shape object) {
-        objects = new ArrayList<ShapeRecord>(object.objects.size());
+        if (object.packed == null) {
+            objects = new ArrayList<ShapeRecord>(object.objects.size());
 
-        for (final ShapeRecord record : object.objects) {
-            objects.add(record.copy());
+            for (final ShapeRecord record : object.objects) {
+                objects.add(record.copy());
+            }
+        } else {
+            packed = object.packed.copy();
         }
     }
 
@@ -168,7 +186,7 @@ public final class Shape implements SWFEncodeable, Copyable<Shape> {
         if (anObject == null) {
             throw new IllegalArgumentException();
         }
-        objects.add(anObject);
+        getObjects().add(anObject);
         return this;
     }
 
@@ -178,9 +196,37 @@ public final class Shape implements SWFEncodeable, Copyable<Shape> {
      * @return the list of shape records.
      */
     public List<ShapeRecord> getObjects() {
+        if (packed != null) {
+            objects = new ArrayList<ShapeRecord>(packed.getObjects());
+            packed = null;
+        }
         return objects;
     }
 
+    /**
+     * Get the records, other than Lines and Curves, that define the shape.
+     * Unlike getObjects() a shape that was decoded in packed form is not
+     * unpacked so this is the cheapest way to find the styles used in a
+     * shape.
+     *
+     * @return a read-only list of the shape records that are not edges.
+     */
+    public List<ShapeRecord> getStyles() {
+        final List<ShapeRecord> list;
+        if (packed == null) {
+            final List<ShapeRecord> styles = new ArrayList<ShapeRecord>();
+            for (final ShapeRecord record : objects) {
+                if (!(record instanceof Line || record instanceof Curve)) {
+                    styles.add(record);
+                }
+            }
+            list = Collections.unmodifiableList(styles);
+        } else {
+            list = packed.getStyles();
+        }
+        return list;
+    }
+
     /**
      * Sets the list of shape records.
      *
@@ -192,6 +238,7 @@ public final class Shape implements SWFEncodeable, Copyable<Shape> {
             throw new IllegalArgumentException();
         }
         objects = list;
+        packed = null;
     }
 
     /** {@inheritDoc} */
@@ -201,7 +248,8 @@ public final class Shape implements SWFEncodeable, Copyable<Shape> {
 
     @Override
     public String toString() {
-        return String.format(FORMAT, objects);
+        return String.format(FORMAT,
+                packed == null ? objects : packed.getObjects());
     }
 
     /** {@inheritDoc} */
@@ -209,9 +257,12 @@ public final class Shape implements SWFEncodeable, Copyable<Shape> {
 
         int length = 0;
 
-        isEncoded = objects.size() == 1 && objects.get(0) instanceof ShapeData;
+        isEncoded = packed == null && objects.size() == 1
+                && objects.get(0) instanceof ShapeData;
 
-        if (isEncoded) {
+        if (packed != null) {
+            length += packed.prepareToEncode(context);
+        } else if (isEncoded) {
             length += objects.get(0).prepareToEncode(context);
         } else {
             context.put(Context.SHAPE_SIZE, 0);
@@ -231,11 +282,13 @@ public final class Shape implements SWFEncodeable, Copyable<Shape> {
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
 
-        if (isEncoded) {
+        if (packed != null) {
+            packed.encode(coder, context);
+        } else if (isEncoded) {
             objects.get(0).encode(coder, context);
         } else {
-            int bits = context.get(Context.FILL_SIZE) << Coder.TO_UPPER_NIB;
-            bits |= context.get(Context.LINE_SIZE);
+            int bits = context.getInt(Context.FILL_SIZE) << Coder.TO_UPPER_NIB;
+            bits |= context.getInt(Context.LINE_SIZE);
             coder.writeByte(bits);
 
             for (final ShapeRecord record : objects) {
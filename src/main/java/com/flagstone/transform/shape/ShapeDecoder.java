@@ -61,7 +61,7 @@ public final class ShapeDecoder implements SWFFactory<ShapeRecord> {
             final int flags = (type << Coder.TO_UPPER_NIB)
                     + coder.readBits(4, false);
 
-            final int tag = context.get(Context.TYPE);
+            final int tag = context.getInt(Context.TYPE);
             if (tag == MovieTypes.DEFINE_SHAPE_4
                     || tag == MovieTypes.DEFINE_MORPH_SHAPE_2) {
                 record = new ShapeStyle2(flags, coder, context);
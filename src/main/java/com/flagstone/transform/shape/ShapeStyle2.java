@@ -109,8 +109,8 @@ public final class ShapeStyle2 implements ShapeRecord {
 
     public ShapeStyle2(final int flags, final SWFDecoder coder,
             final Context context) throws IOException {
-        int numberOfFillBits = context.get(Context.FILL_SIZE);
-        int numberOfLineBits = context.get(Context.LINE_SIZE);
+        int numberOfFillBits = context.getInt(Context.FILL_SIZE);
+        int numberOfLineBits = context.getInt(Context.LINE_SIZE);
 
         hasStyles = (flags & Coder.BIT4) != 0;
         hasLine = (flags & Coder.BIT3) != 0;
@@ -482,11 +482,11 @@ public final class ShapeStyle2 implements ShapeRecord {
             numberOfBits += 5 + fieldSize * 2;
         }
 
-        numberOfBits += hasFill ? context.get(Context.FILL_SIZE) : 0;
-        numberOfBits += hasAlt ? context.get(Context.FILL_SIZE) : 0;
-        numberOfBits += (hasLine) ? context.get(Context.LINE_SIZE) : 0;
+        numberOfBits += hasFill ? context.getInt(Context.FILL_SIZE) : 0;
+        numberOfBits += hasAlt ? context.getInt(Context.FILL_SIZE) : 0;
+        numberOfBits += (hasLine) ? context.getInt(Context.LINE_SIZE) : 0;
 
-        context.put(Context.SHAPE_SIZE, context.get(Context.SHAPE_SIZE)
+        context.put(Context.SHAPE_SIZE, context.getInt(Context.SHAPE_SIZE)
                 + numberOfBits);
 
         if (hasStyles) {
@@ -507,7 +507,7 @@ public final class ShapeStyle2 implements ShapeRecord {
                     .contains(Context.ARRAY_EXTENDED);
 
             int numberOfStyleBits = 0;
-            final int flushBits = context.get(Context.SHAPE_SIZE);
+            final int flushBits = context.getInt(Context.SHAPE_SIZE);
 
             numberOfStyleBits += (flushBits % 8 > 0)
             ? 8 - (flushBits % 8) : 0;
@@ -531,7 +531,7 @@ public final class ShapeStyle2 implements ShapeRecord {
 
             context.put(Context.FILL_SIZE, numberOfFillBits);
             context.put(Context.LINE_SIZE, numberOfLineBits);
-            context.put(Context.SHAPE_SIZE, context.get(Context.SHAPE_SIZE)
+            context.put(Context.SHAPE_SIZE, context.getInt(Context.SHAPE_SIZE)
                     + numberOfStyleBits);
 
             numberOfBits += numberOfStyleBits;
@@ -561,15 +561,15 @@ public final class ShapeStyle2 implements ShapeRecord {
         }
 
         if (hasFill) {
-            coder.writeBits(fillStyle, context.get(Context.FILL_SIZE));
+            coder.writeBits(fillStyle, context.getInt(Context.FILL_SIZE));
         }
 
         if (hasAlt) {
-            coder.writeBits(altFillStyle, context.get(Context.FILL_SIZE));
+            coder.writeBits(altFillStyle, context.getInt(Context.FILL_SIZE));
         }
 
         if (hasLine) {
-            coder.writeBits(lineStyle, context.get(Context.LINE_SIZE));
+            coder.writeBits(lineStyle, context.getInt(Context.LINE_SIZE));
         }
 
         if (hasStyles) {
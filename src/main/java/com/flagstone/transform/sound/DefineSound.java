@@ -37,6 +37,8 @@ import java.util.Arrays;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.DefineTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -69,7 +71,7 @@ import com.flagstone.transform.exception.IllegalArgumentValueException;
  * @see SoundInfo
  * @see StartSound
  */
-public final class DefineSound implements DefineTag {
+public final class DefineSound implements DefineTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineSound: { identifier=%d;"
@@ -94,6 +96,9 @@ public final class DefineSound implements DefineTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineSound object using values encoded
      * in the Flash binary format.
@@ -204,6 +209,7 @@ public final class DefineSound implements DefineTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -273,6 +279,7 @@ public final class DefineSound implements DefineTag {
      *            the format for the sound.
      */
     public void setFormat(final SoundFormat encoding) {
+        encoded = null;
         format = encoding.getValue();
     }
 
@@ -285,6 +292,7 @@ public final class DefineSound implements DefineTag {
      *            SoundRate.KHZ_44K.
      */
     public void setRate(final int samplingRate) {
+        encoded = null;
         if ((samplingRate != SoundRate.KHZ_5K)
                 && (samplingRate != SoundRate.KHZ_11K)
                 && (samplingRate != SoundRate.KHZ_22K)
@@ -305,6 +313,7 @@ public final class DefineSound implements DefineTag {
      *            or 2 (Stereo).
      */
     public void setChannelCount(final int channels) {
+        encoded = null;
         if ((channels < 1) || (channels > 2)) {
             throw new IllegalArgumentRangeException(1, 2, channels);
         }
@@ -318,6 +327,7 @@ public final class DefineSound implements DefineTag {
      *            the size of sound samples in bytes. Must be either 1 or 2.
      */
     public void setSampleSize(final int size) {
+        encoded = null;
         if ((size < 1) || (size > 2)) {
             throw new IllegalArgumentRangeException(1, 2, size);
         }
@@ -331,6 +341,7 @@ public final class DefineSound implements DefineTag {
      *            the number of samples for the sound.
      */
     public void setSampleCount(final int count) {
+        encoded = null;
         if (count < 1) {
             throw new IllegalArgumentRangeException(1,
                     Integer.MAX_VALUE, count);
@@ -345,12 +356,33 @@ public final class DefineSound implements DefineTag {
      *            the sound data. Must not be null.
      */
     public void setSound(final byte[] bytes) {
+        encoded = null;
         if (bytes == null) {
             throw new IllegalArgumentException();
         }
         sound = Arrays.copyOf(bytes, bytes.length);
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_SOUND;
+    }
+
     /** {@inheritDoc} */
     public DefineSound copy() {
         return new DefineSound(this);
@@ -365,6 +397,9 @@ public final class DefineSound implements DefineTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         length = 7;
         length += sound.length;
@@ -376,6 +411,10 @@ public final class DefineSound implements DefineTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_SOUND
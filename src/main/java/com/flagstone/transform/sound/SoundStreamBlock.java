@@ -37,6 +37,8 @@ import java.util.Arrays;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -57,7 +59,7 @@ import com.flagstone.transform.coder.SWFEncoder;
  * @see SoundStreamHead
  * @see SoundStreamHead2
  */
-public final class SoundStreamBlock implements MovieTag {
+public final class SoundStreamBlock implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "SoundStreamBlock: {"
@@ -69,6 +71,9 @@ public final class SoundStreamBlock implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a SoundStreamBlock object using values encoded
      * in the Flash binary format.
@@ -127,12 +132,33 @@ public final class SoundStreamBlock implements MovieTag {
      *            a list of bytes containing the sound data. Must not be null.
      */
     public void setSound(final byte[] bytes) {
+        encoded = null;
         if (bytes == null) {
             throw new IllegalArgumentException();
         }
         sound = Arrays.copyOf(bytes, bytes.length);
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.SOUND_STREAM_BLOCK;
+    }
+
     /** {@inheritDoc} */
     public SoundStreamBlock copy() {
         return new SoundStreamBlock(this);
@@ -146,6 +172,9 @@ public final class SoundStreamBlock implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = sound.length;
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
                 : Coder.SHORT_HEADER) + length;
@@ -154,6 +183,10 @@ public final class SoundStreamBlock implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.SOUND_STREAM_BLOCK
@@ -37,6 +37,8 @@ import java.io.IOException;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -81,7 +83,7 @@ import com.flagstone.transform.exception.IllegalArgumentValueException;
  * @see SoundStreamBlock
  * @see SoundStreamHead2
  */
-public final class SoundStreamHead implements MovieTag {
+public final class SoundStreamHead implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "SoundStreamHead: { format=%s;"
@@ -111,6 +113,9 @@ public final class SoundStreamHead implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a SoundStreamHead object using values encoded
      * in the Flash binary format.
@@ -222,6 +227,7 @@ public final class SoundStreamHead implements MovieTag {
      *            ADPCM or MP3 from SoundFormat.
      */
     public void setFormat(final SoundFormat encoding) {
+        encoded = null;
         format = encoding.getValue();
     }
 
@@ -299,6 +305,7 @@ public final class SoundStreamHead implements MovieTag {
      *            the recommended rate for playing the sound.
      */
     public void setPlayRate(final int rate) {
+        encoded = null;
         if ((rate != SoundRate.KHZ_5K) && (rate != SoundRate.KHZ_11K)
                 && (rate != SoundRate.KHZ_22K) && (rate != SoundRate.KHZ_44K)) {
             throw new IllegalArgumentValueException(
@@ -315,6 +322,7 @@ public final class SoundStreamHead implements MovieTag {
      *            the recommended number of playback channels.
      */
     public void setPlayChannels(final int channels) {
+        encoded = null;
         if ((channels < 1) || (channels > 2)) {
             throw new IllegalArgumentRangeException(1, 2, channels);
         }
@@ -329,6 +337,7 @@ public final class SoundStreamHead implements MovieTag {
      *            the recommended sample size for playing the sound.
      */
     public void setPlaySampleSize(final int playSize) {
+        encoded = null;
         if ((playSize < 1) || (playSize > 2)) {
             throw new IllegalArgumentRangeException(1, 2, playSize);
         }
@@ -343,6 +352,7 @@ public final class SoundStreamHead implements MovieTag {
      *            the rate at which the streaming sound was sampled.
      */
     public void setStreamRate(final int rate) {
+        encoded = null;
         if ((rate != SoundRate.KHZ_5K) && (rate != SoundRate.KHZ_11K)
                 && (rate != SoundRate.KHZ_22K) && (rate != SoundRate.KHZ_44K)) {
             throw new IllegalArgumentValueException(
@@ -359,6 +369,7 @@ public final class SoundStreamHead implements MovieTag {
      *            the number of channels in the streaming sound.
      */
     public void setStreamChannels(final int channels) {
+        encoded = null;
         if ((channels < 1) || (channels > 2)) {
             throw new IllegalArgumentRangeException(1, 2, channels);
         }
@@ -372,6 +383,7 @@ public final class SoundStreamHead implements MovieTag {
      *            the sample size for the sound.
      */
     public void setStreamSampleSize(final int size) {
+        encoded = null;
         if ((size < 1) || (size > 2)) {
             throw new IllegalArgumentRangeException(1, 2, size);
         }
@@ -386,6 +398,7 @@ public final class SoundStreamHead implements MovieTag {
      *            object.
      */
     public void setStreamSampleCount(final int count) {
+        encoded = null;
         if (count < 0) {
             throw new IllegalArgumentRangeException(0,
                     Integer.MAX_VALUE, count);
@@ -413,9 +426,30 @@ public final class SoundStreamHead implements MovieTag {
      *            should be 0 for other sound formats.
      */
     public void setLatency(final int delay) {
+        encoded = null;
         latency = delay;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.SOUND_STREAM_HEAD;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public SoundStreamHead copy() {
@@ -432,6 +466,9 @@ public final class SoundStreamHead implements MovieTag {
     /** {@inheritDoc} */
     @Override
 	public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         length = 4;
 
@@ -446,6 +483,10 @@ public final class SoundStreamHead implements MovieTag {
     @Override
 	public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.SOUND_STREAM_HEAD
                     << Coder.LENGTH_FIELD_SIZE) | Coder.IS_EXTENDED);
@@ -37,6 +37,8 @@ import java.io.IOException;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -81,7 +83,7 @@ import com.flagstone.transform.exception.IllegalArgumentValueException;
  * @see SoundStreamBlock
  * @see SoundStreamHead
  */
-public final class SoundStreamHead2 implements MovieTag {
+public final class SoundStreamHead2 implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "SoundStreamHead2: { format=%s;"
@@ -120,6 +122,9 @@ public final class SoundStreamHead2 implements MovieTag {
      */
     private transient int reserved = 0;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a SoundStreamHead2 object using values encoded
      * in the Flash binary format.
@@ -236,6 +241,7 @@ public final class SoundStreamHead2 implements MovieTag {
      *            NATIVE_PCM, ADPCM, MP3, PCM or NELLYMOSER from SoundFormat.
      */
     public void setFormat(final SoundFormat encoding) {
+        encoded = null;
         format = encoding.getValue();
     }
 
@@ -313,6 +319,7 @@ public final class SoundStreamHead2 implements MovieTag {
      *            the recommended rate for playing the sound.
      */
     public void setPlayRate(final int rate) {
+        encoded = null;
         if ((rate != SoundRate.KHZ_5K) && (rate != SoundRate.KHZ_11K)
                 && (rate != SoundRate.KHZ_22K) && (rate != SoundRate.KHZ_44K)) {
             throw new IllegalArgumentValueException(
@@ -329,6 +336,7 @@ public final class SoundStreamHead2 implements MovieTag {
      *            the recommended number of playback channels.
      */
     public void setPlayChannels(final int channels) {
+        encoded = null;
         if ((channels < 1) || (channels > 2)) {
             throw new IllegalArgumentRangeException(1, 2, channels);
         }
@@ -343,6 +351,7 @@ public final class SoundStreamHead2 implements MovieTag {
      *            the recommended sample size for playing the sound.
      */
     public void setPlaySampleSize(final int playSize) {
+        encoded = null;
         if ((playSize < 1) || (playSize > 2)) {
             throw new IllegalArgumentRangeException(1, 2, playSize);
         }
@@ -357,6 +366,7 @@ public final class SoundStreamHead2 implements MovieTag {
      *            the rate at which the streaming sound was sampled.
      */
     public void setStreamRate(final int rate) {
+        encoded = null;
         if ((rate != SoundRate.KHZ_5K) && (rate != SoundRate.KHZ_11K)
                 && (rate != SoundRate.KHZ_22K) && (rate != SoundRate.KHZ_44K)) {
             throw new IllegalArgumentValueException(
@@ -373,6 +383,7 @@ public final class SoundStreamHead2 implements MovieTag {
      *            the number of channels in the streaming sound.
      */
     public void setStreamChannels(final int channels) {
+        encoded = null;
         if ((channels < 1) || (channels > 2)) {
             throw new IllegalArgumentRangeException(1, 2, channels);
         }
@@ -386,6 +397,7 @@ public final class SoundStreamHead2 implements MovieTag {
      *            the sample size for the sound.
      */
     public void setStreamSampleSize(final int size) {
+        encoded = null;
         if ((size < 1) || (size > 2)) {
             throw new IllegalArgumentRangeException(1, 2, size);
         }
@@ -400,6 +412,7 @@ public final class SoundStreamHead2 implements MovieTag {
      *            object.
      */
     public void setStreamSampleCount(final int count) {
+        encoded = null;
         if (count < 0) {
             throw new IllegalArgumentRangeException(0,
                     Integer.MAX_VALUE, count);
@@ -427,9 +440,30 @@ public final class SoundStreamHead2 implements MovieTag {
      *            should be 0 for other sound formats.
      */
     public void setLatency(final int delay) {
+        encoded = null;
         latency = delay;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.SOUND_STREAM_HEAD_2;
+    }
+
     /** {@inheritDoc} */
     @Override
 	public SoundStreamHead2 copy() {
@@ -446,6 +480,9 @@ public final class SoundStreamHead2 implements MovieTag {
     /** {@inheritDoc} */
     @Override
 	public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         length = 4;
 
@@ -460,6 +497,10 @@ public final class SoundStreamHead2 implements MovieTag {
     @Override
 	public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.SOUND_STREAM_HEAD_2
@@ -37,6 +37,8 @@ import java.io.IOException;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -56,7 +58,7 @@ import com.flagstone.transform.coder.SWFEncoder;
  * @see DefineSound
  * @see SoundInfo
  */
-public final class StartSound implements MovieTag {
+public final class StartSound implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "StartSound: { sound=%s}";
@@ -67,6 +69,9 @@ public final class StartSound implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a StartSound object using values encoded
      * in the Flash binary format.
@@ -117,6 +122,7 @@ public final class StartSound implements MovieTag {
      * @return the SoundInfo object that controls the playback.
      */
     public SoundInfo getSound() {
+        encoded = null;
         return sound;
     }
 
@@ -128,12 +134,33 @@ public final class StartSound implements MovieTag {
      *            not be null.
      */
     public void setSound(final SoundInfo aSound) {
+        encoded = null;
         if (aSound == null) {
             throw new IllegalArgumentException();
         }
         sound = aSound;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.START_SOUND;
+    }
+
     /** {@inheritDoc} */
     public StartSound copy() {
         return new StartSound(this);
@@ -146,6 +173,9 @@ public final class StartSound implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         length = sound.prepareToEncode(context);
         return (length > Coder.HEADER_LIMIT ? Coder.LONG_HEADER
                 : Coder.SHORT_HEADER) + length;
@@ -154,6 +184,10 @@ public final class StartSound implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.START_SOUND
@@ -37,6 +37,8 @@ import java.util.List;
 
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -66,7 +68,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  *
  * @see TextSpan
  */
-public final class DefineText implements StaticTextTag {
+public final class DefineText implements StaticTextTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineText: { identifier=%d;"
@@ -88,6 +90,9 @@ public final class DefineText implements StaticTextTag {
     /** Number of bits used to encode each advance. */
     private transient int advanceBits;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineText object using values encoded
      * in the Flash binary format.
@@ -112,7 +117,7 @@ public final class DefineText implements StaticTextTag {
         }
         coder.mark();
         identifier = coder.readUnsignedShort();
-        bounds = new Bounds(coder);
+        bounds = context.intern(new Bounds(coder));
 
         /*
          * This code is used to get round a bug in Flash - sometimes 16, 8-bit
@@ -133,7 +138,7 @@ public final class DefineText implements StaticTextTag {
         }
         coder.unmark();
 
-        transform = new CoordTransform(coder);
+        transform = context.intern(new CoordTransform(coder));
 
         glyphBits = coder.readByte();
         advanceBits = coder.readByte();
@@ -204,6 +209,7 @@ public final class DefineText implements StaticTextTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -252,6 +258,7 @@ public final class DefineText implements StaticTextTag {
      * @return the list of text blocks.
      */
     public List<TextSpan> getSpans() {
+        encoded = null;
         return spans;
     }
 
@@ -262,6 +269,7 @@ public final class DefineText implements StaticTextTag {
      *            the bounding rectangle enclosing the text. Must not be null.
      */
     public void setBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
@@ -277,6 +285,7 @@ public final class DefineText implements StaticTextTag {
      *            text. Must not be null.
      */
     public void setTransform(final CoordTransform matrix) {
+        encoded = null;
         if (matrix == null) {
             throw new IllegalArgumentException();
         }
@@ -291,12 +300,33 @@ public final class DefineText implements StaticTextTag {
      *            displayed. Must not be null.
      */
     public void setSpans(final List<TextSpan> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
         spans = list;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_TEXT;
+    }
+
     /** {@inheritDoc} */
     public DefineText copy() {
         return new DefineText(this);
@@ -309,6 +339,9 @@ public final class DefineText implements StaticTextTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         glyphBits = calculateSizeForGlyphs();
         advanceBits = calculateSizeForAdvances();
 
@@ -336,6 +369,10 @@ public final class DefineText implements StaticTextTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_TEXT
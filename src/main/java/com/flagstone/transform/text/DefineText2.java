@@ -37,6 +37,8 @@ import java.util.List;
 
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -65,7 +67,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * @see TextSpan
  * @see DefineText
  */
-public final class DefineText2 implements StaticTextTag {
+public final class DefineText2 implements StaticTextTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineText2: { identifier=%d;"
@@ -87,6 +89,9 @@ public final class DefineText2 implements StaticTextTag {
     /** Number of bits used to encode each advance. */
     private transient int advanceBits;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineText2 object using values encoded
      * in the Flash binary format.
@@ -111,7 +116,7 @@ public final class DefineText2 implements StaticTextTag {
         }
         coder.mark();
         identifier = coder.readUnsignedShort();
-        bounds = new Bounds(coder);
+        bounds = context.intern(new Bounds(coder));
 
         /*
          * This code is used to get round a bug in Flash - sometimes 16, 8-bit
@@ -132,7 +137,7 @@ public final class DefineText2 implements StaticTextTag {
         }
         coder.unmark();
 
-        transform = new CoordTransform(coder);
+        transform = context.intern(new CoordTransform(coder));
 
         glyphBits = coder.readByte();
         advanceBits = coder.readByte();
@@ -205,6 +210,7 @@ public final class DefineText2 implements StaticTextTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -253,6 +259,7 @@ public final class DefineText2 implements StaticTextTag {
      * @return the list of text blocks.
      */
     public List<TextSpan> getSpans() {
+        encoded = null;
         return spans;
     }
 
@@ -263,6 +270,7 @@ public final class DefineText2 implements StaticTextTag {
      *            the bounding rectangle enclosing the text. Must not be null.
      */
     public void setBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
@@ -278,6 +286,7 @@ public final class DefineText2 implements StaticTextTag {
      *            text. Must not be null.
      */
     public void setTransform(final CoordTransform matrix) {
+        encoded = null;
         if (matrix == null) {
             throw new IllegalArgumentException();
         }
@@ -292,12 +301,33 @@ public final class DefineText2 implements StaticTextTag {
      *            displayed. Must not be null.
      */
     public void setSpans(final List<TextSpan> list) {
+        encoded = null;
         if (list == null) {
             throw new IllegalArgumentException();
         }
         spans = list;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_TEXT_2;
+    }
+
     /** {@inheritDoc} */
     public DefineText2 copy() {
         return new DefineText2(this);
@@ -310,6 +340,9 @@ public final class DefineText2 implements StaticTextTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         glyphBits = calculateSizeForGlyphs();
         advanceBits = calculateSizeForAdvances();
 
@@ -339,6 +372,10 @@ public final class DefineText2 implements StaticTextTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_TEXT_2
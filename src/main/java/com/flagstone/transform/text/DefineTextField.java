@@ -36,6 +36,8 @@ import java.io.IOException;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.DefineTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -215,7 +217,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
     "PMD.TooManyMethods",
     "PMD.CyclomaticComplexity",
     "PMD.ExcessivePublicCount" })
-public final class DefineTextField implements DefineTag {
+public final class DefineTextField implements DefineTag, Passthrough {
 
     /** The maximum size of a dimension when defining the field layout. */
     private static final int MAX_SPACE = 65535;
@@ -274,6 +276,9 @@ public final class DefineTextField implements DefineTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineTextField object using values encoded
      * in the Flash binary format.
@@ -300,7 +305,7 @@ public final class DefineTextField implements DefineTag {
         identifier = coder.readUnsignedShort();
         context.put(Context.TRANSPARENT, 1);
 
-        bounds = new Bounds(coder);
+        bounds = context.intern(new Bounds(coder));
 
         int bits = coder.readByte();
         final boolean containsText = (bits & Coder.BIT7) != 0;
@@ -332,7 +337,7 @@ public final class DefineTextField implements DefineTag {
         }
 
         if (containsColor) {
-            color = new Color(coder, context);
+            color = context.intern(new Color(coder, context));
         }
 
         if (containsMaxLength) {
@@ -410,6 +415,7 @@ public final class DefineTextField implements DefineTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -506,6 +512,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setAutoSize(final boolean aFlag) {
+        encoded = null;
         autoSize = aFlag;
         return this;
     }
@@ -658,6 +665,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setBounds(final Bounds rect) {
+        encoded = null;
         if (rect == null) {
             throw new IllegalArgumentException();
         }
@@ -673,6 +681,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setWordWrapped(final boolean aFlag) {
+        encoded = null;
         wordWrapped = aFlag;
         return this;
     }
@@ -685,6 +694,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setMultiline(final boolean aFlag) {
+        encoded = null;
         multiline = aFlag;
         return this;
     }
@@ -697,6 +707,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setPassword(final boolean aFlag) {
+        encoded = null;
         password = aFlag;
         return this;
     }
@@ -709,6 +720,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setReadOnly(final boolean aFlag) {
+        encoded = null;
         readOnly = aFlag;
         return this;
     }
@@ -721,6 +733,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setSelectable(final boolean aFlag) {
+        encoded = null;
         selectable = aFlag;
         return this;
     }
@@ -733,6 +746,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
    public DefineTextField setBordered(final boolean aFlag) {
+        encoded = null;
         bordered = aFlag;
         return this;
     }
@@ -745,6 +759,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setHtml(final boolean aFlag) {
+        encoded = null;
         html = aFlag;
         return this;
     }
@@ -761,6 +776,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setEmbedded(final boolean aFlag) {
+        encoded = null;
         embedded = aFlag;
         return this;
     }
@@ -774,6 +790,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setFontIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
              throw new IllegalArgumentRangeException(
                      1, Coder.USHORT_MAX, uid);
@@ -790,6 +807,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setFontClass(final String name) {
+        encoded = null;
         fontClass = name;
         fontIdentifier = 0;
         return this;
@@ -803,6 +821,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setFontHeight(final int aNumber) {
+        encoded = null;
         if ((aNumber < 0) || (aNumber > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     0, Coder.USHORT_MAX, aNumber);
@@ -820,6 +839,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setColor(final Color aColor) {
+        encoded = null;
         if (aColor == null) {
             color = new Color(0, 0, 0);
         } else {
@@ -838,6 +858,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setMaxLength(final int aNumber) {
+        encoded = null;
         if ((aNumber < 0) || (aNumber > MAX_SPACE)) {
             throw new IllegalArgumentRangeException(0, MAX_SPACE, aNumber);
         }
@@ -855,6 +876,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setAlignment(final HorizontalAlign align) {
+        encoded = null;
         switch(align) {
         case LEFT:
             alignment = 0;
@@ -882,6 +904,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setLeftMargin(final Integer aNumber) {
+        encoded = null;
         if ((aNumber != null) && ((aNumber < 0) || (aNumber > MAX_SPACE))) {
             throw new IllegalArgumentRangeException(0, MAX_SPACE, aNumber);
         }
@@ -897,6 +920,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setRightMargin(final Integer aNumber) {
+        encoded = null;
         if ((aNumber != null) && ((aNumber < 0) || (aNumber > MAX_SPACE))) {
             throw new IllegalArgumentRangeException(0, MAX_SPACE, aNumber);
         }
@@ -913,6 +937,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setIndent(final Integer aNumber) {
+        encoded = null;
         if ((aNumber != null) && ((aNumber < 0) || (aNumber > MAX_SPACE))) {
             throw new IllegalArgumentRangeException(0, MAX_SPACE, aNumber);
         }
@@ -928,6 +953,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setLeading(final Integer aNumber) {
+        encoded = null;
         if ((aNumber < Coder.SHORT_MIN)
                 || (aNumber > Coder.SHORT_MAX)) {
             throw new IllegalArgumentRangeException(
@@ -946,6 +972,7 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setVariableName(final String aString) {
+        encoded = null;
         variableName = aString;
         return this;
     }
@@ -958,10 +985,31 @@ public final class DefineTextField implements DefineTag {
      * @return this object.
      */
     public DefineTextField setInitialText(final String aString) {
+        encoded = null;
         initialText = aString;
         return this;
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_TEXT_FIELD;
+    }
+
     /** {@inheritDoc} */
     public DefineTextField copy() {
         return new DefineTextField(this);
@@ -1003,6 +1051,9 @@ public final class DefineTextField implements DefineTag {
     /** {@inheritDoc} */
     @SuppressWarnings("PMD.NPathComplexity")
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE:OFF
         context.put(Context.TRANSPARENT, 1);
 
@@ -1027,6 +1078,10 @@ public final class DefineTextField implements DefineTag {
     @SuppressWarnings("PMD.CyclomaticComplexity")
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_TEXT_FIELD
@@ -85,8 +85,8 @@ public final class GlyphIndex implements SWFEncodeable {
      */
     public GlyphIndex(final SWFDecoder coder, final Context context)
             throws IOException {
-        index = coder.readBits(context.get(Context.GLYPH_SIZE), false);
-        advance = coder.readBits(context.get(Context.ADVANCE_SIZE), true);
+        index = coder.readBits(context.getInt(Context.GLYPH_SIZE), false);
+        advance = coder.readBits(context.getInt(Context.ADVANCE_SIZE), true);
     }
 
     /**
@@ -167,15 +167,15 @@ public final class GlyphIndex implements SWFEncodeable {
     /** {@inheritDoc} */
     @Override
 	public int prepareToEncode(final Context context) {
-        return context.get(Context.GLYPH_SIZE)
-                + context.get(Context.ADVANCE_SIZE);
+        return context.getInt(Context.GLYPH_SIZE)
+                + context.getInt(Context.ADVANCE_SIZE);
     }
 
     /** {@inheritDoc} */
     @Override
 	public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
-        coder.writeBits(index, context.get(Context.GLYPH_SIZE));
-        coder.writeBits(advance, context.get(Context.ADVANCE_SIZE));
+        coder.writeBits(index, context.getInt(Context.GLYPH_SIZE));
+        coder.writeBits(advance, context.getInt(Context.ADVANCE_SIZE));
     }
 }
@@ -36,6 +36,8 @@ import java.io.IOException;
 
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -71,7 +73,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * thickness and sharpness values.
  * </p>
  */
-public final class TextSettings implements MovieTag {
+public final class TextSettings implements MovieTag, Passthrough {
     /**
      * Grid specifies how letters are aligned with respect to the pixel grid on
      * a screen.
@@ -98,6 +100,9 @@ public final class TextSettings implements MovieTag {
     /** Control for the sharpness of the line. */
     private transient int sharpness;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises an TextSettings using values encoded in the Flash
      * binary format.
@@ -176,6 +181,7 @@ public final class TextSettings implements MovieTag {
      *            DefineTextField object. Must be in the range 1..65535.
      */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -202,6 +208,7 @@ public final class TextSettings implements MovieTag {
      * for the standard rendering engine.
      */
     public void useAdvanced(final boolean flag) {
+        encoded = null;
         rendering |= Coder.BIT6;
     }
 
@@ -232,6 +239,7 @@ public final class TextSettings implements MovieTag {
      *            PIXEL or SUBPIXEL.
      */
     public void setGrid(final Grid alignment) {
+        encoded = null;
 
         rendering &= ~(Coder.BIT3 | Coder.BIT4 | Coder.BIT5 | Coder.BIT6);
 
@@ -266,6 +274,7 @@ public final class TextSettings implements MovieTag {
      *            engine.
      */
     public void setThickness(final float level) {
+        encoded = null;
         thickness = Float.floatToIntBits(level);
     }
 
@@ -288,9 +297,30 @@ public final class TextSettings implements MovieTag {
      *            engine.
      */
     public void setSharpness(final float level) {
+        encoded = null;
         this.sharpness = Float.floatToIntBits(level);
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.TEXT_SETTINGS;
+    }
+
     /** {@inheritDoc} */
     public TextSettings copy() {
         return new TextSettings(this);
@@ -305,6 +335,9 @@ public final class TextSettings implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         return 14;
     }
@@ -312,6 +345,10 @@ public final class TextSettings implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 2 LINES
         coder.writeShort((MovieTypes.TEXT_SETTINGS << Coder.LENGTH_FIELD_SIZE)
                 | 12);
@@ -157,7 +157,7 @@ public final class TextSpan implements SWFEncodeable, Copyable<TextSpan> {
             identifier = coder.readUnsignedShort();
         }
         if (hasColor) {
-            color = new Color(coder, context);
+            color = context.intern(new Color(coder, context));
         }
         if (hasX) {
             offsetX = coder.readSignedShort();
@@ -423,8 +423,8 @@ public final class TextSpan implements SWFEncodeable, Copyable<TextSpan> {
         length += 1;
 
         if (!characters.isEmpty()) {
-            final int glyphSize = context.get(Context.GLYPH_SIZE);
-            final int advanceSize = context.get(Context.ADVANCE_SIZE);
+            final int glyphSize = context.getInt(Context.GLYPH_SIZE);
+            final int advanceSize = context.getInt(Context.ADVANCE_SIZE);
 
             int numberOfBits = (glyphSize + advanceSize) * characters.size();
             numberOfBits += (numberOfBits % 8 > 0) ? 8 - (numberOfBits % 8) : 0;
@@ -0,0 +1,161 @@
+/*
+ * Batch.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.tools;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.flagstone.transform.Movie;
+
+/**
+ * Batch is a command line front end for BatchProcessor.
+ *
+ * <pre>
+ * java com.flagstone.transform.tools.Batch [-threads n] [-memory mb]
+ *     [-out directory] [-job class] file|directory ...
+ * </pre>
+ *
+ * <p>
+ * Directories are searched for files with the extension .swf. The job is
+ * the name of a class that implements MovieJob and has a public constructor
+ * with no arguments. If no job is given each movie is decoded and encoded
+ * again unchanged. Encoded movies are written to the output directory, which
+ * is created if necessary, keeping the directories of the files processed;
+ * without -out the movies are encoded and discarded. The files that could
+ * not be processed are listed along with the report of the throughput.
+ * </p>
+ */
+public final class Batch {
+
+    /** The exit status if all the files were processed. */
+    private static final int SUCCESS = 0;
+    /** The exit status if one or more files could not be processed. */
+    private static final int FAILED = 1;
+    /** The exit status if the arguments are not valid. */
+    private static final int USAGE = 2;
+    /** The description of the command line arguments. */
+    private static final String USAGE_TEXT = "Usage: java "
+            + Batch.class.getName() + " [-threads n] [-memory mb]"
+            + " [-out directory] [-job class] file|directory ...";
+
+    /**
+     * Run the batch from the command line.
+     *
+     * @param args array of command line arguments.
+     */
+    public static void main(final String[] args) {
+        System.exit(run(args, System.out, System.err)); //NOPMD
+    }
+
+    /**
+     * Process the files named on the command line.
+     *
+     * @param args array of command line arguments.
+     * @param out the stream the report is written to.
+     * @param err the stream errors are written to.
+     * @return the exit status: 0 if all the files were processed, 1 if some
+     * could not be processed and 2 if the arguments are not valid.
+     */
+    static int run(final String[] args, final PrintStream out,
+            final PrintStream err) {
+        final BatchProcessor processor = new BatchProcessor();
+        final List<File> files = new ArrayList<File>();
+        MovieJob job = new Copy();
+
+        try {
+            File file;
+            for (int i = 0; i < args.length; i++) {
+                if ("-threads".equals(args[i]) && i + 1 < args.length) {
+                    processor.setThreads(Integer.parseInt(args[++i]));
+                } else if ("-memory".equals(args[i]) && i + 1 < args.length) {
+                    processor.setMemoryBudget(Integer.parseInt(args[++i]));
+                } else if ("-out".equals(args[i]) && i + 1 < args.length) {
+                    processor.setOutputDirectory(new File(args[++i]));
+                } else if ("-job".equals(args[i]) && i + 1 < args.length) {
+                    job = (MovieJob) Class.forName(args[++i])
+                            .getConstructor().newInstance();
+                } else if (args[i].startsWith("-")) {
+                    throw new IllegalArgumentException(args[i]);
+                } else {
+                    file = new File(args[i]);
+                    if (file.isDirectory()) {
+                        files.addAll(BatchProcessor.listFiles(file));
+                    } else {
+                        files.add(file);
+                    }
+                }
+            }
+        } catch (final Exception e) { //NOPMD report any invalid argument
+            err.println(e);
+            err.println(USAGE_TEXT);
+            return USAGE;
+        }
+
+        if (files.isEmpty()) {
+            err.println(USAGE_TEXT);
+            return USAGE;
+        }
+
+        final BatchReport report;
+        try {
+            report = processor.process(job, files);
+        } catch (final InterruptedException e) {
+            err.println(e);
+            return FAILED;
+        }
+
+        for (final Map.Entry<File, Throwable> entry
+                : report.getFailures().entrySet()) {
+            err.println(entry.getKey() + ": " + entry.getValue());
+        }
+        out.println(report);
+        return report.getFailedCount() == 0 ? SUCCESS : FAILED;
+    }
+
+    /**
+     * Copy is the default job which encodes each movie unchanged.
+     */
+    private static final class Copy implements MovieJob {
+        /** {@inheritDoc} */
+        public boolean process(final File file, final Movie movie) {
+            return true;
+        }
+    }
+
+    /** Private constructor. */
+    private Batch() {
+        // Private
+    }
+}
@@ -0,0 +1,536 @@
+/*
+ * BatchProcessor.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.tools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+
+import com.flagstone.transform.Movie;
+import com.flagstone.transform.coder.DecoderRegistry;
+import com.flagstone.transform.exception.IllegalArgumentRangeException;
+
+/**
+ * BatchProcessor decodes a set of Flash files, passes each Movie to a
+ * MovieJob then encodes the result, using a fixed number of threads.
+ *
+ * <p>
+ * The amount of memory used is bounded by a budget. Before a file is queued
+ * the uncompressed length is read from the file header and the memory that
+ * will be used by the decoded movie is estimated from it. A file is only
+ * started once there is room in the budget for it, so large files are
+ * processed with fewer files alongside them. A file that is larger than the
+ * budget is processed on its own.
+ * </p>
+ *
+ * <p>
+ * Each file is processed independently. If an exception is thrown while a
+ * file is decoded, processed or encoded it is recorded in the BatchReport
+ * and processing continues with the next file.
+ * </p>
+ *
+ * <pre>
+ * BatchProcessor processor = new BatchProcessor();
+ * processor.setOutputDirectory(dir);
+ * BatchReport report = processor.process(job,
+ *         BatchProcessor.listFiles(input));
+ * </pre>
+ */
+public final class BatchProcessor {
+
+    /** The number of bytes in a megabyte. */
+    private static final long MEGABYTE = 1 << 20;
+    /** The default memory budget in megabytes. */
+    private static final int DEFAULT_BUDGET = 256;
+    /**
+     * The estimated ratio of the memory used by a decoded movie to the
+     * uncompressed length of the file.
+     */
+    private static final int MEMORY_FACTOR = 4;
+    /** The number of files queued for each thread. */
+    private static final int QUEUE_FACTOR = 2;
+    /** Length in bytes of the signature, version and length fields. */
+    private static final int HEADER_LENGTH = 8;
+    /** Offset from the start of the file to the file length. */
+    private static final int LENGTH_OFFSET = 4;
+    /** Number of bits in a byte. */
+    private static final int BYTE_BITS = 8;
+    /** Bit mask applied to bytes when converting to unsigned integers. */
+    private static final int BYTE_MASK = 255;
+    /** The file name extension for Flash files. */
+    private static final String EXTENSION = ".swf";
+
+    /**
+     * Get the Flash files, with the extension .swf, in a directory and all
+     * its sub-directories.
+     *
+     * @param directory the directory to search.
+     * @return the list of files, sorted by path within each directory.
+     */
+    public static List<File> listFiles(final File directory) {
+        final List<File> list = new ArrayList<File>();
+        addFiles(directory, list);
+        return list;
+    }
+
+    /**
+     * Add the Flash files in a directory and its sub-directories to a list.
+     *
+     * @param directory the directory to search.
+     * @param list the list the files are added to.
+     */
+    private static void addFiles(final File directory, final List<File> list) {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            Arrays.sort(files);
+            for (final File file : files) {
+                if (file.isDirectory()) {
+                    addFiles(file, list);
+                } else if (file.getName().toLowerCase().endsWith(EXTENSION)) {
+                    list.add(file);
+                }
+            }
+        }
+    }
+
+    /** The number of threads used to process the files. */
+    private int threads;
+    /** The memory budget in megabytes. */
+    private int budget;
+    /** The directory encoded movies are written to, or null. */
+    private File output;
+    /** The registry used to decode the movies, or null for the default. */
+    private DecoderRegistry registry;
+
+    /**
+     * Creates a BatchProcessor that uses one thread for each processor and
+     * a memory budget of 256MB. Encoded movies are discarded.
+     */
+    public BatchProcessor() {
+        threads = Runtime.getRuntime().availableProcessors();
+        budget = DEFAULT_BUDGET;
+    }
+
+    /**
+     * Get the number of threads used to process the files.
+     *
+     * @return the number of threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set the number of threads used to process the files.
+     *
+     * @param count the number of threads, which must be at least 1.
+     */
+    public void setThreads(final int count) {
+        if (count < 1) {
+            throw new IllegalArgumentRangeException(1, Integer.MAX_VALUE,
+                    count);
+        }
+        threads = count;
+    }
+
+    /**
+     * Get the memory budget.
+     *
+     * @return the estimated memory, in megabytes, that the movies being
+     * processed at any one time may use.
+     */
+    public int getMemoryBudget() {
+        return budget;
+    }
+
+    /**
+     * Set the memory budget.
+     *
+     * @param megabytes the estimated memory, in megabytes, that the movies
+     * being processed at any one time may use. Must be at least 1.
+     */
+    public void setMemoryBudget(final int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentRangeException(1, Integer.MAX_VALUE,
+                    megabytes);
+        }
+        budget = megabytes;
+    }
+
+    /**
+     * Get the directory the encoded movies are written to.
+     *
+     * @return the output directory or null if encoded movies are discarded.
+     */
+    public File getOutputDirectory() {
+        return output;
+    }
+
+    /**
+     * Set the directory the encoded movies are written to. Each movie is
+     * written to the same path, relative to the closest directory containing
+     * all the files processed, as the file it was decoded from so files with
+     * the same name in different directories are kept apart. The directories
+     * are created if they do not exist. If the directory is null the movies
+     * are still encoded, so the size is recorded in the report, but the data
+     * is discarded.
+     *
+     * @param directory the output directory or null.
+     */
+    public void setOutputDirectory(final File directory) {
+        output = directory;
+    }
+
+    /**
+     * Get the registry used to decode the movies.
+     *
+     * @return the registry or null if each movie uses the default registry.
+     */
+    public DecoderRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Set the registry used to decode the movies. The registry is shared by
+     * all the threads so it should not be changed while files are processed.
+     *
+     * @param decoderRegistry the registry or null to use the default.
+     */
+    public void setRegistry(final DecoderRegistry decoderRegistry) {
+        registry = decoderRegistry;
+    }
+
+    /**
+     * Process a list of files. The method returns once all the files have
+     * been processed.
+     *
+     * @param job the job that processes each movie.
+     * @param files the Flash files to process.
+     * @return the report recording the number of files processed, any
+     * failures and the throughput.
+     * @throws InterruptedException if the thread is interrupted while
+     * waiting for files to be processed. Files that have already been
+     * queued are completed.
+     */
+    public BatchReport process(final MovieJob job, final List<File> files)
+            throws InterruptedException {
+        final BatchReport report = new BatchReport();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final Semaphore slots = new Semaphore(threads * QUEUE_FACTOR);
+        final Budget memory = new Budget(budget * MEGABYTE);
+        final String root = output == null ? null : root(files);
+
+        try {
+            long cost;
+            File target;
+            for (final File file : files) {
+                if (root == null) {
+                    target = null;
+                } else {
+                    target = new File(output, file.getAbsolutePath()
+                            .substring(root.length()));
+                }
+                cost = memory.limit(estimate(file));
+                slots.acquire();
+                try {
+                    memory.acquire(cost);
+                } catch (final InterruptedException e) {
+                    slots.release();
+                    throw e;
+                }
+                executor.execute(new Task(job, file, target, cost, report,
+                        memory, slots));
+            }
+        } finally {
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Wait for the queued files to complete.
+            }
+            report.finished();
+        }
+        return report;
+    }
+
+    /**
+     * Get the path of the closest directory that contains all the files.
+     *
+     * @param files the files to process.
+     * @return the absolute path of the directory, ending with a separator.
+     */
+    private static String root(final List<File> files) {
+        String root = null;
+        String path;
+        for (final File file : files) {
+            path = directory(file.getAbsoluteFile().getParentFile());
+            if (root == null) {
+                root = path;
+            } else {
+                while (!path.startsWith(root)) {
+                    root = directory(new File(root).getParentFile());
+                }
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Get the path of a directory, ending with a separator.
+     *
+     * @param directory the directory.
+     * @return the path of the directory.
+     */
+    private static String directory(final File directory) {
+        final String path = directory.getPath();
+        return path.endsWith(File.separator) ? path : path + File.separator;
+    }
+
+    /**
+     * Estimate the memory used to decode a file from the uncompressed length
+     * recorded in the file header. If the header cannot be read the length
+     * of the file is used and the error is reported when the file is
+     * decoded.
+     *
+     * @param file the Flash file.
+     * @return the estimated memory, in bytes.
+     */
+    private long estimate(final File file) {
+        long length = file.length();
+        try {
+            final InputStream stream = new FileInputStream(file);
+            try {
+                final byte[] header = new byte[HEADER_LENGTH];
+                if (stream.read(header) == HEADER_LENGTH) {
+                    length = 0;
+                    for (int i = HEADER_LENGTH - 1; i >= LENGTH_OFFSET; i--) {
+                        length = (length << BYTE_BITS)
+                                | (header[i] & BYTE_MASK);
+                    }
+                }
+            } finally {
+                stream.close();
+            }
+        } catch (final IOException e) {
+            // Use the file length.
+        }
+        return length * MEMORY_FACTOR;
+    }
+
+    /**
+     * Decode, process and encode a file.
+     *
+     * @param job the job that processes the movie.
+     * @param file the Flash file.
+     * @param target the file the encoded movie is written to or null if the
+     * encoded movie is discarded.
+     * @return the length of the encoded movie or zero if the job discarded
+     * it.
+     * @throws DataFormatException if the file does not contain Flash data or
+     * the job could not process the movie.
+     * @throws IOException if an error occurs reading or writing a file.
+     */
+    private long run(final MovieJob job, final File file, final File target)
+            throws DataFormatException, IOException {
+        final Movie movie = new Movie();
+        if (registry != null) {
+            movie.setRegistry(registry);
+        }
+        movie.decodeFromFile(file);
+
+        long written = 0;
+
+        if (job.process(file, movie)) {
+            if (target == null) {
+                final CountingStream stream = new CountingStream();
+                movie.encodeToStream(stream);
+                written = stream.count;
+            } else {
+                final File directory = target.getParentFile();
+                if (!directory.mkdirs() && !directory.isDirectory()) {
+                    throw new IOException("Cannot create " + directory);
+                }
+                movie.encodeToFile(target);
+                written = target.length();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Task processes a single file on one of the threads.
+     */
+    private final class Task implements Runnable {
+        /** The job that processes the movie. */
+        private final transient MovieJob job;
+        /** The file to process. */
+        private final transient File file;
+        /** The file the encoded movie is written to, or null. */
+        private final transient File target;
+        /** The estimated memory reserved from the budget. */
+        private final transient long cost;
+        /** The report the outcome is recorded in. */
+        private final transient BatchReport report;
+        /** The budget the memory is returned to. */
+        private final transient Budget memory;
+        /** The slots used to limit the number of queued files. */
+        private final transient Semaphore slots;
+
+        /**
+         * Create a Task.
+         *
+         * @param movieJob the job that processes the movie.
+         * @param path the file to process.
+         * @param encoded the file the encoded movie is written to, or null.
+         * @param reserved the memory reserved from the budget.
+         * @param batchReport the report the outcome is recorded in.
+         * @param budget the budget the memory is returned to.
+         * @param queue the slots used to limit the number of queued files.
+         */
+        Task(final MovieJob movieJob, final File path, final File encoded,
+                final long reserved, final BatchReport batchReport,
+                final Budget budget, final Semaphore queue) {
+            job = movieJob;
+            file = path;
+            target = encoded;
+            cost = reserved;
+            report = batchReport;
+            memory = budget;
+            slots = queue;
+        }
+
+        /** {@inheritDoc} */
+        public void run() {
+            try {
+                final long written = BatchProcessor.this.run(job, file,
+                        target);
+                report.completed(file.length(), written);
+            } catch (final OutOfMemoryError e) {
+                // The movie is no longer referenced so the memory it used
+                // can be reclaimed and the remaining files processed.
+                report.failed(file, e);
+            } catch (final VirtualMachineError e) {
+                throw e;
+            } catch (final Throwable e) { //NOPMD one file must not stop all
+                report.failed(file, e);
+            } finally {
+                memory.release(cost);
+                slots.release();
+            }
+        }
+    }
+
+    /**
+     * Budget records the amount of memory in use and blocks threads that
+     * need more memory than is available.
+     */
+    private static final class Budget {
+        /** The total memory available. */
+        private final transient long total;
+        /** The memory in use. */
+        private transient long used;
+
+        /**
+         * Create a Budget.
+         *
+         * @param size the total memory available.
+         */
+        Budget(final long size) {
+            total = size;
+        }
+
+        /**
+         * Limit a request for memory so it never exceeds the total.
+         *
+         * @param size the requested memory.
+         * @return the memory that will be reserved.
+         */
+        long limit(final long size) {
+            return Math.min(size, total);
+        }
+
+        /**
+         * Reserve memory, waiting until enough is available.
+         *
+         * @param size the memory to reserve, no more than the total.
+         * @throws InterruptedException if the thread is interrupted while
+         * waiting.
+         */
+        synchronized void acquire(final long size)
+                throws InterruptedException {
+            while (used + size > total) {
+                wait();
+            }
+            used += size;
+        }
+
+        /**
+         * Return memory to the budget.
+         *
+         * @param size the memory reserved.
+         */
+        synchronized void release(final long size) {
+            used -= size;
+            notifyAll();
+        }
+    }
+
+    /**
+     * CountingStream discards the data written to it, only recording the
+     * number of bytes.
+     */
+    private static final class CountingStream extends OutputStream {
+        /** The number of bytes written. */
+        private transient long count;
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(final int value) {
+            count++;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(final byte[] data, final int offset,
+                final int length) {
+            count += length;
+        }
+    }
+}
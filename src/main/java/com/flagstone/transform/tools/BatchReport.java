@@ -0,0 +1,192 @@
+/*
+ * BatchReport.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.tools;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BatchReport records the progress of a BatchProcessor: the number of files
+ * processed, the number that failed along with the reason, the number of
+ * bytes read and written and the time taken.
+ *
+ * <p>
+ * The report is updated by each thread as files are completed so the values
+ * can be read while the batch is running.
+ * </p>
+ */
+public final class BatchReport {
+
+    /** Format string used in toString() method. */
+    private static final String FORMAT = "BatchReport: { files=%d;"
+            + " failed=%d; bytesRead=%d; bytesWritten=%d; seconds=%.3f;"
+            + " filesPerSecond=%.1f; bytesPerSecond=%.0f}";
+    /** Number of nanoseconds in a second. */
+    private static final double NANOS = 1.0E9;
+
+    /** Time when the batch started, from System.nanoTime(). */
+    private final transient long start;
+    /** Time when the batch finished or zero if it is still running. */
+    private transient long end;
+    /** Number of files that were processed successfully. */
+    private transient int completed;
+    /** Number of bytes in the files that were read. */
+    private transient long bytesRead;
+    /** Number of bytes in the movies that were encoded. */
+    private transient long bytesWritten;
+    /** The files that could not be processed and the reason why. */
+    private final transient Map<File, Throwable> failures;
+
+    /**
+     * Creates a BatchReport, recording the current time as the start of the
+     * batch.
+     */
+    BatchReport() {
+        start = System.nanoTime();
+        failures = new LinkedHashMap<File, Throwable>();
+    }
+
+    /**
+     * Record a file that was processed successfully.
+     *
+     * @param read the length of the file.
+     * @param written the length of the encoded movie.
+     */
+    synchronized void completed(final long read, final long written) {
+        completed++;
+        bytesRead += read;
+        bytesWritten += written;
+    }
+
+    /**
+     * Record a file that could not be processed.
+     *
+     * @param file the file.
+     * @param reason the exception or error thrown while processing the file.
+     */
+    synchronized void failed(final File file, final Throwable reason) {
+        failures.put(file, reason);
+    }
+
+    /** Record the time when the batch finished. */
+    synchronized void finished() {
+        end = System.nanoTime();
+    }
+
+    /**
+     * Get the number of files processed, including those that failed.
+     *
+     * @return the number of files processed.
+     */
+    public synchronized int getFileCount() {
+        return completed + failures.size();
+    }
+
+    /**
+     * Get the number of files that could not be processed.
+     *
+     * @return the number of failed files.
+     */
+    public synchronized int getFailedCount() {
+        return failures.size();
+    }
+
+    /**
+     * Get the files that could not be processed.
+     *
+     * @return an unmodifiable copy of the table of files and the exception
+     * or error thrown for each.
+     */
+    public synchronized Map<File, Throwable> getFailures() {
+        return Collections.unmodifiableMap(
+                new LinkedHashMap<File, Throwable>(failures));
+    }
+
+    /**
+     * Get the number of bytes read from the files that were processed
+     * successfully.
+     *
+     * @return the number of bytes read.
+     */
+    public synchronized long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Get the number of bytes in the movies that were encoded.
+     *
+     * @return the number of bytes written.
+     */
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Get the time taken to process the batch, or the time since it started
+     * if it is still running.
+     *
+     * @return the elapsed time in seconds.
+     */
+    public synchronized double getSeconds() {
+        return ((end == 0 ? System.nanoTime() : end) - start) / NANOS;
+    }
+
+    /**
+     * Get the number of files processed per second.
+     *
+     * @return the rate at which files were processed.
+     */
+    public synchronized double getFilesPerSecond() {
+        final double seconds = getSeconds();
+        return seconds > 0 ? getFileCount() / seconds : 0;
+    }
+
+    /**
+     * Get the number of bytes read per second.
+     *
+     * @return the rate at which files were read.
+     */
+    public synchronized double getBytesPerSecond() {
+        final double seconds = getSeconds();
+        return seconds > 0 ? bytesRead / seconds : 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized String toString() {
+        return String.format(FORMAT, getFileCount(), getFailedCount(),
+                bytesRead, bytesWritten, getSeconds(), getFilesPerSecond(),
+                getBytesPerSecond());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * MovieJob.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+
+import com.flagstone.transform.Movie;
+
+/**
+ * MovieJob is the interface for the work carried out on each movie by a
+ * BatchProcessor. The processor decodes each file, passes the Movie to the
+ * job then encodes the result.
+ *
+ * <p>
+ * A single MovieJob is shared by all the threads used by the processor so
+ * implementations must be thread-safe.
+ * </p>
+ */
+public interface MovieJob {
+    /**
+     * Process a movie.
+     *
+     * @param file the file the movie was decoded from.
+     * @param movie the decoded movie. It may be changed in place.
+     * @return true if the movie should be encoded, false if it should be
+     * discarded.
+     * @throws DataFormatException if the movie cannot be processed.
+     * @throws IOException if an error occurs while processing the movie.
+     */
+    boolean process(File file, Movie movie)
+            throws DataFormatException, IOException;
+}
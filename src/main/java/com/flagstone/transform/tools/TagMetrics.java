@@ -0,0 +1,238 @@
+/*
+ * TagMetrics.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.tools;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.flagstone.transform.MovieListener;
+import com.flagstone.transform.MovieTypes;
+
+/**
+ * TagMetrics is a MovieListener that adds up the number of tags, bytes and
+ * time taken for each type of tag as movies are decoded and encoded. A
+ * single TagMetrics object may be shared by several movies, and threads, to
+ * collect the statistics for a batch of files. The statistics for each type
+ * of tag are updated atomically, without locking, so threads recording
+ * different types of tag do not contend with each other.
+ *
+ * <pre>
+ * TagMetrics metrics = new TagMetrics();
+ * metrics.register("default");
+ *
+ * movie.setListener(metrics);
+ * movie.decodeFromFile(file);
+ *
+ * for (TagStatistics stats : metrics.getStatistics()) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>
+ * Registering the object publishes the statistics using JMX, on the platform
+ * MBeanServer, so they can be monitored with tools such as JConsole.
+ * </p>
+ */
+public final class TagMetrics implements MovieListener, TagMetricsMXBean {
+
+    /** The domain for the names used to register objects with JMX. */
+    public static final String DOMAIN = "com.flagstone.transform";
+
+    /** Format string used in toString() method. */
+    private static final String FORMAT = "TagMetrics: { statistics=%s}";
+    /** Format string used to create the name registered with JMX. */
+    private static final String NAME_FORMAT = "%s:type=TagMetrics,name=%s";
+
+    /** The names of the constants defined in MovieTypes. */
+    private static final Map<Integer, String> NAMES = names();
+
+    /** The counts, lengths and times for each type of tag. */
+    private final transient ConcurrentMap<Integer, AtomicLongArray> table;
+
+    /**
+     * Creates a TagMetrics object with no statistics.
+     */
+    public TagMetrics() {
+        table = new ConcurrentHashMap<Integer, AtomicLongArray>();
+    }
+
+    /**
+     * Register this object with the platform MBeanServer.
+     *
+     * @param name the value for the name key in the ObjectName, used to
+     * identify different TagMetrics objects.
+     * @return the ObjectName used to register the object. Use it to
+     * unregister the object when it is no longer needed.
+     * @throws JMException if the object cannot be registered, for example
+     * if the name is already in use.
+     */
+    public ObjectName register(final String name) throws JMException {
+        final ObjectName objectName = new ObjectName(String.format(
+                NAME_FORMAT, DOMAIN, ObjectName.quote(name)));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                objectName);
+        return objectName;
+    }
+
+    /** {@inheritDoc} */
+    public void decoded(final int type, final int length, final long time) {
+        record(type, TagStatistics.DECODE_COUNT, length, time);
+    }
+
+    /** {@inheritDoc} */
+    public void prepared(final int type, final int length, final long time) {
+        record(type, TagStatistics.PREPARE_COUNT, length, time);
+    }
+
+    /** {@inheritDoc} */
+    public void encoded(final int type, final int length, final long time) {
+        record(type, TagStatistics.ENCODE_COUNT, length, time);
+    }
+
+    /**
+     * Add a tag to the statistics.
+     *
+     * @param type the type of tag.
+     * @param offset the index of the count for the stage. The number of
+     * bytes and the time follow it.
+     * @param length the number of bytes.
+     * @param time the time in nanoseconds.
+     */
+    private void record(final int type, final int offset,
+            final int length, final long time) {
+        AtomicLongArray values = table.get(type);
+        if (values == null) {
+            final AtomicLongArray created =
+                new AtomicLongArray(TagStatistics.SIZE);
+            values = table.putIfAbsent(type, created);
+            if (values == null) {
+                values = created;
+            }
+        }
+        values.incrementAndGet(offset);
+        values.addAndGet(offset + 1, length);
+        values.addAndGet(offset + 2, time);
+    }
+
+    /** {@inheritDoc} */
+    public List<TagStatistics> getStatistics() {
+        final List<TagStatistics> list =
+            new ArrayList<TagStatistics>(table.size());
+        TagStatistics stats;
+        for (final Integer type : new TreeSet<Integer>(table.keySet())) {
+            stats = getStatistics(type);
+            if (stats != null) {
+                list.add(stats);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Get the statistics for a given type of tag.
+     *
+     * @param type the type of tag, as defined in MovieTypes.
+     * @return the statistics for the type of tag or null if no tags of that
+     * type were decoded or encoded.
+     */
+    public TagStatistics getStatistics(final int type) {
+        final AtomicLongArray values = table.get(type);
+        final TagStatistics stats;
+        if (values == null) {
+            stats = null;
+        } else {
+            final long[] data = new long[values.length()];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = values.get(i);
+            }
+            stats = new TagStatistics(type, nameOf(type), data);
+        }
+        return stats;
+    }
+
+    /** {@inheritDoc} */
+    public void reset() {
+        table.clear();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format(FORMAT, getStatistics());
+    }
+
+    /**
+     * Get the name of a type of tag.
+     *
+     * @param type the type of tag.
+     * @return the name of the constant in MovieTypes or the type, as a
+     * string, if it is not defined.
+     */
+    private static String nameOf(final int type) {
+        final String name = NAMES.get(type);
+        return name == null ? String.valueOf(type) : name;
+    }
+
+    /**
+     * Create the table of the names of the constants in MovieTypes.
+     *
+     * @return a table mapping the value of each constant to its name.
+     */
+    private static Map<Integer, String> names() {
+        final Map<Integer, String> map = new HashMap<Integer, String>();
+        final int modifiers = Modifier.PUBLIC | Modifier.STATIC
+                | Modifier.FINAL;
+        try {
+            for (final Field field : MovieTypes.class.getFields()) {
+                if ((field.getModifiers() & modifiers) == modifiers
+                        && field.getType() == int.class) {
+                    map.put(field.getInt(null), field.getName());
+                }
+            }
+        } catch (final IllegalAccessException e) {
+            throw new AssertionError(e);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * TagStatistics.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.tools;
+
+import java.util.Arrays;
+
+/**
+ * TagStatistics contains the number of tags of a given type that were
+ * decoded, prepared for encoding and encoded along with the number of bytes
+ * and the time taken for each.
+ */
+public final class TagStatistics {
+
+    /** Format string used in toString() method. */
+    private static final String FORMAT = "TagStatistics: { type=%d;"
+            + " name=%s; decoded=%d; decodedBytes=%d; decodeTime=%d;"
+            + " prepared=%d; preparedBytes=%d; prepareTime=%d;"
+            + " encoded=%d; encodedBytes=%d; encodeTime=%d}";
+
+    /** Index of the number of tags decoded. */
+    static final int DECODE_COUNT = 0;
+    /** Index of the number of bytes decoded. */
+    static final int DECODE_BYTES = 1;
+    /** Index of the time taken decoding tags. */
+    static final int DECODE_TIME = 2;
+    /** Index of the number of tags prepared for encoding. */
+    static final int PREPARE_COUNT = 3;
+    /** Index of the number of bytes the prepared tags will occupy. */
+    static final int PREPARE_BYTES = 4;
+    /** Index of the time taken preparing tags. */
+    static final int PREPARE_TIME = 5;
+    /** Index of the number of tags encoded. */
+    static final int ENCODE_COUNT = 6;
+    /** Index of the number of bytes encoded. */
+    static final int ENCODE_BYTES = 7;
+    /** Index of the time taken encoding tags. */
+    static final int ENCODE_TIME = 8;
+    /** The number of values recorded for each type of tag. */
+    static final int SIZE = 9;
+
+    /** The type of tag. */
+    private final transient int type;
+    /** The name of the type of tag. */
+    private final transient String name;
+    /** The counts, lengths and times. */
+    private final transient long[] values;
+
+    /**
+     * Creates a TagStatistics object.
+     *
+     * @param tagType the type of tag.
+     * @param tagName the name of the type of tag.
+     * @param data the counts, lengths and times, indexed by the constants
+     * defined in this class. The array is copied.
+     */
+    TagStatistics(final int tagType, final String tagName,
+            final long[] data) {
+        type = tagType;
+        name = tagName;
+        values = Arrays.copyOf(data, SIZE);
+    }
+
+    /**
+     * Get the type of tag.
+     *
+     * @return the type, as defined in MovieTypes.
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * Get the name of the type of tag.
+     *
+     * @return the name of the constant in MovieTypes or the type, as a
+     * string, if the type is not defined.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of tags decoded.
+     *
+     * @return the number of tags.
+     */
+    public long getDecodeCount() {
+        return values[DECODE_COUNT];
+    }
+
+    /**
+     * Get the number of bytes decoded.
+     *
+     * @return the number of bytes, including the tag headers.
+     */
+    public long getDecodeBytes() {
+        return values[DECODE_BYTES];
+    }
+
+    /**
+     * Get the time taken decoding the tags.
+     *
+     * @return the time in nanoseconds.
+     */
+    public long getDecodeTime() {
+        return values[DECODE_TIME];
+    }
+
+    /**
+     * Get the number of tags prepared for encoding.
+     *
+     * @return the number of tags.
+     */
+    public long getPrepareCount() {
+        return values[PREPARE_COUNT];
+    }
+
+    /**
+     * Get the number of bytes the prepared tags will occupy when encoded.
+     *
+     * @return the number of bytes, including the tag headers.
+     */
+    public long getPrepareBytes() {
+        return values[PREPARE_BYTES];
+    }
+
+    /**
+     * Get the time taken preparing the tags for encoding.
+     *
+     * @return the time in nanoseconds.
+     */
+    public long getPrepareTime() {
+        return values[PREPARE_TIME];
+    }
+
+    /**
+     * Get the number of tags encoded.
+     *
+     * @return the number of tags.
+     */
+    public long getEncodeCount() {
+        return values[ENCODE_COUNT];
+    }
+
+    /**
+     * Get the number of bytes encoded.
+     *
+     * @return the number of bytes, including the tag headers.
+     */
+    public long getEncodeBytes() {
+        return values[ENCODE_BYTES];
+    }
+
+    /**
+     * Get the time taken encoding the tags.
+     *
+     * @return the time in nanoseconds.
+     */
+    public long getEncodeTime() {
+        return values[ENCODE_TIME];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format(FORMAT, type, name,
+                values[DECODE_COUNT], values[DECODE_BYTES],
+                values[DECODE_TIME], values[PREPARE_COUNT],
+                values[PREPARE_BYTES], values[PREPARE_TIME],
+                values[ENCODE_COUNT], values[ENCODE_BYTES],
+                values[ENCODE_TIME]);
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * CharacterIndex.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.util.movie;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.flagstone.transform.Movie;
+import com.flagstone.transform.MovieTag;
+
+/**
+ * <p>
+ * CharacterIndex records, for each character in a movie, the tag that
+ * defines it, the tags that refer to it and the other characters it depends
+ * on, for example the images used in the bitmap fills of a shape, the fonts
+ * used in a text field or the objects placed in a movie clip. The tags in a
+ * DefineMovieClip are included: the references they contain are recorded
+ * against the movie clip.
+ * </p>
+ *
+ * <p>
+ * The index is built in a single pass over the tags in a movie. It is not
+ * updated automatically when the movie changes: the add() and remove()
+ * methods should be called as tags are added to or removed from the movie.
+ * </p>
+ */
+public final class CharacterIndex {
+    /** The definition for each identifier. */
+    private final transient Map<Integer, MovieTag> definitions;
+    /** The tags that refer to each identifier, in the order added. */
+    private final transient Map<Integer, Set<MovieTag>> users;
+    /** The identifiers defined and referenced by each tag. */
+    private final transient Map<MovieTag, Entry> entries;
+
+    /**
+     * Create an empty index.
+     */
+    public CharacterIndex() {
+        definitions = new LinkedHashMap<Integer, MovieTag>();
+        users = new HashMap<Integer, Set<MovieTag>>();
+        entries = new IdentityHashMap<MovieTag, Entry>();
+    }
+
+    /**
+     * Create an index for the tags in a movie.
+     *
+     * @param movie the movie to index.
+     */
+    public CharacterIndex(final Movie movie) {
+        this();
+        addAll(movie.getObjects());
+    }
+
+    /**
+     * Add a tag to the index. Adding a tag that is already in the index
+     * updates the identifiers recorded for it.
+     *
+     * @param tag the tag added to the movie.
+     */
+    public void add(final MovieTag tag) {
+        remove(tag);
+
+        final Collector collector = new Collector();
+        References.visitDefinitions(tag, collector);
+        final int[] defined = collector.toArray();
+
+        collector.clear();
+        References.visit(tag, collector);
+        final int[] referenced = collector.toArray();
+
+        for (final int uid : defined) {
+            definitions.put(uid, tag);
+        }
+        for (final int uid : referenced) {
+            Set<MovieTag> set = users.get(uid);
+            if (set == null) {
+                set = new LinkedHashSet<MovieTag>();
+                users.put(uid, set);
+            }
+            set.add(tag);
+        }
+        entries.put(tag, new Entry(defined, referenced));
+    }
+
+    /**
+     * Add a list of tags to the index.
+     *
+     * @param list the tags added to the movie.
+     */
+    public void addAll(final List<MovieTag> list) {
+        for (final MovieTag tag : list) {
+            add(tag);
+        }
+    }
+
+    /**
+     * Remove a tag from the index. The identifiers recorded when the tag was
+     * added are used, so the tag should be removed from the index before it
+     * is changed.
+     *
+     * @param tag the tag removed from the movie.
+     * @return true if the tag was in the index, false otherwise.
+     */
+    public boolean remove(final MovieTag tag) {
+        final Entry entry = entries.remove(tag);
+        if (entry != null) {
+            for (final int uid : entry.defined) {
+                if (definitions.get(uid) == tag) {
+                    definitions.remove(uid);
+                }
+            }
+            for (final int uid : entry.referenced) {
+                final Set<MovieTag> set = users.get(uid);
+                set.remove(tag);
+                if (set.isEmpty()) {
+                    users.remove(uid);
+                }
+            }
+        }
+        return entry != null;
+    }
+
+    /**
+     * Get the identifiers of all the characters defined.
+     *
+     * @return a read-only set of identifiers in the order the definitions
+     * were added.
+     */
+    public Set<Integer> getIdentifiers() {
+        return Collections.unmodifiableSet(definitions.keySet());
+    }
+
+    /**
+     * Get the tag that defines a character.
+     *
+     * @param uid the identifier of the character.
+     * @return the definition, or the Import object that loads the character,
+     * or null if the character is not defined.
+     */
+    public MovieTag getDefinition(final int uid) {
+        return definitions.get(uid);
+    }
+
+    /**
+     * Get the tags that refer to a character. References in the tags inside
+     * a movie clip are recorded against the DefineMovieClip.
+     *
+     * @param uid the identifier of the character.
+     * @return a read-only set of the tags, in the order they were added.
+     */
+    public Set<MovieTag> getUsers(final int uid) {
+        final Set<MovieTag> set = users.get(uid);
+        return set == null ? Collections.<MovieTag>emptySet()
+                : Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * Is a character referred to by any of the tags in the index.
+     *
+     * @param uid the identifier of the character.
+     * @return true if at least one tag refers to the character.
+     */
+    public boolean isUsed(final int uid) {
+        return users.containsKey(uid);
+    }
+
+    /**
+     * Get the characters that a character depends on.
+     *
+     * @param uid the identifier of the character.
+     * @return the identifiers of the characters referred to by its definition
+     * or an empty set if the character is not defined.
+     */
+    public Set<Integer> getDependencies(final int uid) {
+        final MovieTag tag = definitions.get(uid);
+        final Set<Integer> set = new LinkedHashSet<Integer>();
+        if (tag != null) {
+            for (final int value : entries.get(tag).referenced) {
+                set.add(value);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Entry records the identifiers defined and referenced by a tag.
+     */
+    private static final class Entry {
+        /** The identifiers defined. */
+        private final transient int[] defined;
+        /** The identifiers referenced. */
+        private final transient int[] referenced;
+
+        /**
+         * Create an Entry.
+         *
+         * @param ids the identifiers defined by the tag.
+         * @param refs the identifiers referenced by the tag.
+         */
+        Entry(final int[] ids, final int[] refs) {
+            defined = ids;
+            referenced = refs;
+        }
+    }
+
+    /**
+     * Collector is the ReferenceVisitor used to record the identifiers
+     * visited, without changing them.
+     */
+    private static final class Collector implements ReferenceVisitor {
+        /** The identifiers visited. */
+        private final transient Set<Integer> ids =
+            new LinkedHashSet<Integer>();
+
+        /** {@inheritDoc} */
+        public int visit(final int uid) {
+            ids.add(uid);
+            return uid;
+        }
+
+        /** Remove the identifiers visited. */
+        void clear() {
+            ids.clear();
+        }
+
+        /**
+         * Get the identifiers visited.
+         *
+         * @return the identifiers, each appears only once.
+         */
+        int[] toArray() {
+            final int[] array = new int[ids.size()];
+            int index = 0;
+            for (final Integer uid : ids) {
+                array[index++] = uid;
+            }
+            return array;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Deduplicator.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.util.movie;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.flagstone.transform.CharacterEncoding;
+import com.flagstone.transform.DefineTag;
+import com.flagstone.transform.Export;
+import com.flagstone.transform.Free;
+import com.flagstone.transform.Movie;
+import com.flagstone.transform.MovieHeader;
+import com.flagstone.transform.MovieTag;
+import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.SymbolClass;
+import com.flagstone.transform.coder.Coder;
+import com.flagstone.transform.coder.Context;
+import com.flagstone.transform.coder.SWFEncoder;
+import com.flagstone.transform.font.FontAlignment;
+import com.flagstone.transform.font.FontInfo;
+import com.flagstone.transform.font.FontInfo2;
+import com.flagstone.transform.font.FontName;
+
+/**
+ * <p>
+ * Deduplicator removes definitions of shapes, images, fonts and sounds that
+ * are identical to one defined earlier in a movie. Movies that are generated
+ * or built by combining other movies often contain the same definition
+ * several times under different identifiers.
+ * </p>
+ *
+ * <p>
+ * The tags are processed in a single pass. Each definition is encoded and a
+ * digest of the encoded data, excluding the identifier, is used to find
+ * earlier copies. The first definition is kept and every reference to the
+ * copies that follow, in the display list, buttons, bitmap fills, text,
+ * sounds, exports and tags inside movie clips, is changed to refer to it.
+ * Tags that add information to a definition that was removed, such as
+ * FontName or FontAlignment, are removed with it.
+ * </p>
+ *
+ * <p>
+ * Definitions that are exported or associated with an ActionScript class
+ * are always kept, since each one can be referred to by name.
+ * </p>
+ */
+public final class Deduplicator {
+
+    /** The algorithm used to create the digest of each definition. */
+    private static final String ALGORITHM = "SHA-1";
+    /** The number of bytes used to encode an identifier. */
+    private static final int ID_LENGTH = 2;
+
+    /** The character encoding used when encoding definitions. */
+    private transient CharacterEncoding encoding;
+    /** The identifiers of the definitions that were removed. */
+    private transient IdentifierTable table;
+
+    /**
+     * Create a Deduplicator that encodes strings using UTF-8.
+     */
+    public Deduplicator() {
+        encoding = CharacterEncoding.UTF8;
+        table = new IdentifierTable();
+    }
+
+    /**
+     * Set the character encoding used for the strings in definitions. It
+     * should match the encoding used for the movie.
+     *
+     * @param enc the character encoding used for strings.
+     */
+    public void setEncoding(final CharacterEncoding enc) {
+        encoding = enc;
+    }
+
+    /**
+     * Get the table mapping the identifiers of the definitions removed the
+     * last time a movie was processed to the identifiers of the definitions
+     * that replaced them.
+     *
+     * @return the table of identifiers.
+     */
+    public IdentifierTable getTable() {
+        return table;
+    }
+
+    /**
+     * Remove the duplicate definitions from a movie and change the references
+     * to them.
+     *
+     * @param movie the movie to process. The list of objects is replaced.
+     * @return the number of tags removed.
+     * @throws IOException if an error occurs while encoding a definition.
+     */
+    public int deduplicate(final Movie movie) throws IOException {
+        final List<MovieTag> objects = movie.getObjects();
+        final List<MovieTag> list = new ArrayList<MovieTag>(objects.size());
+        final Map<ByteBuffer, Integer> digests =
+            new HashMap<ByteBuffer, Integer>();
+        final Set<Integer> linked = linked(objects);
+        final Context context = context(objects);
+        final MessageDigest digest = digest();
+
+        table = new IdentifierTable();
+
+        for (final MovieTag tag : objects) {
+            final int type = tag.getTagType();
+
+            if (table.contains(annotated(tag, type))) {
+                continue;
+            }
+            if (table.size() > 0) {
+                References.visit(tag, table);
+            }
+            if (isShared(type)) {
+                final int uid = ((DefineTag) tag).getIdentifier();
+                if (!linked.contains(uid)) {
+                    final ByteBuffer key = ByteBuffer.wrap(
+                            fingerprint(tag, context, digest));
+                    final Integer original = digests.get(key);
+                    if (original == null) {
+                        digests.put(key, uid);
+                    } else {
+                        table.put(uid, original);
+                        continue;
+                    }
+                }
+            }
+            list.add(tag);
+        }
+        movie.setObjects(list);
+        return objects.size() - list.size();
+    }
+
+    /**
+     * Is the tag a type of definition that can be shared.
+     *
+     * @param type the type of tag.
+     * @return true if identical definitions of this type can be replaced.
+     */
+    private static boolean isShared(final int type) {
+        final boolean shared;
+        switch (type) {
+        case MovieTypes.DEFINE_SHAPE:
+        case MovieTypes.DEFINE_SHAPE_2:
+        case MovieTypes.DEFINE_SHAPE_3:
+        case MovieTypes.DEFINE_SHAPE_4:
+        case MovieTypes.DEFINE_MORPH_SHAPE:
+        case MovieTypes.DEFINE_MORPH_SHAPE_2:
+        case MovieTypes.DEFINE_IMAGE:
+        case MovieTypes.DEFINE_IMAGE_2:
+        case MovieTypes.DEFINE_JPEG_IMAGE:
+        case MovieTypes.DEFINE_JPEG_IMAGE_2:
+        case MovieTypes.DEFINE_JPEG_IMAGE_3:
+        case MovieTypes.DEFINE_JPEG_IMAGE_4:
+        case MovieTypes.DEFINE_FONT_2:
+        case MovieTypes.DEFINE_FONT_3:
+        case MovieTypes.DEFINE_FONT_4:
+        case MovieTypes.DEFINE_SOUND:
+            shared = true;
+            break;
+        default:
+            shared = false;
+            break;
+        }
+        return shared;
+    }
+
+    /**
+     * Get the identifier of the definition that a tag adds information to
+     * or releases. These tags are removed along with the definition.
+     *
+     * @param tag the tag.
+     * @param type the type of tag.
+     * @return the identifier of the definition or zero if the tag does not
+     * refer to a single definition.
+     */
+    private static int annotated(final MovieTag tag, final int type) {
+        final int uid;
+        switch (type) {
+        case MovieTypes.FONT_ALIGNMENT:
+            uid = ((FontAlignment) tag).getIdentifier();
+            break;
+        case MovieTypes.FONT_NAME:
+            uid = ((FontName) tag).getIdentifier();
+            break;
+        case MovieTypes.FONT_INFO:
+            uid = ((FontInfo) tag).getIdentifier();
+            break;
+        case MovieTypes.FONT_INFO_2:
+            uid = ((FontInfo2) tag).getIdentifier();
+            break;
+        case MovieTypes.FREE:
+            uid = ((Free) tag).getIdentifier();
+            break;
+        default:
+            uid = 0;
+            break;
+        }
+        return uid;
+    }
+
+    /**
+     * Find the definitions that are exported or associated with a class.
+     *
+     * @param objects the tags in the movie.
+     * @return the set of identifiers that are referred to by name.
+     */
+    private static Set<Integer> linked(final List<MovieTag> objects) {
+        final Set<Integer> set = new HashSet<Integer>();
+        for (final MovieTag tag : objects) {
+            if (tag instanceof Export) {
+                set.addAll(((Export) tag).getObjects().keySet());
+            } else if (tag instanceof SymbolClass) {
+                set.addAll(((SymbolClass) tag).getObjects().keySet());
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Create the Context used to encode the definitions.
+     *
+     * @param objects the tags in the movie.
+     * @return a Context with the version of the movie and the encoding.
+     */
+    private Context context(final List<MovieTag> objects) {
+        final Context context = new Context();
+        context.setEncoding(encoding.getEncoding());
+        if (!objects.isEmpty() && objects.get(0) instanceof MovieHeader) {
+            context.put(Context.VERSION,
+                    ((MovieHeader) objects.get(0)).getVersion());
+        } else {
+            context.put(Context.VERSION, Movie.VERSION);
+        }
+        return context;
+    }
+
+    /**
+     * Create the object used to calculate the digest of each definition.
+     *
+     * @return the MessageDigest.
+     */
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Encode a definition and calculate the digest of the encoded data,
+     * excluding the identifier which follows the tag header.
+     *
+     * @param tag the definition.
+     * @param context the Context used to encode the tag.
+     * @param digest the object used to calculate the digest.
+     * @return the digest.
+     * @throws IOException if an error occurs while encoding the tag.
+     */
+    private byte[] fingerprint(final MovieTag tag, final Context context,
+            final MessageDigest digest) throws IOException {
+        final int length = tag.prepareToEncode(context);
+        final ByteArrayOutputStream stream =
+            new ByteArrayOutputStream(length);
+        final SWFEncoder coder = new SWFEncoder(stream);
+        coder.setEncoding(encoding);
+        tag.encode(coder, context);
+        coder.flush();
+
+        final byte[] data = stream.toByteArray();
+        final int header = (data[0] & Coder.LENGTH_FIELD) == Coder.IS_EXTENDED
+                ? Coder.LONG_HEADER : Coder.SHORT_HEADER;
+        final int start = header + ID_LENGTH;
+
+        digest.reset();
+        digest.update(data, 0, header);
+        digest.update(data, start, data.length - start);
+        return digest.digest();
+    }
+}
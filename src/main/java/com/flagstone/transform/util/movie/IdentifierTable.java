@@ -0,0 +1,136 @@
+/*
+ * IdentifierTable.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.util.movie;
+
+import java.util.Arrays;
+
+import com.flagstone.transform.coder.Coder;
+import com.flagstone.transform.exception.IllegalArgumentRangeException;
+
+/**
+ * IdentifierTable maps the identifiers of characters in a movie to new
+ * values. The table is an array indexed by identifier so looking up a
+ * reference does not create any objects. Identifiers that have not been
+ * mapped are returned unchanged so the table can be passed to References to
+ * rewrite all the references in a tag.
+ */
+public final class IdentifierTable implements ReferenceVisitor {
+    /** The initial number of identifiers the table can hold. */
+    private static final int INITIAL_SIZE = 256;
+
+    /** The new identifiers, indexed by the old one. Zero if not mapped. */
+    private transient int[] table;
+    /** The number of identifiers mapped. */
+    private transient int count;
+
+    /**
+     * Create an empty table.
+     */
+    public IdentifierTable() {
+        table = new int[INITIAL_SIZE];
+    }
+
+    /**
+     * Map an identifier to a new value.
+     *
+     * @param uid the identifier of a character. Must be in the range
+     * 1..65535.
+     * @param value the identifier that will replace it. Must be in the range
+     * 1..65535.
+     */
+    public void put(final int uid, final int value) {
+        if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
+            throw new IllegalArgumentRangeException(
+                    1, Coder.USHORT_MAX, uid);
+        }
+        if ((value < 1) || (value > Coder.USHORT_MAX)) {
+            throw new IllegalArgumentRangeException(
+                    1, Coder.USHORT_MAX, value);
+        }
+        if (uid >= table.length) {
+            table = Arrays.copyOf(table, Math.min(Coder.USHORT_MAX + 1,
+                    Math.max(uid + 1, table.length << 1)));
+        }
+        if (table[uid] == 0) {
+            count++;
+        }
+        table[uid] = value;
+    }
+
+    /**
+     * Get the value an identifier is mapped to.
+     *
+     * @param uid the identifier of a character.
+     * @return the new identifier or uid if it has not been mapped.
+     */
+    public int get(final int uid) {
+        final int value;
+        if (uid > 0 && uid < table.length && table[uid] != 0) {
+            value = table[uid];
+        } else {
+            value = uid;
+        }
+        return value;
+    }
+
+    /**
+     * Has an identifier been mapped to a new value.
+     *
+     * @param uid the identifier of a character.
+     * @return true if the identifier is in the table, false otherwise.
+     */
+    public boolean contains(final int uid) {
+        return uid > 0 && uid < table.length && table[uid] != 0;
+    }
+
+    /**
+     * Get the number of identifiers in the table.
+     *
+     * @return the number of identifiers mapped.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Remove all the identifiers from the table so it can be reused.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        count = 0;
+    }
+
+    /** {@inheritDoc} */
+    public int visit(final int uid) {
+        return get(uid);
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * MovieMerger.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.util.movie;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.flagstone.transform.Movie;
+import com.flagstone.transform.MovieHeader;
+import com.flagstone.transform.MovieTag;
+import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.SymbolClass;
+import com.flagstone.transform.coder.Coder;
+import com.flagstone.transform.movieclip.DefineMovieClip;
+
+/**
+ * <p>
+ * MovieMerger adds the definitions from other movies to a movie, giving
+ * each one a new identifier so they do not clash with the characters
+ * already defined. An IdentifierTable is built for each movie merged and
+ * used to change the references to the characters in the tags that
+ * follow, so each movie is processed in a single pass and merging several
+ * movies takes time in proportion to the total number of tags. References
+ * to characters that a movie does not define are also given new identifiers
+ * so they cannot refer to the characters from other movies. If the
+ * character is defined later in the movie it is given the same identifier.
+ * </p>
+ *
+ * <p>
+ * The definitions, along with the tags that refer to them such as Export,
+ * SymbolClass, FontInfo and DoABC, are added to the end of the movie. The
+ * tags that make up the main timeline of each movie, ShowFrame, Place,
+ * Remove, DoAction, etc., are added in a DefineMovieClip so the contents of
+ * the movie can be displayed by placing the clip. An ActionScript class
+ * associated with the main timeline is associated with the clip instead.
+ * </p>
+ *
+ * <p>
+ * Tags that apply to the whole movie, such as the MovieHeader,
+ * MovieAttributes, Background, MovieMetaData and Protect objects, are not
+ * copied. Since a movie may contain only one JPEGEncodingTable the first
+ * one found is used, so movies that contain DefineJPEGImage objects
+ * encoded with different tables cannot be merged. The tags are moved from
+ * the movie being merged rather than copied so it should not be used
+ * afterwards. Characters that appear in more than one of the movies merged
+ * can be removed using a Deduplicator.
+ * </p>
+ */
+public final class MovieMerger {
+    /** The movie the other movies are merged into. */
+    private final transient Movie movie;
+    /** The identifier that will be assigned to the next definition. */
+    private transient int next;
+    /** Has a JPEGEncodingTable been added to the movie. */
+    private transient boolean hasTables;
+    /** The identifiers assigned to the last movie merged. */
+    private transient IdentifierTable table;
+
+    /**
+     * Create a MovieMerger that will add the definitions from other movies
+     * to the specified movie.
+     *
+     * @param target the movie the other movies will be merged into.
+     */
+    public MovieMerger(final Movie target) {
+        movie = target;
+        table = new IdentifierTable();
+
+        final int[] max = new int[1];
+        final ReferenceVisitor visitor = new ReferenceVisitor() {
+            public int visit(final int uid) {
+                max[0] = Math.max(max[0], uid);
+                return uid;
+            }
+        };
+        for (final MovieTag tag : movie.getObjects()) {
+            References.visitDefinitions(tag, visitor);
+            if (tag.getTagType() == MovieTypes.JPEG_TABLES) {
+                hasTables = true;
+            }
+        }
+        next = max[0] + 1;
+    }
+
+    /**
+     * Get the table of identifiers assigned to the characters in the last
+     * movie merged.
+     *
+     * @return the table mapping the original identifiers to the ones used in
+     * the merged movie.
+     */
+    public IdentifierTable getTable() {
+        return table;
+    }
+
+    /**
+     * Merge a movie.
+     *
+     * @param source the movie to merge. Its tags are moved to the merged
+     * movie.
+     * @return the identifier of the DefineMovieClip that contains the main
+     * timeline of the movie or zero if it did not contain any frames.
+     */
+    public int merge(final Movie source) {
+        final List<MovieTag> objects = movie.getObjects();
+        final List<MovieTag> timeline = new ArrayList<MovieTag>();
+        final int clip = allocate();
+        final ReferenceVisitor assign = new ReferenceVisitor() {
+            public int visit(final int uid) {
+                if (!table.contains(uid)) {
+                    table.put(uid, allocate());
+                }
+                return table.get(uid);
+            }
+        };
+
+        table = new IdentifierTable();
+
+        for (final MovieTag tag : source.getObjects()) {
+            final int type = tag.getTagType();
+
+            if (isTimeline(type)) {
+                References.visit(tag, assign);
+                timeline.add(tag);
+            } else if (type == MovieTypes.JPEG_TABLES) {
+                if (!hasTables) {
+                    objects.add(tag);
+                    hasTables = true;
+                }
+            } else if (!(tag instanceof MovieHeader || isMovie(type))) {
+                References.visit(tag, assign);
+                References.visitDefinitions(tag, assign);
+                if (type == MovieTypes.SYMBOL) {
+                    linkTimeline((SymbolClass) tag, clip);
+                }
+                objects.add(tag);
+            }
+        }
+
+        final int uid;
+        if (timeline.isEmpty()) {
+            uid = 0;
+        } else {
+            objects.add(new DefineMovieClip(clip, timeline));
+            uid = clip;
+        }
+        return uid;
+    }
+
+    /**
+     * Get the next free identifier.
+     *
+     * @return an identifier that has not been used in the merged movie.
+     */
+    private int allocate() {
+        if (next > Coder.USHORT_MAX) {
+            throw new IllegalStateException(
+                    "No more identifiers available for definitions.");
+        }
+        return next++;
+    }
+
+    /**
+     * Associate the class for the main timeline of a movie, which has the
+     * identifier zero, with the movie clip that replaces it.
+     *
+     * @param tag the SymbolClass object.
+     * @param clip the identifier of the movie clip.
+     */
+    private static void linkTimeline(final SymbolClass tag, final int clip) {
+        final Map<Integer, String> table = tag.getObjects();
+        if (table.containsKey(0)) {
+            final Map<Integer, String> map =
+                new LinkedHashMap<Integer, String>(table.size());
+            for (final Map.Entry<Integer, String> entry : table.entrySet()) {
+                map.put(entry.getKey() == 0 ? clip : entry.getKey(),
+                        entry.getValue());
+            }
+            tag.setObjects(map);
+        }
+    }
+
+    /**
+     * Is the tag part of the main timeline of a movie.
+     *
+     * @param type the type of tag.
+     * @return true if the tag is added to the DefineMovieClip that replaces
+     * the main timeline.
+     */
+    private static boolean isTimeline(final int type) {
+        final boolean timeline;
+        switch (type) {
+        case MovieTypes.SHOW_FRAME:
+        case MovieTypes.PLACE:
+        case MovieTypes.PLACE_2:
+        case MovieTypes.PLACE_3:
+        case MovieTypes.REMOVE:
+        case MovieTypes.REMOVE_2:
+        case MovieTypes.DO_ACTION:
+        case MovieTypes.FRAME_LABEL:
+        case MovieTypes.START_SOUND:
+        case MovieTypes.START_SOUND_2:
+        case MovieTypes.SOUND_STREAM_HEAD:
+        case MovieTypes.SOUND_STREAM_HEAD_2:
+        case MovieTypes.SOUND_STREAM_BLOCK:
+        case MovieTypes.VIDEO_FRAME:
+            timeline = true;
+            break;
+        default:
+            timeline = false;
+            break;
+        }
+        return timeline;
+    }
+
+    /**
+     * Does the tag apply to the whole movie.
+     *
+     * @param type the type of tag.
+     * @return true if the tag is not copied to the merged movie.
+     */
+    private static boolean isMovie(final int type) {
+        final boolean global;
+        switch (type) {
+        case MovieTypes.FILE_ATTRIBUTES:
+        case MovieTypes.SET_BACKGROUND_COLOR:
+        case MovieTypes.METADATA:
+        case MovieTypes.PROTECT:
+        case MovieTypes.ENABLE_DEBUGGER:
+        case MovieTypes.ENABLE_DEBUGGER_2:
+        case MovieTypes.LIMIT_SCRIPT:
+        case MovieTypes.SCENES_AND_LABELS:
+        case MovieTypes.SERIAL_NUMBER:
+        case MovieTypes.TAB_ORDER:
+        case MovieTypes.PATHS_ARE_POSTSCRIPT:
+        case MovieTypes.QUICKTIME_MOVIE:
+            global = true;
+            break;
+        default:
+            global = false;
+            break;
+        }
+        return global;
+    }
+}
@@ -0,0 +1,639 @@
+/*
+ * References.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.util.movie;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.flagstone.transform.DefineTag;
+import com.flagstone.transform.Event;
+import com.flagstone.transform.Export;
+import com.flagstone.transform.Free;
+import com.flagstone.transform.Import;
+import com.flagstone.transform.Import2;
+import com.flagstone.transform.MovieTag;
+import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Place;
+import com.flagstone.transform.Place2;
+import com.flagstone.transform.Place3;
+import com.flagstone.transform.Remove;
+import com.flagstone.transform.Retained;
+import com.flagstone.transform.ScalingGrid;
+import com.flagstone.transform.SymbolClass;
+import com.flagstone.transform.button.ButtonColorTransform;
+import com.flagstone.transform.button.ButtonShape;
+import com.flagstone.transform.button.ButtonSound;
+import com.flagstone.transform.button.DefineButton;
+import com.flagstone.transform.button.DefineButton2;
+import com.flagstone.transform.fillstyle.BitmapFill;
+import com.flagstone.transform.fillstyle.FillStyle;
+import com.flagstone.transform.fillstyle.MorphBitmapFill;
+import com.flagstone.transform.font.FontAlignment;
+import com.flagstone.transform.font.FontInfo;
+import com.flagstone.transform.font.FontInfo2;
+import com.flagstone.transform.font.FontName;
+import com.flagstone.transform.linestyle.LineStyle;
+import com.flagstone.transform.linestyle.LineStyle2;
+import com.flagstone.transform.linestyle.MorphLineStyle2;
+import com.flagstone.transform.movieclip.DefineMovieClip;
+import com.flagstone.transform.movieclip.InitializeMovieClip;
+import com.flagstone.transform.shape.DefineMorphShape;
+import com.flagstone.transform.shape.DefineMorphShape2;
+import com.flagstone.transform.shape.Shape;
+import com.flagstone.transform.shape.ShapeRecord;
+import com.flagstone.transform.shape.ShapeStyle;
+import com.flagstone.transform.shape.ShapeStyle2;
+import com.flagstone.transform.shape.ShapeTag;
+import com.flagstone.transform.sound.SoundInfo;
+import com.flagstone.transform.sound.StartSound;
+import com.flagstone.transform.sound.StartSound2;
+import com.flagstone.transform.text.DefineTextField;
+import com.flagstone.transform.text.StaticTextTag;
+import com.flagstone.transform.text.TextSettings;
+import com.flagstone.transform.text.TextSpan;
+import com.flagstone.transform.video.VideoFrame;
+
+/**
+ * <p>
+ * References finds the identifiers of the characters referenced by a tag:
+ * the objects placed on the display list, the shapes in a button, the images
+ * used in bitmap fills, the fonts used in text, the sounds played, the
+ * characters exported and the tags, such as FontInfo or ButtonSound, that add
+ * information to an existing definition. The identifier a definition is
+ * given is not a reference and is not visited by visit(), it is visited,
+ * along with the identifiers assigned by Import and Import2 objects, by
+ * visitDefinitions(). The tags in a DefineMovieClip are visited in turn.
+ * </p>
+ *
+ * <p>
+ * Each reference is passed to a ReferenceVisitor and replaced with the value
+ * it returns, so the same code is used to find the characters a tag depends
+ * on and to renumber them. The encoded data kept by tags decoded using the
+ * RETAIN DecodePolicy is only discarded if the visitor changes one of the
+ * references, so finding the characters a tag uses does not cause it to be
+ * encoded again.
+ * </p>
+ */
+@SuppressWarnings({"PMD.ExcessiveImports",
+     "PMD.CyclomaticComplexity",
+     "PMD.ExcessiveMethodLength",
+     "PMD.NcssMethodCount" })
+public final class References {
+
+    /** The identifier used in a BitmapFill that has no image. */
+    private static final int NO_BITMAP = 0xFFFF;
+
+    /**
+     * Visit each of the references to characters in a tag.
+     *
+     * @param tag the tag containing the references.
+     * @param visitor the object that is passed each identifier and returns
+     * the value that replaces it.
+     */
+    public static void visit(final MovieTag tag,
+            final ReferenceVisitor visitor) {
+        final Tracker tracker = new Tracker(visitor);
+        final Retained encoded = encoded(tag);
+        visitReferences(tag, tracker);
+        restore(tag, encoded, tracker);
+    }
+
+    /**
+     * Visit each of the references to characters in a tag without
+     * restoring the encoded data.
+     *
+     * @param tag the tag containing the references.
+     * @param visitor the object that is passed each identifier and returns
+     * the value that replaces it.
+     */
+    private static void visitReferences(final MovieTag tag,
+            final ReferenceVisitor visitor) {
+        switch (tag.getTagType()) {
+        case MovieTypes.PLACE:
+            final Place place = (Place) tag;
+            final int placed = map(place.getIdentifier(), visitor);
+            if (placed != place.getIdentifier()) {
+                place.setIdentifier(placed);
+            }
+            break;
+        case MovieTypes.PLACE_2:
+            final Place2 place2 = (Place2) tag;
+            final int placed2 = map(place2.getIdentifier(), visitor);
+            if (placed2 != place2.getIdentifier()) {
+                place2.setIdentifier(placed2);
+            }
+            break;
+        case MovieTypes.PLACE_3:
+            final Place3 place3 = (Place3) tag;
+            final int placed3 = map(place3.getIdentifier(), visitor);
+            if (placed3 != place3.getIdentifier()) {
+                place3.setIdentifier(placed3);
+            }
+            break;
+        case MovieTypes.REMOVE:
+            final Remove remove = (Remove) tag;
+            final int removed = map(remove.getIdentifier(), visitor);
+            if (removed != remove.getIdentifier()) {
+                remove.setIdentifier(removed);
+            }
+            break;
+        case MovieTypes.FREE:
+            final Free free = (Free) tag;
+            final int freed = map(free.getIdentifier(), visitor);
+            if (freed != free.getIdentifier()) {
+                free.setIdentifier(freed);
+            }
+            break;
+        case MovieTypes.DEFINE_SCALING_GRID:
+            final ScalingGrid grid = (ScalingGrid) tag;
+            final int scaled = map(grid.getIdentifier(), visitor);
+            if (scaled != grid.getIdentifier()) {
+                grid.setIdentifier(scaled);
+            }
+            break;
+        case MovieTypes.DEFINE_SHAPE:
+        case MovieTypes.DEFINE_SHAPE_2:
+        case MovieTypes.DEFINE_SHAPE_3:
+        case MovieTypes.DEFINE_SHAPE_4:
+            visitShape((ShapeTag) tag, visitor);
+            break;
+        case MovieTypes.DEFINE_MORPH_SHAPE:
+            visitShape((ShapeTag) tag, visitor);
+            visitStyles(((DefineMorphShape) tag).getEndShape(), visitor);
+            break;
+        case MovieTypes.DEFINE_MORPH_SHAPE_2:
+            visitShape((ShapeTag) tag, visitor);
+            visitStyles(((DefineMorphShape2) tag).getEndShape(), visitor);
+            break;
+        case MovieTypes.DEFINE_BUTTON:
+            visitButton(((DefineButton) tag).getShapes(), visitor);
+            break;
+        case MovieTypes.DEFINE_BUTTON_2:
+            visitButton(((DefineButton2) tag).getShapes(), visitor);
+            break;
+        case MovieTypes.BUTTON_SOUND:
+            visitButtonSound((ButtonSound) tag, visitor);
+            break;
+        case MovieTypes.BUTTON_COLOR_TRANSFORM:
+            final ButtonColorTransform colors = (ButtonColorTransform) tag;
+            final int colored = map(colors.getIdentifier(), visitor);
+            if (colored != colors.getIdentifier()) {
+                colors.setIdentifier(colored);
+            }
+            break;
+        case MovieTypes.DEFINE_TEXT:
+        case MovieTypes.DEFINE_TEXT_2:
+            visitSpans(((StaticTextTag) tag).getSpans(), visitor);
+            break;
+        case MovieTypes.DEFINE_TEXT_FIELD:
+            final DefineTextField field = (DefineTextField) tag;
+            final int font = map(field.getFontIdentifier(), visitor);
+            if (font != field.getFontIdentifier()) {
+                field.setFontIdentifier(font);
+            }
+            break;
+        case MovieTypes.TEXT_SETTINGS:
+            final TextSettings settings = (TextSettings) tag;
+            final int text = map(settings.getIdentifier(), visitor);
+            if (text != settings.getIdentifier()) {
+                settings.setIdentifier(text);
+            }
+            break;
+        case MovieTypes.FONT_INFO:
+            final FontInfo info = (FontInfo) tag;
+            final int described = map(info.getIdentifier(), visitor);
+            if (described != info.getIdentifier()) {
+                info.setIdentifier(described);
+            }
+            break;
+        case MovieTypes.FONT_INFO_2:
+            final FontInfo2 info2 = (FontInfo2) tag;
+            final int described2 = map(info2.getIdentifier(), visitor);
+            if (described2 != info2.getIdentifier()) {
+                info2.setIdentifier(described2);
+            }
+            break;
+        case MovieTypes.FONT_ALIGNMENT:
+            final FontAlignment alignment = (FontAlignment) tag;
+            final int aligned = map(alignment.getIdentifier(), visitor);
+            if (aligned != alignment.getIdentifier()) {
+                alignment.setIdentifier(aligned);
+            }
+            break;
+        case MovieTypes.FONT_NAME:
+            final FontName name = (FontName) tag;
+            final int named = map(name.getIdentifier(), visitor);
+            if (named != name.getIdentifier()) {
+                name.setIdentifier(named);
+            }
+            break;
+        case MovieTypes.START_SOUND:
+            visitSound(((StartSound) tag).getSound(), visitor);
+            break;
+        case MovieTypes.START_SOUND_2:
+            visitSound(((StartSound2) tag).getSound(), visitor);
+            break;
+        case MovieTypes.VIDEO_FRAME:
+            final VideoFrame frame = (VideoFrame) tag;
+            final int stream = map(frame.getIdentifier(), visitor);
+            if (stream != frame.getIdentifier()) {
+                frame.setIdentifier(stream);
+            }
+            break;
+        case MovieTypes.INITIALIZE:
+            final InitializeMovieClip init = (InitializeMovieClip) tag;
+            final int clip = map(init.getIdentifier(), visitor);
+            if (clip != init.getIdentifier()) {
+                init.setIdentifier(clip);
+            }
+            break;
+        case MovieTypes.DEFINE_MOVIE_CLIP:
+            for (final MovieTag object
+                    : ((DefineMovieClip) tag).getObjects()) {
+                visit(object, visitor);
+            }
+            break;
+        case MovieTypes.EXPORT:
+            final Export export = (Export) tag;
+            final Map<Integer, String> exported =
+                visitTable(export.getObjects(), visitor);
+            if (exported != null) {
+                export.setObjects(exported);
+            }
+            break;
+        case MovieTypes.SYMBOL:
+            final SymbolClass symbols = (SymbolClass) tag;
+            final Map<Integer, String> linked =
+                visitTable(symbols.getObjects(), visitor);
+            if (linked != null) {
+                symbols.setObjects(linked);
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Visit the identifiers of the characters defined by a tag: the
+     * identifier of a definition or the identifiers assigned to the
+     * characters loaded by an Import or Import2 object. ScalingGrid objects
+     * refer to an existing definition so they are visited by visit().
+     *
+     * @param tag the tag.
+     * @param visitor the object that is passed each identifier and returns
+     * the value that replaces it.
+     */
+    public static void visitDefinitions(final MovieTag tag,
+            final ReferenceVisitor visitor) {
+        final Tracker tracker = new Tracker(visitor);
+        final Retained encoded = encoded(tag);
+        visitIdentifiers(tag, tracker);
+        restore(tag, encoded, tracker);
+    }
+
+    /**
+     * Visit the identifiers of the characters defined by a tag without
+     * restoring the encoded data.
+     *
+     * @param tag the tag.
+     * @param visitor the object that is passed each identifier and returns
+     * the value that replaces it.
+     */
+    private static void visitIdentifiers(final MovieTag tag,
+            final ReferenceVisitor visitor) {
+        if (tag instanceof Import) {
+            final Import imported = (Import) tag;
+            final Map<Integer, String> table =
+                visitTable(imported.getObjects(), visitor);
+            if (table != null) {
+                imported.setObjects(table);
+            }
+        } else if (tag instanceof Import2) {
+            final Import2 imported = (Import2) tag;
+            final Map<Integer, String> table =
+                visitTable(imported.getObjects(), visitor);
+            if (table != null) {
+                imported.setObjects(table);
+            }
+        } else if (tag instanceof DefineTag && !(tag instanceof ScalingGrid)) {
+            final DefineTag definition = (DefineTag) tag;
+            final int uid = map(definition.getIdentifier(), visitor);
+            if (uid != definition.getIdentifier()) {
+                definition.setIdentifier(uid);
+            }
+        }
+    }
+
+    /**
+     * Get the encoded data kept by a tag decoded using the RETAIN
+     * DecodePolicy.
+     *
+     * @param tag the tag.
+     * @return the encoded data or null if the tag does not keep the data it
+     * was decoded from or it has been modified.
+     */
+    private static Retained encoded(final MovieTag tag) {
+        final Retained encoded;
+        if (tag instanceof Passthrough) {
+            encoded = ((Passthrough) tag).getEncoded();
+        } else {
+            encoded = null;
+        }
+        return encoded;
+    }
+
+    /**
+     * Put back the encoded data discarded by the methods used to get the
+     * references from a tag if none of the references were changed.
+     *
+     * @param tag the tag.
+     * @param encoded the encoded data kept by the tag before it was visited.
+     * May be null.
+     * @param tracker the Tracker that recorded whether any of the references
+     * changed.
+     */
+    private static void restore(final MovieTag tag, final Retained encoded,
+            final Tracker tracker) {
+        if (encoded != null && !tracker.isChanged()) {
+            ((Passthrough) tag).setEncoded(encoded);
+        }
+    }
+
+    /**
+     * Pass an identifier to the visitor, skipping the zero value used in
+     * some tags to show that no character is referenced.
+     *
+     * @param uid the identifier referenced.
+     * @param visitor the ReferenceVisitor.
+     * @return the identifier that replaces uid.
+     */
+    private static int map(final int uid, final ReferenceVisitor visitor) {
+        return uid == 0 ? uid : visitor.visit(uid);
+    }
+
+    /**
+     * Visit the images used in the fill styles of a shape definition.
+     *
+     * @param tag the shape definition.
+     * @param visitor the ReferenceVisitor.
+     */
+    private static void visitShape(final ShapeTag tag,
+            final ReferenceVisitor visitor) {
+        visitFills(tag.getFillStyles(), visitor);
+        visitLines(tag.getLineStyles(), visitor);
+        visitStyles(tag.getShape(), visitor);
+    }
+
+    /**
+     * Visit the images used in the styles added in the records of a shape.
+     * Packed shapes are not expanded.
+     *
+     * @param shape the shape.
+     * @param visitor the ReferenceVisitor.
+     */
+    private static void visitStyles(final Shape shape,
+            final ReferenceVisitor visitor) {
+        for (final ShapeRecord record : shape.getStyles()) {
+            if (record instanceof ShapeStyle) {
+                visitFills(((ShapeStyle) record).getFillStyles(), visitor);
+            } else if (record instanceof ShapeStyle2) {
+                final ShapeStyle2 style = (ShapeStyle2) record;
+                visitFills(style.getFillStyles(), visitor);
+                for (final LineStyle2 line : style.getLineStyles()) {
+                    visitFill(line.getFillStyle(), visitor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visit the images used in a list of line styles. Only LineStyle2 and
+     * MorphLineStyle2 objects may contain a fill style.
+     *
+     * @param list the line styles.
+     * @param visitor the ReferenceVisitor.
+     */
+    private static void visitLines(final List<LineStyle> list,
+            final ReferenceVisitor visitor) {
+        for (final LineStyle style : list) {
+            if (style instanceof LineStyle2) {
+                visitFill(((LineStyle2) style).getFillStyle(), visitor);
+            } else if (style instanceof MorphLineStyle2) {
+                visitFill(((MorphLineStyle2) style).getFillStyle(), visitor);
+            }
+        }
+    }
+
+    /**
+     * Visit the images used in a list of fill styles.
+     *
+     * @param list the fill styles.
+     * @param visitor the ReferenceVisitor.
+     */
+    private static void visitFills(final List<FillStyle> list,
+            final ReferenceVisitor visitor) {
+        for (final FillStyle style : list) {
+            visitFill(style, visitor);
+        }
+    }
+
+    /**
+     * Visit the image used in a fill style.
+     *
+     * @param style the fill style. May be null.
+     * @param visitor the ReferenceVisitor.
+     */
+    private static void visitFill(final FillStyle style,
+            final ReferenceVisitor visitor) {
+        if (style instanceof BitmapFill) {
+            final BitmapFill fill = (BitmapFill) style;
+            if (fill.getIdentifier() != NO_BITMAP) {
+                final int uid = map(fill.getIdentifier(), visitor);
+                if (uid != fill.getIdentifier()) {
+                    fill.setIdentifier(uid);
+                }
+            }
+        } else if (style instanceof MorphBitmapFill) {
+            final MorphBitmapFill fill = (MorphBitmapFill) style;
+            if (fill.getIdentifier() != NO_BITMAP) {
+                final int uid = map(fill.getIdentifier(), visitor);
+                if (uid != fill.getIdentifier()) {
+                    fill.setIdentifier(uid);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visit the characters displayed by a button.
+     *
+     * @param list the shapes that make up the button.
+     * @param visitor the ReferenceVisitor.
+     */
+    private static void visitButton(final List<ButtonShape> list,
+            final ReferenceVisitor visitor) {
+        for (final ButtonShape shape : list) {
+            final int uid = map(shape.getIdentifier(), visitor);
+            if (uid != shape.getIdentifier()) {
+                shape.setIdentifier(uid);
+            }
+        }
+    }
+
+    /**
+     * Visit the button and the sounds played for button events.
+     *
+     * @param tag the ButtonSound.
+     * @param visitor the ReferenceVisitor.
+     */
+    private static void visitButtonSound(final ButtonSound tag,
+            final ReferenceVisitor visitor) {
+        final int button = map(tag.getIdentifier(), visitor);
+        if (button != tag.getIdentifier()) {
+            tag.setIdentifier(button);
+        }
+        for (final Event event : Event.values()) {
+            final SoundInfo info = tag.getSoundInfo(event);
+            if (info != null) {
+                final int uid = map(info.getIdentifier(), visitor);
+                if (uid != info.getIdentifier()) {
+                    info.setIdentifier(uid);
+                    // Discard any encoded data kept by the tag.
+                    tag.setSoundInfo(event, info);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visit the sound played by a StartSound or StartSound2 object.
+     *
+     * @param info the SoundInfo. May be null if the sound is identified by
+     * the name of an ActionScript class.
+     * @param visitor the ReferenceVisitor.
+     */
+    private static void visitSound(final SoundInfo info,
+            final ReferenceVisitor visitor) {
+        if (info != null) {
+            final int uid = map(info.getIdentifier(), visitor);
+            if (uid != info.getIdentifier()) {
+                info.setIdentifier(uid);
+            }
+        }
+    }
+
+    /**
+     * Visit the fonts used in the spans of a static text definition.
+     *
+     * @param list the spans.
+     * @param visitor the ReferenceVisitor.
+     */
+    private static void visitSpans(final List<TextSpan> list,
+            final ReferenceVisitor visitor) {
+        for (final TextSpan span : list) {
+            final Integer font = span.getIdentifier();
+            if (font != null) {
+                final int uid = map(font, visitor);
+                if (uid != font) {
+                    span.setIdentifier(uid);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visit the characters in the table of an Export, SymbolClass, Import or
+     * Import2 object.
+     *
+     * @param table the table of identifiers and names.
+     * @param visitor the ReferenceVisitor.
+     * @return a new table with the identifiers replaced or null if none of
+     * the identifiers changed.
+     */
+    private static Map<Integer, String> visitTable(
+            final Map<Integer, String> table,
+            final ReferenceVisitor visitor) {
+        final Map<Integer, String> map =
+            new LinkedHashMap<Integer, String>(table.size());
+        boolean changed = false;
+        for (final Map.Entry<Integer, String> entry : table.entrySet()) {
+            final int uid = map(entry.getKey(), visitor);
+            changed |= uid != entry.getKey();
+            map.put(uid, entry.getValue());
+        }
+        return changed ? map : null;
+    }
+
+    /**
+     * Tracker passes each reference to a ReferenceVisitor and records whether
+     * any of them were replaced.
+     */
+    private static final class Tracker implements ReferenceVisitor {
+        /** The visitor that is passed each reference. */
+        private final transient ReferenceVisitor visitor;
+        /** Whether the visitor replaced any of the references. */
+        private transient boolean changed;
+
+        /**
+         * Create a Tracker for a ReferenceVisitor.
+         *
+         * @param target the visitor that is passed each reference.
+         */
+        Tracker(final ReferenceVisitor target) {
+            visitor = target;
+        }
+
+        /** {@inheritDoc} */
+        public int visit(final int uid) {
+            final int value = visitor.visit(uid);
+            changed |= value != uid;
+            return value;
+        }
+
+        /**
+         * Did the visitor replace any of the references.
+         *
+         * @return true if at least one reference was changed.
+         */
+        boolean isChanged() {
+            return changed;
+        }
+    }
+
+    /** Private constructor. */
+    private References() {
+        // Utility class.
+    }
+}
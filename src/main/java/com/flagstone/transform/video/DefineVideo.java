@@ -36,6 +36,8 @@ import java.io.IOException;
 import com.flagstone.transform.Constants;
 import com.flagstone.transform.DefineTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -54,7 +56,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  * class.
  * </p>
  */
-public final class DefineVideo implements DefineTag {
+public final class DefineVideo implements DefineTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "DefineVideo: { identifier=%d;"
@@ -79,6 +81,9 @@ public final class DefineVideo implements DefineTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a DefineVideo object using values encoded in the
      * Flash binary format.
@@ -170,6 +175,7 @@ public final class DefineVideo implements DefineTag {
 
     /** {@inheritDoc} */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -193,6 +199,7 @@ public final class DefineVideo implements DefineTag {
      *            the number of video frames. Must be in the range 0..65535.
      */
     public void setFrameCount(final int count) {
+        encoded = null;
         if ((count < 0) || (count > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     0, Coder.USHORT_MAX, count);
@@ -216,6 +223,7 @@ public final class DefineVideo implements DefineTag {
      *            the width of the frame. Must be in the range 0..65535.
      */
     public void setWidth(final int size) {
+        encoded = null;
         if ((size < 0) || (size > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     0, Coder.USHORT_MAX, size);
@@ -239,6 +247,7 @@ public final class DefineVideo implements DefineTag {
      *            the height of the frame. Must be in the range 0..65535.
      */
     public void setHeight(final int size) {
+        encoded = null;
         if ((size < 0) || (size > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     0, Coder.USHORT_MAX, size);
@@ -286,6 +295,7 @@ public final class DefineVideo implements DefineTag {
      *            is used.
      */
     public void setDeblocking(final Deblocking value) {
+        encoded = null;
         switch (value) {
         case VIDEO:
             deblocking = 0;
@@ -328,6 +338,7 @@ public final class DefineVideo implements DefineTag {
      *            true if smoothing is turned on, false if it is turned off.
      */
     public void setSmoothed(final boolean smoothing) {
+        encoded = null;
         smoothed = smoothing;
     }
 
@@ -365,6 +376,7 @@ public final class DefineVideo implements DefineTag {
      *            VideoFormat.SCREEN, VideoFormat.VP6 or VideoFormat.VP6ALPHA.
      */
     public void setCodec(final VideoFormat format) {
+        encoded = null;
         switch (format) {
         case H263:
             codec = Coder.BIT1;
@@ -382,6 +394,26 @@ public final class DefineVideo implements DefineTag {
         }
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.DEFINE_VIDEO;
+    }
+
     /** {@inheritDoc} */
     public DefineVideo copy() {
         return new DefineVideo(this);
@@ -396,6 +428,9 @@ public final class DefineVideo implements DefineTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         length = 10;
         return Coder.SHORT_HEADER + length;
@@ -404,6 +439,10 @@ public final class DefineVideo implements DefineTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
 
         if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.DEFINE_VIDEO
@@ -35,6 +35,8 @@ import java.util.Arrays;
 
 import com.flagstone.transform.MovieTag;
 import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Retained;
 import com.flagstone.transform.coder.Coder;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
@@ -55,7 +57,7 @@ import com.flagstone.transform.exception.IllegalArgumentRangeException;
  *
  * @see DefineVideo
  */
-public final class VideoFrame implements MovieTag {
+public final class VideoFrame implements MovieTag, Passthrough {
 
     /** Format string used in toString() method. */
     private static final String FORMAT = "VideoFrame: { identifier=%d;"
@@ -71,6 +73,9 @@ public final class VideoFrame implements MovieTag {
     /** The length of the object, minus the header, when it is encoded. */
     private transient int length;
 
+    /** The encoded tag the object was decoded from, null if modified. */
+    private transient Retained encoded;
+
     /**
      * Creates and initialises a VideoFrame object using values encoded
      * in the Flash binary format.
@@ -145,6 +150,7 @@ public final class VideoFrame implements MovieTag {
      *            the range 1..65535.
      */
     public void setIdentifier(final int uid) {
+        encoded = null;
         if ((uid < 1) || (uid > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, uid);
@@ -168,6 +174,7 @@ public final class VideoFrame implements MovieTag {
      *            the frame number. Must be in the range 1..65535.
      */
     public void setFrameNumber(final int number) {
+        encoded = null;
         if ((number < 1) || (number > Coder.USHORT_MAX)) {
             throw new IllegalArgumentRangeException(
                     1, Coder.USHORT_MAX, number);
@@ -194,12 +201,33 @@ public final class VideoFrame implements MovieTag {
      *            the encoded video data. Must not be null.
      */
     public void setData(final byte[] frameData) {
+        encoded = null;
         if (frameData == null) {
             throw new IllegalArgumentException();
         }
         data =  Arrays.copyOf(frameData, frameData.length);
     }
 
+    /** {@inheritDoc} */
+    public void setEncoded(final Retained data) {
+        encoded = data;
+    }
+
+    /** {@inheritDoc} */
+    public Retained getEncoded() {
+        return encoded;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isModified() {
+        return encoded == null;
+    }
+
+    /** {@inheritDoc} */
+    public int getTagType() {
+        return MovieTypes.VIDEO_FRAME;
+    }
+
     /** {@inheritDoc} */
     public VideoFrame copy() {
         return new VideoFrame(this);
@@ -213,6 +241,9 @@ public final class VideoFrame implements MovieTag {
 
     /** {@inheritDoc} */
     public int prepareToEncode(final Context context) {
+        if (encoded != null && encoded.matches(context)) {
+            return encoded.getLength();
+        }
         // CHECKSTYLE IGNORE MagicNumberCheck FOR NEXT 1 LINES
         length = 4 + data.length;
 
@@ -223,6 +254,10 @@ public final class VideoFrame implements MovieTag {
     /** {@inheritDoc} */
     public void encode(final SWFEncoder coder, final Context context)
             throws IOException {
+        if (encoded != null && encoded.matches(context)) {
+            coder.writeBytes(encoded.getData());
+            return;
+        }
          if (length > Coder.HEADER_LIMIT) {
             coder.writeShort((MovieTypes.VIDEO_FRAME
                     << Coder.LENGTH_FIELD_SIZE) | Coder.IS_EXTENDED);
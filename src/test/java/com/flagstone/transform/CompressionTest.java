@@ -0,0 +1,134 @@
+/*
+ * CompressionTest.java
+ * Transform
+ *
+ * Copyright (c) 2009-2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.flagstone.transform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+
+import com.flagstone.transform.exception.IllegalArgumentRangeException;
+
+public final class CompressionTest {
+
+    private static final int BLOCK_SIZE = 40000;
+    private static final int LENGTH = 300000;
+
+    private transient Compression fixture;
+
+    @Test(expected = IllegalArgumentRangeException.class)
+    public void checkAccessorForLevelWithLowerBound() {
+        fixture = new Compression(-2);
+    }
+
+    @Test(expected = IllegalArgumentRangeException.class)
+    public void checkAccessorForLevelWithUpperBound() {
+        fixture = new Compression(10);
+    }
+
+    @Test(expected = IllegalArgumentRangeException.class)
+    public void checkAccessorForStrategyWithUpperBound() {
+        fixture = new Compression().setStrategy(3);
+    }
+
+    @Test(expected = IllegalArgumentRangeException.class)
+    public void checkAccessorForBufferSizeWithLowerBound() {
+        fixture = new Compression().setBufferSize(0);
+    }
+
+    @Test(expected = IllegalArgumentRangeException.class)
+    public void checkAccessorForBlockSizeWithLowerBound() {
+        fixture = new Compression().setBlockSize(-1);
+    }
+
+    @Test
+    public void checkCopy() {
+        fixture = new Compression(Deflater.BEST_SPEED)
+                .setStrategy(Deflater.FILTERED).setBufferSize(1)
+                .setBlockSize(BLOCK_SIZE);
+        final Compression copy = fixture.copy();
+
+        assertEquals(fixture.getLevel(), copy.getLevel());
+        assertEquals(fixture.getStrategy(), copy.getStrategy());
+        assertEquals(fixture.getBufferSize(), copy.getBufferSize());
+        assertEquals(fixture.getBlockSize(), copy.getBlockSize());
+    }
+
+    @Test
+    public void checkParallelCompressionInflates()
+            throws DataFormatException, IOException {
+        final byte[] data = new byte[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            data[i] = (byte) (i % 251 + i / 1000);
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int strategy = Deflater.DEFAULT_STRATEGY;
+                    strategy <= Deflater.HUFFMAN_ONLY; strategy++) {
+                fixture = new Compression(Deflater.BEST_COMPRESSION)
+                        .setStrategy(strategy).setBlockSize(BLOCK_SIZE);
+                assertArrayEquals(data, inflate(compress(data, executor),
+                        LENGTH));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private byte[] compress(final byte[] data, final ExecutorService executor)
+            throws IOException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final OutputStream deflater = fixture.deflate(stream, executor);
+        deflater.write(data);
+        deflater.close();
+        return stream.toByteArray();
+    }
+
+    private byte[] inflate(final byte[] data, final int length)
+            throws DataFormatException {
+        final Inflater inflater = new Inflater();
+        final byte[] result = new byte[length];
+        inflater.setInput(data);
+        assertEquals(length, inflater.inflate(result));
+        assertEquals(true, inflater.finished());
+        inflater.end();
+        return result;
+    }
+}
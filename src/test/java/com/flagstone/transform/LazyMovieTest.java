@@ -0,0 +1,182 @@
+/*
+ * LazyMovieTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.flagstone.transform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+
+import com.flagstone.transform.datatype.Bounds;
+import com.flagstone.transform.datatype.Color;
+
+public final class LazyMovieTest {
+
+    private static final int FRAMES = 3;
+
+    private transient LazyMovie fixture;
+
+    private byte[] createMovie() throws DataFormatException, IOException {
+        final MovieHeader header = new MovieHeader();
+        header.setFrameSize(new Bounds(0, 0, 8000, 6000));
+        header.setFrameRate(12.0f);
+        header.setCompressed(true);
+
+        final Movie movie = new Movie();
+        movie.add(header);
+        movie.add(new Background(new Color(1, 2, 3)));
+        movie.add(new FrameLabel("start"));
+        for (int i = 0; i < FRAMES; i++) {
+            movie.add(ShowFrame.getInstance());
+        }
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        movie.encodeToStream(stream);
+        return stream.toByteArray();
+    }
+
+    private byte[] encode(final LazyMovie movie)
+            throws DataFormatException, IOException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        movie.encodeToStream(stream);
+        return stream.toByteArray();
+    }
+
+    private byte[] encode(final Movie movie)
+            throws DataFormatException, IOException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        movie.encodeToStream(stream);
+        return stream.toByteArray();
+    }
+
+    @Test
+    public void checkTagsAreIndexed() throws DataFormatException,
+            IOException {
+        fixture = new LazyMovie();
+        fixture.decodeFromBuffer(ByteBuffer.wrap(createMovie()));
+
+        assertEquals(2 + FRAMES, fixture.size());
+        assertEquals(MovieTypes.SET_BACKGROUND_COLOR, fixture.getType(0));
+        assertEquals(MovieTypes.FRAME_LABEL, fixture.getType(1));
+        assertEquals(2, fixture.indexOf(MovieTypes.SHOW_FRAME, 0));
+        assertEquals(-1, fixture.indexOf(MovieTypes.DO_ACTION, 0));
+        assertEquals(FRAMES, fixture.getHeader().getFrameCount());
+    }
+
+    @Test
+    public void checkTagsAreDecodedWhenAccessed()
+            throws DataFormatException, IOException {
+        fixture = new LazyMovie();
+        fixture.decodeFromBuffer(ByteBuffer.wrap(createMovie()));
+
+        assertFalse(fixture.isDecoded(1));
+        assertEquals("start", ((FrameLabel) fixture.getObject(1)).getLabel());
+        assertTrue(fixture.isDecoded(1));
+        assertFalse(fixture.isDecoded(0));
+    }
+
+    @Test
+    public void checkUntouchedMovieIsUnchanged()
+            throws DataFormatException, IOException {
+        final byte[] data = createMovie();
+        fixture = new LazyMovie();
+        fixture.decodeFromBuffer(ByteBuffer.wrap(data));
+        fixture.getObject(0);
+
+        assertArrayEquals(data, encode(fixture));
+    }
+
+    @Test
+    public void checkReplacedTagIsEncoded()
+            throws DataFormatException, IOException {
+        fixture = new LazyMovie();
+        fixture.decodeFromBuffer(ByteBuffer.wrap(createMovie()));
+        fixture.setObject(1, new FrameLabel("end"));
+
+        final Movie result = new Movie();
+        result.decodeFromBuffer(ByteBuffer.wrap(encode(fixture)));
+
+        assertEquals("end", ((FrameLabel) result.getObjects().get(2))
+                .getLabel());
+    }
+
+    @Test
+    public void checkCompressionIsUsed()
+            throws DataFormatException, IOException {
+        final byte[] data = createMovie();
+        fixture = new LazyMovie();
+        fixture.decodeFromBuffer(ByteBuffer.wrap(data));
+        fixture.setCompression(new Compression(Deflater.NO_COMPRESSION));
+
+        final Movie movie = new Movie();
+        movie.decodeFromBuffer(ByteBuffer.wrap(data));
+        movie.setCompression(new Compression(Deflater.NO_COMPRESSION));
+
+        final byte[] encoded = encode(fixture);
+        assertArrayEquals(encode(movie), encoded);
+        assertTrue(encoded.length > data.length);
+    }
+
+    @Test
+    public void checkSavedIndexIsUsed()
+            throws DataFormatException, IOException {
+        final File file = File.createTempFile("movie", ".swf");
+        final File index = File.createTempFile("movie", ".idx");
+        file.deleteOnExit();
+        index.deleteOnExit();
+        index.delete();
+
+        final FileOutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(createMovie());
+        } finally {
+            stream.close();
+        }
+
+        final LazyMovie first = new LazyMovie();
+        first.decodeFromFile(file, index);
+        assertTrue(index.exists());
+
+        final LazyMovie second = new LazyMovie();
+        second.decodeFromFile(file, index);
+        assertEquals(first.size(), second.size());
+        assertEquals("start", ((FrameLabel) second.getObject(1)).getLabel());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * LzmaEncoderTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.flagstone.transform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+
+import org.junit.Test;
+
+public final class LzmaEncoderTest {
+
+    private static final int LENGTH = 100000;
+
+    private byte[] compress(final byte[] data) {
+        final byte[] encoded = LzmaEncoder.encode(data, data.length);
+        final ByteBuffer buffer = ByteBuffer.allocate(4 + encoded.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(encoded.length - LzmaDecoder.PROPERTIES_LENGTH);
+        buffer.put(encoded);
+        return buffer.array();
+    }
+
+    @Test
+    public void checkRandomDataRoundTrips() throws DataFormatException {
+        final byte[] data = new byte[LENGTH];
+        new Random(1).nextBytes(data);
+        assertArrayEquals(data, LzmaDecoder.decode(
+                ByteBuffer.wrap(compress(data)), data.length));
+    }
+
+    @Test
+    public void checkRepeatedDataRoundTrips()
+            throws DataFormatException, IOException {
+        final byte[] data = new byte[LENGTH];
+        final Random random = new Random(2);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = i > 64 && random.nextInt(8) > 0
+                    ? data[i - 1 - random.nextInt(64)]
+                    : (byte) random.nextInt(4);
+        }
+        final byte[] compressed = compress(data);
+        assertTrue(compressed.length < data.length / 2);
+        assertArrayEquals(data, LzmaDecoder.decode(
+                new ByteArrayInputStream(compressed), data.length));
+    }
+
+    @Test
+    public void checkEmptyDataRoundTrips() throws DataFormatException {
+        assertArrayEquals(new byte[0], LzmaDecoder.decode(
+                ByteBuffer.wrap(compress(new byte[0])), 0));
+    }
+
+    @Test(expected = DataFormatException.class)
+    public void checkTruncatedDataThrowsException()
+            throws DataFormatException {
+        final byte[] data = new byte[LENGTH];
+        new Random(3).nextBytes(data);
+        final byte[] compressed = compress(data);
+        LzmaDecoder.decode(ByteBuffer.wrap(Arrays.copyOf(compressed,
+                compressed.length / 2)), data.length);
+    }
+}
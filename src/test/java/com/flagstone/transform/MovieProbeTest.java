@@ -0,0 +1,138 @@
+/*
+ * MovieProbeTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.flagstone.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+
+import org.junit.Test;
+
+import com.flagstone.transform.coder.SWFDecoder;
+import com.flagstone.transform.datatype.Bounds;
+import com.flagstone.transform.datatype.Color;
+
+public final class MovieProbeTest {
+
+    private static final String META_DATA = "<rdf:RDF></rdf:RDF>";
+
+    private transient MovieProbe fixture;
+
+    private MovieAttributes createAttributes() throws IOException {
+        // FileAttributes tag with the HasMetadata and ActionScript3 flags
+        return new MovieAttributes(new SWFDecoder(ByteBuffer.wrap(
+                new byte[] {0x44, 0x11, 0x18, 0, 0, 0})));
+    }
+
+    private byte[] encode(final Movie movie)
+            throws DataFormatException, IOException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        movie.encodeToStream(stream);
+        return stream.toByteArray();
+    }
+
+    private Movie createMovie(final boolean compressed) {
+        final MovieHeader header = new MovieHeader();
+        header.setFrameSize(new Bounds(0, 0, 8000, 6000));
+        header.setFrameRate(12.0f);
+        header.setCompressed(compressed);
+
+        final Movie movie = new Movie();
+        movie.add(header);
+        return movie;
+    }
+
+    @Test
+    public void checkHeaderFieldsAreRead()
+            throws DataFormatException, IOException {
+        final Movie movie = createMovie(true);
+        movie.add(new Background(new Color(1, 2, 3)));
+        movie.add(ShowFrame.getInstance());
+        movie.add(ShowFrame.getInstance());
+
+        fixture = MovieProbe.probe(new ByteArrayInputStream(encode(movie)));
+        assertEquals(Movie.VERSION, fixture.getVersion());
+        assertTrue(fixture.isCompressed());
+        assertFalse(fixture.isLzma());
+        assertEquals(new Bounds(0, 0, 8000, 6000), fixture.getFrameSize());
+        assertEquals(12.0f, fixture.getFrameRate(), 0.0f);
+        assertEquals(2, fixture.getFrameCount());
+        assertFalse(fixture.hasAttributes());
+        assertNull(fixture.getMetaData());
+    }
+
+    @Test
+    public void checkAttributesAndMetaDataAreRead()
+            throws DataFormatException, IOException {
+        final Movie movie = createMovie(false);
+        movie.add(createAttributes());
+        movie.add(new MovieMetaData(META_DATA));
+        movie.add(ShowFrame.getInstance());
+
+        fixture = MovieProbe.probe(new ByteArrayInputStream(encode(movie)));
+        assertTrue(fixture.hasAttributes());
+        assertTrue(fixture.getAttributes().hasAS3());
+        assertEquals(META_DATA, fixture.getMetaData());
+    }
+
+    @Test
+    public void checkScanStopsAtFirstFrame()
+            throws DataFormatException, IOException {
+        final Movie movie = createMovie(true);
+        movie.add(ShowFrame.getInstance());
+        movie.add(new MovieMetaData(META_DATA));
+
+        fixture = MovieProbe.probe(new ByteArrayInputStream(encode(movie)));
+        assertNull(fixture.getMetaData());
+    }
+
+    @Test
+    public void checkScanStopsWithoutEnd()
+            throws DataFormatException, IOException {
+        final Movie movie = createMovie(false);
+        movie.add(createAttributes());
+        movie.add(new MovieMetaData(META_DATA));
+        final byte[] data = encode(movie);
+        // Corrupt the End tag: the probe must not read that far.
+        data[data.length - 1] = (byte) 0xFF;
+        data[data.length - 2] = (byte) 0xFF;
+
+        assertEquals(META_DATA, MovieProbe.probe(
+                new ByteArrayInputStream(data)).getMetaData());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * MovieReaderTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.flagstone.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.NoSuchElementException;
+import java.util.zip.DataFormatException;
+
+import org.junit.Test;
+
+import com.flagstone.transform.datatype.Bounds;
+import com.flagstone.transform.datatype.Color;
+
+public final class MovieReaderTest {
+
+    private transient MovieReader fixture;
+
+    private byte[] createMovie(final boolean compressed)
+            throws DataFormatException, IOException {
+        final MovieHeader header = new MovieHeader();
+        header.setFrameSize(new Bounds(0, 0, 8000, 6000));
+        header.setFrameRate(12.0f);
+        header.setCompressed(compressed);
+
+        final Movie movie = new Movie();
+        movie.add(header);
+        movie.add(new Background(new Color(1, 2, 3)));
+        movie.add(new FrameLabel("start"));
+        movie.add(ShowFrame.getInstance());
+
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        movie.encodeToStream(stream);
+        return stream.toByteArray();
+    }
+
+    @Test
+    public void checkTagsAreReadInOrder() throws DataFormatException,
+            IOException {
+        fixture = new MovieReader(new ByteArrayInputStream(createMovie(true)));
+        try {
+            assertEquals(1, fixture.getHeader().getFrameCount());
+            assertTrue(fixture.next() instanceof Background);
+            assertEquals("start", ((FrameLabel) fixture.next()).getLabel());
+            assertTrue(fixture.next() instanceof ShowFrame);
+            assertFalse(fixture.hasNext());
+        } finally {
+            fixture.close();
+        }
+    }
+
+    @Test
+    public void checkTagsCanBeSkipped() throws DataFormatException,
+            IOException {
+        fixture = new MovieReader(new ByteArrayInputStream(createMovie(false)));
+        try {
+            assertEquals(MovieTypes.SET_BACKGROUND_COLOR, fixture.skip());
+            assertEquals(MovieTypes.FRAME_LABEL, fixture.nextType());
+            assertEquals("start", ((FrameLabel) fixture.next()).getLabel());
+            assertEquals(MovieTypes.SHOW_FRAME, fixture.skip());
+            assertFalse(fixture.hasNext());
+        } finally {
+            fixture.close();
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void checkNextAfterEndThrowsException()
+            throws DataFormatException, IOException {
+        fixture = new MovieReader(new ByteArrayInputStream(createMovie(false)));
+        try {
+            while (fixture.hasNext()) {
+                fixture.next();
+            }
+            fixture.next();
+        } finally {
+            fixture.close();
+        }
+    }
+
+    @Test(expected = DataFormatException.class)
+    public void checkInvalidSignatureThrowsException()
+            throws DataFormatException, IOException {
+        new MovieReader(new ByteArrayInputStream(new byte[] {1, 2, 3, 4}));
+    }
+
+    @Test(expected = DataFormatException.class)
+    public void checkTruncatedHeaderThrowsException()
+            throws DataFormatException, IOException {
+        new MovieReader(new ByteArrayInputStream(Movie.FWS));
+    }
+
+    @Test
+    public void checkHeaderIsReadInPieces() throws DataFormatException,
+            IOException {
+        final InputStream stream = new FilterInputStream(
+                new ByteArrayInputStream(createMovie(false))) {
+            @Override
+            public int read(final byte[] bytes, final int off,
+                    final int len) throws IOException {
+                return super.read(bytes, off, Math.min(len, 1));
+            }
+        };
+        fixture = new MovieReader(stream);
+        try {
+            assertTrue(fixture.next() instanceof Background);
+        } finally {
+            fixture.close();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * MovieStreamWriterTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.flagstone.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+
+import com.flagstone.transform.datatype.Bounds;
+import com.flagstone.transform.datatype.Color;
+
+public final class MovieStreamWriterTest {
+
+    private static final int FRAMES = 300;
+
+    private transient MovieStreamWriter fixture;
+
+    private Movie writeAndRead(final boolean compressed)
+            throws DataFormatException, IOException {
+        final File file = File.createTempFile("movie", ".swf");
+        file.deleteOnExit();
+        write(file, compressed, new Compression());
+
+        final Movie movie = new Movie();
+        movie.decodeFromStream(new FileInputStream(file));
+        return movie;
+    }
+
+    private void write(final File file, final boolean compressed,
+            final Compression settings) throws IOException {
+
+        final MovieHeader header = new MovieHeader();
+        header.setFrameSize(new Bounds(0, 0, 8000, 6000));
+        header.setFrameRate(12.0f);
+        header.setCompressed(compressed);
+
+        fixture = new MovieStreamWriter(file, header, settings);
+        try {
+            fixture.write(new Background(new Color(1, 2, 3)));
+            for (int i = 0; i < FRAMES; i++) {
+                fixture.write(new FrameLabel("frame" + i));
+                fixture.write(ShowFrame.getInstance());
+            }
+        } finally {
+            fixture.close();
+        }
+        assertEquals(FRAMES, header.getFrameCount());
+    }
+
+    @Test
+    public void checkMovieIsWritten() throws DataFormatException,
+            IOException {
+        final Movie movie = writeAndRead(false);
+        final MovieHeader header = (MovieHeader) movie.getObjects().get(0);
+
+        assertEquals(FRAMES, header.getFrameCount());
+        assertEquals(2 + 2 * FRAMES, movie.getObjects().size());
+        assertTrue(movie.getObjects().get(1) instanceof Background);
+    }
+
+    @Test
+    public void checkCompressedMovieIsWritten() throws DataFormatException,
+            IOException {
+        final Movie movie = writeAndRead(true);
+        final MovieHeader header = (MovieHeader) movie.getObjects().get(0);
+
+        assertTrue(header.isCompressed());
+        assertEquals(FRAMES, header.getFrameCount());
+        assertEquals(2 + 2 * FRAMES, movie.getObjects().size());
+        assertEquals("frame" + (FRAMES - 1), ((FrameLabel) movie.getObjects()
+                .get(2 * FRAMES)).getLabel());
+    }
+
+    @Test
+    public void checkCompressionSettingsAreUsed() throws DataFormatException,
+            IOException {
+        final File stored = File.createTempFile("movie", ".swf");
+        stored.deleteOnExit();
+        write(stored, true, new Compression(Deflater.NO_COMPRESSION));
+
+        final File best = File.createTempFile("movie", ".swf");
+        best.deleteOnExit();
+        write(best, true, new Compression(Deflater.BEST_COMPRESSION)
+                .setStrategy(Deflater.FILTERED));
+
+        assertTrue(stored.length() > best.length());
+
+        final Movie movie = new Movie();
+        movie.decodeFromStream(new FileInputStream(stored));
+        assertEquals(2 + 2 * FRAMES, movie.getObjects().size());
+
+        movie.decodeFromStream(new FileInputStream(best));
+        assertEquals(2 + 2 * FRAMES, movie.getObjects().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void checkWriteAfterCloseThrowsException() throws IOException {
+        final File file = File.createTempFile("movie", ".swf");
+        file.deleteOnExit();
+
+        final MovieHeader header = new MovieHeader();
+        header.setFrameSize(new Bounds(0, 0, 8000, 6000));
+
+        fixture = new MovieStreamWriter(file, header);
+        fixture.close();
+        fixture.write(ShowFrame.getInstance());
+    }
+}
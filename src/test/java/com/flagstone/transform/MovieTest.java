@@ -0,0 +1,566 @@
+/*
+ * MovieTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.flagstone.transform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DataFormatException;
+
+import org.junit.Test;
+
+import com.flagstone.transform.coder.CoderException;
+import com.flagstone.transform.coder.Context;
+import com.flagstone.transform.coder.DecodePolicy;
+import com.flagstone.transform.coder.DecoderRegistry;
+import com.flagstone.transform.datatype.Bounds;
+import com.flagstone.transform.datatype.Color;
+import com.flagstone.transform.fillstyle.FillStyle;
+import com.flagstone.transform.linestyle.LineStyle;
+import com.flagstone.transform.shape.DefineShape2;
+import com.flagstone.transform.shape.Line;
+import com.flagstone.transform.shape.PathsArePostscript;
+import com.flagstone.transform.shape.Shape;
+
+public final class MovieTest {
+
+    private static final int FRAMES = 3;
+    private static final int SEGMENT_SIZE = 65536;
+    private static final int LONG_FRAMES = 1000;
+    private static final int SHORTFALL = 64;
+    private static final int SHAPES = 2000;
+    private static final int FEW_SHAPES = 100;
+    private static final int LINES = 50;
+    private static final int HEADER_LENGTH = 8;
+    private static final Color COLOR = new Color(1, 2, 3);
+
+    private transient Movie fixture;
+
+    private Movie createMovie(final boolean compressed,
+            final MovieTag... tags) {
+        final MovieHeader header = new MovieHeader();
+        header.setFrameSize(new Bounds(0, 0, 8000, 6000));
+        header.setFrameRate(12.0f);
+        header.setCompressed(compressed);
+
+        final Movie movie = new Movie();
+        movie.add(header);
+        for (final MovieTag tag : tags) {
+            movie.add(tag);
+        }
+        return movie;
+    }
+
+    private Movie createFrameMovie(final boolean compressed) {
+        final Movie movie = createMovie(compressed, new Background(COLOR));
+        for (int i = 0; i < FRAMES; i++) {
+            movie.add(ShowFrame.getInstance());
+        }
+        return movie;
+    }
+
+    private Movie createTagMovie() {
+        return createMovie(false, new Background(COLOR),
+                ShowFrame.getInstance());
+    }
+
+    private Movie createLongMovie() {
+        final Movie movie = createMovie(true);
+        for (int i = 0; i < LONG_FRAMES; i++) {
+            movie.add(ShowFrame.getInstance());
+        }
+        return movie;
+    }
+
+    private Movie createShapeMovie(final boolean compressed,
+            final int count) {
+        final Movie movie = createMovie(compressed,
+                PathsArePostscript.getInstance());
+        for (int i = 1; i <= count; i++) {
+            final Shape shape = new Shape();
+            for (int j = 0; j < LINES; j++) {
+                shape.add(new Line(i % LINES + j, j));
+            }
+            movie.add(new DefineShape2(i, new Bounds(0, 0, 1000, 1000),
+                    new ArrayList<FillStyle>(), new ArrayList<LineStyle>(),
+                    shape));
+            movie.add(Place2.show(i, i, 0, 0));
+            movie.add(ShowFrame.getInstance());
+        }
+        return movie;
+    }
+
+    private byte[] shorten(final byte[] data, final int count) {
+        final byte[] bytes = Arrays.copyOf(data, data.length);
+        final ByteBuffer length = ByteBuffer.wrap(bytes, 4, 4)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        length.putInt(4, length.getInt(4) - count);
+        return bytes;
+    }
+
+    private byte[] encode(final Movie movie)
+            throws DataFormatException, IOException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        movie.encodeToStream(stream);
+        return stream.toByteArray();
+    }
+
+    @Test
+    public void checkEncodeSetsFrameCount()
+            throws DataFormatException, IOException {
+        fixture = createFrameMovie(false);
+        encode(fixture);
+        assertEquals(FRAMES, ((MovieHeader) fixture.getObjects().get(0))
+                .getFrameCount());
+    }
+
+    @Test
+    public void checkParallelMatchesSequential()
+            throws DataFormatException, IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            fixture = createShapeMovie(true, FEW_SHAPES);
+            final byte[] expected = encode(fixture);
+            fixture.setExecutor(executor);
+            assertArrayEquals(expected, encode(fixture));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void checkParallelEncodeOfSegmentsMatchesSequential()
+            throws DataFormatException, IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            fixture = createShapeMovie(false, SHAPES);
+            final byte[] expected = encode(fixture);
+            fixture.setExecutor(executor);
+            assertTrue(expected.length > 4 * SEGMENT_SIZE);
+            assertArrayEquals(expected, encode(fixture));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void checkParallelDecodeMatchesSequential()
+            throws DataFormatException, IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final byte[] data = encode(createShapeMovie(true, FEW_SHAPES));
+            fixture = new Movie();
+            fixture.setExecutor(executor);
+            fixture.decodeFromBuffer(ByteBuffer.wrap(data));
+            assertEquals(2 + 3 * FEW_SHAPES, fixture.getObjects().size());
+            assertArrayEquals(data, encode(fixture));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void checkParallelDecodeOfSegmentsMatchesSequential()
+            throws DataFormatException, IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final byte[] data = encode(createShapeMovie(false, SHAPES));
+            final Movie expected = new Movie();
+            expected.decodeFromBuffer(ByteBuffer.wrap(data));
+            fixture = new Movie();
+            fixture.setExecutor(executor);
+            fixture.decodeFromBuffer(ByteBuffer.wrap(data));
+            assertTrue(data.length > 4 * SEGMENT_SIZE);
+            assertEquals(expected.toString(), fixture.toString());
+            assertArrayEquals(data, encode(fixture));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = CoderException.class)
+    public void checkParallelDecodeWithoutEnd()
+            throws DataFormatException, IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final byte[] data = encode(createFrameMovie(false));
+            fixture = new Movie();
+            fixture.setExecutor(executor);
+            fixture.decodeFromBuffer(ByteBuffer.wrap(data, 0, data.length - 2));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void checkSkippedTagsAreNotDecoded()
+            throws DataFormatException, IOException {
+        final DecoderRegistry registry = DecoderRegistry.getDefault();
+        registry.setPolicy(MovieTypes.SHOW_FRAME, DecodePolicy.SKIP);
+
+        fixture = new Movie();
+        fixture.setRegistry(registry);
+        fixture.decodeFromBuffer(ByteBuffer.wrap(encode(
+                createFrameMovie(false))));
+
+        assertEquals(2, fixture.getObjects().size());
+        assertTrue(fixture.getObjects().get(1) instanceof Background);
+    }
+
+    @Test
+    public void checkRawTagsAreMovieObjects()
+            throws DataFormatException, IOException {
+        final DecoderRegistry registry = DecoderRegistry.getDefault();
+        registry.setPolicy(MovieTypes.SET_BACKGROUND_COLOR, DecodePolicy.RAW);
+
+        final byte[] data = encode(createTagMovie());
+        fixture = new Movie();
+        fixture.setRegistry(registry);
+        fixture.decodeFromBuffer(ByteBuffer.wrap(data));
+
+        assertTrue(fixture.getObjects().get(1) instanceof MovieObject);
+        assertArrayEquals(data, encode(fixture));
+    }
+
+    @Test
+    public void checkSinglePassMatchesTwoPasses()
+            throws DataFormatException, IOException {
+        fixture = createFrameMovie(false);
+        final byte[] expected = encode(fixture);
+        fixture.setSinglePass(true);
+        assertArrayEquals(expected, encode(fixture));
+    }
+
+    @Test
+    public void checkSinglePassMatchesTwoPassesCompressed()
+            throws DataFormatException, IOException {
+        fixture = createShapeMovie(true, FEW_SHAPES);
+        final byte[] expected = encode(fixture);
+        fixture.setSinglePass(true);
+        assertArrayEquals(expected, encode(fixture));
+    }
+
+    @Test
+    public void checkSinglePassMatchesTwoPassesLzma()
+            throws DataFormatException, IOException {
+        fixture = createFrameMovie(true);
+        ((MovieHeader) fixture.getObjects().get(0)).setLzma(true);
+        final byte[] expected = encode(fixture);
+        fixture.setSinglePass(true);
+        assertArrayEquals(expected, encode(fixture));
+    }
+
+    @Test
+    public void checkSinglePassSetsFrameCount()
+            throws DataFormatException, IOException {
+        fixture = createFrameMovie(false);
+        fixture.setSinglePass(true);
+
+        final Movie decoded = new Movie();
+        decoded.decodeFromBuffer(ByteBuffer.wrap(encode(fixture)));
+        assertEquals(FRAMES, ((MovieHeader) fixture.getObjects().get(0))
+                .getFrameCount());
+        assertEquals(FRAMES, ((MovieHeader) decoded.getObjects().get(0))
+                .getFrameCount());
+    }
+
+    @Test
+    public void checkSinglePassCopiesRetainedTags()
+            throws DataFormatException, IOException {
+        final DecoderRegistry registry = DecoderRegistry.getDefault();
+        registry.setPolicy(DecodePolicy.RETAIN);
+
+        final byte[] data = encode(createTagMovie());
+        fixture = new Movie();
+        fixture.setRegistry(registry);
+        fixture.decodeFromBuffer(ByteBuffer.wrap(data));
+
+        final int[] prepared = new int[1];
+        fixture.setListener(new MovieListener() {
+            public void decoded(final int type, final int length,
+                    final long time) {
+                // Only the encoding is checked.
+            }
+
+            public void prepared(final int type, final int length,
+                    final long time) {
+                if (type == MovieTypes.SET_BACKGROUND_COLOR) {
+                    prepared[0]++;
+                }
+            }
+
+            public void encoded(final int type, final int length,
+                    final long time) {
+                // Only the tags that are prepared are counted.
+            }
+        });
+        fixture.setSinglePass(true);
+
+        assertArrayEquals(data, encode(fixture));
+        assertEquals(0, prepared[0]);
+    }
+
+    @Test
+    public void checkSinglePassPreparesRetainedTagsForOtherVersions()
+            throws DataFormatException, IOException {
+        final DecoderRegistry registry = DecoderRegistry.getDefault();
+        registry.setPolicy(DecodePolicy.RETAIN);
+
+        final byte[] data = encode(createTagMovie());
+        fixture = new Movie();
+        fixture.setRegistry(registry);
+        fixture.decodeFromBuffer(ByteBuffer.wrap(data));
+
+        final Context context = new Context();
+        context.put(Context.VERSION, 1);
+        ((Background) fixture.getObjects().get(1)).setEncoded(
+                new Retained(new byte[] {1, 2, 3}, context));
+        fixture.setSinglePass(true);
+
+        assertArrayEquals(data, encode(fixture));
+    }
+
+    @Test
+    public void checkCopyKeepsSinglePass() {
+        fixture = createFrameMovie(false);
+        fixture.setSinglePass(true);
+        assertTrue(fixture.copy().isSinglePass());
+    }
+
+    @Test
+    public void checkRetainedTagsAreNotModified()
+            throws DataFormatException, IOException {
+        final DecoderRegistry registry = DecoderRegistry.getDefault();
+        registry.setPolicy(DecodePolicy.RETAIN);
+
+        final byte[] data = encode(createTagMovie());
+        fixture = new Movie();
+        fixture.setRegistry(registry);
+        fixture.decodeFromBuffer(ByteBuffer.wrap(data));
+
+        final Background background = (Background) fixture.getObjects().get(1);
+        assertFalse(background.isModified());
+        assertArrayEquals(data, encode(fixture));
+    }
+
+    @Test
+    public void checkRetainedTagsAreEncodedForOtherVersions()
+            throws DataFormatException, IOException {
+        final DecoderRegistry registry = DecoderRegistry.getDefault();
+        registry.setPolicy(DecodePolicy.RETAIN);
+
+        fixture = new Movie();
+        fixture.setRegistry(registry);
+        fixture.decodeFromBuffer(ByteBuffer.wrap(encode(createTagMovie())));
+
+        final Background background = (Background) fixture.getObjects().get(1);
+        final Context context = new Context();
+        context.put(Context.VERSION, 1);
+        background.setEncoded(new Retained(new byte[] {1, 2, 3}, context));
+
+        final Movie decoded = new Movie();
+        decoded.decodeFromBuffer(ByteBuffer.wrap(encode(fixture)));
+        assertEquals(background.getColor().toString(), ((Background) decoded
+                .getObjects().get(1)).getColor().toString());
+        assertFalse(background.isModified());
+    }
+
+    @Test
+    public void checkModifiedTagsAreEncoded()
+            throws DataFormatException, IOException {
+        final DecoderRegistry registry = DecoderRegistry.getDefault();
+        registry.setPolicy(DecodePolicy.RETAIN);
+
+        fixture = new Movie();
+        fixture.setRegistry(registry);
+        fixture.decodeFromBuffer(ByteBuffer.wrap(encode(createTagMovie())));
+
+        final Background background = (Background) fixture.getObjects().get(1);
+        final Color color = new Color(4, 5, 6);
+        background.setColor(color);
+        assertTrue(background.isModified());
+
+        final Movie decoded = new Movie();
+        decoded.decodeFromBuffer(ByteBuffer.wrap(encode(fixture)));
+        assertEquals(color.toString(), ((Background) decoded.getObjects()
+                .get(1)).getColor().toString());
+    }
+
+    @Test
+    public void checkCompressedStreamMatchesBuffer()
+            throws DataFormatException, IOException {
+        final byte[] data = encode(createShapeMovie(true, FEW_SHAPES));
+        final Movie fromBuffer = new Movie();
+        fromBuffer.decodeFromBuffer(ByteBuffer.wrap(data));
+        final Movie fromStream = new Movie();
+        fromStream.decodeFromStream(new ByteArrayInputStream(data));
+        assertEquals(fromBuffer.toString(), fromStream.toString());
+        assertArrayEquals(data, encode(fromStream));
+    }
+
+    @Test
+    public void checkStreamWithShortLengthIsDecoded()
+            throws DataFormatException, IOException {
+        final byte[] data = encode(createLongMovie());
+        fixture = new Movie();
+        fixture.decodeFromStream(new ByteArrayInputStream(
+                shorten(data, SHORTFALL)));
+        assertEquals(1 + LONG_FRAMES, fixture.getObjects().size());
+    }
+
+    @Test(expected = EOFException.class)
+    public void checkTruncatedStreamThrowsException()
+            throws DataFormatException, IOException {
+        final byte[] data = encode(createLongMovie());
+        new Movie().decodeFromStream(new ByteArrayInputStream(
+                Arrays.copyOf(data, data.length / 2)));
+    }
+
+    @Test
+    public void checkHeaderReadInPiecesIsDecoded()
+            throws DataFormatException, IOException {
+        final byte[] data = encode(createFrameMovie(false));
+        fixture = new Movie();
+        fixture.decodeFromStream(new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(final byte[] bytes,
+                    final int offset, final int length) {
+                return super.read(bytes, offset, Math.min(length, 1));
+            }
+        });
+        assertEquals(2 + FRAMES, fixture.getObjects().size());
+    }
+
+    @Test
+    public void checkUnknownSignatureClosesStream() throws IOException {
+        final boolean[] closed = new boolean[1];
+        final InputStream stream = new ByteArrayInputStream(
+                new byte[HEADER_LENGTH]) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        try {
+            new Movie().decodeFromStream(stream);
+            fail();
+        } catch (final DataFormatException e) {
+            assertTrue(closed[0]);
+        }
+    }
+
+    @Test
+    public void checkBufferWithShortLengthIsDecoded()
+            throws DataFormatException, IOException {
+        final byte[] data = encode(createLongMovie());
+        fixture = new Movie();
+        fixture.decodeFromBuffer(ByteBuffer.wrap(shorten(data, SHORTFALL)));
+        assertEquals(1 + LONG_FRAMES, fixture.getObjects().size());
+    }
+
+    @Test(expected = EOFException.class)
+    public void checkTruncatedBufferThrowsException()
+            throws DataFormatException, IOException {
+        final byte[] data = encode(createLongMovie());
+        new Movie().decodeFromBuffer(ByteBuffer.wrap(data, 0,
+                data.length / 2));
+    }
+
+    @Test(expected = EOFException.class)
+    public void checkTruncatedDirectBufferThrowsException()
+            throws DataFormatException, IOException {
+        final byte[] data = encode(createLongMovie());
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(data.length / 2);
+        buffer.put(data, 0, buffer.capacity()).flip();
+        new Movie().decodeFromBuffer(buffer);
+    }
+
+    @Test
+    public void checkLzmaMovieHasSignature()
+            throws DataFormatException, IOException {
+        fixture = createFrameMovie(true);
+        ((MovieHeader) fixture.getObjects().get(0)).setLzma(true);
+        final byte[] data = encode(fixture);
+        assertArrayEquals(Movie.ZWS, Arrays.copyOf(data, Movie.ZWS.length));
+    }
+
+    @Test
+    public void checkLzmaMovieRoundTrips()
+            throws DataFormatException, IOException {
+        fixture = createFrameMovie(true);
+        ((MovieHeader) fixture.getObjects().get(0)).setLzma(true);
+        final byte[] data = encode(fixture);
+
+        final Movie fromBuffer = new Movie();
+        fromBuffer.decodeFromBuffer(ByteBuffer.wrap(data));
+        assertTrue(((MovieHeader) fromBuffer.getObjects().get(0)).isLzma());
+        assertArrayEquals(data, encode(fromBuffer));
+
+        final Movie fromStream = new Movie();
+        fromStream.decodeFromStream(new ByteArrayInputStream(data));
+        assertEquals(2 + FRAMES, fromStream.getObjects().size());
+        assertArrayEquals(data, encode(fromStream));
+    }
+
+    @Test
+    public void checkInterningSharesEqualObjects()
+            throws DataFormatException, IOException {
+        final byte[] data = encode(createMovie(false,
+                new Background(COLOR), ShowFrame.getInstance(),
+                new Background(new Color(1, 2, 3))));
+
+        fixture = new Movie();
+        fixture.setInterning(true);
+        fixture.decodeFromBuffer(ByteBuffer.wrap(data));
+
+        final List<MovieTag> objects = fixture.getObjects();
+        assertSame(((Background) objects.get(1)).getColor(),
+                ((Background) objects.get(3)).getColor());
+        assertArrayEquals(data, encode(fixture));
+    }
+}
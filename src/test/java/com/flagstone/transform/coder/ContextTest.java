@@ -0,0 +1,120 @@
+/*
+ * ContextTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.coder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public final class ContextTest {
+
+    private static final int OTHER = 100;
+
+    @Test
+    public void unsetVariableIsNotPresent() {
+        final Context fixture = new Context();
+        assertFalse(fixture.contains(Context.VERSION));
+        assertNull(fixture.get(Context.VERSION));
+        assertEquals(0, fixture.getInt(Context.VERSION));
+    }
+
+    @Test
+    public void putSetsVariable() {
+        final Context fixture = new Context();
+        fixture.put(Context.VERSION, 9);
+        assertTrue(fixture.contains(Context.VERSION));
+        assertEquals(Integer.valueOf(9), fixture.get(Context.VERSION));
+        assertEquals(9, fixture.getInt(Context.VERSION));
+    }
+
+    @Test
+    public void putZeroIsPresent() {
+        final Context fixture = new Context();
+        fixture.put(Context.TRANSPARENT, 0);
+        assertTrue(fixture.contains(Context.TRANSPARENT));
+        assertEquals(Integer.valueOf(0), fixture.get(Context.TRANSPARENT));
+    }
+
+    @Test
+    public void removeClearsVariable() {
+        final Context fixture = new Context();
+        fixture.put(Context.TYPE, 1);
+        fixture.remove(Context.TYPE);
+        assertFalse(fixture.contains(Context.TYPE));
+        assertEquals(0, fixture.getInt(Context.TYPE));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void integerMethodsUseSameVariables() {
+        final Context fixture = new Context();
+        fixture.put(Integer.valueOf(Context.VERSION), Integer.valueOf(9));
+        assertEquals(9, fixture.getInt(Context.VERSION));
+        assertTrue(fixture.contains(Integer.valueOf(Context.VERSION)));
+        assertEquals(Integer.valueOf(9),
+                fixture.get(Integer.valueOf(Context.VERSION)));
+
+        fixture.put(Integer.valueOf(Context.VERSION), null);
+        assertFalse(fixture.contains(Context.VERSION));
+
+        fixture.put(Context.TYPE, 1);
+        fixture.remove(Integer.valueOf(Context.TYPE));
+        assertNull(fixture.get(Context.TYPE));
+    }
+
+    @Test
+    public void putSetsOtherVariable() {
+        final Context fixture = new Context();
+        fixture.put(OTHER, 2);
+        assertTrue(fixture.contains(OTHER));
+        assertEquals(2, fixture.getInt(OTHER));
+        fixture.remove(OTHER);
+        assertNull(fixture.get(OTHER));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        final Context fixture = new Context();
+        fixture.put(Context.VERSION, 9);
+        fixture.put(OTHER, 2);
+        final Context copy = new Context(fixture);
+        copy.put(Context.VERSION, 10);
+        copy.remove(OTHER);
+        assertEquals(9, fixture.getInt(Context.VERSION));
+        assertEquals(2, fixture.getInt(OTHER));
+        assertEquals(10, copy.getInt(Context.VERSION));
+        assertFalse(copy.contains(OTHER));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * DecoderRegistryTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.coder;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.flagstone.transform.MovieTypes;
+
+public final class DecoderRegistryTest {
+
+    @Test
+    public void defaultPolicyIsDecode() {
+        final DecoderRegistry fixture = DecoderRegistry.getDefault();
+        assertEquals(DecodePolicy.DECODE,
+                fixture.getPolicy(MovieTypes.DEFINE_SHAPE));
+    }
+
+    @Test
+    public void setPolicyForType() {
+        final DecoderRegistry fixture = DecoderRegistry.getDefault();
+        fixture.setPolicy(MovieTypes.DEFINE_SHAPE, DecodePolicy.RAW);
+        assertEquals(DecodePolicy.RAW,
+                fixture.getPolicy(MovieTypes.DEFINE_SHAPE));
+        assertEquals(DecodePolicy.DECODE,
+                fixture.getPolicy(MovieTypes.DEFINE_SHAPE_2));
+    }
+
+    @Test
+    public void setPolicyForAllTypes() {
+        final DecoderRegistry fixture = DecoderRegistry.getDefault();
+        fixture.setPolicy(DecodePolicy.SKIP);
+        assertEquals(DecodePolicy.SKIP,
+                fixture.getPolicy(MovieTypes.DEFINE_SHAPE));
+    }
+
+    @Test
+    public void copyHasSeparatePolicies() {
+        final DecoderRegistry fixture = DecoderRegistry.getDefault();
+        fixture.setPolicy(MovieTypes.DEFINE_SHAPE, DecodePolicy.RAW);
+        final DecoderRegistry copy = fixture.copy();
+        copy.setPolicy(MovieTypes.DEFINE_SHAPE, DecodePolicy.SKIP);
+        assertEquals(DecodePolicy.RAW,
+                fixture.getPolicy(MovieTypes.DEFINE_SHAPE));
+    }
+
+    @Test
+    public void imageProfileSkipsShapes() {
+        final DecoderRegistry fixture = DecoderRegistry.getImageProfile();
+        assertEquals(DecodePolicy.SKIP,
+                fixture.getPolicy(MovieTypes.DEFINE_SHAPE));
+        assertEquals(DecodePolicy.DECODE,
+                fixture.getPolicy(MovieTypes.DEFINE_JPEG_IMAGE_2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setPolicyWithInvalidType() {
+        DecoderRegistry.getDefault().setPolicy(-1, DecodePolicy.RAW);
+    }
+}
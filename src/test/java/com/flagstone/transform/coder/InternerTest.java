@@ -0,0 +1,95 @@
+/*
+ * InternerTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.coder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.flagstone.transform.datatype.Bounds;
+import com.flagstone.transform.datatype.Color;
+
+public final class InternerTest {
+
+    @Test
+    public void equalObjectsAreShared() {
+        final Interner fixture = new Interner();
+        final Color color = new Color(1, 2, 3);
+        assertSame(color, fixture.intern(color));
+        assertSame(color, fixture.intern(new Color(1, 2, 3)));
+        assertEquals(1, fixture.size());
+    }
+
+    @Test
+    public void differentTypesAreNotShared() {
+        final Interner fixture = new Interner();
+        final Bounds bounds = new Bounds(1, 2, 3, 4);
+        fixture.intern(new Color(1, 2, 3));
+        assertSame(bounds, fixture.intern(bounds));
+        assertEquals(2, fixture.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedIsDiscarded() {
+        final Interner fixture = new Interner(2);
+        final Color first = new Color(1, 1, 1);
+        fixture.intern(first);
+        fixture.intern(new Color(2, 2, 2));
+        fixture.intern(first);
+        fixture.intern(new Color(3, 3, 3));
+        assertEquals(2, fixture.size());
+        assertSame(first, fixture.intern(new Color(1, 1, 1)));
+        final Color second = new Color(2, 2, 2);
+        assertSame(second, fixture.intern(second));
+    }
+
+    @Test
+    public void contextWithoutInterner() {
+        final Context context = new Context();
+        final Color color = new Color(1, 2, 3);
+        context.intern(color);
+        assertNotSame(color, context.intern(new Color(1, 2, 3)));
+    }
+
+    @Test
+    public void nullIsNotInterned() {
+        assertNull(new Interner().intern(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBePositive() {
+        new Interner(0);
+    }
+}
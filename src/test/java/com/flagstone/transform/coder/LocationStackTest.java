@@ -0,0 +1,90 @@
+/*
+ * LocationStackTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.coder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EmptyStackException;
+
+import org.junit.Test;
+
+public final class LocationStackTest {
+
+    @Test
+    public void pushReturnsLocation() {
+        final LocationStack fixture = new LocationStack();
+        assertEquals(1, fixture.push(1));
+    }
+
+    @Test
+    public void popReturnsLastLocation() {
+        final LocationStack fixture = new LocationStack();
+        fixture.push(1);
+        fixture.push(2);
+        assertEquals(2, fixture.pop());
+        assertEquals(1, fixture.pop());
+        assertTrue(fixture.isEmpty());
+    }
+
+    @Test
+    public void peekDoesNotRemoveLocation() {
+        final LocationStack fixture = new LocationStack();
+        fixture.push(1);
+        assertEquals(1, fixture.peek());
+        assertFalse(fixture.isEmpty());
+    }
+
+    @Test
+    public void stackGrows() {
+        final LocationStack fixture = new LocationStack();
+        for (int i = 0; i < 100; i++) {
+            fixture.push(i);
+        }
+        for (int i = 99; i >= 0; i--) {
+            assertEquals(i, fixture.pop());
+        }
+    }
+
+    @Test(expected = EmptyStackException.class)
+    public void popEmptyStack() {
+        final LocationStack fixture = new LocationStack();
+        fixture.pop();
+    }
+
+    @Test(expected = EmptyStackException.class)
+    public void peekEmptyStack() {
+        final LocationStack fixture = new LocationStack();
+        fixture.peek();
+    }
+}
@@ -33,9 +33,11 @@ package com.flagstone.transform.coder; // NOPMD - too many methods, etc.
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.EmptyStackException;
 
 import org.junit.Test;
@@ -284,6 +286,83 @@ public final class SWFDecoderTest {
         assertEquals(-1, fixture.readBits(4, true));
     }
 
+    @Test
+    public void readBitsAcrossLongBoundary() throws IOException {
+        final byte[] data = new byte[] {0, 0, 0, 0, 0, 0, 0, 3, (byte) 0xC0 };
+        final ByteArrayInputStream stream = new ByteArrayInputStream(data);
+        final SWFDecoder fixture = new SWFDecoder(stream);
+
+        fixture.readBits(31, false);
+        fixture.readBits(31, false);
+        assertEquals(-1, fixture.readBits(4, true));
+    }
+
+    @Test
+    public void readBitsAcrossBufferRefill() throws IOException {
+        final byte[] data = new byte[] {0, 0, 0, 0, 0, 0, 0, 0, 0, 3,
+                (byte) 0xC0 };
+        final ByteArrayInputStream stream = new ByteArrayInputStream(data);
+        final SWFDecoder fixture = new SWFDecoder(stream, 8);
+
+        fixture.readBits(30, false);
+        fixture.readBits(30, false);
+        fixture.readBits(18, false);
+        assertEquals(-1, fixture.readBits(4, true));
+    }
+
+    @Test
+    public void scanBitsDoesNotAdvance() throws IOException {
+        final byte[] data = new byte[] {3 };
+        final ByteArrayInputStream stream = new ByteArrayInputStream(data);
+        final SWFDecoder fixture = new SWFDecoder(stream);
+
+        fixture.readBits(6, false);
+        assertEquals(-1, fixture.scanBits(2, true));
+        assertEquals(3, fixture.readBits(2, false));
+    }
+
+    @Test
+    public void readBitFields() throws IOException {
+        final byte[] data = new byte[] {0x1B, (byte) 0xC1 };
+        final ByteArrayInputStream stream = new ByteArrayInputStream(data);
+        final SWFDecoder fixture = new SWFDecoder(stream);
+
+        fixture.readBits(2, false);
+        final int[] values = fixture.readBits(new int[4], 3, true);
+
+        assertArrayEquals(new int[] {3, 3, -2, 0}, values);
+        assertEquals(1, fixture.readBits(2, false));
+    }
+
+    @Test
+    public void readBitFieldsIntoSharedArray() throws IOException {
+        final byte[] data = new byte[] {0x1B, (byte) 0xC1, 0x1B, (byte) 0xC1};
+        final ByteArrayInputStream stream = new ByteArrayInputStream(data);
+        final SWFDecoder fixture = new SWFDecoder(stream);
+
+        fixture.readBits(2, false);
+        final int[] values = fixture.readFields(4, 3, true);
+        assertEquals(3, values[0]);
+        assertEquals(3, values[1]);
+        assertEquals(-2, values[2]);
+        assertEquals(0, values[3]);
+        assertEquals(1, fixture.readBits(2, false));
+
+        fixture.readBits(2, false);
+        assertSame(values, fixture.readFields(2, 3, false));
+        assertEquals(3, values[0]);
+        assertEquals(3, values[1]);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void readBitFieldsBeyondEndOfBuffer() throws IOException {
+        final byte[] data = new byte[] {3 };
+        final ByteArrayInputStream stream = new ByteArrayInputStream(data);
+        final SWFDecoder fixture = new SWFDecoder(stream);
+
+        fixture.readBits(new int[3], 3, false);
+    }
+
     @Test
     public void readZeroBits() throws IOException {
         final byte[] data = new byte[] {3, (byte) 0xC0 };
@@ -609,4 +688,58 @@ public final class SWFDecoderTest {
 
         assertEquals(0.0, fixture.readHalf(), 0.0);
     }
+
+    @Test
+    public void readStringWithSeveralRefills() throws IOException {
+        final byte[] data = new byte[] {0x61, 0x62, 0x63, 0x61, 0x62, 0x63,
+                0x00 };
+        final ByteArrayInputStream stream = new ByteArrayInputStream(data);
+        final SWFDecoder fixture = new SWFDecoder(stream, 2);
+
+        assertEquals(STRING + STRING, fixture.readString());
+    }
+
+    @Test
+    public void readFromHeapBuffer() throws IOException {
+        final byte[] data = new byte[] {0, 4, 3, 2, 1 };
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        buffer.position(1);
+        final SWFDecoder fixture = new SWFDecoder(buffer);
+
+        assertEquals(0, fixture.mark());
+        assertEquals(0x01020304, fixture.readInt());
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    public void readFromDirectBuffer() throws IOException {
+        final byte[] data = new byte[] {0x61, 0x62, 0x63, 0x00, 3 };
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.flip();
+        final SWFDecoder fixture = new SWFDecoder(buffer);
+
+        assertEquals(STRING, fixture.readString());
+        fixture.readBits(6, false);
+        assertEquals(3, fixture.readBits(2, false));
+    }
+
+    @Test
+    public void resetWithBuffer() throws IOException {
+        final byte[] data = new byte[] {1, 2, 3, 4 };
+        final SWFDecoder fixture = new SWFDecoder(ByteBuffer.wrap(data));
+
+        fixture.mark();
+        fixture.readBytes(new byte[3]);
+        fixture.reset();
+        assertEquals(1, fixture.readByte());
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void readBytesBeyondEndOfBuffer() throws IOException {
+        final byte[] data = new byte[] {1, 2, 3, 4 };
+        final SWFDecoder fixture = new SWFDecoder(ByteBuffer.wrap(data));
+
+        fixture.readBytes(new byte[5]);
+    }
 }
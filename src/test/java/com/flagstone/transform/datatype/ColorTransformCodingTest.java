@@ -177,6 +177,27 @@ public final class ColorTransformCodingTest extends AbstractCodingTest {
     }
 
 
+    @Test
+    public void checkSharedTransformIsEncodedForContext() throws IOException {
+        final ColorTransform object = new ColorTransform(1, 2, 3, 4);
+        final byte[] binary = new byte[] {(byte) 0x8C, (byte) 0xA6 };
+
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final SWFEncoder encoder = new SWFEncoder(stream);
+        final Context context = new Context();
+        final Context transparent = new Context();
+        transparent.put(Context.TRANSPARENT, 1);
+
+        final int length = object.prepareToEncode(context);
+        object.prepareToEncode(transparent);
+        object.encode(encoder, context);
+        encoder.flush();
+
+        assertEquals(CALCULATED_LENGTH, binary.length, length);
+
+        assertArrayEquals(NOT_ENCODED, binary, stream.toByteArray());
+    }
+
     @Test
     public void checkTransparentAddTermsAreEncoded() throws IOException {
         final ColorTransform object = new ColorTransform(1, 2, 3, 4);
@@ -72,6 +72,26 @@ public final class CoordTransformCodingTest extends AbstractCodingTest {
         assertArrayEquals(NOT_ENCODED, binary, stream.toByteArray());
     }
 
+    @Test
+    public void checkRepeatedEncodingIsUnchanged() throws IOException {
+        final CoordTransform object = CoordTransform.scale(1.0f, 2.0f);
+        final byte[] binary = new byte[] {(byte) 0xCC, (byte) 0x80, 0x00, 0x20,
+                0x00, 0x00, 0x40 };
+
+        for (int i = 0; i < 2; i++) {
+            final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            final SWFEncoder encoder = new SWFEncoder(stream);
+            final Context context = new Context();
+
+            final int length = object.prepareToEncode(context);
+            object.encode(encoder, context);
+            encoder.flush();
+
+            assertEquals(CALCULATED_LENGTH, binary.length, length);
+            assertArrayEquals(NOT_ENCODED, binary, stream.toByteArray());
+        }
+    }
+
     @Test
     public void checkScaleIsDecoded() throws IOException {
         final CoordTransform object = CoordTransform.scale(1.0f, 2.0f);
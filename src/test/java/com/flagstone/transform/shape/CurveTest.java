@@ -31,9 +31,11 @@
 
 package com.flagstone.transform.shape;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -45,6 +47,7 @@ import org.junit.Test;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
 import com.flagstone.transform.coder.SWFEncoder;
+import com.flagstone.transform.exception.IllegalArgumentRangeException;
 
 public final class CurveTest {
 
@@ -65,6 +68,32 @@ public final class CurveTest {
         assertNotSame(fixture, copy);
     }
 
+    @Test
+    public void checkRejectedPointsDoNotChangeEncoding()
+            throws IOException {
+        fixture = new Curve(0, 0, 1, 2);
+        encode(fixture);
+
+        try {
+            fixture.setPoints(1000, 1000, 1000, Shape.MAX_COORD + 1);
+            fail();
+        } catch (final IllegalArgumentRangeException e) {
+            assertEquals(0, fixture.getControlX());
+            assertEquals(2, fixture.getAnchorY());
+        }
+        assertArrayEquals(encode(new Curve(0, 0, 1, 2)), encode(fixture));
+    }
+
+    private byte[] encode(final Curve curve) throws IOException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final SWFEncoder encoder = new SWFEncoder(stream);
+        final Context context = new Context();
+        curve.prepareToEncode(context);
+        curve.encode(encoder, context);
+        encoder.flush();
+        return stream.toByteArray();
+    }
+
     @Test
     @Ignore
     public void encodeCoordTransform() throws IOException {
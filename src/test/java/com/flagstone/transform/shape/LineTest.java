@@ -31,9 +31,11 @@
 
 package com.flagstone.transform.shape;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -45,6 +47,7 @@ import org.junit.Test;
 import com.flagstone.transform.coder.Context;
 import com.flagstone.transform.coder.SWFDecoder;
 import com.flagstone.transform.coder.SWFEncoder;
+import com.flagstone.transform.exception.IllegalArgumentRangeException;
 
 public final class LineTest {
 
@@ -65,6 +68,42 @@ public final class LineTest {
         assertNotSame(fixture, copy);
     }
 
+    @Test
+    public void checkSizeIsRecalculatedWhenPointChanges() {
+        fixture = new Line(1, 2);
+        fixture.prepareToEncode(new Context());
+        fixture.setPoint(1000, 2000);
+
+        assertEquals(new Line(1000, 2000).prepareToEncode(new Context()),
+                fixture.prepareToEncode(new Context()));
+    }
+
+    @Test
+    public void checkRejectedPointDoesNotChangeEncoding()
+            throws IOException {
+        fixture = new Line(0, 2);
+        encode(fixture);
+
+        try {
+            fixture.setPoint(1, Shape.MAX_COORD + 1);
+            fail();
+        } catch (final IllegalArgumentRangeException e) {
+            assertEquals(0, fixture.getX());
+            assertEquals(2, fixture.getY());
+        }
+        assertArrayEquals(encode(new Line(0, 2)), encode(fixture));
+    }
+
+    private byte[] encode(final Line line) throws IOException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final SWFEncoder encoder = new SWFEncoder(stream);
+        final Context context = new Context();
+        line.prepareToEncode(context);
+        line.encode(encoder, context);
+        encoder.flush();
+        return stream.toByteArray();
+    }
+
     @Test
     @Ignore
     public void encodeCoordTransform() throws IOException {
@@ -0,0 +1,139 @@
+/*
+ * PackedShapeTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.shape;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.flagstone.transform.coder.Context;
+import com.flagstone.transform.coder.DecoderRegistry;
+import com.flagstone.transform.coder.SWFDecoder;
+import com.flagstone.transform.coder.SWFEncodeable;
+import com.flagstone.transform.coder.SWFEncoder;
+
+public final class PackedShapeTest {
+
+    private List<ShapeRecord> createRecords(final int coord) {
+        final List<ShapeRecord> list = new ArrayList<ShapeRecord>();
+        list.add(new ShapeStyle().setMove(1, 2).setFillStyle(1));
+        list.add(new Line(coord, 0));
+        list.add(new Line(0, coord));
+        list.add(new Line(-coord, 3));
+        list.add(new Curve(4, -5, coord, 7));
+        list.add(new ShapeStyle().setLineStyle(1));
+        list.add(new Line(-8, -9));
+        return list;
+    }
+
+    private Context createContext() {
+        final Context context = new Context();
+        context.setRegistry(DecoderRegistry.getDefault());
+        context.put(Context.FILL_SIZE, 1);
+        context.put(Context.LINE_SIZE, 1);
+        return context;
+    }
+
+    private byte[] encode(final SWFEncodeable object) throws IOException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final SWFEncoder encoder = new SWFEncoder(stream);
+        final Context context = createContext();
+        final int length = object.prepareToEncode(context);
+        object.encode(encoder, context);
+        encoder.flush();
+        assertEquals(length, stream.size());
+        return stream.toByteArray();
+    }
+
+    private PackedShape decode(final byte[] data) throws IOException {
+        return new PackedShape(new SWFDecoder(ByteBuffer.wrap(data)),
+                createContext());
+    }
+
+    @Test
+    public void checkEncodingMatchesShape() throws IOException {
+        final List<ShapeRecord> list = createRecords(10);
+        assertArrayEquals(encode(new Shape(list)),
+                encode(new PackedShape(list)));
+    }
+
+    @Test
+    public void checkDecodedRecordsMatch() throws IOException {
+        final List<ShapeRecord> list = createRecords(10);
+        final PackedShape fixture = decode(encode(new Shape(list)));
+        assertEquals(list.size(), fixture.size());
+        assertEquals(list.toString(), fixture.getObjects().toString());
+    }
+
+    @Test
+    public void checkLargeCoordinatesAreKept() throws IOException {
+        final List<ShapeRecord> list = createRecords(Shape.MAX_COORD);
+        final PackedShape fixture = decode(encode(new Shape(list)));
+        assertEquals(list.toString(), fixture.getObjects().toString());
+        assertArrayEquals(encode(new Shape(list)), encode(fixture));
+    }
+
+    @Test
+    public void checkRecordsCanBeReadInAnyOrder() {
+        final List<ShapeRecord> list = createRecords(10);
+        final List<ShapeRecord> view = new PackedShape(list).getObjects();
+        for (int i = list.size() - 1; i >= 0; i--) {
+            assertEquals(list.get(i).toString(), view.get(i).toString());
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void checkRecordsAreReadOnly() {
+        new PackedShape(createRecords(10)).getObjects().add(new Line(1, 1));
+    }
+
+    @Test
+    public void checkDecodedShapeCanBeChanged() throws IOException {
+        final List<ShapeRecord> list = createRecords(10);
+        final Shape fixture = new Shape(new SWFDecoder(ByteBuffer.wrap(
+                encode(new Shape(list)))), createContext());
+        final Shape copy = fixture.copy();
+
+        fixture.add(new Line(1, 1));
+        list.add(new Line(1, 1));
+        assertEquals(list.size(), fixture.getObjects().size());
+        assertArrayEquals(encode(new Shape(list)), encode(fixture));
+        assertEquals(list.size() - 1, copy.getObjects().size());
+    }
+}
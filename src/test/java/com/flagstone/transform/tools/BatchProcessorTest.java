@@ -0,0 +1,202 @@
+/*
+ * BatchProcessorTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.flagstone.transform.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.flagstone.transform.Movie;
+
+public final class BatchProcessorTest {
+
+    private static final File REFERENCE =
+        new File("src/test/resources/swf-reference");
+
+    private File createInvalidFile() throws IOException {
+        final File file = File.createTempFile("invalid", ".swf");
+        file.deleteOnExit();
+        final FileOutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(new byte[] {'F', 'W', 'S', 9, 100, 0, 0, 0, 1});
+        } finally {
+            stream.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void checkAllFilesAreProcessed() throws InterruptedException {
+        final List<File> files = BatchProcessor.listFiles(REFERENCE);
+        final AtomicInteger count = new AtomicInteger();
+        final BatchProcessor processor = new BatchProcessor();
+        processor.setThreads(4);
+        processor.setMemoryBudget(1);
+
+        final BatchReport report = processor.process(new MovieJob() {
+            public boolean process(final File file, final Movie movie) {
+                count.incrementAndGet();
+                return true;
+            }
+        }, files);
+
+        assertFalse(files.isEmpty());
+        assertEquals(files.size(), count.get());
+        assertEquals(files.size(), report.getFileCount());
+        assertEquals(0, report.getFailedCount());
+        assertTrue(report.getBytesWritten() > 0);
+    }
+
+    private File createDirectory() throws IOException {
+        final File directory = File.createTempFile("batch", "");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdir());
+        return directory;
+    }
+
+    private void copy(final File from, final File to) throws IOException {
+        assertTrue(to.getParentFile().mkdirs());
+        final FileInputStream in = new FileInputStream(from);
+        try {
+            final FileOutputStream out = new FileOutputStream(to);
+            try {
+                final byte[] buffer = new byte[4096];
+                int count;
+                while ((count = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, count);
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private void delete(final File file) {
+        final File[] files = file.listFiles();
+        if (files != null) {
+            for (final File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    @Test
+    public void checkOutputKeepsDirectories()
+            throws IOException, InterruptedException {
+        final File input = createDirectory();
+        final File output = createDirectory();
+        try {
+            final File source = new File(REFERENCE, "DefineShape.swf");
+            copy(source, new File(input, "a/movie.swf"));
+            copy(source, new File(input, "b/movie.swf"));
+
+            final File target = new File(output, "out");
+            final BatchProcessor processor = new BatchProcessor();
+            processor.setOutputDirectory(target);
+
+            final BatchReport report = processor.process(new MovieJob() {
+                public boolean process(final File file, final Movie movie) {
+                    return true;
+                }
+            }, BatchProcessor.listFiles(input));
+
+            assertEquals(0, report.getFailedCount());
+            assertTrue(new File(target, "a/movie.swf").isFile());
+            assertTrue(new File(target, "b/movie.swf").isFile());
+        } finally {
+            delete(input);
+            delete(output);
+        }
+    }
+
+    @Test
+    public void checkFailuresAreIsolated()
+            throws IOException, InterruptedException {
+        final File invalid = createInvalidFile();
+        final List<File> files = new ArrayList<File>();
+        files.add(invalid);
+        files.addAll(BatchProcessor.listFiles(REFERENCE));
+
+        final BatchReport report = new BatchProcessor().process(
+                new MovieJob() {
+                    public boolean process(final File file,
+                            final Movie movie) {
+                        return false;
+                    }
+                }, files);
+
+        assertEquals(files.size(), report.getFileCount());
+        assertEquals(1, report.getFailedCount());
+        assertTrue(report.getFailures().containsKey(invalid));
+        assertEquals(0, report.getBytesWritten());
+    }
+
+    @Test
+    public void checkErrorsAreRecordedAsFailures()
+            throws InterruptedException {
+        final List<File> files = BatchProcessor.listFiles(REFERENCE);
+
+        final BatchReport report = new BatchProcessor().process(
+                new MovieJob() {
+                    public boolean process(final File file,
+                            final Movie movie) {
+                        throw new OutOfMemoryError();
+                    }
+                }, files);
+
+        assertEquals(files.size(), report.getFileCount());
+        assertEquals(files.size(), report.getFailedCount());
+        assertTrue(report.getFailures().get(files.get(0))
+                instanceof OutOfMemoryError);
+    }
+
+    @Test
+    public void checkInvalidArgumentsAreRejected() {
+        final PrintStream err = new PrintStream(new ByteArrayOutputStream());
+        assertEquals(2, Batch.run(new String[] {"-unknown"}, err, err));
+        assertEquals(2, Batch.run(new String[0], err, err));
+    }
+}
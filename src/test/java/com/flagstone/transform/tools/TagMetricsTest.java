@@ -0,0 +1,225 @@
+/*
+ * TagMetricsTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DataFormatException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Test;
+
+import com.flagstone.transform.Background;
+import com.flagstone.transform.Movie;
+import com.flagstone.transform.MovieHeader;
+import com.flagstone.transform.MovieTypes;
+import com.flagstone.transform.Place2;
+import com.flagstone.transform.ShowFrame;
+import com.flagstone.transform.datatype.Bounds;
+import com.flagstone.transform.datatype.WebPalette;
+import com.flagstone.transform.fillstyle.FillStyle;
+import com.flagstone.transform.linestyle.LineStyle;
+import com.flagstone.transform.shape.DefineShape2;
+import com.flagstone.transform.shape.Line;
+import com.flagstone.transform.shape.Shape;
+
+public final class TagMetricsTest {
+
+    private static final int FRAMES = 3;
+    private static final int SHOW_FRAME_LENGTH = 2;
+    private static final int BACKGROUND_LENGTH = 5;
+    private static final int SHAPES = 2000;
+    private static final int LINES = 50;
+
+    private transient TagMetrics fixture;
+
+    private Movie createMovie() {
+        final MovieHeader header = new MovieHeader();
+        header.setFrameSize(new Bounds(0, 0, 8000, 4000));
+        header.setFrameRate(1.0f);
+
+        final Movie movie = new Movie();
+        movie.add(header);
+        movie.add(new Background(WebPalette.WHITE.color()));
+        for (int i = 0; i < FRAMES; i++) {
+            movie.add(ShowFrame.getInstance());
+        }
+        return movie;
+    }
+
+    private Movie createShapeMovie() {
+        final MovieHeader header = new MovieHeader();
+        header.setFrameSize(new Bounds(0, 0, 8000, 4000));
+        header.setFrameRate(1.0f);
+
+        final Movie movie = new Movie();
+        movie.add(header);
+        for (int i = 1; i <= SHAPES; i++) {
+            final Shape shape = new Shape();
+            for (int j = 0; j < LINES; j++) {
+                shape.add(new Line(i % LINES + j, j));
+            }
+            movie.add(new DefineShape2(i, new Bounds(0, 0, 1000, 1000),
+                    new ArrayList<FillStyle>(), new ArrayList<LineStyle>(),
+                    shape));
+            movie.add(Place2.show(i, i, 0, 0));
+            movie.add(ShowFrame.getInstance());
+        }
+        return movie;
+    }
+
+    private byte[] encode(final Movie movie)
+            throws IOException, DataFormatException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        movie.encodeToStream(out);
+        return out.toByteArray();
+    }
+
+    private TagMetrics decode(final byte[] data,
+            final ExecutorService executor)
+            throws IOException, DataFormatException {
+        final TagMetrics metrics = new TagMetrics();
+        final Movie movie = new Movie();
+        movie.setExecutor(executor);
+        movie.setListener(metrics);
+        movie.decodeFromStream(new ByteArrayInputStream(data));
+        return metrics;
+    }
+
+    private void checkStatistics(final TagMetrics metrics) {
+        final List<TagStatistics> list = metrics.getStatistics();
+        assertEquals(2, list.size());
+
+        final TagStatistics frames = list.get(0);
+        assertEquals(MovieTypes.SHOW_FRAME, frames.getType());
+        assertEquals("SHOW_FRAME", frames.getName());
+        assertEquals(FRAMES, frames.getDecodeCount());
+        assertEquals(FRAMES * SHOW_FRAME_LENGTH, frames.getDecodeBytes());
+
+        final TagStatistics background = list.get(1);
+        assertEquals(MovieTypes.SET_BACKGROUND_COLOR, background.getType());
+        assertEquals(1, background.getDecodeCount());
+        assertEquals(BACKGROUND_LENGTH, background.getDecodeBytes());
+    }
+
+    @Test
+    public void checkTagsAreCounted() throws IOException,
+            DataFormatException {
+        fixture = new TagMetrics();
+        final Movie movie = createMovie();
+        movie.setListener(fixture);
+        final byte[] data = encode(movie);
+
+        final TagStatistics frames =
+            fixture.getStatistics(MovieTypes.SHOW_FRAME);
+        assertEquals(FRAMES, frames.getPrepareCount());
+        assertEquals(FRAMES * SHOW_FRAME_LENGTH, frames.getPrepareBytes());
+        assertEquals(FRAMES, frames.getEncodeCount());
+        assertEquals(FRAMES * SHOW_FRAME_LENGTH, frames.getEncodeBytes());
+        assertEquals(0, frames.getDecodeCount());
+
+        fixture.reset();
+        assertNull(fixture.getStatistics(MovieTypes.SHOW_FRAME));
+
+        final Movie decoded = new Movie();
+        decoded.setListener(fixture);
+        decoded.decodeFromStream(new ByteArrayInputStream(data));
+        checkStatistics(fixture);
+    }
+
+    @Test
+    public void checkTagsAreCountedInParallel() throws IOException,
+            DataFormatException {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            fixture = new TagMetrics();
+            final Movie movie = createShapeMovie();
+            movie.setExecutor(executor);
+            movie.setListener(fixture);
+            final byte[] data = encode(movie);
+            assertEquals(SHAPES, fixture.getStatistics(
+                    MovieTypes.DEFINE_SHAPE_2).getEncodeCount());
+
+            final List<TagStatistics> expected =
+                decode(data, null).getStatistics();
+            final List<TagStatistics> actual =
+                decode(data, executor).getStatistics();
+
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getType(),
+                        actual.get(i).getType());
+                assertEquals(expected.get(i).getDecodeCount(),
+                        actual.get(i).getDecodeCount());
+                assertEquals(expected.get(i).getDecodeBytes(),
+                        actual.get(i).getDecodeBytes());
+            }
+            assertEquals(SHAPES, actual.get(0).getDecodeCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void checkStatisticsArePublished() throws IOException,
+            DataFormatException, JMException {
+        fixture = new TagMetrics();
+        final Movie movie = createMovie();
+        movie.setListener(fixture);
+        encode(movie);
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = fixture.register("test");
+        try {
+            final CompositeData[] list =
+                (CompositeData[]) server.getAttribute(name, "Statistics");
+            assertEquals(2, list.length);
+            assertEquals("SHOW_FRAME", list[0].get("name"));
+            assertEquals(Long.valueOf(FRAMES), list[0].get("encodeCount"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
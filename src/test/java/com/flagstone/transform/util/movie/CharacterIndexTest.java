@@ -0,0 +1,168 @@
+/*
+ * CharacterIndexTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.util.movie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flagstone.transform.Movie;
+import com.flagstone.transform.MovieHeader;
+import com.flagstone.transform.MovieTag;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.Place2;
+import com.flagstone.transform.ShowFrame;
+import com.flagstone.transform.coder.DecodePolicy;
+import com.flagstone.transform.coder.DecoderRegistry;
+import com.flagstone.transform.datatype.Bounds;
+import com.flagstone.transform.datatype.CoordTransform;
+import com.flagstone.transform.fillstyle.BitmapFill;
+import com.flagstone.transform.fillstyle.FillStyle;
+import com.flagstone.transform.image.DefineImage;
+import com.flagstone.transform.linestyle.LineStyle;
+import com.flagstone.transform.movieclip.DefineMovieClip;
+import com.flagstone.transform.shape.DefineShape;
+import com.flagstone.transform.shape.Line;
+import com.flagstone.transform.shape.Shape;
+
+public final class CharacterIndexTest {
+
+    private transient DefineImage image;
+    private transient DefineShape shape;
+    private transient DefineMovieClip clip;
+    private transient Place2 place;
+    private transient Movie movie;
+    private transient CharacterIndex fixture;
+
+    @Before
+    public void setUp() {
+        final List<FillStyle> fills = new ArrayList<FillStyle>();
+        fills.add(new BitmapFill(true, true, 1,
+                CoordTransform.translate(0, 0)));
+        final Shape outline = new Shape();
+        outline.add(new Line(100, 100));
+        final List<MovieTag> list = new ArrayList<MovieTag>();
+        list.add(Place2.show(2, 1, 0, 0));
+        list.add(ShowFrame.getInstance());
+
+        image = new DefineImage(1, 2, 2, 2, new byte[] {1, 2, 3, 4, 5, 6,
+                7, 8, 9, 10 });
+        shape = new DefineShape(2, new Bounds(0, 0, 100, 100), fills,
+                new ArrayList<LineStyle>(), outline);
+        clip = new DefineMovieClip(3, list);
+        place = Place2.show(3, 1, 0, 0);
+
+        movie = new Movie();
+        movie.add(image);
+        movie.add(shape);
+        movie.add(clip);
+        movie.add(place);
+        movie.add(ShowFrame.getInstance());
+    }
+
+    @Test
+    public void checkDefinitionsAreIndexed() {
+        fixture = new CharacterIndex(movie);
+
+        assertEquals(3, fixture.getIdentifiers().size());
+        assertSame(image, fixture.getDefinition(1));
+        assertSame(shape, fixture.getDefinition(2));
+        assertSame(clip, fixture.getDefinition(3));
+        assertNull(fixture.getDefinition(4));
+    }
+
+    @Test
+    public void checkReferencesAreIndexed() {
+        fixture = new CharacterIndex(movie);
+
+        assertTrue(fixture.getUsers(1).contains(shape));
+        assertTrue(fixture.getUsers(2).contains(clip));
+        assertTrue(fixture.getUsers(3).contains(place));
+        assertTrue(fixture.getDependencies(2).contains(1));
+        assertTrue(fixture.getDependencies(3).contains(2));
+        assertTrue(fixture.getDependencies(1).isEmpty());
+    }
+
+    @Test
+    public void checkIndexIsUpdated() {
+        fixture = new CharacterIndex(movie);
+
+        assertTrue(fixture.remove(place));
+        assertFalse(fixture.isUsed(3));
+        assertFalse(fixture.remove(place));
+
+        fixture.add(place);
+        assertEquals(1, fixture.getUsers(3).size());
+        fixture.add(place);
+        assertEquals(1, fixture.getUsers(3).size());
+    }
+
+    @Test
+    public void checkRetainedTagsAreNotModified()
+            throws DataFormatException, IOException {
+        final MovieHeader header = new MovieHeader();
+        header.setFrameSize(new Bounds(0, 0, 8000, 6000));
+        header.setFrameRate(12.0f);
+        movie.getObjects().add(0, header);
+
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        movie.encodeToStream(stream);
+
+        final DecoderRegistry registry = DecoderRegistry.getDefault();
+        registry.setPolicy(DecodePolicy.RETAIN);
+        final Movie decoded = new Movie();
+        decoded.setRegistry(registry);
+        decoded.decodeFromBuffer(ByteBuffer.wrap(stream.toByteArray()));
+
+        fixture = new CharacterIndex(decoded);
+        assertEquals(3, fixture.getIdentifiers().size());
+        assertTrue(fixture.getDependencies(2).contains(1));
+
+        for (final MovieTag tag : decoded.getObjects()) {
+            if (tag instanceof Passthrough) {
+                assertFalse(tag.toString(), ((Passthrough) tag).isModified());
+            }
+        }
+    }
+}
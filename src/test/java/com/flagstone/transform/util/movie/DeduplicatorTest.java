@@ -0,0 +1,128 @@
+/*
+ * DeduplicatorTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.util.movie;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.flagstone.transform.Export;
+import com.flagstone.transform.Movie;
+import com.flagstone.transform.MovieTag;
+import com.flagstone.transform.Place2;
+import com.flagstone.transform.ShowFrame;
+import com.flagstone.transform.datatype.Bounds;
+import com.flagstone.transform.datatype.CoordTransform;
+import com.flagstone.transform.fillstyle.BitmapFill;
+import com.flagstone.transform.fillstyle.FillStyle;
+import com.flagstone.transform.image.DefineImage;
+import com.flagstone.transform.linestyle.LineStyle;
+import com.flagstone.transform.movieclip.DefineMovieClip;
+import com.flagstone.transform.shape.DefineShape;
+import com.flagstone.transform.shape.Line;
+import com.flagstone.transform.shape.Shape;
+
+public final class DeduplicatorTest {
+
+    private static DefineImage image(final int uid) {
+        return new DefineImage(uid, 2, 2, 2, new byte[] {1, 2, 3, 4, 5, 6,
+                7, 8, 9, 10 });
+    }
+
+    private static DefineShape shape(final int uid, final int image) {
+        final List<FillStyle> fills = new ArrayList<FillStyle>();
+        fills.add(new BitmapFill(true, true, image,
+                CoordTransform.translate(0, 0)));
+        final Shape shape = new Shape();
+        shape.add(new Line(100, 100));
+        return new DefineShape(uid, new Bounds(0, 0, 100, 100), fills,
+                new ArrayList<LineStyle>(), shape);
+    }
+
+    @Test
+    public void checkDuplicatesAreRemoved() throws IOException {
+        final Movie movie = new Movie();
+        movie.add(image(1));
+        movie.add(image(2));
+        movie.add(shape(3, 1));
+        movie.add(shape(4, 2));
+        movie.add(Place2.show(3, 1, 0, 0));
+        movie.add(Place2.show(4, 2, 0, 0));
+        movie.add(ShowFrame.getInstance());
+
+        final Deduplicator deduplicator = new Deduplicator();
+
+        assertEquals(2, deduplicator.deduplicate(movie));
+        assertEquals(5, movie.getObjects().size());
+        assertEquals(1, ((DefineShape) movie.getObjects().get(1))
+                .getFillStyles().size());
+        assertEquals(1, ((BitmapFill) ((DefineShape) movie.getObjects()
+                .get(1)).getFillStyles().get(0)).getIdentifier());
+        assertEquals(3, ((Place2) movie.getObjects().get(3)).getIdentifier());
+        assertEquals(1, deduplicator.getTable().get(2));
+        assertEquals(3, deduplicator.getTable().get(4));
+    }
+
+    @Test
+    public void checkReferencesInMovieClipsAreChanged() throws IOException {
+        final List<MovieTag> list = new ArrayList<MovieTag>();
+        list.add(Place2.show(2, 1, 0, 0));
+        list.add(ShowFrame.getInstance());
+
+        final Movie movie = new Movie();
+        movie.add(shape(1, 0xFFFF));
+        movie.add(shape(2, 0xFFFF));
+        movie.add(new DefineMovieClip(3, list));
+
+        assertEquals(1, new Deduplicator().deduplicate(movie));
+        assertEquals(1, ((Place2) ((DefineMovieClip) movie.getObjects()
+                .get(1)).getObjects().get(0)).getIdentifier());
+    }
+
+    @Test
+    public void checkExportedDefinitionsAreKept() throws IOException {
+        final Export export = new Export();
+        export.add(2, "image");
+
+        final Movie movie = new Movie();
+        movie.add(image(1));
+        movie.add(image(2));
+        movie.add(export);
+
+        assertEquals(0, new Deduplicator().deduplicate(movie));
+        assertEquals(3, movie.getObjects().size());
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * MovieMergerTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.util.movie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.flagstone.transform.Background;
+import com.flagstone.transform.Movie;
+import com.flagstone.transform.MovieHeader;
+import com.flagstone.transform.Place2;
+import com.flagstone.transform.ShowFrame;
+import com.flagstone.transform.SymbolClass;
+import com.flagstone.transform.datatype.Bounds;
+import com.flagstone.transform.datatype.CoordTransform;
+import com.flagstone.transform.datatype.WebPalette;
+import com.flagstone.transform.fillstyle.BitmapFill;
+import com.flagstone.transform.fillstyle.FillStyle;
+import com.flagstone.transform.image.DefineImage;
+import com.flagstone.transform.linestyle.LineStyle;
+import com.flagstone.transform.movieclip.DefineMovieClip;
+import com.flagstone.transform.shape.DefineShape;
+import com.flagstone.transform.shape.Line;
+import com.flagstone.transform.shape.Shape;
+
+public final class MovieMergerTest {
+
+    private static Movie source() {
+        final List<FillStyle> fills = new ArrayList<FillStyle>();
+        fills.add(new BitmapFill(true, true, 1,
+                CoordTransform.translate(0, 0)));
+        final Shape shape = new Shape();
+        shape.add(new Line(100, 100));
+
+        // The main timeline has the identifier 0.
+        final Map<Integer, String> classes =
+            new LinkedHashMap<Integer, String>();
+        classes.put(0, "Main");
+        final SymbolClass symbols = new SymbolClass(classes);
+
+        final Movie movie = new Movie();
+        movie.add(new MovieHeader());
+        movie.add(new Background(WebPalette.WHITE.color()));
+        movie.add(new DefineImage(1, 2, 2, 2, new byte[] {1, 2, 3, 4, 5, 6,
+                7, 8, 9, 10 }));
+        movie.add(new DefineShape(2, new Bounds(0, 0, 100, 100), fills,
+                new ArrayList<LineStyle>(), shape));
+        movie.add(Place2.show(2, 1, 0, 0));
+        movie.add(symbols);
+        movie.add(ShowFrame.getInstance());
+        return movie;
+    }
+
+    @Test
+    public void checkDefinitionsAreRenumbered() {
+        final Movie movie = new Movie();
+        movie.add(new MovieHeader());
+        movie.add(new DefineImage(5, 2, 2, 2, new byte[] {1, 2, 3, 4, 5, 6,
+                7, 8, 9, 10 }));
+
+        final MovieMerger merger = new MovieMerger(movie);
+        final int clip = merger.merge(source());
+
+        assertEquals(6, clip);
+        assertEquals(7, merger.getTable().get(1));
+        assertEquals(8, merger.getTable().get(2));
+        assertEquals(6, movie.getObjects().size());
+        assertEquals(7, ((DefineImage) movie.getObjects().get(2))
+                .getIdentifier());
+
+        final DefineShape shape = (DefineShape) movie.getObjects().get(3);
+        assertEquals(8, shape.getIdentifier());
+        assertEquals(7, ((BitmapFill) shape.getFillStyles().get(0))
+                .getIdentifier());
+    }
+
+    @Test
+    public void checkUndefinedReferencesAreRenumbered() {
+        final Movie movie = new Movie();
+        movie.add(new MovieHeader());
+        movie.add(new DefineImage(3, 2, 2, 2, new byte[] {1, 2, 3, 4, 5, 6,
+                7, 8, 9, 10 }));
+
+        final Movie source = source();
+        source.add(Place2.show(3, 2, 0, 0));
+
+        final MovieMerger merger = new MovieMerger(movie);
+        merger.merge(source);
+
+        final DefineMovieClip timeline = (DefineMovieClip) movie.getObjects()
+                .get(movie.getObjects().size() - 1);
+        final int placed = ((Place2) timeline.getObjects().get(2))
+                .getIdentifier();
+        assertEquals(merger.getTable().get(3), placed);
+        assertTrue(placed != 3);
+    }
+
+    @Test
+    public void checkForwardReferencesAreRenumbered() {
+        final Movie source = new Movie();
+        source.add(new MovieHeader());
+        source.add(Place2.show(1, 1, 0, 0));
+        source.add(new DefineImage(1, 2, 2, 2, new byte[] {1, 2, 3, 4, 5, 6,
+                7, 8, 9, 10 }));
+        source.add(ShowFrame.getInstance());
+
+        final Movie movie = new Movie();
+        movie.add(new MovieHeader());
+        final MovieMerger merger = new MovieMerger(movie);
+        merger.merge(source);
+
+        final DefineImage image = (DefineImage) movie.getObjects().get(1);
+        final DefineMovieClip timeline = (DefineMovieClip) movie.getObjects()
+                .get(2);
+        assertEquals(image.getIdentifier(), ((Place2) timeline.getObjects()
+                .get(0)).getIdentifier());
+    }
+
+    @Test
+    public void checkTimelineIsAddedAsMovieClip() {
+        final Movie movie = new Movie();
+        movie.add(new MovieHeader());
+
+        final MovieMerger merger = new MovieMerger(movie);
+        merger.merge(source());
+        final int clip = merger.merge(source());
+
+        final DefineMovieClip timeline = (DefineMovieClip) movie.getObjects()
+                .get(movie.getObjects().size() - 1);
+        final SymbolClass symbols = (SymbolClass) movie.getObjects()
+                .get(movie.getObjects().size() - 2);
+
+        assertEquals(clip, timeline.getIdentifier());
+        assertEquals(2, timeline.getObjects().size());
+        assertEquals(merger.getTable().get(2), ((Place2) timeline
+                .getObjects().get(0)).getIdentifier());
+        assertTrue(symbols.getObjects().containsKey(clip));
+    }
+}
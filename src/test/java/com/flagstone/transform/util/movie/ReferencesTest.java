@@ -0,0 +1,170 @@
+/*
+ * ReferencesTest.java
+ * Transform
+ *
+ * Copyright (c) 2010 Flagstone Software Ltd. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of Flagstone Software Ltd. nor the names of its
+ *    contributors may be used to endorse or promote products derived from this
+ *    software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flagstone.transform.util.movie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+
+import org.junit.Test;
+
+import com.flagstone.transform.Movie;
+import com.flagstone.transform.MovieHeader;
+import com.flagstone.transform.MovieTag;
+import com.flagstone.transform.Passthrough;
+import com.flagstone.transform.ShowFrame;
+import com.flagstone.transform.coder.DecodePolicy;
+import com.flagstone.transform.coder.DecoderRegistry;
+import com.flagstone.transform.datatype.Bounds;
+import com.flagstone.transform.datatype.CoordTransform;
+import com.flagstone.transform.fillstyle.BitmapFill;
+import com.flagstone.transform.fillstyle.FillStyle;
+import com.flagstone.transform.linestyle.LineStyle;
+import com.flagstone.transform.shape.DefineShape;
+import com.flagstone.transform.shape.Line;
+import com.flagstone.transform.shape.Shape;
+
+public final class ReferencesTest {
+
+    private static final File REFERENCE =
+        new File("src/test/resources/swf-reference");
+
+    private static final ReferenceVisitor SAME = new ReferenceVisitor() {
+        public int visit(final int uid) {
+            return uid;
+        }
+    };
+
+    private static final ReferenceVisitor NEXT = new ReferenceVisitor() {
+        public int visit(final int uid) {
+            return uid + 1;
+        }
+    };
+
+    private transient Passthrough fixture;
+
+    private Movie decode(final Movie movie)
+            throws DataFormatException, IOException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        movie.encodeToStream(stream);
+        return decode(ByteBuffer.wrap(stream.toByteArray()));
+    }
+
+    private Movie decode(final ByteBuffer buffer)
+            throws DataFormatException, IOException {
+        final DecoderRegistry registry = DecoderRegistry.getDefault();
+        registry.setPolicy(DecodePolicy.RETAIN);
+        final Movie movie = new Movie();
+        movie.setRegistry(registry);
+        movie.decodeFromBuffer(buffer);
+        return movie;
+    }
+
+    private Movie createMovie() {
+        final MovieHeader header = new MovieHeader();
+        header.setFrameSize(new Bounds(0, 0, 8000, 6000));
+        header.setFrameRate(12.0f);
+
+        final List<FillStyle> fills = new ArrayList<FillStyle>();
+        fills.add(new BitmapFill(true, true, 1,
+                CoordTransform.translate(0, 0)));
+        final Shape outline = new Shape();
+        outline.add(new Line(100, 100));
+
+        final Movie movie = new Movie();
+        movie.add(header);
+        movie.add(new DefineShape(2, new Bounds(0, 0, 100, 100), fills,
+                new ArrayList<LineStyle>(), outline));
+        movie.add(ShowFrame.getInstance());
+        return movie;
+    }
+
+    @Test
+    public void checkVisitingKeepsEncodedData()
+            throws DataFormatException, IOException {
+        fixture = (Passthrough) decode(createMovie()).getObjects().get(1);
+        References.visit((MovieTag) fixture, SAME);
+        References.visitDefinitions((MovieTag) fixture, SAME);
+        assertFalse(fixture.isModified());
+    }
+
+    @Test
+    public void checkChangedReferenceDiscardsEncodedData()
+            throws DataFormatException, IOException {
+        fixture = (Passthrough) decode(createMovie()).getObjects().get(1);
+        References.visit((MovieTag) fixture, NEXT);
+        assertTrue(fixture.isModified());
+        assertEquals(2, ((BitmapFill) ((DefineShape) fixture).getFillStyles()
+                .get(0)).getIdentifier());
+    }
+
+    @Test
+    public void checkChangedIdentifierDiscardsEncodedData()
+            throws DataFormatException, IOException {
+        fixture = (Passthrough) decode(createMovie()).getObjects().get(1);
+        References.visitDefinitions((MovieTag) fixture, NEXT);
+        assertTrue(fixture.isModified());
+    }
+
+    @Test
+    public void checkVisitingReferenceMoviesKeepsEncodedData()
+            throws DataFormatException, IOException {
+        int count = 0;
+        for (final File file : REFERENCE.listFiles()) {
+            final Movie movie = new Movie();
+            final DecoderRegistry registry = DecoderRegistry.getDefault();
+            registry.setPolicy(DecodePolicy.RETAIN);
+            movie.setRegistry(registry);
+            movie.decodeFromFile(file);
+
+            for (final MovieTag tag : movie.getObjects()) {
+                if (tag instanceof Passthrough
+                        && !((Passthrough) tag).isModified()) {
+                    References.visit(tag, SAME);
+                    References.visitDefinitions(tag, SAME);
+                    assertFalse(file.getName(),
+                            ((Passthrough) tag).isModified());
+                    count++;
+                }
+            }
+        }
+        assertTrue(count > 0);
+    }
+}